@@ -21,6 +21,7 @@ package io.advantageous.qbit.admin;
 import io.advantageous.qbit.annotation.QueueCallback;
 import io.advantageous.qbit.annotation.QueueCallbackType;
 import io.advantageous.qbit.annotation.RequestMapping;
+import io.advantageous.qbit.annotation.RequestParam;
 import io.advantageous.qbit.meta.ContextMeta;
 import io.advantageous.qbit.meta.builder.ContextMetaBuilder;
 import io.advantageous.qbit.meta.swagger.MetaTransformerFromQbitMetaToSwagger;
@@ -29,6 +30,8 @@ import io.advantageous.qbit.reactive.Callback;
 import io.advantageous.qbit.reactive.Reactor;
 import io.advantageous.qbit.service.health.HealthServiceAsync;
 import io.advantageous.qbit.service.health.NodeHealthStat;
+import io.advantageous.qbit.trace.Span;
+import io.advantageous.qbit.trace.Tracing;
 
 import java.util.List;
 
@@ -40,6 +43,7 @@ public class Admin {
 
     private final ServiceEndpointInfo serviceEndpointInfo;
     private final Reactor reactor;
+    private final List<AdminJob> adminJobs;
 
 
     public Admin(final HealthServiceAsync healthService,
@@ -48,6 +52,7 @@ public class Admin {
                  final Reactor reactor) {
 
         this.reactor = reactor;
+        this.adminJobs = adminJobs;
         for (AdminJob adminJob : adminJobs) {
             reactor.addRepeatingTask(adminJob.every(), adminJob.timeUnit(),
                     adminJob.runnable());
@@ -100,6 +105,19 @@ public class Admin {
     }
 
 
+    /**
+     * Recent sampled spans, or the spans of one trace if traceId is passed.
+     */
+    @RequestMapping("/traces/")
+    public List<Span> traces(@RequestParam(value = "traceId", required = false) final String traceId) {
+
+        if (traceId == null || traceId.isEmpty()) {
+            return Tracing.recorder().spans();
+        }
+        return Tracing.recorder().trace(traceId);
+    }
+
+
     @QueueCallback({QueueCallbackType.IDLE, QueueCallbackType.EMPTY,
     QueueCallbackType.LIMIT})
     public void process() {
@@ -107,4 +125,10 @@ public class Admin {
     }
 
 
+    @QueueCallback(QueueCallbackType.SHUTDOWN)
+    public void shutdown() {
+        adminJobs.forEach(AdminJob::stop);
+    }
+
+
 }
@@ -7,10 +7,13 @@ import io.advantageous.qbit.config.PropertyResolver;
 import io.advantageous.qbit.http.server.HttpServer;
 import io.advantageous.qbit.http.server.HttpServerBuilder;
 import io.advantageous.qbit.meta.builder.ContextMetaBuilder;
+import io.advantageous.qbit.metrics.support.LocalStatsCollectorAsync;
+import io.advantageous.qbit.metrics.support.PrometheusWriter;
 import io.advantageous.qbit.reactive.Reactor;
 import io.advantageous.qbit.reactive.ReactorBuilder;
 import io.advantageous.qbit.server.EndpointServerBuilder;
 import io.advantageous.qbit.server.ServiceEndpointServer;
+import io.advantageous.qbit.service.ServiceProxyUtils;
 import io.advantageous.qbit.service.health.HealthServiceAsync;
 import io.advantageous.qbit.service.health.HealthServiceBuilder;
 import io.advantageous.qbit.service.stats.StatsCollector;
@@ -41,6 +44,10 @@ public class AdminBuilder {
     private HealthServiceAsync healthService;
     private HealthServiceBuilder healthServiceBuilder;
     private String htmlPageLocation = "/qbit/admin.html";
+    /** URI that Prometheus style scrapers pull metrics from. */
+    private String metricsUri = "/__admin/metrics";
+    /** Local stats collector that metrics are scraped from. */
+    private LocalStatsCollectorAsync localStatsCollector;
     private HttpServer httpServer;
     private HttpServerBuilder httpServerBuilder;
     private String webPageContents;
@@ -157,6 +164,7 @@ public class AdminBuilder {
         port = propertyResolver.getIntegerProperty("port", port);
         host = propertyResolver.getStringProperty("host", host);
         htmlPageLocation = propertyResolver.getStringProperty("htmlPageLocation", htmlPageLocation);
+        metricsUri = propertyResolver.getStringProperty("metricsUri", metricsUri);
     }
 
 
@@ -185,6 +193,29 @@ public class AdminBuilder {
     }
 
 
+    public String getMetricsUri() {
+        return metricsUri;
+    }
+
+    public AdminBuilder setMetricsUri(final String metricsUri) {
+        this.metricsUri = metricsUri;
+        return this;
+    }
+
+    public LocalStatsCollectorAsync getLocalStatsCollector() {
+        return localStatsCollector;
+    }
+
+    /**
+     * Sets the local stats collector, if set, the admin server exposes its stats at the metrics URI.
+     * @param localStatsCollector local stats collector
+     * @return this
+     */
+    public AdminBuilder setLocalStatsCollector(final LocalStatsCollectorAsync localStatsCollector) {
+        this.localStatsCollector = localStatsCollector;
+        return this;
+    }
+
     public AdminBuilder setWebCotentsSupplier(final Supplier<String> webPageContentsSupplier) {
         this.webPageContentsSupplier = webPageContentsSupplier;
         return this;
@@ -234,9 +265,19 @@ public class AdminBuilder {
                     .build();
 
             final Supplier<String> webPageContentsSupplier = getWebPageContentsSupplier();
+            final LocalStatsCollectorAsync localStatsCollector = getLocalStatsCollector();
 
 
             httpServer.setShouldContinueHttpRequest(httpRequest -> {
+
+                /* Stream the stats out to the scraper. */
+                if (localStatsCollector != null && httpRequest.getUri().equals(getMetricsUri())) {
+                    localStatsCollector.scrape(metrics ->
+                            httpRequest.getReceiver().response(200, PrometheusWriter.CONTENT_TYPE, metrics));
+                    ServiceProxyUtils.flushServiceProxy(localStatsCollector);
+                    return false;
+                }
+
                 /* If not the page uri we want to then,
                  just continue by returning true. */
                 if (!httpRequest.getUri().equals(getHtmlPageLocation())) {
@@ -6,4 +6,10 @@ public interface AdminJob {
     int every();
     TimeUnit timeUnit();
     Runnable runnable();
+
+    /**
+     * Called when the admin service shuts down.
+     */
+    default void stop() {
+    }
 }
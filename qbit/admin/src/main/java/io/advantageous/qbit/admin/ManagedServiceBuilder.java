@@ -32,6 +32,7 @@ import java.util.function.Supplier;
  *
  * If you use the admin builder, the port for the admin will be from the environment variable
  * QBIT_ADMIN_PORT. It can be overridden from system properties as well see AdminBuilder for more details.
+ * If local stats are enabled, the admin also exposes them for Prometheus style scraping at /__admin/metrics.
  *
  *
  * The main end point port will be read from the environment variable WEB_PORT and if not found then read from
@@ -74,6 +75,7 @@ public class ManagedServiceBuilder {
 
     /** Enables the collection of stats. */
     private boolean enableStats = true;
+    private boolean enableMethodStats;
 
     /** How often stats should be flushed. */
     private int sampleStatFlushRate = 5;
@@ -261,6 +263,9 @@ public class ManagedServiceBuilder {
             adminBuilder.setContextBuilder(this.getContextMetaBuilder());
             adminBuilder.setHealthService(getHealthService());
             adminBuilder.registerJavaVMStatsJob(getStatServiceBuilder().buildStatsCollector());
+            if (isEnableLocalStats()) {
+                adminBuilder.setLocalStatsCollector(getLocalStatsCollectorBuilder().build());
+            }
 
         }
         return adminBuilder;
@@ -547,6 +552,7 @@ public class ManagedServiceBuilder {
 
             serviceBuilder.registerStatsCollections(bindStatHealthName,
                     getStatServiceBuilder().buildStatsCollector(), getSampleStatFlushRate(), getCheckTimingEveryXCalls());
+            serviceBuilder.setMethodStats(isEnableMethodStats());
         }
 
         return serviceBuilder;
@@ -589,6 +595,23 @@ public class ManagedServiceBuilder {
     }
 
 
+    public boolean isEnableMethodStats() {
+        return enableMethodStats;
+    }
+
+    /**
+     * Records call counts, error counts and sampled call times for each service method.
+     * Off by default, only used if stats are enabled.
+     *
+     * @param enableMethodStats true to turn on per method stats
+     * @return this
+     */
+    public ManagedServiceBuilder setEnableMethodStats(boolean enableMethodStats) {
+        this.enableMethodStats = enableMethodStats;
+        return this;
+    }
+
+
     public int getSampleStatFlushRate() {
         return sampleStatFlushRate;
     }
@@ -1,16 +1,42 @@
 package io.advantageous.qbit.admin.jobs;
 
+import com.sun.management.GarbageCollectionNotificationInfo;
 import io.advantageous.qbit.service.ServiceProxyUtils;
 import io.advantageous.qbit.service.stats.StatsCollector;
-
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
 import java.lang.management.*;
+import java.lang.reflect.Method;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
-
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collects JVM runtime stats.
+ * <p>
+ * Besides memory, thread and GC counts, this reports CPU time and allocated bytes
+ * for each service queue thread, GC pause histograms (built from GC notifications instead of polling),
+ * direct and mapped buffer pool usage, and safepoint time when the JVM exposes it.
+ * </p>
+ */
 public class JavaStatsCollectorJob extends AdminJobBase {
 
+    /** Threads that run service queues start with this name, see BasicQueue. */
+    public static final String SERVICE_THREAD_NAME_PREFIX = "QueueListener ";
+
+    /** Upper bounds in milliseconds of the GC pause histogram buckets, the last bucket has no upper bound. */
+    private static final long[] PAUSE_BUCKETS_MS = {1, 5, 10, 50, 100, 500, 1_000, 5_000};
+
     private static class GCInfo {
         private final String gcName;
         private final String statName;
@@ -68,6 +94,69 @@ public class JavaStatsCollectorJob extends AdminJobBase {
         }
     }
 
+    /**
+     * GC pause histogram fed by GC notifications.
+     * Notifications come in on a JMX thread, so everything here is atomic and the job thread reads the deltas.
+     */
+    private static class GCPauseHistogram {
+        private final String statName;
+        private final AtomicLongArray buckets = new AtomicLongArray(PAUSE_BUCKETS_MS.length + 1);
+        private final AtomicLong maxPause = new AtomicLong();
+        private final long[] lastBuckets = new long[PAUSE_BUCKETS_MS.length + 1];
+
+        private GCPauseHistogram(final String gcName) {
+            statName = ".jvm.gc.collector." + gcName.replace(" ", ".").toLowerCase() + ".pause";
+        }
+
+        private void recordPause(final long duration) {
+            int index = 0;
+            while (index < PAUSE_BUCKETS_MS.length && duration > PAUSE_BUCKETS_MS[index]) {
+                index++;
+            }
+            buckets.incrementAndGet(index);
+
+            long max = maxPause.get();
+            while (duration > max && !maxPause.compareAndSet(max, duration)) {
+                max = maxPause.get();
+            }
+        }
+
+        private void report(final String prefix, final StatsCollector statsCollector) {
+            for (int index = 0; index < lastBuckets.length; index++) {
+                final long count = buckets.get(index);
+                final long delta = count - lastBuckets[index];
+                lastBuckets[index] = count;
+                if (delta > 0) {
+                    statsCollector.recordCount(prefix + statName + ".le." +
+                            (index < PAUSE_BUCKETS_MS.length ? Long.toString(PAUSE_BUCKETS_MS[index]) : "inf"), delta);
+                }
+            }
+
+            final long max = maxPause.getAndSet(0);
+            if (max > 0) {
+                statsCollector.recordTiming(prefix + statName + ".max", max);
+            }
+        }
+    }
+
+    /**
+     * Last CPU time and allocated bytes seen for a thread.
+     */
+    private static class ThreadStat {
+        private final String statName;
+        private final boolean serviceThread;
+        private long lastCpuTime;
+        private long lastAllocatedBytes;
+        private boolean seen;
+
+        private ThreadStat(final String threadName, final boolean serviceThread) {
+            this.serviceThread = serviceThread;
+            final String name = threadName.startsWith(SERVICE_THREAD_NAME_PREFIX) ?
+                    threadName.substring(SERVICE_THREAD_NAME_PREFIX.length()) : threadName;
+            statName = ".jvm.thread.service." + name.trim().replaceAll("[^A-Za-z0-9_\\-]+", ".").toLowerCase();
+        }
+    }
+
     static class JavaStatsCollectorRunnable implements Runnable {
 
 
@@ -81,18 +170,124 @@ public class JavaStatsCollectorJob extends AdminJobBase {
 
         private final Map<String, GCInfo> gcInfoMap;
 
+        private final Logger logger = LoggerFactory.getLogger(JavaStatsCollectorJob.class);
+        private final String threadNamePrefix;
+        private final List<BufferPoolMXBean> bufferPoolMXBeans;
+        private final Map<Long, ThreadStat> threadStatMap = new HashMap<>();
+        private final Map<String, GCPauseHistogram> gcPauseHistogramMap = new HashMap<>();
+        private final Map<NotificationEmitter, NotificationListener> gcListenerMap = new HashMap<>();
+        private final boolean threadCpuTimeEnabled;
+        /** Only set if the JVM supports per thread allocation counters. */
+        private final com.sun.management.ThreadMXBean allocationThreadMXBean;
+        /** HotSpot internal runtime bean, only set if it can be reached. */
+        private final Object hotspotRuntimeMBean;
+        private final Method safepointTimeMethod;
+        private final Method safepointCountMethod;
+        private long lastSafepointTime = -1;
+        private long lastSafepointCount = -1;
+
         JavaStatsCollectorRunnable(
                 final String prefix,
                 final StatsCollector statsCollector) {
+            this(prefix, statsCollector, SERVICE_THREAD_NAME_PREFIX);
+        }
+
+        JavaStatsCollectorRunnable(
+                final String prefix,
+                final StatsCollector statsCollector,
+                final String threadNamePrefix) {
 
             this.prefix = prefix;
+            this.threadNamePrefix = threadNamePrefix;
             memoryMXBean = ManagementFactory.getMemoryMXBean();
             operatingSystemMXBean = ManagementFactory.getOperatingSystemMXBean();
             threadMXBean = ManagementFactory.getThreadMXBean();
             runtimeMXBean = ManagementFactory.getRuntimeMXBean();
             garbageCollectorMXBeans = ManagementFactory.getGarbageCollectorMXBeans();
+            bufferPoolMXBeans = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class);
             this.statsCollector = statsCollector;
             gcInfoMap = new HashMap<>();
+
+            threadCpuTimeEnabled = threadMXBean.isThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled();
+            allocationThreadMXBean = allocationThreadMXBean(threadMXBean);
+
+            Object hotspotRuntime = null;
+            Method safepointTime = null;
+            Method safepointCount = null;
+            try {
+                final Method getHotspotRuntimeMBean = Class.forName("sun.management.ManagementFactoryHelper")
+                        .getMethod("getHotspotRuntimeMBean");
+                hotspotRuntime = getHotspotRuntimeMBean.invoke(null);
+                safepointTime = hotspotRuntime.getClass().getMethod("getTotalSafepointTime");
+                safepointCount = hotspotRuntime.getClass().getMethod("getSafepointCount");
+                safepointTime.setAccessible(true);
+                safepointCount.setAccessible(true);
+            } catch (Exception | LinkageError ex) {
+                logger.debug("Safepoint stats are not available on this JVM", ex);
+                hotspotRuntime = null;
+            }
+            hotspotRuntimeMBean = hotspotRuntime;
+            safepointTimeMethod = safepointTime;
+            safepointCountMethod = safepointCount;
+
+            registerGCNotifications();
+        }
+
+        private static com.sun.management.ThreadMXBean allocationThreadMXBean(final ThreadMXBean threadMXBean) {
+            try {
+                if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+                    final com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+                    if (sunThreadMXBean.isThreadAllocatedMemorySupported()
+                            && sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+                        return sunThreadMXBean;
+                    }
+                }
+            } catch (LinkageError ex) {
+                LoggerFactory.getLogger(JavaStatsCollectorJob.class)
+                        .debug("Thread allocation stats are not available on this JVM", ex);
+            }
+            return null;
+        }
+
+        private void registerGCNotifications() {
+            for (GarbageCollectorMXBean garbageCollectorMXBean : garbageCollectorMXBeans) {
+                if (!(garbageCollectorMXBean instanceof NotificationEmitter)) {
+                    continue;
+                }
+                final GCPauseHistogram histogram = new GCPauseHistogram(garbageCollectorMXBean.getName());
+                gcPauseHistogramMap.put(garbageCollectorMXBean.getName(), histogram);
+
+                final NotificationListener listener = (Notification notification, Object handback) -> {
+                    if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                        final GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from(
+                                (CompositeData) notification.getUserData());
+                        histogram.recordPause(info.getGcInfo().getDuration());
+                    }
+                };
+                try {
+                    ((NotificationEmitter) garbageCollectorMXBean).addNotificationListener(listener, null, null);
+                    gcListenerMap.put((NotificationEmitter) garbageCollectorMXBean, listener);
+                } catch (LinkageError ex) {
+                    logger.debug("GC notifications are not available on this JVM", ex);
+                    gcPauseHistogramMap.clear();
+                    stop();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Removes the GC notification listeners, the platform beans outlive the job.
+         */
+        void stop() {
+            gcListenerMap.forEach((emitter, listener) -> {
+                try {
+                    emitter.removeNotificationListener(listener);
+                } catch (ListenerNotFoundException ex) {
+                    logger.debug("GC notification listener was already removed", ex);
+                }
+            });
+            gcListenerMap.clear();
         }
 
         @Override
@@ -109,6 +304,10 @@ public class JavaStatsCollectorJob extends AdminJobBase {
             collectMemoryStats();
             collectThreadStats();
             collectGCStats();
+            collectGCPauseStats();
+            collectServiceThreadStats();
+            collectBufferPoolStats();
+            collectSafepointStats();
 
 
             ServiceProxyUtils.flushServiceProxy(statsCollector);
@@ -157,6 +356,129 @@ public class JavaStatsCollectorJob extends AdminJobBase {
             }
         }
 
+        private void collectGCPauseStats() {
+            gcPauseHistogramMap.values().forEach(histogram -> histogram.report(prefix, statsCollector));
+        }
+
+        /**
+         * Reports CPU time and allocated bytes since the last run for each service queue thread,
+         * and the allocated bytes of all threads as the allocation rate.
+         */
+        private void collectServiceThreadStats() {
+
+            if (!threadCpuTimeEnabled && allocationThreadMXBean == null) {
+                return;
+            }
+
+            final long[] threadIds = threadMXBean.getAllThreadIds();
+            final ThreadInfo[] threadInfos = threadMXBean.getThreadInfo(threadIds);
+            final long[] allocatedBytes = allocationThreadMXBean != null ?
+                    allocationThreadMXBean.getThreadAllocatedBytes(threadIds) : null;
+
+            long totalAllocated = 0;
+
+            for (int index = 0; index < threadIds.length; index++) {
+                final ThreadInfo threadInfo = threadInfos[index];
+                if (threadInfo == null) {
+                    continue;
+                }
+
+                final long threadId = threadIds[index];
+                ThreadStat threadStat = threadStatMap.get(threadId);
+                final boolean newThread = threadStat == null;
+                if (newThread) {
+                    threadStat = new ThreadStat(threadInfo.getThreadName(),
+                            threadInfo.getThreadName().startsWith(threadNamePrefix));
+                    threadStatMap.put(threadId, threadStat);
+                }
+                threadStat.seen = true;
+
+                /* The counters run from the thread's start, the first sample is only the baseline. */
+                if (newThread) {
+                    if (allocatedBytes != null && allocatedBytes[index] >= 0) {
+                        threadStat.lastAllocatedBytes = allocatedBytes[index];
+                    }
+                    if (threadCpuTimeEnabled && threadStat.serviceThread) {
+                        final long cpuTime = threadMXBean.getThreadCpuTime(threadId);
+                        if (cpuTime >= 0) {
+                            threadStat.lastCpuTime = cpuTime;
+                        }
+                    }
+                    continue;
+                }
+
+                if (allocatedBytes != null && allocatedBytes[index] >= 0) {
+                    final long delta = allocatedBytes[index] - threadStat.lastAllocatedBytes;
+                    threadStat.lastAllocatedBytes = allocatedBytes[index];
+                    totalAllocated += delta;
+                    if (threadStat.serviceThread && delta > 0) {
+                        statsCollector.recordCount(prefix + threadStat.statName + ".alloc.bytes", delta);
+                    }
+                }
+
+                if (threadCpuTimeEnabled && threadStat.serviceThread) {
+                    final long cpuTime = threadMXBean.getThreadCpuTime(threadId);
+                    if (cpuTime >= 0) {
+                        final long delta = cpuTime - threadStat.lastCpuTime;
+                        threadStat.lastCpuTime = cpuTime;
+                        if (delta > 0) {
+                            statsCollector.recordCount(prefix + threadStat.statName + ".cpu.time.micros",
+                                    delta / 1_000);
+                        }
+                    }
+                }
+            }
+
+            if (totalAllocated > 0) {
+                statsCollector.recordCount(prefix + ".jvm.alloc.bytes", totalAllocated);
+            }
+
+            /* Forget threads that are gone. */
+            final Iterator<ThreadStat> iterator = threadStatMap.values().iterator();
+            while (iterator.hasNext()) {
+                final ThreadStat threadStat = iterator.next();
+                if (!threadStat.seen) {
+                    iterator.remove();
+                }
+                threadStat.seen = false;
+            }
+        }
+
+        private void collectBufferPoolStats() {
+            for (BufferPoolMXBean bufferPoolMXBean : bufferPoolMXBeans) {
+                final String statName = prefix + ".jvm.buffer.pool." +
+                        bufferPoolMXBean.getName().replace(" ", ".").toLowerCase();
+                statsCollector.recordLevel(statName + ".count", bufferPoolMXBean.getCount());
+                statsCollector.recordLevel(statName + ".used", bufferPoolMXBean.getMemoryUsed());
+                statsCollector.recordLevel(statName + ".capacity", bufferPoolMXBean.getTotalCapacity());
+            }
+        }
+
+        private void collectSafepointStats() {
+            if (hotspotRuntimeMBean == null) {
+                return;
+            }
+            try {
+                final long safepointTime = (Long) safepointTimeMethod.invoke(hotspotRuntimeMBean);
+                final long safepointCount = (Long) safepointCountMethod.invoke(hotspotRuntimeMBean);
+
+                if (lastSafepointTime >= 0) {
+                    final long timeDelta = safepointTime - lastSafepointTime;
+                    final long countDelta = safepointCount - lastSafepointCount;
+                    if (countDelta > 0) {
+                        statsCollector.recordCount(prefix + ".jvm.safepoint.count", countDelta);
+                    }
+                    if (timeDelta > 0) {
+                        statsCollector.recordTiming(prefix + ".jvm.safepoint.time", timeDelta);
+                    }
+                }
+                lastSafepointTime = safepointTime;
+                lastSafepointCount = safepointCount;
+            } catch (Exception ex) {
+                logger.debug("Unable to read safepoint stats", ex);
+            }
+        }
+
         private void collectThreadStats() {
             statsCollector.recordLevel(prefix + ".jvm.thread.count", threadMXBean.getThreadCount());
             statsCollector.recordLevel(prefix + ".jvm.thread.peak.count", threadMXBean.getPeakThreadCount());
@@ -187,4 +509,18 @@ public class JavaStatsCollectorJob extends AdminJobBase {
 
         super(every, timeUnit, new JavaStatsCollectorRunnable(prefix, statsCollector));
     }
+
+    public JavaStatsCollectorJob(final int every,
+                                 final TimeUnit timeUnit,
+                                 final StatsCollector statsCollector,
+                                 final String prefix,
+                                 final String serviceThreadNamePrefix) {
+
+        super(every, timeUnit, new JavaStatsCollectorRunnable(prefix, statsCollector, serviceThreadNamePrefix));
+    }
+
+    @Override
+    public void stop() {
+        ((JavaStatsCollectorRunnable) runnable()).stop();
+    }
 }
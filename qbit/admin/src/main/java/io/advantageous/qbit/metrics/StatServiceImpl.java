@@ -25,18 +25,22 @@ import io.advantageous.qbit.queue.QueueCallBackHandler;
 import io.advantageous.qbit.service.ServiceProxyUtils;
 import io.advantageous.qbit.service.discovery.ServiceChangedEventChannel;
 import io.advantageous.qbit.service.discovery.ServiceDiscovery;
+import io.advantageous.qbit.service.stats.StatKeyRegistry;
 import io.advantageous.qbit.service.stats.Stats;
 import io.advantageous.qbit.util.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Arrays;
 
 
 /**
  * Stat Service Impl
+ * <p>
+ * Stat names are interned through a {@link StatKeyRegistry}, and the minute stats are kept in arrays indexed
+ * by the stat id. Once the registry is full, new stat names are recorded against the overflow series.
+ * </p>
  */
 @Service("statService")
 public class StatServiceImpl implements QueueCallBackHandler, ServiceChangedEventChannel {
@@ -46,12 +50,14 @@ public class StatServiceImpl implements QueueCallBackHandler, ServiceChangedEven
     private final String serviceId;
     private final ServiceDiscovery serviceDiscovery;
     private final int sizeOfMaps;
+    private final StatKeyRegistry statKeys;
     private final Logger logger = LoggerFactory.getLogger(StatServiceImpl.class);
     private final boolean debug = GlobalConstants.DEBUG || logger.isDebugEnabled();
     private final long timeToLiveCheckInterval;
-    private Map<String, MinuteStat> currentMinuteOfStatsMap;
-    private Map<String, MinuteStat> lastMinuteOfStatsMap;
+    private MinuteStat[] currentMinuteOfStats;
+    private MinuteStat[] lastMinuteOfStats;
     private long lastHealthCheck = 0;
+    private long lastDroppedCount;
     private long now;
     private long startMinute;
 
@@ -62,13 +68,15 @@ public class StatServiceImpl implements QueueCallBackHandler, ServiceChangedEven
                            final ServiceDiscovery serviceDiscovery,
                            final String serviceId,
                            final int numStats,
-                           final long timeToLiveCheckInterval) {
+                           final long timeToLiveCheckInterval,
+                           final StatKeyRegistry statKeys) {
 
         this.serviceId = serviceId;
         this.serviceDiscovery = serviceDiscovery;
         this.recorder = recorder;
-        this.currentMinuteOfStatsMap = new ConcurrentHashMap<>(numStats);
-        this.lastMinuteOfStatsMap = new ConcurrentHashMap<>(numStats);
+        this.currentMinuteOfStats = new MinuteStat[numStats];
+        this.lastMinuteOfStats = new MinuteStat[numStats];
+        this.statKeys = statKeys;
         this.timer = timer;
         this.sizeOfMaps = numStats;
         now = timer.now();
@@ -80,6 +88,18 @@ public class StatServiceImpl implements QueueCallBackHandler, ServiceChangedEven
     }
 
 
+    public StatServiceImpl(final StatRecorder recorder,
+                           final StatReplicator replica,
+                           final Timer timer,
+                           final ServiceDiscovery serviceDiscovery,
+                           final String serviceId,
+                           final int numStats,
+                           final long timeToLiveCheckInterval) {
+        this(recorder, replica, timer, serviceDiscovery, serviceId, numStats, timeToLiveCheckInterval,
+                new StatKeyRegistry());
+    }
+
+
     public void recordCount(String name, long count) {
         recordCountWithTime(name, count, now);
     }
@@ -104,69 +124,72 @@ public class StatServiceImpl implements QueueCallBackHandler, ServiceChangedEven
     }
 
     public Stats statsForLastSeconds(String name, int secondCount) {
-        return oneMinuteOfStats(name).statsForLastSeconds(now, secondCount);
+        return statsFor(name).statsForLastSeconds(now, secondCount);
     }
 
     public long averageLastLevel(String name, int secondCount) {
-        return oneMinuteOfStats(name).averageLastLevel(now, secondCount);
+        return statsFor(name).averageLastLevel(now, secondCount);
     }
 
     public long currentMinuteCount(String name) {
-        return oneMinuteOfStats(name).getTotalCount();
+        return statsFor(name).getTotalCount();
     }
 
     public long lastTenSecondCount(String name) {
-        return oneMinuteOfStats(name).countLastTenSeconds(now);
+        return statsFor(name).countLastTenSeconds(now);
     }
 
     public long lastFiveSecondCount(String name) {
-        return oneMinuteOfStats(name).countLastFiveSeconds(now);
+        return statsFor(name).countLastFiveSeconds(now);
     }
 
     public long lastNSecondsCount(String name, int secondCount) {
-        return oneMinuteOfStats(name).countLastSeconds(now, secondCount);
+        return statsFor(name).countLastSeconds(now, secondCount);
     }
 
     public long lastNSecondsCountExact(String name, int secondCount) {
-        long count = oneMinuteOfStats(name).countLastSeconds(now, secondCount);
-        long count2 = lastOneMinuteOfStats(name).countLastSeconds(now, secondCount);
+        long count = statsFor(name).countLastSeconds(now, secondCount);
+        long count2 = lastStatsFor(name).countLastSeconds(now, secondCount);
         return count + count2;
     }
 
     public long lastTenSecondCountExact(String name) {
 
-        return oneMinuteOfStats(name).countLastTenSeconds(now) +
-                lastOneMinuteOfStats(name).countLastTenSeconds(now);
+        return statsFor(name).countLastTenSeconds(now) +
+                lastStatsFor(name).countLastTenSeconds(now);
     }
 
     public long lastFiveSecondCountExact(String name) {
-        return oneMinuteOfStats(name).countLastFiveSeconds(now) +
-                lastOneMinuteOfStats(name).countLastTenSeconds(now);
+        return statsFor(name).countLastFiveSeconds(now) +
+                lastStatsFor(name).countLastTenSeconds(now);
 
     }
 
     public long currentSecondCount(String name) {
-        return oneMinuteOfStats(name).countThisSecond(now);
+        return statsFor(name).countThisSecond(now);
     }
 
     public long lastSecondCount(String name) {
-        return oneMinuteOfStats(name).countLastSecond(now);
+        return statsFor(name).countLastSecond(now);
     }
 
     public void recordCountWithTime(String name, long count, long now) {
-        oneMinuteOfStats(name).changeBy(count, now);
-        replica.replicateCount(name, count, now);
+        final int id = statKeys.intern(name);
+        oneMinuteOfStats(id).changeBy(count, now);
+        replica.replicateCount(statKeys.name(id), count, now);
     }
 
     public void recordTimingWithTime(String name, long duration, long now) {
-        oneMinuteOfStats(name).recordLevel(duration, now);
-        replica.replicateTiming(name, duration, now);
+        final int id = statKeys.intern(name);
+        oneMinuteOfStats(id).recordLevel(duration, now);
+        replica.replicateTiming(statKeys.name(id), duration, now);
     }
 
 
     public void recordLevelWithTime(String name, long level, long now) {
-        oneMinuteOfStats(name).recordLevel(level, now);
-        replica.replicateLevel(name, level, now);
+        final int id = statKeys.intern(name);
+        oneMinuteOfStats(id).recordLevel(level, now);
+        replica.replicateLevel(statKeys.name(id), level, now);
     }
 
 
@@ -202,19 +225,42 @@ public class StatServiceImpl implements QueueCallBackHandler, ServiceChangedEven
     }
 
     private MinuteStat oneMinuteOfStats(String name) {
-        MinuteStat oneMinuteOfStats = this.currentMinuteOfStatsMap.get(name);
+        return oneMinuteOfStats(statKeys.intern(name));
+    }
+
+    private MinuteStat oneMinuteOfStats(int id) {
+        if (id >= currentMinuteOfStats.length) {
+            currentMinuteOfStats = Arrays.copyOf(currentMinuteOfStats, Math.max(id + 1, currentMinuteOfStats.length * 2));
+        }
+        MinuteStat oneMinuteOfStats = this.currentMinuteOfStats[id];
         if (oneMinuteOfStats == null) {
-            oneMinuteOfStats = new MinuteStat(now, name);
-            this.currentMinuteOfStatsMap.put(name, oneMinuteOfStats);
+            oneMinuteOfStats = new MinuteStat(now, statKeys.name(id));
+            this.currentMinuteOfStats[id] = oneMinuteOfStats;
         }
         return oneMinuteOfStats;
     }
 
-    private MinuteStat lastOneMinuteOfStats(String name) {
-        MinuteStat oneMinuteOfStats = this.lastMinuteOfStatsMap.get(name);
+    /**
+     * Stats to read for a name, looking the name up does not register it.
+     */
+    private MinuteStat statsFor(String name) {
+        final int id = statKeys.lookup(name);
+        return id == StatKeyRegistry.NOT_FOUND ? new MinuteStat(now, name) : oneMinuteOfStats(id);
+    }
+
+    private MinuteStat lastStatsFor(String name) {
+        final int id = statKeys.lookup(name);
+        return id == StatKeyRegistry.NOT_FOUND ? new MinuteStat(now, name) : lastOneMinuteOfStats(id);
+    }
+
+    private MinuteStat lastOneMinuteOfStats(int id) {
+        if (id >= lastMinuteOfStats.length) {
+            lastMinuteOfStats = Arrays.copyOf(lastMinuteOfStats, Math.max(id + 1, lastMinuteOfStats.length * 2));
+        }
+        MinuteStat oneMinuteOfStats = this.lastMinuteOfStats[id];
         if (oneMinuteOfStats == null) {
-            oneMinuteOfStats = new MinuteStat(now, name);
-            this.lastMinuteOfStatsMap.put(name, oneMinuteOfStats);
+            oneMinuteOfStats = new MinuteStat(now, statKeys.name(id));
+            this.lastMinuteOfStats[id] = oneMinuteOfStats;
         }
         return oneMinuteOfStats;
     }
@@ -266,16 +312,33 @@ public class StatServiceImpl implements QueueCallBackHandler, ServiceChangedEven
             if (debug) logger.debug("One minute of stats");
             startMinute = now;
 
-            final ArrayList<MinuteStat> stats = new ArrayList<>(this.currentMinuteOfStatsMap.values());
+            reportDroppedRecords();
+
+            final ArrayList<MinuteStat> stats = new ArrayList<>(statKeys.size());
+            for (MinuteStat minuteStat : this.currentMinuteOfStats) {
+                if (minuteStat != null) {
+                    stats.add(minuteStat);
+                }
+            }
             this.recorder.record(stats);
-            this.lastMinuteOfStatsMap = currentMinuteOfStatsMap;
-            this.currentMinuteOfStatsMap = new ConcurrentHashMap<>(sizeOfMaps);
+            this.lastMinuteOfStats = currentMinuteOfStats;
+            this.currentMinuteOfStats = new MinuteStat[Math.max(sizeOfMaps, statKeys.size())];
+        }
+    }
+
+    private void reportDroppedRecords() {
+        final long droppedCount = statKeys.droppedCount();
+        if (droppedCount != lastDroppedCount) {
+            logger.warn("Stat service dropped {} stat records into {}, examples {}",
+                    droppedCount - lastDroppedCount, statKeys.overflowName(), statKeys.droppedSamples());
+            lastDroppedCount = droppedCount;
+            recordLevelWithTime(StatKeyRegistry.DROPPED_RECORDS_NAME, droppedCount, now);
         }
     }
 
     public long lastMinuteCount(String name) {
 
-        return lastOneMinuteOfStats(name).getTotalCount();
+        return lastStatsFor(name).getTotalCount();
     }
 
     @Override
@@ -1,12 +1,18 @@
 package io.advantageous.qbit.metrics.support;
 
+import io.advantageous.boon.primitive.ByteBuf;
 import io.advantageous.qbit.metrics.StatReplicator;
 import io.advantageous.qbit.queue.QueueCallBackHandler;
 import io.advantageous.qbit.reactive.Reactor;
 import io.advantageous.qbit.reactive.ReactorBuilder;
+import io.advantageous.qbit.service.stats.StatKeyRegistry;
 import io.advantageous.qbit.service.stats.StatList;
 import io.advantageous.qbit.util.Timer;
 
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
@@ -17,13 +23,26 @@ public class LocalStatsCollector implements StatReplicator, QueueCallBackHandler
 
     private final Reactor reactor;
     private final ConcurrentHashMap<String, Metric> statsMap = new ConcurrentHashMap<>();
+    private final StatKeyRegistry statKeys;
 
+    /** Reused between scrapes, only touched from the collector's queue thread. */
+    private final ByteBuf scrapeBuffer = ByteBuf.create(4096);
+    private final PrometheusWriter prometheusWriter = new PrometheusWriter(scrapeBuffer);
+    private final MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private final List<GarbageCollectorMXBean> garbageCollectorMXBeans = ManagementFactory.getGarbageCollectorMXBeans();
 
-    public LocalStatsCollector(final int seconds, final Timer timer) {
+
+    public LocalStatsCollector(final int seconds, final Timer timer, final StatKeyRegistry statKeys) {
+        this.statKeys = statKeys;
         reactor = ReactorBuilder.reactorBuilder().setTimer(timer).build();
         reactor.addRepeatingTask(seconds, TimeUnit.SECONDS, this::packStat);
     }
 
+    public LocalStatsCollector(final int seconds, final Timer timer) {
+        this(seconds, timer, new StatKeyRegistry());
+    }
+
 
 
     enum MetricType {
@@ -34,6 +53,10 @@ public class LocalStatsCollector implements StatReplicator, QueueCallBackHandler
 
         final StatList stats;
         long value;
+        /** Running total of counts or timings, never reset so it can be scraped. */
+        long total;
+        /** Running number of timings recorded. */
+        long samples;
         final String name;
         final MetricType type;
 
@@ -65,17 +88,30 @@ public class LocalStatsCollector implements StatReplicator, QueueCallBackHandler
     }
 
 
-    @Override
-    public void replicateCount(String name, long count, long time) {
-
+    /**
+     * Looks up the metric, only new names go through the stat key registry.
+     * If the registry is full, the overflow metric is returned.
+     */
+    private Metric metric(final String name, final MetricType type) {
         Metric metric = statsMap.get(name);
         if (metric == null) {
-            metric = Metric.count(name);
-            statsMap.put(name, metric);
-
+            final String statName = statKeys.internName(name);
+            metric = statsMap.get(statName);
+            if (metric == null) {
+                metric = new Metric(statName, type);
+                statsMap.put(statName, metric);
+            }
         }
+        return metric;
+    }
+
+    @Override
+    public void replicateCount(String name, long count, long time) {
+
+        final Metric metric = metric(name, MetricType.COUNT);
 
         metric.value += count;
+        metric.total += count;
 
     }
 
@@ -83,12 +119,7 @@ public class LocalStatsCollector implements StatReplicator, QueueCallBackHandler
     public void replicateLevel(String name, long level, long time) {
 
 
-        Metric metric = statsMap.get(name);
-        if (metric == null) {
-            metric = Metric.level(name);
-            statsMap.put(name, metric);
-
-        }
+        final Metric metric = metric(name, MetricType.LEVEL);
 
         metric.value = level;
         metric.stats.add(level);
@@ -98,14 +129,12 @@ public class LocalStatsCollector implements StatReplicator, QueueCallBackHandler
     @Override
     public void replicateTiming(String name, long timing, long time) {
 
-        Metric metric = statsMap.get(name);
-        if (metric == null) {
-            metric = Metric.timing(name);
-            statsMap.put(name, metric);
-        }
+        final Metric metric = metric(name, MetricType.TIMING);
 
         metric.stats.add(timing);
         metric.value = timing;
+        metric.total += timing;
+        metric.samples++;
 
 
     }
@@ -172,13 +201,78 @@ public class LocalStatsCollector implements StatReplicator, QueueCallBackHandler
                 .forEach(entry -> collectCount(entry.getValue(), metricsCountMap));
 
 
-        entries.stream().filter(entry -> entry.getValue().type==MetricType.LEVEL && entry.getValue().value != 0)
+        entries.stream().filter(entry -> entry.getValue().type==MetricType.LEVEL && entry.getValue().value != 0
+                && !entry.getKey().equals(StatKeyRegistry.DROPPED_RECORDS_NAME))
                 .forEach(entry -> collectLevel(entry.getValue(), metricsLevelMap));
 
+        final long droppedCount = droppedCount();
+        if (droppedCount > 0) {
+            metricsLevelMap.put(StatKeyRegistry.DROPPED_RECORDS_NAME, droppedCount);
+        }
+
         return metricMap;
 
     }
 
+    /**
+     * Writes every series in the Prometheus text format along with a few JVM gauges.
+     * Unlike {@link #collect()} this does not reset counts, counters and timing totals keep running.
+     *
+     * @return UTF-8 text exposition
+     */
+    public byte[] scrape() {
+
+        for (Metric metric : statsMap.values()) {
+            if (metric.name.equals(StatKeyRegistry.DROPPED_RECORDS_NAME)) {
+                continue;
+            }
+            switch (metric.type) {
+                case COUNT:
+                    prometheusWriter.counter(metric.name, metric.total);
+                    break;
+                case LEVEL:
+                    prometheusWriter.gauge(metric.name, metric.value);
+                    break;
+                case TIMING:
+                    prometheusWriter.summary(metric.name, metric.total, metric.samples, metric.stats);
+                    break;
+            }
+        }
+
+        prometheusWriter.counter(StatKeyRegistry.DROPPED_RECORDS_NAME, droppedCount());
+        scrapeJvm();
+
+        final byte[] bytes = scrapeBuffer.toBytes();
+        scrapeBuffer.readForRecycle();
+        return bytes;
+    }
+
+    /**
+     * Series dropped here plus the ones the stat service reported as dropped before they got here.
+     * Both are running totals, so this is reported once, as a counter.
+     */
+    private long droppedCount() {
+        final Metric upstream = statsMap.get(StatKeyRegistry.DROPPED_RECORDS_NAME);
+        return statKeys.droppedCount() + (upstream == null ? 0 : upstream.value);
+    }
+
+    private void scrapeJvm() {
+        prometheusWriter.gauge("jvm_memory_heap_used_bytes", memoryMXBean.getHeapMemoryUsage().getUsed());
+        prometheusWriter.gauge("jvm_memory_heap_max_bytes", memoryMXBean.getHeapMemoryUsage().getMax());
+        prometheusWriter.gauge("jvm_memory_non_heap_used_bytes", memoryMXBean.getNonHeapMemoryUsage().getUsed());
+        prometheusWriter.gauge("jvm_threads_live", threadMXBean.getThreadCount());
+        prometheusWriter.gauge("jvm_threads_daemon", threadMXBean.getDaemonThreadCount());
+
+        long collectionCount = 0;
+        long collectionTime = 0;
+        for (GarbageCollectorMXBean garbageCollectorMXBean : garbageCollectorMXBeans) {
+            collectionCount += Math.max(0, garbageCollectorMXBean.getCollectionCount());
+            collectionTime += Math.max(0, garbageCollectorMXBean.getCollectionTime());
+        }
+        prometheusWriter.counter("jvm_gc_collection", collectionCount);
+        prometheusWriter.counter("jvm_gc_collection_time_ms", collectionTime);
+    }
+
     private void collectCount(final Metric metric, final  Map<String, Number> metricsCountMap) {
         metricsCountMap.put(metric.name, metric.value);
         metric.value = 0;
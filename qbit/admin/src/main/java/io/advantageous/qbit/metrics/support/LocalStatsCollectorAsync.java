@@ -1,10 +1,17 @@
 package io.advantageous.qbit.metrics.support;
 
 import io.advantageous.qbit.metrics.StatReplicator;
+import io.advantageous.qbit.reactive.Callback;
 
 import io.advantageous.qbit.service.stats.StatCollection;
 
 
 public interface LocalStatsCollectorAsync extends StatReplicator, StatCollection {
 
+    /**
+     * Scrape every series in the Prometheus text format.
+     *
+     * @param callback receives the UTF-8 encoded text
+     */
+    void scrape(Callback<byte[]> callback);
 }
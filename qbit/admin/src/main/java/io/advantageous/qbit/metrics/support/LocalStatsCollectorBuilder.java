@@ -2,6 +2,7 @@ package io.advantageous.qbit.metrics.support;
 
 import io.advantageous.qbit.service.ServiceBuilder;
 import io.advantageous.qbit.service.ServiceQueue;
+import io.advantageous.qbit.service.stats.StatKeyRegistry;
 import io.advantageous.qbit.util.Timer;
 
 import java.util.concurrent.TimeUnit;
@@ -14,6 +15,7 @@ public class LocalStatsCollectorBuilder {
     private ServiceBuilder serviceBuilder;
     private ServiceQueue serviceQueue;
     private Timer timer;
+    private StatKeyRegistry statKeyRegistry;
 
 
     public static LocalStatsCollectorBuilder localStatsCollectorBuilder() {
@@ -32,9 +34,22 @@ public class LocalStatsCollectorBuilder {
         return this;
     }
 
+    public StatKeyRegistry getStatKeyRegistry() {
+        if (statKeyRegistry == null) {
+            statKeyRegistry = new StatKeyRegistry();
+        }
+        return statKeyRegistry;
+    }
+
+    public LocalStatsCollectorBuilder setStatKeyRegistry(StatKeyRegistry statKeyRegistry) {
+        this.statKeyRegistry = statKeyRegistry;
+        return this;
+    }
+
     public LocalStatsCollector getLocalStatsCollector() {
         if (localStatsCollector == null) {
-            localStatsCollector = new LocalStatsCollector(getCalculateEveryNSeconds(), getTimer());
+            localStatsCollector = new LocalStatsCollector(getCalculateEveryNSeconds(), getTimer(),
+                    getStatKeyRegistry());
         }
         return localStatsCollector;
     }
@@ -0,0 +1,131 @@
+package io.advantageous.qbit.metrics.support;
+
+import io.advantageous.boon.primitive.ByteBuf;
+import io.advantageous.qbit.service.stats.StatList;
+
+/**
+ * Writes stats in the Prometheus text exposition format (version 0.0.4).
+ * <p>
+ * Stat names and numbers are written byte by byte into the buffer,
+ * so a scrape does not build a String per line or for the whole response.
+ * Stat names are sanitized, anything that is not a letter, digit, underscore or colon becomes an underscore.
+ * </p>
+ */
+public class PrometheusWriter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final ByteBuf buffer;
+    private final byte[] digits = new byte[20];
+
+    public PrometheusWriter(final ByteBuf buffer) {
+        this.buffer = buffer;
+    }
+
+    public PrometheusWriter counter(final String name, final long total) {
+        type(name, "_total", "counter");
+        sample(name, "_total", total);
+        return this;
+    }
+
+    public PrometheusWriter gauge(final String name, final long value) {
+        type(name, "", "gauge");
+        sample(name, "", value);
+        return this;
+    }
+
+    public PrometheusWriter gauge(final String name, final double value) {
+        type(name, "", "gauge");
+        name(name, "");
+        buffer.addByte(' ');
+        ascii(Double.toString(value));
+        buffer.addByte('\n');
+        return this;
+    }
+
+    /**
+     * Writes a summary. Quantiles are written for min (0), median (0.5) and max (1) if there are samples.
+     *
+     * @param name   stat name
+     * @param sum    sum of all timings recorded
+     * @param count  number of timings recorded
+     * @param sample recent samples, may be empty
+     * @return this
+     */
+    public PrometheusWriter summary(final String name, final long sum, final long count,
+                                    final StatList sample) {
+        type(name, "", "summary");
+        if (sample.size() > 0) {
+            quantile(name, "0", sample.min());
+            quantile(name, "0.5", sample.median());
+            quantile(name, "1", sample.max());
+        }
+        sample(name, "_sum", sum);
+        sample(name, "_count", count);
+        return this;
+    }
+
+    private void quantile(final String name, final String quantile, final long value) {
+        name(name, "");
+        ascii("{quantile=\"");
+        ascii(quantile);
+        ascii("\"} ");
+        number(value);
+        buffer.addByte('\n');
+    }
+
+    private void type(final String name, final String suffix, final String type) {
+        ascii("# TYPE ");
+        name(name, suffix);
+        buffer.addByte(' ');
+        ascii(type);
+        buffer.addByte('\n');
+    }
+
+    private void sample(final String name, final String suffix, final long value) {
+        name(name, suffix);
+        buffer.addByte(' ');
+        number(value);
+        buffer.addByte('\n');
+    }
+
+    private void name(final String name, final String suffix) {
+        final int length = name.length();
+        for (int index = 0; index < length; index++) {
+            final char c = name.charAt(index);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':'
+                    || (c >= '0' && c <= '9' && index > 0)) {
+                buffer.addByte(c);
+            } else {
+                buffer.addByte('_');
+            }
+        }
+        ascii(suffix);
+    }
+
+    private void ascii(final String value) {
+        final int length = value.length();
+        for (int index = 0; index < length; index++) {
+            buffer.addByte(value.charAt(index));
+        }
+    }
+
+    private void number(long value) {
+        if (value == Long.MIN_VALUE) {
+            ascii(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            buffer.addByte('-');
+            value = -value;
+        }
+        int position = digits.length;
+        do {
+            digits[--position] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        for (; position < digits.length; position++) {
+            buffer.addByte(digits[position]);
+        }
+    }
+}
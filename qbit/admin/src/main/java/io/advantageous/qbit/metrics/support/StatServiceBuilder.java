@@ -32,6 +32,7 @@ import io.advantageous.qbit.server.ServiceEndpointServer;
 import io.advantageous.qbit.service.ServiceBuilder;
 import io.advantageous.qbit.service.ServiceQueue;
 import io.advantageous.qbit.service.discovery.ServiceDiscovery;
+import io.advantageous.qbit.service.stats.StatKeyRegistry;
 import io.advantageous.qbit.service.stats.StatsCollector;
 import io.advantageous.qbit.service.stats.StatsCollectorBuffer;
 import io.advantageous.qbit.util.Timer;
@@ -64,6 +65,7 @@ public class StatServiceBuilder {
     private EndpointServerBuilder endpointServerBuilder;
     private QueueBuilder sendQueueBuilder;
     private StatServiceImpl statServiceImpl;
+    private StatKeyRegistry statKeyRegistry;
 
 
     private String serviceName;
@@ -72,6 +74,7 @@ public class StatServiceBuilder {
     private int flushInterval;
     private int timeToLiveCheckInterval;
     private int numStats;
+    private int maxStats;
 
 
     public StatServiceBuilder(PropertyResolver propertyResolver) {
@@ -83,6 +86,8 @@ public class StatServiceBuilder {
                 .getIntegerProperty("timeToLiveCheckInterval", 5_000);
         this.numStats = propertyResolver
                 .getIntegerProperty("numStats", 100);
+        this.maxStats = propertyResolver
+                .getIntegerProperty("maxStats", StatKeyRegistry.DEFAULT_MAX_SERIES);
 
     }
 
@@ -134,6 +139,27 @@ public class StatServiceBuilder {
         this.numStats = numStats;
     }
 
+    public int getMaxStats() {
+        return maxStats;
+    }
+
+    public StatServiceBuilder setMaxStats(int maxStats) {
+        this.maxStats = maxStats;
+        return this;
+    }
+
+    public StatKeyRegistry getStatKeyRegistry() {
+        if (statKeyRegistry == null) {
+            statKeyRegistry = new StatKeyRegistry(getMaxStats());
+        }
+        return statKeyRegistry;
+    }
+
+    public StatServiceBuilder setStatKeyRegistry(StatKeyRegistry statKeyRegistry) {
+        this.statKeyRegistry = statKeyRegistry;
+        return this;
+    }
+
     public QueueBuilder getSendQueueBuilder() {
 
         if (sendQueueBuilder == null) {
@@ -342,7 +368,7 @@ public class StatServiceBuilder {
 
 
         return new StatServiceImpl(this.getRecorder(), replicator, getTimer(), getServiceDiscovery(),
-                getLocalServiceId(), getNumStats(), getTimeToLiveCheckInterval());
+                getLocalServiceId(), getNumStats(), getTimeToLiveCheckInterval(), getStatKeyRegistry());
 
     }
 
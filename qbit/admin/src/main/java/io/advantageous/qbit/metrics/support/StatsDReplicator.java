@@ -2,6 +2,7 @@ package io.advantageous.qbit.metrics.support;
 
 import io.advantageous.qbit.metrics.StatReplicator;
 import io.advantageous.qbit.queue.QueueCallBackHandler;
+import io.advantageous.qbit.service.stats.StatKeyRegistry;
 import io.advantageous.qbit.util.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,9 +31,11 @@ public class StatsDReplicator implements StatReplicator, QueueCallBackHandler {
     private final int bufferSize;
     private  DatagramChannel channel;
     private final ConcurrentHashMap<String, Metric> countMap = new ConcurrentHashMap<>();
+    private final StatKeyRegistry statKeys;
 
 
     private long lastFlush;
+    private long lastDroppedCount;
     private long time;
     private long lastOpenTime;
 
@@ -49,8 +52,19 @@ If the count at flush is 0 then you can opt to send no metric at all for this se
         this(InetAddress.getByName(host), port, multiMetrics, bufferSize, flushRateIntervalMS);
     }
 
+    public StatsDReplicator(String host, int port, boolean multiMetrics, int bufferSize, int flushRateIntervalMS,
+                            StatKeyRegistry statKeys) throws IOException {
+        this(InetAddress.getByName(host), port, multiMetrics, bufferSize, flushRateIntervalMS, statKeys);
+    }
+
     public StatsDReplicator(InetAddress host, int port, boolean multiMetrics, int bufferSize, int flushRateIntervalMS) throws IOException {
+        this(host, port, multiMetrics, bufferSize, flushRateIntervalMS, new StatKeyRegistry());
+    }
+
+    public StatsDReplicator(InetAddress host, int port, boolean multiMetrics, int bufferSize, int flushRateIntervalMS,
+                            StatKeyRegistry statKeys) throws IOException {
         address = new InetSocketAddress(host, port);
+        this.statKeys = statKeys;
 
         this.bufferSize = bufferSize;
 
@@ -288,10 +302,14 @@ If the count at flush is 0 then you can opt to send no metric at all for this se
         }
 
 
-       Metric localCount = countMap.get(name);
-       if (localCount == null) {
-           localCount = Metric.count(name);
-            countMap.put(name, localCount);
+        Metric localCount = countMap.get(name);
+        if (localCount == null) {
+            final String statName = statKeys.internName(name);
+            localCount = countMap.get(statName);
+            if (localCount == null) {
+                localCount = Metric.count(statName);
+                countMap.put(statName, localCount);
+            }
         }
         localCount.value += count;
 
@@ -304,13 +322,17 @@ If the count at flush is 0 then you can opt to send no metric at all for this se
         Metric localCount = countMap.get(name);
         if (localCount == null) {
 
-            localCount = Metric.level(name);
-            countMap.put(name, localCount);
+            final String statName = statKeys.internName(name);
+            localCount = countMap.get(statName);
+            if (localCount == null) {
+                localCount = Metric.level(statName);
+                countMap.put(statName, localCount);
 
-            /* Set the initial level. */
-            localCount.value = level;
-            /* Send the gauge. */
-            gauge(name, level);
+                /* Set the initial level. */
+                localCount.value = level;
+                /* Send the gauge. */
+                gauge(statName, level);
+            }
         }
 
         localCount.value = level;
@@ -329,13 +351,17 @@ If the count at flush is 0 then you can opt to send no metric at all for this se
         Metric localCount = countMap.get(name);
         if (localCount == null) {
 
-            localCount = Metric.timing(name);
-            countMap.put(name, localCount);
+            final String statName = statKeys.internName(name);
+            localCount = countMap.get(statName);
+            if (localCount == null) {
+                localCount = Metric.timing(statName);
+                countMap.put(statName, localCount);
 
-            /* Set the initial timing. */
-            localCount.value = timed;
-            /* Send the timing. */
-            timing(name, timed);
+                /* Set the initial timing. */
+                localCount.value = timed;
+                /* Send the timing. */
+                timing(statName, timed);
+            }
         }
 
 
@@ -367,6 +393,13 @@ If the count at flush is 0 then you can opt to send no metric at all for this se
                     entry.getValue().value = 0;
                 }
             });
+
+            /* Report records that went to the overflow series because the stat key registry was full. */
+            final long droppedCount = statKeys.droppedCount();
+            if (droppedCount != lastDroppedCount) {
+                lastDroppedCount = droppedCount;
+                gauge(StatKeyRegistry.DROPPED_RECORDS_NAME, droppedCount);
+            }
             flushStatSend();
             lastFlush = time;
         }
@@ -6,6 +6,7 @@ import io.advantageous.qbit.metrics.StatReplicator;
 import io.advantageous.qbit.queue.UnableToEnqueueHandler;
 import io.advantageous.qbit.service.ServiceBuilder;
 import io.advantageous.qbit.service.ServiceQueue;
+import io.advantageous.qbit.service.stats.StatKeyRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,6 +26,7 @@ public class StatsDReplicatorBuilder {
     private boolean multiMetrics = true;
     private int bufferSize = 1500;
     private int flushRateIntervalMS = 1000;
+    private int maxStats = StatKeyRegistry.DEFAULT_MAX_SERIES;
     private ServiceBuilder serviceBuilder;
     private ServiceQueue serviceQueue;
 
@@ -39,6 +41,7 @@ public class StatsDReplicatorBuilder {
         this.multiMetrics = propertyResolver.getBooleanProperty("multiMetrics", multiMetrics);
         this.bufferSize = propertyResolver.getIntegerProperty("bufferSize", bufferSize);
         this.flushRateIntervalMS = propertyResolver.getIntegerProperty("flushRateIntervalMS", flushRateIntervalMS);
+        this.maxStats = propertyResolver.getIntegerProperty("maxStats", maxStats);
 
     }
 
@@ -109,6 +112,16 @@ public class StatsDReplicatorBuilder {
     }
 
 
+    public int getMaxStats() {
+        return maxStats;
+    }
+
+    public StatsDReplicatorBuilder setMaxStats(int maxStats) {
+        this.maxStats = maxStats;
+        return this;
+    }
+
+
     private void buildQueue() {
 
         final StatsDReplicator statsDReplicator = createStatsDReplicator();
@@ -172,7 +185,8 @@ public class StatsDReplicatorBuilder {
         try {
             return new StatsDReplicator(getHost(),
                     getPort(), this.isMultiMetrics(),
-                    this.getBufferSize(), this.getFlushRateIntervalMS());
+                    this.getBufferSize(), this.getFlushRateIntervalMS(),
+                    new StatKeyRegistry(this.getMaxStats()));
         } catch (IOException e) {
             throw new IllegalStateException(e);
         }
@@ -0,0 +1,68 @@
+package io.advantageous.qbit.admin.jobs;
+
+import io.advantageous.qbit.service.stats.StatsCollector;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class JavaStatsCollectorJobTest {
+
+    private static final String ALLOC_STAT = "test.jvm.thread.service.statstest.alloc.bytes";
+
+    private volatile Object sink;
+
+    @Test
+    public void testFirstSampleIsOnlyTheBaseline() throws Exception {
+
+        final Map<String, Long> counts = new ConcurrentHashMap<>();
+        final StatsCollector statsCollector = new StatsCollector() {
+            @Override
+            public void recordCount(String name, long count) {
+                counts.merge(name, count, Long::sum);
+            }
+        };
+
+        final Semaphore allocate = new Semaphore(0);
+        final Semaphore allocated = new Semaphore(0);
+        final CountDownLatch done = new CountDownLatch(1);
+        final Thread thread = new Thread(() -> {
+            try {
+                while (done.getCount() > 0) {
+                    for (int index = 0; index < 1_000; index++) {
+                        sink = new byte[1_024];
+                    }
+                    allocated.release();
+                    allocate.acquire();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }, "QueueListener statsTest");
+        thread.setDaemon(true);
+        thread.start();
+
+        final JavaStatsCollectorJob job = new JavaStatsCollectorJob(1, TimeUnit.SECONDS,
+                statsCollector, "test");
+        try {
+            allocated.acquire();
+            job.runnable().run();
+            assertNull("lifetime allocation must not be reported", counts.get(ALLOC_STAT));
+
+            allocate.release();
+            allocated.acquire();
+            job.runnable().run();
+            assertNotNull(counts.get(ALLOC_STAT));
+            assertTrue(counts.get(ALLOC_STAT) < 2_000 * 1_024);
+        } finally {
+            job.stop();
+            done.countDown();
+            allocate.release();
+        }
+    }
+}
@@ -25,6 +25,7 @@ import io.advantageous.qbit.metrics.support.DebugRecorder;
 import io.advantageous.qbit.metrics.support.DebugReplicator;
 import io.advantageous.qbit.metrics.support.NoOpReplicator;
 import io.advantageous.qbit.metrics.support.StatServiceBuilder;
+import io.advantageous.qbit.service.stats.StatKeyRegistry;
 import io.advantageous.qbit.util.Timer;
 import org.junit.After;
 import org.junit.Before;
@@ -266,4 +267,38 @@ public class StatServiceImplTest {
 
 
     }
-}
\ No newline at end of file
+
+
+    @Test
+    public void testMaxStats() throws Exception {
+
+        final StatKeyRegistry statKeys = new StatKeyRegistry(2);
+
+        statServiceImpl = new StatServiceBuilder().setRecorder(recorder)
+                .setReplicator(replicator)
+                .setTimer(testTimer)
+                .setStatKeyRegistry(statKeys)
+                .build();
+
+        statServiceImpl.recordCount("stat1", 1);
+        statServiceImpl.recordCount("stat2", 1);
+        statServiceImpl.recordCount("user.1", 1);
+        statServiceImpl.recordCount("user.2", 1);
+        statServiceImpl.tick();
+
+        assertEquals(1, statServiceImpl.currentMinuteCount("stat1"));
+        assertEquals(2, statServiceImpl.currentMinuteCount(StatKeyRegistry.DEFAULT_OVERFLOW_NAME));
+        assertEquals(2, statServiceImpl.currentMinuteCount("user.3"));
+
+        /* Reads do not register names or count as dropped records. */
+        assertEquals(2, statKeys.droppedCount());
+        assertEquals(4, statKeys.size());
+
+
+        testTimer.seconds(61);
+        statServiceImpl.process();
+
+        /* stat1, stat2, overflow and dropped records. */
+        ok = recorder.count == 4 || die(recorder.count);
+    }
+}
@@ -2,10 +2,12 @@ package io.advantageous.qbit.metrics.support;
 
 import io.advantageous.boon.core.Lists;
 import io.advantageous.qbit.service.ServiceProxyUtils;
+import io.advantageous.qbit.service.stats.StatKeyRegistry;
 import io.advantageous.qbit.util.Timer;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
@@ -165,4 +167,47 @@ public class LocalStatsCollectorTest {
     }
 
 
-}
\ No newline at end of file
+    @Test
+    public void testScrape() throws Exception {
+        collector.replicateCount("foo.bar.count1", 2, -1);
+        collector.replicateCount("foo.bar.count1", 3, -1);
+        collector.replicateLevel("foo.bar.level1", 7, -1);
+        collector.replicateTiming("foo.bar.timing1", 2, -1);
+        collector.replicateTiming("foo.bar.timing1", 4, -1);
+
+        /* Collect resets counts but the scrape totals keep running. */
+        collector.collect();
+        collector.replicateCount("foo.bar.count1", 1, -1);
+
+        final String text = new String(collector.scrape(), StandardCharsets.UTF_8);
+
+        assertTrue(text, text.contains("# TYPE foo_bar_count1_total counter\nfoo_bar_count1_total 6\n"));
+        assertTrue(text, text.contains("# TYPE foo_bar_level1 gauge\nfoo_bar_level1 7\n"));
+        assertTrue(text, text.contains("foo_bar_timing1_sum 6\nfoo_bar_timing1_count 2\n"));
+        assertTrue(text, text.contains("jvm_memory_heap_used_bytes "));
+
+        /* The buffer is reused between scrapes. */
+        final String secondText = new String(collector.scrape(), StandardCharsets.UTF_8);
+        assertEquals(text.substring(0, text.indexOf("# TYPE jvm")),
+                secondText.substring(0, secondText.indexOf("# TYPE jvm")));
+    }
+
+
+    @Test
+    public void testScrapeDroppedRecordsOnce() throws Exception {
+        collector = new LocalStatsCollector(10_000, Timer.timer(), new StatKeyRegistry(1));
+        collector.replicateCount("foo.bar.count1", 1, -1);
+        collector.replicateCount("foo.bar.count2", 1, -1);
+
+        /* Reported as a running total by the stat service. */
+        collector.replicateLevel(StatKeyRegistry.DROPPED_RECORDS_NAME, 2, -1);
+
+        final String text = new String(collector.scrape(), StandardCharsets.UTF_8);
+
+        assertTrue(text, text.contains("# TYPE qbit_stats_droppedRecords_total counter\n" +
+                "qbit_stats_droppedRecords_total 3\n"));
+        assertFalse(text, text.contains("# TYPE qbit_stats_droppedRecords gauge"));
+    }
+
+
+}
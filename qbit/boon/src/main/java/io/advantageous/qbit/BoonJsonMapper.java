@@ -28,8 +28,13 @@ import io.advantageous.boon.json.JsonParserAndMapper;
 import io.advantageous.boon.json.JsonParserFactory;
 import io.advantageous.boon.json.JsonSerializer;
 import io.advantageous.boon.json.JsonSerializerFactory;
+import io.advantageous.boon.primitive.CharBuf;
 import io.advantageous.qbit.json.JsonMapper;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.function.Consumer;
 
@@ -58,6 +63,24 @@ public class BoonJsonMapper implements JsonMapper {
 
 
 
+    /**
+     * Serializer output, reused so writing bytes does not go through a String.
+     */
+    private final ThreadLocal<CharBuf> charBuf = new ThreadLocal<CharBuf>() {
+        @Override
+        protected CharBuf initialValue() {
+            return CharBuf.create(1000);
+        }
+    };
+
+    private final ThreadLocal<byte[]> byteBuf = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[4096];
+        }
+    };
+
+
     private final ThreadLocal<Mapper> mapper = new ThreadLocal<Mapper>() {
         @Override
         protected Mapper initialValue() {
@@ -103,7 +126,130 @@ public class BoonJsonMapper implements JsonMapper {
     @Override
     public <K, V> Map<K, V> fromJsonMap(String json, Class<K> componentClassKey, Class<V> componentClassValue) {
 
-        Map<Object, Object> map  = (Map) parser.get().parse(json);
+        return convertMap((Map<?, ?>) parser.get().parse(json), componentClassKey, componentClassValue);
+    }
+
+    @Override
+    public Object fromJson(byte[] json) {
+        return parser.get().parse(json);
+    }
+
+    @Override
+    public <T> T fromJson(byte[] json, Class<T> cls) {
+        return parser.get().parse(cls, json);
+    }
+
+    @Override
+    public <T> List<T> fromJsonArray(byte[] json, Class<T> componentClass) {
+        return parser.get().parseList(componentClass, json);
+    }
+
+    @Override
+    public <K, V> Map<K, V> fromJsonMap(byte[] json, Class<K> componentClassKey, Class<V> componentClassValue) {
+        return convertMap((Map<?, ?>) parser.get().parse(json), componentClassKey, componentClassValue);
+    }
+
+    @Override
+    public <T> T fromJson(ByteBuffer json, Class<T> cls) {
+        return parser.get().parse(cls, JsonMapper.bytes(json));
+    }
+
+    @Override
+    public byte[] toJsonBytes(Object object) {
+        final CharBuf buf = serialize(object);
+        final int length = buf.len();
+        final char[] chars = buf.readForRecycle();
+
+        final byte[] bytes = new byte[utf8Length(chars, length)];
+        encodeUtf8(chars, 0, length, bytes);
+        return bytes;
+    }
+
+    @Override
+    public void toJson(Object object, OutputStream outputStream) {
+        final CharBuf buf = serialize(object);
+        final int length = buf.len();
+        final char[] chars = buf.readForRecycle();
+        final byte[] bytes = byteBuf.get();
+
+        try {
+            /* Three bytes covers any char, surrogate pairs are never split across chunks. */
+            final int chunk = bytes.length / 3 - 1;
+            int start = 0;
+            while (start < length) {
+                int end = Math.min(length, start + chunk);
+                if (end < length && Character.isHighSurrogate(chars[end - 1])) {
+                    end++;
+                }
+                outputStream.write(bytes, 0, encodeUtf8(chars, start, end, bytes));
+                start = end;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private CharBuf serialize(Object object) {
+        final CharBuf buf = charBuf.get();
+        buf.recycle();
+        serializer.get().serialize(buf, object);
+        return buf;
+    }
+
+    private static int utf8Length(final char[] chars, final int length) {
+        int utf8Length = length;
+        for (int index = 0; index < length; index++) {
+            final char c = chars[index];
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    utf8Length++;
+                } else if (Character.isHighSurrogate(c) && index + 1 < length
+                        && Character.isLowSurrogate(chars[index + 1])) {
+                    utf8Length += 2;
+                    index++;
+                } else {
+                    utf8Length += 2;
+                }
+            }
+        }
+        return utf8Length;
+    }
+
+    /**
+     * Encodes chars from start to end as UTF-8, unpaired surrogates become '?' like String.getBytes does.
+     *
+     * @return number of bytes written
+     */
+    private static int encodeUtf8(final char[] chars, final int start, final int end, final byte[] bytes) {
+        int position = 0;
+        for (int index = start; index < end; index++) {
+            final char c = chars[index];
+            if (c < 0x80) {
+                bytes[position++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[position++] = (byte) (0xC0 | (c >> 6));
+                bytes[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && index + 1 < end && Character.isLowSurrogate(chars[index + 1])) {
+                    final int codePoint = Character.toCodePoint(c, chars[++index]);
+                    bytes[position++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else {
+                    bytes[position++] = '?';
+                }
+            } else {
+                bytes[position++] = (byte) (0xE0 | (c >> 12));
+                bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return position;
+    }
+
+    private <K, V> Map<K, V> convertMap(Map<?, ?> map, Class<K> componentClassKey, Class<V> componentClassValue) {
+
         Mapper mapper = this.mapper.get();
 
         Map<K, V> results = new TreeMap<>();
@@ -119,13 +265,13 @@ public class BoonJsonMapper implements JsonMapper {
             V convertedValue;
 
             if (key instanceof Map) {
-                convertedKey = mapper.fromMap(((Map<String, Object>) key), componentClassKey);
+                convertedKey = mapper.fromMap(jsonObject(key), componentClassKey);
             }else {
                convertedKey = Conversions.coerce(componentClassKey, key);
             }
 
             if (value instanceof Map) {
-                convertedValue = mapper.fromMap(((Map<String, Object>) value), componentClassValue);
+                convertedValue = mapper.fromMap(jsonObject(value), componentClassValue);
             }else {
                 convertedValue = Conversions.coerce(componentClassValue, value);
             }
@@ -138,5 +284,13 @@ public class BoonJsonMapper implements JsonMapper {
 
     }
 
+    /**
+     * Maps that come out of the JSON parser are JSON objects, so they are keyed by field name.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> jsonObject(final Object map) {
+        return (Map<String, Object>) map;
+    }
+
 
 }
@@ -92,6 +92,7 @@ public class BoonQBitFactory implements Factory {
         protected List<ProtocolParser> initialValue() {
             ArrayList<ProtocolParser> list = new ArrayList<>();
             list.add(createProtocolParser());
+            list.add(createBinaryProtocolParser());
             return list;
         }
     };
@@ -207,6 +208,45 @@ public class BoonQBitFactory implements Factory {
                         requestBatchSize));
     }
 
+    @Override
+    public <T> T createRemoteProxyWithReturnAddress(final Class<T> serviceInterface,
+                                                    final String address,
+                                                    final String serviceName,
+                                                    final String host,
+                                                    final int port,
+                                                    final AtomicBoolean connected,
+                                                    final String returnAddressArg,
+                                                    final Sender<String> sender,
+                                                    final ProtocolDictionary dictionary,
+                                                    final BeforeMethodCall beforeMethodCall,
+                                                    final int requestBatchSize) {
+        return remoteServiceProxyFactory.createProxyWithReturnAddress(
+                serviceInterface,
+                serviceName,
+                host, port, connected,
+                returnAddressArg, new SenderEndPoint(this.createEncoder(), address, sender, dictionary,
+                        beforeMethodCall, requestBatchSize));
+    }
+
+    @Override
+    public <T> T createBinaryRemoteProxyWithReturnAddress(final Class<T> serviceInterface,
+                                                          final String address,
+                                                          final String serviceName,
+                                                          final String host,
+                                                          final int port,
+                                                          final AtomicBoolean connected,
+                                                          final String returnAddressArg,
+                                                          final Sender<byte[]> sender,
+                                                          final BeforeMethodCall beforeMethodCall,
+                                                          final int requestBatchSize) {
+        return remoteServiceProxyFactory.createProxyWithReturnAddress(
+                serviceInterface,
+                serviceName,
+                host, port, connected,
+                returnAddressArg, SenderEndPoint.binarySenderEndPoint(this.createBinaryEncoder(), address, sender,
+                        beforeMethodCall, requestBatchSize));
+    }
+
 
     @Override
     public MethodCall<Object> createMethodCallFromHttpRequest(final Request<Object> request, Object args) {
@@ -240,9 +280,26 @@ public class BoonQBitFactory implements Factory {
                                                      final int port,
                                                      final int ttlSeconds,
                                                      final HealthServiceAsync healthServiceAsync) {
+        return createServiceServer(httpServer, encoder, protocolParser, serviceBundle, jsonMapper,
+                timeOutInSeconds, numberOfOutstandingRequests, batchSize, flushInterval, systemManager,
+                endpointName, serviceDiscovery, port, ttlSeconds, healthServiceAsync, null);
+    }
+
+    @Override
+    public ServiceEndpointServer createServiceServer(final HttpTransport httpServer, final ProtocolEncoder encoder,
+                                                     final ProtocolParser protocolParser, final ServiceBundle serviceBundle,
+                                                     final JsonMapper jsonMapper, final int timeOutInSeconds,
+                                                     final int numberOfOutstandingRequests, final int batchSize,
+                                                     final int flushInterval, final QBitSystemManager systemManager,
+                                                     final String endpointName,
+                                                     final ServiceDiscovery serviceDiscovery,
+                                                     final int port,
+                                                     final int ttlSeconds,
+                                                     final HealthServiceAsync healthServiceAsync,
+                                                     final StatsCollector statsCollector) {
         return new ServiceEndpointServerImpl(httpServer, encoder, protocolParser, serviceBundle, jsonMapper,
                 timeOutInSeconds, numberOfOutstandingRequests, batchSize, flushInterval, systemManager,
-                endpointName, serviceDiscovery, port, ttlSeconds, healthServiceAsync);
+                endpointName, serviceDiscovery, port, ttlSeconds, healthServiceAsync, statsCollector);
     }
 
 
@@ -251,11 +308,23 @@ public class BoonQBitFactory implements Factory {
         return FactorySPI.getClientFactory().create(uri, httpClient, requestBatchSize);
     }
 
+    @Override
+    public Client createClient(String uri, HttpClient httpClient, int requestBatchSize, boolean binaryProtocol,
+                               boolean protocolDictionary) {
+        return FactorySPI.getClientFactory().create(uri, httpClient, requestBatchSize, binaryProtocol,
+                protocolDictionary);
+    }
+
     @Override
     public ProtocolParser createProtocolParser() {
         return new BoonProtocolParser();
     }
 
+    @Override
+    public ProtocolParser createBinaryProtocolParser() {
+        return new BinaryProtocolParser();
+    }
+
 
     @Override
     public MethodCall<Object> createMethodCallToBeParsedFromBody(String address, String returnAddress, String objectName, String methodName, Object body, MultiMap<String, String> params) {
@@ -346,6 +415,11 @@ public class BoonQBitFactory implements Factory {
         return new BoonProtocolEncoder();
     }
 
+    @Override
+    public ProtocolBinaryEncoder createBinaryEncoder() {
+        return new BinaryProtocolEncoder();
+    }
+
 
     public EventBusProxyCreator eventBusProxyCreator() {
 
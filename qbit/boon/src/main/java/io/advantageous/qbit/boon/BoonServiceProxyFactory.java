@@ -19,20 +19,24 @@
 package io.advantageous.qbit.boon;
 
 import io.advantageous.boon.core.Str;
-import io.advantageous.boon.primitive.CharBuf;
 import io.advantageous.qbit.Factory;
 import io.advantageous.qbit.client.ClientProxy;
 import io.advantageous.qbit.client.RemoteTCPClientProxy;
 import io.advantageous.qbit.client.ServiceProxyFactory;
 import io.advantageous.qbit.message.MethodCall;
 import io.advantageous.qbit.message.MethodCallBuilder;
+import io.advantageous.qbit.message.impl.LocalMethodCall;
+import io.advantageous.qbit.reactive.Callback;
 import io.advantageous.qbit.service.EndPoint;
+import io.advantageous.qbit.service.ServiceBundle;
 import io.advantageous.qbit.util.Timer;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -72,13 +76,11 @@ public class BoonServiceProxyFactory implements ServiceProxyFactory {
 
         final String returnAddress = returnAddressArg;
 
-        final ThreadLocal<CharBuf> addressCreatorBufRef = new ThreadLocal<CharBuf>() {
-            @Override
-            protected CharBuf initialValue() {
-                return CharBuf.createCharBuf(255);
-            }
-        };
+        /* Calls to a bundle in this JVM never go over the wire, they do not need headers, params or a builder. */
+        final boolean local = endPoint instanceof ServiceBundle;
 
+        /* Dispatch details of each method worked out on its first call, after that a call is one map lookup. */
+        final Map<Method, ProxyMethod> proxyMethods = new ConcurrentHashMap<>();
 
         InvocationHandler invocationHandler = new InvocationHandler() {
 
@@ -88,34 +90,36 @@ public class BoonServiceProxyFactory implements ServiceProxyFactory {
             @Override
             public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
 
+                ProxyMethod proxyMethod = proxyMethods.get(method);
+                if (proxyMethod == null) {
+                    proxyMethod = proxyMethods.computeIfAbsent(method, m -> new ProxyMethod(m, objectAddress));
+                }
 
-                switch (method.getName()) {
-                    case "port":
+                switch (proxyMethod.kind) {
+                    case PORT:
                         return port;
-                    case "host":
+                    case HOST:
                         return host;
-                    case "silentClose":
+                    case SILENT_CLOSE:
                         try {
                             assert endPoint != null;
                             endPoint.stop();
                         } catch (Exception ex) {
                             //silentClose
                         }
-                    case "flush":
-                    case "clientProxyFlush":
+                    case FLUSH:
                         assert endPoint != null;
                         endPoint.flush();
                         return null;
-                    case "toString":
+                    case TO_STRING:
                         return port == 0 ? sputs("{Local Proxy", serviceName, "}") :
                                 sputs("{Remote Proxy", serviceName, host, port, "}");
-                    case "equals":
+                    case EQUALS:
                         return proxy == args[0];
-                    case "hashCode":
-                        return proxy.hashCode();
-                    case "connected":
+                    case HASH_CODE:
+                        return System.identityHashCode(proxy);
+                    case CONNECTED:
                         return connected.get();
-
                 }
 
 
@@ -130,24 +134,18 @@ public class BoonServiceProxyFactory implements ServiceProxyFactory {
                 }
 
 
-                final CharBuf addressBuf = addressCreatorBufRef.get();
-
-                addressBuf.recycle();
-
-                addressBuf.add(objectAddress).add("/").add(method.getName());
-
-                final String address = addressBuf.toString();
-
-
-                final MethodCall<Object> call = MethodCallBuilder.methodCallBuilder()
-                        .setId(messageId)
-                        .setAddress(address)
-                        .setObjectName(serviceName)
-                        .setReturnAddress(returnAddress)
-                        .setName(method.getName())
-                        .setTimestamp(timestamp)
-                        .setBody(args)
-                        .build();
+                final MethodCall<Object> call = local ?
+                        new LocalMethodCall(messageId, timestamp, proxyMethod.name, serviceName, proxyMethod.address,
+                                returnAddress, args, proxyMethod.hasCallback) :
+                        MethodCallBuilder.methodCallBuilder()
+                                .setId(messageId)
+                                .setAddress(proxyMethod.address)
+                                .setObjectName(serviceName)
+                                .setReturnAddress(returnAddress)
+                                .setName(proxyMethod.name)
+                                .setTimestamp(timestamp)
+                                .setBody(args)
+                                .build();
 
                 assert endPoint != null;
                 endPoint.call(call);
@@ -173,4 +171,58 @@ public class BoonServiceProxyFactory implements ServiceProxyFactory {
     public <T> T createProxy(Class<T> serviceInterface, String serviceName, EndPoint endPoint) {
         return createProxyWithReturnAddress(serviceInterface, serviceName, "local", 0, new AtomicBoolean(true), "", endPoint);
     }
+
+    /**
+     * What a proxy does for one method, either a built-in like {@code toString} or a call to the service.
+     */
+    private static final class ProxyMethod {
+
+        private final Kind kind;
+        private final String name;
+        private final String address;
+        private final boolean hasCallback;
+
+        private ProxyMethod(final Method method, final String objectAddress) {
+            this.name = method.getName();
+            this.kind = Kind.of(name);
+            this.address = Str.add(objectAddress, "/", name);
+
+            boolean callback = false;
+            for (Class<?> parameterType : method.getParameterTypes()) {
+                if (Callback.class.isAssignableFrom(parameterType)) {
+                    callback = true;
+                    break;
+                }
+            }
+            this.hasCallback = callback;
+        }
+    }
+
+    private enum Kind {
+        PORT, HOST, SILENT_CLOSE, FLUSH, TO_STRING, EQUALS, HASH_CODE, CONNECTED, CALL;
+
+        static Kind of(final String methodName) {
+            switch (methodName) {
+                case "port":
+                    return PORT;
+                case "host":
+                    return HOST;
+                case "silentClose":
+                    return SILENT_CLOSE;
+                case "flush":
+                case "clientProxyFlush":
+                    return FLUSH;
+                case "toString":
+                    return TO_STRING;
+                case "equals":
+                    return EQUALS;
+                case "hashCode":
+                    return HASH_CODE;
+                case "connected":
+                    return CONNECTED;
+                default:
+                    return CALL;
+            }
+        }
+    }
 }
@@ -37,18 +37,22 @@ import io.advantageous.qbit.message.impl.MethodCallImpl;
 import io.advantageous.qbit.reactive.Callback;
 import io.advantageous.qbit.sender.Sender;
 import io.advantageous.qbit.service.BeforeMethodCall;
+import io.advantageous.qbit.spi.BinaryProtocolParser;
+import io.advantageous.qbit.spi.ProtocolDictionary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.ref.WeakReference;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 import static io.advantageous.boon.core.Exceptions.die;
 import static io.advantageous.boon.core.Str.sputs;
@@ -72,6 +76,19 @@ public class BoonClient implements Client {
      * Request batch size for queuing.
      */
     private final int requestBatchSize;
+    /**
+     * Send method calls with the binary protocol instead of text.
+     */
+    private final boolean binaryProtocol;
+    /**
+     * Addresses and method names we sent on this connection, null if the dictionary is off.
+     * Shared by all proxies of this client since they share the WebSocket.
+     */
+    private final ProtocolDictionary outgoingDictionary;
+    /**
+     * Addresses and method names the server sent on this connection.
+     */
+    private final ProtocolDictionary incomingDictionary = new ProtocolDictionary();
     private final boolean debug = GlobalConstants.DEBUG;
     /**
      * Holds on to Boon cache so we don't have to recreate reflected gak.
@@ -101,10 +118,27 @@ public class BoonClient implements Client {
     public BoonClient(final String uri,
                       final HttpClient httpClient,
                       final int requestBatchSize) {
+        this(uri, httpClient, requestBatchSize, false, false);
+    }
+
+    /**
+     * @param httpClient         httpClient
+     * @param uri                uri
+     * @param requestBatchSize   request batch size
+     * @param binaryProtocol     send method calls as binary WebSocket frames using the binary protocol
+     * @param protocolDictionary send addresses and method names through a connection scoped dictionary
+     */
+    public BoonClient(final String uri,
+                      final HttpClient httpClient,
+                      final int requestBatchSize,
+                      final boolean binaryProtocol,
+                      final boolean protocolDictionary) {
 
         this.httpServerProxy = httpClient;
         this.uri = uri;
         this.requestBatchSize = requestBatchSize;
+        this.binaryProtocol = binaryProtocol;
+        this.outgoingDictionary = protocolDictionary && !binaryProtocol ? new ProtocolDictionary() : null;
     }
 
 
@@ -138,9 +172,24 @@ public class BoonClient implements Client {
      */
     private void handleWebSocketReplyMessage(final String webSocketText) {
 
+        handleWebSocketReplyMessages(QBit.factory().createProtocolParser().parse("", webSocketText, incomingDictionary));
+    }
 
-        final List<Message<Object>> messages = QBit.factory().createProtocolParser().parse("", webSocketText);
+    /**
+     * Handles binary WebSocket messages, these are the replies to calls sent with the binary protocol.
+     *
+     * @param webSocketBytes websocket bytes
+     */
+    private void handleWebSocketReplyMessage(final byte[] webSocketBytes) {
 
+        if (BinaryProtocolParser.isBinaryFrame(webSocketBytes)) {
+            handleWebSocketReplyMessages(QBit.factory().createBinaryProtocolParser().parse("", webSocketBytes));
+        } else {
+            handleWebSocketReplyMessage(new String(webSocketBytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    private void handleWebSocketReplyMessages(final List<Message<Object>> messages) {
 
         //noinspection Convert2streamapi
         for (Message<Object> message : messages) {
@@ -188,6 +237,48 @@ public class BoonClient implements Client {
      */
     private void send(final String serviceName, final String message) {
 
+        if (open(serviceName, message)) {
+            webSocket.sendText(message);
+        }
+    }
+
+    /**
+     * Sends messages encoded against the outgoing dictionary. They are encoded after the WebSocket is open,
+     * so a reconnect, which starts both sides with an empty dictionary, happens before they get their ids.
+     * Called under the dictionary lock held by the sender end point.
+     *
+     * @param serviceName service name
+     * @param messages    messages
+     * @param encoder     encodes the messages against the outgoing dictionary
+     */
+    private void send(final String serviceName, final List<Message<Object>> messages,
+                      final Function<List<Message<Object>>, String> encoder) {
+
+        if (open(serviceName, messages)) {
+            webSocket.sendText(encoder.apply(messages));
+        }
+    }
+
+    /**
+     * Sends a binary message over websocket.
+     *
+     * @param message     bytes to send over WebSocket
+     * @param serviceName service name
+     */
+    private void send(final String serviceName, final byte[] message) {
+
+        if (open(serviceName, message)) {
+            webSocket.sendBinary(message);
+        }
+    }
+
+    /**
+     * Opens the WebSocket if needed.
+     *
+     * @return true if the WebSocket is open
+     */
+    private boolean open(final String serviceName, final Object message) {
+
         if (webSocket == null) {
 
             String webSocketURI;
@@ -213,6 +304,12 @@ public class BoonClient implements Client {
                 if (webSocket.isClosed() && connected()) {
                     this.webSocket.openAndWait();
                     this.connected.set(true);
+                    incomingDictionary.clear();
+                    if (outgoingDictionary != null) {
+                        synchronized (outgoingDictionary) {
+                            outgoingDictionary.clear();
+                        }
+                    }
                 }
             } catch (Exception ex) {
                 this.connected.set(false);
@@ -223,13 +320,14 @@ public class BoonClient implements Client {
 
         if (!webSocket.isClosed()) {
         /* By this point we should be open. */
-            webSocket.sendText(message);
+            return true;
         } else {
             connected.set(false);
+            return false;
         }
     }
 
-    private void wireWebSocket(final String serviceName, final String message) {
+    private void wireWebSocket(final String serviceName, final Object message) {
 
         this.webSocket.setErrorConsumer(error ->
                 logger.error(sputs(this.getClass().getName(),
@@ -237,6 +335,9 @@ public class BoonClient implements Client {
 
         //noinspection Convert2MethodRef
         this.webSocket.setTextMessageConsumer(messageFromServer -> handleWebSocketReplyMessage(messageFromServer));
+
+        //noinspection Convert2MethodRef
+        this.webSocket.setBinaryMessageConsumer(messageFromServer -> handleWebSocketReplyMessage(messageFromServer));
     }
 
     /**
@@ -299,6 +400,10 @@ public class BoonClient implements Client {
         };
 
 
+        if (binaryProtocol) {
+            return createBinaryProxy(serviceInterface, serviceName, returnAddressArg, beforeMethodCall);
+        }
+
         final Sender<String> sender = new Sender<String>() {
 
             @Override
@@ -306,13 +411,54 @@ public class BoonClient implements Client {
                 BoonClient.this.send(serviceName, buffer);
             }
 
+            @Override
+            public void send(String returnAddress, List<Message<Object>> messages,
+                             Function<List<Message<Object>>, String> encoder) {
+                BoonClient.this.send(serviceName, messages, encoder);
+            }
+
+            @Override
+            public void stop() {
+                BoonClient.this.stop();
+            }
+        };
+
+        T proxy = outgoingDictionary == null ?
+                QBit.factory().createRemoteProxyWithReturnAddress(serviceInterface, uri, serviceName,
+                        httpServerProxy.getHost(),
+                        httpServerProxy.getPort(),
+                        connected,
+                        returnAddressArg, sender, beforeMethodCall, requestBatchSize) :
+                QBit.factory().createRemoteProxyWithReturnAddress(serviceInterface, uri, serviceName,
+                        httpServerProxy.getHost(),
+                        httpServerProxy.getPort(),
+                        connected,
+                        returnAddressArg, sender, outgoingDictionary, beforeMethodCall, requestBatchSize);
+
+        if (proxy instanceof ClientProxy) {
+            clientProxies.add((ClientProxy) proxy);
+        }
+
+        return proxy;
+    }
+
+    private <T> T createBinaryProxy(final Class<T> serviceInterface, final String serviceName,
+                                    final String returnAddressArg, final BeforeMethodCall beforeMethodCall) {
+
+        final Sender<byte[]> sender = new Sender<byte[]>() {
+
+            @Override
+            public void send(String returnAddress, byte[] buffer) {
+                BoonClient.this.send(serviceName, buffer);
+            }
+
             @Override
             public void stop() {
                 BoonClient.this.stop();
             }
         };
 
-        T proxy = QBit.factory().createRemoteProxyWithReturnAddress(serviceInterface, uri, serviceName,
+        T proxy = QBit.factory().createBinaryRemoteProxyWithReturnAddress(serviceInterface, uri, serviceName,
                 httpServerProxy.getHost(),
                 httpServerProxy.getPort(),
                 connected,
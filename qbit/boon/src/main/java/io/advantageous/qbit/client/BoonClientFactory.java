@@ -28,4 +28,10 @@ public class BoonClientFactory implements ClientFactory {
     public Client create(String uri, HttpClient httpClient, int requestBatchSize) {
         return new BoonClient(uri, httpClient, requestBatchSize);
     }
+
+    @Override
+    public Client create(String uri, HttpClient httpClient, int requestBatchSize, boolean binaryProtocol,
+                         boolean protocolDictionary) {
+        return new BoonClient(uri, httpClient, requestBatchSize, binaryProtocol, protocolDictionary);
+    }
 }
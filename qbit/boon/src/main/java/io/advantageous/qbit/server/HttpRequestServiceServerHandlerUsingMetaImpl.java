@@ -1,8 +1,9 @@
 package io.advantageous.qbit.server;
 
-import io.advantageous.boon.core.Str;
 import io.advantageous.qbit.GlobalConstants;
+import io.advantageous.qbit.QBit;
 import io.advantageous.qbit.annotation.RequestMethod;
+import io.advantageous.qbit.events.EventManager;
 import io.advantageous.qbit.http.HttpStatus;
 import io.advantageous.qbit.http.request.*;
 import io.advantageous.qbit.json.JsonMapper;
@@ -25,8 +26,8 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -37,16 +38,33 @@ public class HttpRequestServiceServerHandlerUsingMetaImpl implements HttpRequest
     private final int timeoutInSeconds;
     private final AtomicLong lastTimeoutCheckTime = new AtomicLong();
     private final int numberOfOutstandingRequests;
-    private final SendQueue<MethodCall<Object>> methodCallSendQueue;
+    private final ServiceBundle serviceBundle;
+    /**
+     * Each thread that hands requests in, usually one per HTTP event loop, gets its own queue into the bundle.
+     * The idle flush drops the queues of threads that are gone.
+     */
+    private final ThreadLocal<IngressQueue> ingressQueue = new ThreadLocal<IngressQueue>() {
+        @Override
+        protected IngressQueue initialValue() {
+            final IngressQueue queue = new IngressQueue(serviceBundle.methodSendQueue(), Thread.currentThread());
+            ingressQueues.add(queue);
+            return queue;
+        }
+    };
+    private final List<IngressQueue> ingressQueues = new CopyOnWriteArrayList<>();
     private final int flushInterval;
     private final JsonMapper jsonMapper;
-    private final Map<String, Request<Object>> outstandingRequestMap = new ConcurrentHashMap<>(100_000);
+    private final OutstandingRequests outstandingRequests = new OutstandingRequests();
     private final Logger logger = LoggerFactory.getLogger(HttpRequestServiceServerHandlerUsingMetaImpl.class);
     private final boolean debug = GlobalConstants.DEBUG || logger.isDebugEnabled();
-    private final Lock lock = new ReentrantLock();
     private long lastFlushTime;
     private ContextMetaBuilder contextMetaBuilder = ContextMetaBuilder.contextMetaBuilder();
     private StandardRequestTransformer standardRequestTransformer;
+    private ResponseCache responseCache;
+    /**
+     * Cache generation of each outstanding request to a cached endpoint, taken when it was sent to the service.
+     */
+    private final Map<HttpRequest, Long> cacheGenerations = new ConcurrentHashMap<>();
     private final Map<RequestMethod, StandardMetaDataProvider> metaDataProviderMap = new ConcurrentHashMap<>();
 
     public HttpRequestServiceServerHandlerUsingMetaImpl(int timeoutInSeconds, ServiceBundle serviceBundle,
@@ -58,7 +76,7 @@ public class HttpRequestServiceServerHandlerUsingMetaImpl implements HttpRequest
         this.numberOfOutstandingRequests = numberOfOutstandingRequests;
         this.jsonMapper = jsonMapper;
 
-        this.methodCallSendQueue = serviceBundle.methodSendQueue();
+        this.serviceBundle = serviceBundle;
         this.flushInterval = flushInterval;
 
         contextMetaBuilder = ContextMetaBuilder.contextMetaBuilder();
@@ -72,16 +90,20 @@ public class HttpRequestServiceServerHandlerUsingMetaImpl implements HttpRequest
 
         if (duration > flushInterval) {
             lastFlushTime = now;
-            try {
-                lock.lock();
-                methodCallSendQueue.flushSends();
-            } finally {
-                lock.unlock();
+            for (IngressQueue queue : ingressQueues) {
+                queue.flushSends();
+                if (!queue.owner.isAlive()) {
+                    ingressQueues.remove(queue);
+                }
             }
         }
 
     }
 
+    int ingressQueueCount() {
+        return ingressQueues.size();
+    }
+
     public void start() {
 
 
@@ -95,16 +117,34 @@ public class HttpRequestServiceServerHandlerUsingMetaImpl implements HttpRequest
         metaDataProviderMap.put(RequestMethod.CONNECT, new StandardMetaDataProvider(contextMetaBuilder.build(), RequestMethod.CONNECT));
 
         standardRequestTransformer = new StandardRequestTransformer(metaDataProviderMap);
+
+        responseCache = new ResponseCache(contextMetaBuilder.build());
+        if (!responseCache.invalidationChannels().isEmpty()) {
+            final EventManager eventManager = QBit.factory().systemEventManager();
+            for (String channel : responseCache.invalidationChannels()) {
+                eventManager.register(channel, event -> responseCache.invalidate(channel));
+            }
+        }
     }
 
     @Override
     public void handleRestCall(final HttpRequest request) {
 
+        final RequestMetaData cachedEndpoint = cachedEndpoint(request);
+        if (cachedEndpoint != null && writeCachedResponse(request, cachedEndpoint)) {
+            return;
+        }
+
         List<String> errorList = new ArrayList<>(0);
         final MethodCall<Object> methodCall = standardRequestTransformer.transform(request, errorList);
 
         if (methodCall != null && errorList.size() == 0) {
+            if (cachedEndpoint != null) {
+                cacheGenerations.put(request, responseCache.cacheFor(cachedEndpoint).generation());
+            }
             if (!addRequestToCheckForTimeouts(request)) {
+                outstandingRequests.remove(request);
+                cacheGenerations.remove(request);
                 handleOverflow(request);
                 return;
             }
@@ -121,6 +161,8 @@ public class HttpRequestServiceServerHandlerUsingMetaImpl implements HttpRequest
                 && !requestMetaData.getMethod().hasCallBack()) {
 
             request.handled();
+            outstandingRequests.remove(request);
+            cacheGenerations.remove(request);
             writeResponse(request.getReceiver(), HttpStatus.ACCEPTED,
                     "application/json", "\"success\"", MultiMap.empty());
 
@@ -129,6 +171,31 @@ public class HttpRequestServiceServerHandlerUsingMetaImpl implements HttpRequest
 
     }
 
+    /**
+     * Answers a GET for a cached endpoint on the calling I/O thread without going to the service.
+     */
+    private boolean writeCachedResponse(final HttpRequest request, final RequestMetaData requestMetaData) {
+
+        final ResponseCache.CachedResponse cachedResponse = responseCache.cacheFor(requestMetaData)
+                .get(ResponseCache.key(request, requestMetaData));
+        if (cachedResponse == null) {
+            return false;
+        }
+
+        request.handled();
+        writeBytes(request.getReceiver(), cachedResponse.code, cachedResponse.contentType, cachedResponse.body,
+                cachedResponse.headers);
+        return true;
+    }
+
+    private RequestMetaData cachedEndpoint(final HttpRequest request) {
+        if (responseCache.isEmpty() || !RequestMethod.GET.name().equals(request.getMethod())) {
+            return null;
+        }
+        final RequestMetaData requestMetaData = metaDataProviderMap.get(RequestMethod.GET).get(request.address());
+        return responseCache.cacheFor(requestMetaData) == null ? null : requestMetaData;
+    }
+
     private void handleOverflow(HttpRequest request) {
         writeResponse(request.getReceiver(), HttpStatus.TOO_MANY_REQUEST, "application/json",
                 "\"too many outstanding requests\"", MultiMap.empty());
@@ -136,24 +203,19 @@ public class HttpRequestServiceServerHandlerUsingMetaImpl implements HttpRequest
 
     private void sendMethodToServiceBundle(MethodCall<Object> methodCall) {
 
-        try {
-            lock.lock();
-            methodCallSendQueue.send(methodCall);
-        } finally {
-            lock.unlock();
-        }
+        ingressQueue.get().send(methodCall);
     }
 
     private void handleErrorConverting(HttpRequest request, List<String> errorList, MethodCall<Object> methodCall) {
         if (methodCall == null) {
             if (errorList.size() > 0) {
-                request.getReceiver().response(HttpStatus.NOT_FOUND, "application/json", jsonMapper.toJson(errorList));
+                writeJsonResponse(request.getReceiver(), HttpStatus.NOT_FOUND, errorList, MultiMap.empty());
             } else {
                 request.getReceiver().response(HttpStatus.NOT_FOUND, "application/json", "\"not found\"");
             }
         } else {
             if (errorList.size() > 0) {
-                request.getReceiver().response(HttpStatus.ERROR, "application/json", jsonMapper.toJson(errorList));
+                writeJsonResponse(request.getReceiver(), HttpStatus.ERROR, errorList, MultiMap.empty());
             } else {
                 request.getReceiver().response(HttpStatus.ERROR, "application/json", "\"unable to make call\"");
             }
@@ -170,10 +232,6 @@ public class HttpRequestServiceServerHandlerUsingMetaImpl implements HttpRequest
     @Override
     public void checkTimeoutsForRequests() {
 
-//        if (outstandingRequestMap.size()==0) {
-//            return;
-//        }
-
         final long now = Timer.timer().now();
         final long durationSinceLastCheck = now - lastTimeoutCheckTime.get();
         final long timeoutInMS = timeoutInSeconds * 1000;
@@ -186,32 +244,13 @@ public class HttpRequestServiceServerHandlerUsingMetaImpl implements HttpRequest
 
         lastTimeoutCheckTime.set(now);
 
-        long duration;
-
-
-        final Set<Map.Entry<String, Request<Object>>> entries = outstandingRequestMap.entrySet();
-
-        for (Map.Entry<String, Request<Object>> requestEntry : entries) {
-
-            final Request<Object> request = requestEntry.getValue();
-            final String key = requestEntry.getKey();
-
-            if (request.isHandled()) {
-                request.handled();
-                outstandingRequestMap.remove(key);
-                continue;
-            }
-
-            duration = now - request.timestamp();
-
-            if (duration > timeoutInMS) {
-                final HttpResponseReceiver httpResponse = ((HttpRequest) request).getReceiver();
-                try {
-                    //noinspection unchecked
-                    httpResponse.response(HttpStatus.TIMED_OUT, "application/json", "\"timed out\"");
-                } catch (Exception ex) {
-                    logger.debug("Response not marked handled and it timed out, but could not be written " + request, ex);
-                }
+        for (Request<Object> request : outstandingRequests.expire(now - timeoutInMS)) {
+            cacheGenerations.remove(request);
+            final HttpResponseReceiver<Object> httpResponse = ((HttpRequest) request).getReceiver();
+            try {
+                httpResponse.response(HttpStatus.TIMED_OUT, "application/json", "\"timed out\"");
+            } catch (Exception ex) {
+                logger.debug("Response not marked handled and it timed out, but could not be written " + request, ex);
             }
         }
     }
@@ -220,8 +259,8 @@ public class HttpRequestServiceServerHandlerUsingMetaImpl implements HttpRequest
     @Override
     public void handleResponseFromServiceToHttpResponse(final Response<Object> response, final HttpRequest originatingRequest) {
 
-        String key = Str.add("" + originatingRequest.id(), "|", originatingRequest.returnAddress());
-        this.outstandingRequestMap.remove(key);
+        this.outstandingRequests.remove(originatingRequest);
+        final Long cacheGeneration = cacheGenerations.remove(originatingRequest);
 
         //noinspection UnnecessaryLocalVariable
         @SuppressWarnings("UnnecessaryLocalVariable") final HttpRequest httpRequest = originatingRequest;
@@ -231,24 +270,64 @@ public class HttpRequestServiceServerHandlerUsingMetaImpl implements HttpRequest
             Object obj = response.body();
 
             if (obj instanceof ServiceMethodNotFoundException) {
-                writeResponse(httpRequest.getReceiver(), HttpStatus.NOT_FOUND, "application/json", jsonMapper.toJson(response.body()), response.headers());
+                writeJsonResponse(httpRequest.getReceiver(), HttpStatus.NOT_FOUND, response.body(), response.headers());
 
             } else {
-                writeResponse(httpRequest.getReceiver(), HttpStatus.ERROR, "application/json", jsonMapper.toJson(response.body()), response.headers());
+                writeJsonResponse(httpRequest.getReceiver(), HttpStatus.ERROR, response.body(), response.headers());
 
             }
         } else {
-            if (response.body() instanceof HttpResponse) {
+            if (response.body() instanceof HttpStreamingResponse) {
+                writeStreamingResponse(httpRequest.getReceiver(), (HttpStreamingResponse) response.body());
+            } else if (response.body() instanceof HttpResponse) {
                 writeHttpResponse(httpRequest.getReceiver(), ((HttpResponse) response.body()));
             } else {
-                writeResponse(httpRequest.getReceiver(), HttpStatus.OK, "application/json", jsonMapper.toJson(response.body()), response.headers());
-
+                final RequestMetaData cachedEndpoint = cacheGeneration == null ? null : cachedEndpoint(httpRequest);
+                if (cachedEndpoint != null) {
+                    writeAndCacheJsonResponse(httpRequest, cachedEndpoint, cacheGeneration, response);
+                } else {
+                    writeJsonResponse(httpRequest.getReceiver(), HttpStatus.OK, response.body(), response.headers());
+                }
             }
         }
 
 
     }
 
+    /**
+     * Chunked receivers pull the items as the connection takes them, the rest get them all in one response.
+     */
+    private void writeStreamingResponse(HttpResponseReceiver<Object> receiver, HttpStreamingResponse streamingResponse) {
+        if (receiver instanceof HttpChunkedResponseReceiver) {
+            streamingResponse.writeTo((HttpChunkedResponseReceiver) receiver, jsonMapper);
+        } else {
+            writeBytes(receiver, streamingResponse.code(), streamingResponse.contentType(),
+                    streamingResponse.toBytes(jsonMapper), streamingResponse.headers());
+        }
+    }
+
+    /**
+     * Encodes the body once, the same bytes answer this request and later hits.
+     * Not stored if the cache was cleared while the service was working on the request.
+     */
+    private void writeAndCacheJsonResponse(final HttpRequest request, final RequestMetaData requestMetaData,
+                                           final long cacheGeneration, final Response<Object> response) {
+        final byte[] body = jsonMapper.toJsonBytes(response.body());
+        responseCache.cacheFor(requestMetaData).put(ResponseCache.key(request, requestMetaData), cacheGeneration,
+                HttpStatus.OK, "application/json", body, response.headers());
+        writeBytes(request.getReceiver(), HttpStatus.OK, "application/json", body, response.headers());
+    }
+
+    private void writeBytes(HttpResponseReceiver<Object> response, int code, String mimeType, byte[] body,
+                            MultiMap<String, String> headers) {
+
+        if (response.isText()) {
+            response.response(code, mimeType, new String(body, StandardCharsets.UTF_8), headers);
+        } else {
+            response.response(code, mimeType, body, headers);
+        }
+    }
+
     private void writeHttpResponse(HttpResponseReceiver<Object> receiver, HttpResponse httpResponse) {
         if (httpResponse instanceof HttpTextResponse) {
             HttpTextResponse httpTextResponse = (HttpTextResponse) httpResponse;
@@ -263,14 +342,25 @@ public class HttpRequestServiceServerHandlerUsingMetaImpl implements HttpRequest
 
 
 
-    private void writeResponse(HttpResponseReceiver response, int code, String mimeType, String responseString,
+    /**
+     * Receivers that take bytes get the JSON as UTF-8 straight from the mapper, without a String in between.
+     */
+    private void writeJsonResponse(HttpResponseReceiver<Object> response, int code, Object body,
+                                   MultiMap<String, String> headers) {
+
+        if (response.isText()) {
+            response.response(code, "application/json", jsonMapper.toJson(body), headers);
+        } else {
+            response.response(code, "application/json", jsonMapper.toJsonBytes(body), headers);
+        }
+    }
+
+    private void writeResponse(HttpResponseReceiver<Object> response, int code, String mimeType, String responseString,
                                MultiMap<String, String> headers) {
 
         if (response.isText()) {
-            //noinspection unchecked
             response.response(code, mimeType, responseString, headers);
         } else {
-            //noinspection unchecked
             response.response(code, mimeType, responseString.getBytes(StandardCharsets.UTF_8), headers);
         }
     }
@@ -284,9 +374,41 @@ public class HttpRequestServiceServerHandlerUsingMetaImpl implements HttpRequest
      */
     private boolean addRequestToCheckForTimeouts(final Request<Object> request) {
 
-        String key = Str.add("" + request.id(), "|", request.returnAddress());
-        this.outstandingRequestMap.put(key, request);
+        this.outstandingRequests.add(request);
+
+        return outstandingRequests.size() < numberOfOutstandingRequests;
+    }
+
+    /**
+     * Send queue owned by one ingress thread. The lock is only contended when the idle flush runs on another thread.
+     */
+    private static final class IngressQueue {
+
+        private final SendQueue<MethodCall<Object>> sendQueue;
+        private final Thread owner;
+        private final Lock lock = new ReentrantLock();
+
+        private IngressQueue(final SendQueue<MethodCall<Object>> sendQueue, final Thread owner) {
+            this.sendQueue = sendQueue;
+            this.owner = owner;
+        }
+
+        private void send(final MethodCall<Object> methodCall) {
+            lock.lock();
+            try {
+                sendQueue.send(methodCall);
+            } finally {
+                lock.unlock();
+            }
+        }
 
-        return outstandingRequestMap.size() < numberOfOutstandingRequests;
+        private void flushSends() {
+            lock.lock();
+            try {
+                sendQueue.flushSends();
+            } finally {
+                lock.unlock();
+            }
+        }
     }
 }
@@ -0,0 +1,218 @@
+package io.advantageous.qbit.server;
+
+import io.advantageous.qbit.message.Request;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Requests handed to the services that have not been answered yet, looked up by their numeric id.
+ * <p>
+ * Ids go into open addressed long tables, split in stripes so the I/O threads adding requests and the thread
+ * handling responses seldom wait on the same lock. Every stripe also keeps its ids in the order they were added,
+ * which is the order they come due, so a timeout check only looks at the oldest ids and stops at the first one
+ * that is not due yet.
+ * </p>
+ * <p>
+ * Not every server hands out ids that are unique across its threads, so a request is only ever removed by the
+ * instance that was added, and two requests may share an id.
+ * </p>
+ */
+class OutstandingRequests {
+
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicInteger size = new AtomicInteger();
+
+    OutstandingRequests() {
+        for (int index = 0; index < STRIPES; index++) {
+            stripes[index] = new Stripe();
+        }
+    }
+
+    void add(final Request<Object> request) {
+        stripe(request.id()).add(request);
+        size.incrementAndGet();
+    }
+
+    /**
+     * @return true if the request was still outstanding
+     */
+    boolean remove(final Request<Object> request) {
+        if (stripe(request.id()).remove(request)) {
+            size.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * Removes the requests that were handled elsewhere and the ones older than the cutoff.
+     *
+     * @param cutoff requests with a timestamp before this are timed out
+     * @return requests that timed out
+     */
+    List<Request<Object>> expire(final long cutoff) {
+        final List<Request<Object>> timedOut = new ArrayList<>(0);
+        for (Stripe stripe : stripes) {
+            size.addAndGet(-stripe.expire(cutoff, timedOut));
+        }
+        return timedOut;
+    }
+
+    private Stripe stripe(final long id) {
+        return stripes[(int) (id & (STRIPES - 1))];
+    }
+
+    private static int hash(final long id) {
+        final long mixed = id * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    private static final class Stripe {
+
+        private final Lock lock = new ReentrantLock();
+
+        /* Open addressed table, a null value is a free slot. */
+        private long[] ids = new long[16];
+        private Object[] requests = new Object[16];
+        private int count;
+
+        /* Ids in the order they were added, some may have been removed from the table already. */
+        private long[] order = new long[16];
+        private int head;
+        private int orderCount;
+
+        void add(final Request<Object> request) {
+            lock.lock();
+            try {
+                if ((count + 1) * 2 > requests.length) {
+                    resize();
+                }
+                insert(request.id(), request);
+                count++;
+
+                if (orderCount == order.length) {
+                    final long[] newOrder = new long[order.length * 2];
+                    for (int index = 0; index < orderCount; index++) {
+                        newOrder[index] = order[(head + index) & (order.length - 1)];
+                    }
+                    order = newOrder;
+                    head = 0;
+                }
+                order[(head + orderCount) & (order.length - 1)] = request.id();
+                orderCount++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean remove(final Request<Object> request) {
+            lock.lock();
+            try {
+                final int slot = slotOf(request.id(), request);
+                if (slot == -1) {
+                    return false;
+                }
+                delete(slot);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int expire(final long cutoff, final List<Request<Object>> timedOut) {
+            int removed = 0;
+            lock.lock();
+            try {
+                while (orderCount > 0) {
+                    final int slot = slotOf(order[head], null);
+                    if (slot != -1) {
+                        @SuppressWarnings("unchecked")
+                        final Request<Object> request = (Request<Object>) requests[slot];
+                        if (request.isHandled()) {
+                            delete(slot);
+                            removed++;
+                        } else if (request.timestamp() < cutoff) {
+                            delete(slot);
+                            removed++;
+                            timedOut.add(request);
+                        } else {
+                            break;
+                        }
+                    }
+                    head = (head + 1) & (order.length - 1);
+                    orderCount--;
+                }
+            } finally {
+                lock.unlock();
+            }
+            return removed;
+        }
+
+        /**
+         * @param request the instance to find, or null for the first request with the id
+         * @return slot, or -1 if there is none
+         */
+        private int slotOf(final long id, final Object request) {
+            final int mask = requests.length - 1;
+            for (int slot = hash(id) & mask; requests[slot] != null; slot = (slot + 1) & mask) {
+                if (ids[slot] == id && (request == null || requests[slot] == request)) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private void insert(final long id, final Object request) {
+            final int mask = requests.length - 1;
+            int slot = hash(id) & mask;
+            while (requests[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            ids[slot] = id;
+            requests[slot] = request;
+        }
+
+        /**
+         * Shifts the entries that probed past the slot back into it, so lookups never need tombstones.
+         */
+        private void delete(int slot) {
+            final int mask = requests.length - 1;
+            int next = (slot + 1) & mask;
+            while (requests[next] != null) {
+                final int home = hash(ids[next]) & mask;
+                final boolean canMove = slot <= next ? (home <= slot || home > next) : (home <= slot && home > next);
+                if (canMove) {
+                    ids[slot] = ids[next];
+                    requests[slot] = requests[next];
+                    slot = next;
+                }
+                next = (next + 1) & mask;
+            }
+            ids[slot] = 0L;
+            requests[slot] = null;
+            count--;
+        }
+
+        private void resize() {
+            final long[] oldIds = ids;
+            final Object[] oldRequests = requests;
+            ids = new long[oldIds.length * 2];
+            requests = new Object[oldRequests.length * 2];
+            for (int index = 0; index < oldRequests.length; index++) {
+                if (oldRequests[index] != null) {
+                    insert(oldIds[index], oldRequests[index]);
+                }
+            }
+        }
+    }
+}
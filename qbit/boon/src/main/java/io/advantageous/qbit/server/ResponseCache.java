@@ -0,0 +1,233 @@
+package io.advantageous.qbit.server;
+
+import io.advantageous.boon.core.reflection.AnnotationData;
+import io.advantageous.boon.core.reflection.MethodAccess;
+import io.advantageous.qbit.http.request.HttpRequest;
+import io.advantageous.qbit.meta.ContextMeta;
+import io.advantageous.qbit.meta.ParameterMeta;
+import io.advantageous.qbit.meta.RequestMetaData;
+import io.advantageous.qbit.meta.ServiceMeta;
+import io.advantageous.qbit.meta.ServiceMethodMeta;
+import io.advantageous.qbit.meta.params.NamedParam;
+import io.advantageous.qbit.meta.params.ParamType;
+import io.advantageous.qbit.util.MultiMap;
+import io.advantageous.qbit.util.Timer;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Encoded responses of the GET endpoints marked with {@link io.advantageous.qbit.annotation.CacheResponse}.
+ * <p>
+ * Each cached method gets its own LRU map so a busy endpoint cannot push out the entries of a quiet one.
+ * Lookups run on the I/O threads and stores on the response thread, so every map has its own lock.
+ * </p>
+ */
+class ResponseCache {
+
+    private final Map<Method, MethodCache> methodCaches = new HashMap<>();
+    private final Map<String, List<MethodCache>> invalidatedBy = new HashMap<>();
+
+    ResponseCache(final ContextMeta context) {
+
+        for (ServiceMeta service : context.getServices()) {
+            for (ServiceMethodMeta serviceMethod : service.getMethods()) {
+                final MethodAccess methodAccess = serviceMethod.getMethodAccess();
+                if (methodAccess == null || methodCaches.containsKey(methodAccess.method())) {
+                    continue;
+                }
+                final AnnotationData cacheResponse = methodAccess.annotation("CacheResponse");
+                if (cacheResponse == null) {
+                    continue;
+                }
+
+                final Map<String, Object> values = cacheResponse.getValues();
+                final MethodCache methodCache = new MethodCache(
+                        longValue(values.get("ttl"), 1000L),
+                        (int) longValue(values.get("maxEntries"), 1000L));
+                methodCaches.put(methodAccess.method(), methodCache);
+
+                for (String channel : channels(values.get("invalidateOn"))) {
+                    invalidatedBy.computeIfAbsent(channel, key -> new ArrayList<>()).add(methodCache);
+                }
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return methodCaches.isEmpty();
+    }
+
+    /**
+     * @return channels that clear at least one cache
+     */
+    Set<String> invalidationChannels() {
+        return invalidatedBy.keySet();
+    }
+
+    /**
+     * @param requestMetaData endpoint the request mapped to
+     * @return cache of the method behind the endpoint, or null if it is not cached
+     */
+    MethodCache cacheFor(final RequestMetaData requestMetaData) {
+        if (requestMetaData == null || requestMetaData.getMethod().getMethodAccess() == null) {
+            return null;
+        }
+        return methodCaches.get(requestMetaData.getMethod().getMethodAccess().method());
+    }
+
+    void invalidate(final String channel) {
+        final List<MethodCache> caches = invalidatedBy.get(channel);
+        if (caches != null) {
+            caches.forEach(MethodCache::clear);
+        }
+    }
+
+    void invalidateAll() {
+        methodCaches.values().forEach(MethodCache::clear);
+    }
+
+    /**
+     * Path params are already part of the address, the named request and header params are added after it.
+     */
+    static String key(final HttpRequest request, final RequestMetaData requestMetaData) {
+
+        final StringBuilder key = new StringBuilder(request.address());
+
+        for (ParameterMeta parameterMeta : requestMetaData.getRequest().getParameters()) {
+            final ParamType paramType = parameterMeta.getParam().getParamType();
+            if (paramType == ParamType.REQUEST) {
+                final String name = ((NamedParam) parameterMeta.getParam()).getName();
+                key.append('\u0000').append(name).append('=').append(request.params().get(name));
+            } else if (paramType == ParamType.HEADER) {
+                final String name = ((NamedParam) parameterMeta.getParam()).getName();
+                key.append('\u0000').append(name).append(':').append(request.headers().get(name));
+            }
+        }
+        return key.toString();
+    }
+
+    private static long longValue(final Object value, final long defaultValue) {
+        return value instanceof Number ? ((Number) value).longValue() : defaultValue;
+    }
+
+    private static List<String> channels(final Object value) {
+        if (value instanceof Object[]) {
+            final List<String> channels = new ArrayList<>();
+            for (Object channel : (Object[]) value) {
+                channels.add(channel.toString());
+            }
+            return channels;
+        }
+        return value == null ? Collections.emptyList() : Collections.singletonList(value.toString());
+    }
+
+    /**
+     * Entries of one method. Clearing bumps the generation, so a response for a request that came in before
+     * the clear is not stored after it.
+     */
+    static final class MethodCache {
+
+        private final long timeToLive;
+        private final Lock lock = new ReentrantLock();
+        private final LruMap entries;
+        private volatile long generation;
+
+        private MethodCache(final long timeToLive, final int maxEntries) {
+            this.timeToLive = timeToLive;
+            this.entries = new LruMap(maxEntries);
+        }
+
+        CachedResponse get(final String key) {
+            lock.lock();
+            try {
+                final CachedResponse response = entries.get(key);
+                if (response == null) {
+                    return null;
+                }
+                if (response.expiresAt < Timer.timer().now()) {
+                    entries.remove(key);
+                    return null;
+                }
+                return response;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return generation to pass to {@link #put} for a request that is sent to the service now
+         */
+        long generation() {
+            return generation;
+        }
+
+        /**
+         * @param generation generation when the request was sent to the service, the response is not stored if
+         *                   the cache was cleared since
+         */
+        void put(final String key, final long generation, final int code, final String contentType,
+                 final byte[] body, final MultiMap<String, String> headers) {
+            final CachedResponse response = new CachedResponse(code, contentType, body, headers,
+                    Timer.timer().now() + timeToLive);
+            lock.lock();
+            try {
+                if (generation == this.generation) {
+                    entries.put(key, response);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                generation++;
+                entries.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    static final class CachedResponse {
+
+        final int code;
+        final String contentType;
+        final byte[] body;
+        final MultiMap<String, String> headers;
+        private final long expiresAt;
+
+        private CachedResponse(final int code, final String contentType, final byte[] body,
+                               final MultiMap<String, String> headers, final long expiresAt) {
+            this.code = code;
+            this.contentType = contentType;
+            this.body = body;
+            this.headers = headers;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Access ordered map that drops the least recently used entry past its max size.
+     */
+    private static final class LruMap extends LinkedHashMap<String, CachedResponse> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+
+        private LruMap(final int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, CachedResponse> eldest) {
+            return size() > maxEntries;
+        }
+    }
+}
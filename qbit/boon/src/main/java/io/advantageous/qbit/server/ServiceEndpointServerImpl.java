@@ -36,6 +36,7 @@ import io.advantageous.qbit.service.discovery.EndpointDefinition;
 import io.advantageous.qbit.service.discovery.ServiceDiscovery;
 import io.advantageous.qbit.service.health.HealthServiceAsync;
 import io.advantageous.qbit.service.health.HealthStatus;
+import io.advantageous.qbit.service.stats.StatsCollector;
 import io.advantageous.qbit.spi.ProtocolEncoder;
 import io.advantageous.qbit.spi.ProtocolParser;
 import io.advantageous.qbit.system.QBitSystemManager;
@@ -94,6 +95,29 @@ public class ServiceEndpointServerImpl implements ServiceEndpointServer {
                                      final int port,
                                      final int ttlSeconds,
                                      final HealthServiceAsync healthServiceAsync) {
+        this(httpServer, encoder, parser, serviceBundle, jsonMapper, timeOutInSeconds, numberOfOutstandingRequests,
+                batchSize, flushInterval, systemManager, endpointName, serviceDiscovery, port, ttlSeconds,
+                healthServiceAsync, null);
+    }
+
+    /**
+     * @param statsCollector gets the WebSocket encoder stats, may be null
+     */
+    public ServiceEndpointServerImpl(final HttpTransport httpServer, final ProtocolEncoder encoder,
+                                     final ProtocolParser parser,
+                                     final ServiceBundle serviceBundle,
+                                     final JsonMapper jsonMapper,
+                                     final int timeOutInSeconds,
+                                     final int numberOfOutstandingRequests,
+                                     final int batchSize,
+                                     final int flushInterval,
+                                     final QBitSystemManager systemManager,
+                                     final String endpointName,
+                                     final ServiceDiscovery serviceDiscovery,
+                                     final int port,
+                                     final int ttlSeconds,
+                                     final HealthServiceAsync healthServiceAsync,
+                                     final StatsCollector statsCollector) {
 
         this.systemManager = systemManager;
         this.encoder = encoder;
@@ -106,7 +130,8 @@ public class ServiceEndpointServerImpl implements ServiceEndpointServer {
         
         this.healthServiceAsync = healthServiceAsync;
 
-        this.webSocketHandler = new WebSocketServiceServerHandler(batchSize, serviceBundle, 4, 4);
+        this.webSocketHandler = new WebSocketServiceServerHandler(batchSize, serviceBundle, 4, 4, statsCollector,
+                endpointName == null || endpointName.isEmpty() ? "websocket" : endpointName + ".websocket");
 
         this.serviceDiscovery = serviceDiscovery;
 
@@ -30,15 +30,23 @@ import io.advantageous.qbit.message.impl.MethodCallImpl;
 import io.advantageous.qbit.message.impl.ResponseImpl;
 import io.advantageous.qbit.queue.SendQueue;
 import io.advantageous.qbit.service.ServiceBundle;
+import io.advantageous.qbit.service.stats.StatsCollector;
+import io.advantageous.qbit.spi.BinaryProtocolParser;
+import io.advantageous.qbit.spi.ProtocolBinaryEncoder;
+import io.advantageous.qbit.spi.ProtocolDictionary;
 import io.advantageous.qbit.spi.ProtocolEncoder;
 import io.advantageous.qbit.spi.ProtocolParser;
 import io.advantageous.qbit.util.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 
 /**
@@ -61,6 +69,18 @@ public class WebSocketServiceServerHandler {
             return QBit.factory().createProtocolParser();
         }
     };
+    protected final ThreadLocal<ProtocolBinaryEncoder> binaryEncoderRef = new ThreadLocal<ProtocolBinaryEncoder>() {
+        @Override
+        protected ProtocolBinaryEncoder initialValue() {
+            return QBit.factory().createBinaryEncoder();
+        }
+    };
+    protected final ThreadLocal<ProtocolParser> binaryParserRef = new ThreadLocal<ProtocolParser>() {
+        @Override
+        protected ProtocolParser initialValue() {
+            return QBit.factory().createBinaryProtocolParser();
+        }
+    };
 
 
     protected final long flushResponseInterval = 200;
@@ -68,34 +88,85 @@ public class WebSocketServiceServerHandler {
     private final boolean debug = GlobalConstants.DEBUG || logger.isDebugEnabled();
     private final SendQueue<MethodCall<Object>> methodCallSendQueue;
     private final Map<String, WebSocketDelegate> webSocketDelegateMap = new ConcurrentHashMap<>(100);
-    private final ExecutorService protocolParserThreadPool;
-    private final ExecutorService protocolEncoderThreadPool;
+    /**
+     * Single threaded workers, each connection is pinned to one parser and one encoder so its messages
+     * are handled in the order they came in and its protocol dictionaries stay in step.
+     */
+    private final ExecutorService[] protocolParserWorkers;
+    private final ExecutorService[] protocolEncoderWorkers;
+    private final AtomicInteger nextWorker = new AtomicInteger();
+
+    /**
+     * Encoder saturation, batches handed to each encoder worker that it has not sent yet.
+     */
+    private final AtomicIntegerArray encoderBacklog;
+    private final AtomicInteger encoderBacklogPeak = new AtomicInteger();
+    private final LongAdder encodedBatchCount = new LongAdder();
+    private final LongAdder batchPoolMissCount = new LongAdder();
     protected volatile long flushResponseLastTimestamp = 0;
 
+    /**
+     * Encoder stats are reported here if it is set, only when they change.
+     */
+    private final StatsCollector statsCollector;
+    private final String backlogKey;
+    private final String backlogPeakKey;
+    private final String encodedBatchCountKey;
+    private final String batchPoolMissCountKey;
+    private int lastBacklog = -1;
+    private long lastEncodedBatchCount;
+    private long lastBatchPoolMissCount;
+
 
     public WebSocketServiceServerHandler(
             final int batchSize,
             final ServiceBundle serviceBundle,
             final int parseWorkersCount,
             final int encodeWorkersCount) {
+        this(batchSize, serviceBundle, parseWorkersCount, encodeWorkersCount, null, null);
+    }
+
+    /**
+     * @param statsCollector stats collector for the encoder stats, may be null
+     * @param statsPrefix    prefix of the encoder stat names
+     */
+    public WebSocketServiceServerHandler(
+            final int batchSize,
+            final ServiceBundle serviceBundle,
+            final int parseWorkersCount,
+            final int encodeWorkersCount,
+            final StatsCollector statsCollector,
+            final String statsPrefix) {
         this.batchSize = batchSize;
+        this.statsCollector = statsCollector;
+        this.backlogKey = statsPrefix + ".encoder.backlog";
+        this.backlogPeakKey = statsPrefix + ".encoder.backlogPeak";
+        this.encodedBatchCountKey = statsPrefix + ".encoder.batches";
+        this.batchPoolMissCountKey = statsPrefix + ".encoder.batchPoolMisses";
 
         this.methodCallSendQueue = serviceBundle.methodSendQueue();
 
         final AtomicInteger threadId = new AtomicInteger();
-        protocolParserThreadPool = Executors.newFixedThreadPool(parseWorkersCount, r -> {
-            Thread thread = new Thread(r);
-            thread.setName("WebSocketProtocolParser-" + threadId.incrementAndGet());
-            thread.setDaemon(true);
-            return thread;
-        });
+        protocolParserWorkers = new ExecutorService[Math.max(1, parseWorkersCount)];
+        for (int index = 0; index < protocolParserWorkers.length; index++) {
+            protocolParserWorkers[index] = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r);
+                thread.setName("WebSocketProtocolParser-" + threadId.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
 
-        protocolEncoderThreadPool = Executors.newFixedThreadPool(encodeWorkersCount, r -> {
-            Thread thread = new Thread(r);
-            thread.setName("WebSocketProtocolEncoder-" + threadId.incrementAndGet());
-            thread.setDaemon(true);
-            return thread;
-        });
+        protocolEncoderWorkers = new ExecutorService[Math.max(1, encodeWorkersCount)];
+        encoderBacklog = new AtomicIntegerArray(protocolEncoderWorkers.length);
+        for (int index = 0; index < protocolEncoderWorkers.length; index++) {
+            protocolEncoderWorkers[index] = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r);
+                thread.setName("WebSocketProtocolEncoder-" + threadId.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
 
 
     }
@@ -127,14 +198,29 @@ public class WebSocketServiceServerHandler {
         }
 
 
-        protocolParserThreadPool.execute(() -> {
+        final WebSocketDelegate delegate = webSocketDelegate;
+        delegate.parserWorker.execute(() -> {
 
             try {
-                final List<MethodCall<Object>> methodCallListToBeParsedFromBody =
-                        createMethodCallListToBeParsedFromBody(webSocketMessage.getRemoteAddress(),
-                                webSocketMessage.getMessage(), webSocketMessage);
+                /* Calls go to the service queue in batches as they are parsed, not after the whole frame is. */
+                final List<MethodCall<Object>> batch = new ArrayList<>(Math.min(batchSize, 100));
+
+                parseMethodCallsFromBody(webSocketMessage.getRemoteAddress(), webSocketMessage.getMessage(),
+                        webSocketMessage, delegate.incomingDictionary, methodCall -> {
+                            batch.add(methodCall);
+                            if (batch.size() >= batchSize) {
+                                methodCallSendQueue.sendBatch(new ArrayList<>(batch));
+                                batch.clear();
+                            }
+                        });
+
+                if (!delegate.useDictionary && delegate.incomingDictionary.size() > 0) {
+                    delegate.useDictionary = true;
+                }
 
-                methodCallSendQueue.sendBatch(methodCallListToBeParsedFromBody);
+                if (batch.size() > 0) {
+                    methodCallSendQueue.sendBatch(batch);
+                }
             } catch (Exception ex) {
                 logger.error("", ex);
             }
@@ -155,11 +241,12 @@ public class WebSocketServiceServerHandler {
 
             if (webSocketDelegate == null) {
 
-
-                String responseAsText = encoderRef.get().encodeAsString(response);
-
-
-                webSocketMessage.getSender().sendText(responseAsText);
+                if (isBinaryProtocol(webSocketMessage.getMessage())) {
+                    webSocketMessage.getSender().sendBytes(binaryEncoderRef.get().encodeAsBytes(response));
+                } else {
+                    String responseAsText = encoderRef.get().encodeAsString(response);
+                    webSocketMessage.getSender().sendText(responseAsText);
+                }
             } else {
                 webSocketDelegate.send(response);
             }
@@ -172,21 +259,73 @@ public class WebSocketServiceServerHandler {
             final String addressPrefix,
             final Object body,
             final Request<Object> originatingRequest) {
+        return createMethodCallListToBeParsedFromBody(addressPrefix, body, originatingRequest, null);
+    }
 
+    /**
+     * @param addressPrefix      address prefix
+     * @param body               body of the WebSocket message
+     * @param originatingRequest request
+     * @param dictionary         receiving side dictionary of the connection, or null
+     * @return method calls
+     */
+    public List<MethodCall<Object>> createMethodCallListToBeParsedFromBody(
+            final String addressPrefix,
+            final Object body,
+            final Request<Object> originatingRequest,
+            final ProtocolDictionary dictionary) {
 
-        List<MethodCall<Object>> methodCalls;
+        final List<MethodCall<Object>> methodCalls = new ArrayList<>();
+        parseMethodCallsFromBody(addressPrefix, body, originatingRequest, dictionary, methodCalls::add);
+        return methodCalls;
+    }
 
-        if (body != null) {
+    /**
+     * Parses the body and hands each method call to the consumer as it is read.
+     * If the body holds no method calls the sender gets an error response.
+     *
+     * @param addressPrefix      address prefix
+     * @param body               body of the WebSocket message
+     * @param originatingRequest request
+     * @param dictionary         receiving side dictionary of the connection, or null
+     * @param consumer           gets each method call
+     */
+    public void parseMethodCallsFromBody(
+            final String addressPrefix,
+            final Object body,
+            final Request<Object> originatingRequest,
+            final ProtocolDictionary dictionary,
+            final Consumer<MethodCall<Object>> consumer) {
+
+        final int[] count = new int[1];
+
+        final Consumer<Message<Object>> methodCallConsumer = message -> {
+            if (message instanceof MethodCall) {
+                if (message instanceof MethodCallImpl) {
+                    ((MethodCallImpl) message).originatingRequest(originatingRequest);
+                }
+                count[0]++;
+                consumer.accept((MethodCall<Object>) message);
+            }
+        };
+
+        if (isBinaryProtocol(body)) {
+
+            binaryParserRef.get().parse("", body, null, methodCallConsumer);
+
+        } else if (body instanceof byte[]) {
 
+            /* Text protocol sent in a binary frame. */
+            parserRef.get().parse("", new String((byte[]) body, StandardCharsets.UTF_8), dictionary,
+                    methodCallConsumer);
 
-            methodCalls = parserRef.get().parseMethodCallListUsingAddressPrefix(addressPrefix, body);
+        } else if (body != null) {
 
-        } else {
-            methodCalls = Collections.emptyList();
+            parserRef.get().parse("", body, dictionary, methodCallConsumer);
 
         }
 
-        if (methodCalls == null || methodCalls.size() == 0) {
+        if (count[0] == 0) {
 
             if (originatingRequest instanceof WebSocketMessage) {
                 WebSocketMessage webSocketMessage = ((WebSocketMessage) originatingRequest);
@@ -194,27 +333,62 @@ public class WebSocketServiceServerHandler {
                 final Response<Object> response = ResponseImpl.response(-1, Timer.timer().now(), "SYSTEM", "ERROR",
                         "CAN'T HANDLE CALL", originatingRequest, true);
                 final WebSocketSender sender = webSocketMessage.getSender();
-                sender.sendText(encoderRef.get().encodeAsString(response));
+                if (isBinaryProtocol(body)) {
+                    sender.sendBytes(binaryEncoderRef.get().encodeAsBytes(response));
+                } else {
+                    sender.sendText(encoderRef.get().encodeAsString(response));
+                }
 
             }
-
-            return Collections.emptyList();
         }
+    }
 
+    /**
+     * Clients pick the protocol with the first message, binary frames in the binary protocol get binary replies.
+     */
+    private static boolean isBinaryProtocol(final Object body) {
+        return body instanceof byte[] && BinaryProtocolParser.isBinaryFrame((byte[]) body);
+    }
 
-        //noinspection Convert2streamapi
-        for (MethodCall<Object> methodCall : methodCalls) {
-            if (methodCall instanceof MethodCallImpl) {
+    /**
+     * @return response batches waiting on all encoder workers
+     */
+    public int encoderBacklog() {
+        int backlog = 0;
+        for (int index = 0; index < encoderBacklog.length(); index++) {
+            backlog += encoderBacklog.get(index);
+        }
+        return backlog;
+    }
 
-                MethodCallImpl method = ((MethodCallImpl) methodCall);
+    /**
+     * @param worker encoder worker index
+     * @return response batches waiting on that encoder worker
+     */
+    public int encoderBacklog(final int worker) {
+        return encoderBacklog.get(worker);
+    }
 
-                method.originatingRequest(originatingRequest);
-            }
-        }
+    public int encoderWorkerCount() {
+        return encoderBacklog.length();
+    }
 
-        return methodCalls;
+    /**
+     * @return most batches seen waiting on a single encoder worker, since the encoder stats were last reported
+     */
+    public int encoderBacklogPeak() {
+        return encoderBacklogPeak.get();
+    }
 
+    public long encodedBatchCount() {
+        return encodedBatchCount.sum();
+    }
 
+    /**
+     * @return flushes that found no recycled batch for their connection and had to allocate one
+     */
+    public long batchPoolMissCount() {
+        return batchPoolMissCount.sum();
     }
 
     public void checkResponseBatchSend() {
@@ -237,11 +411,43 @@ public class WebSocketServiceServerHandler {
                     ws.buildAndSendMessages(null, now);
                 }
             }
+
+            if (statsCollector != null) {
+                reportEncoderStats();
+            }
         }
 
 
     }
 
+    private void reportEncoderStats() {
+
+        final int backlog = encoderBacklog();
+        if (backlog != lastBacklog) {
+            lastBacklog = backlog;
+            statsCollector.recordLevel(backlogKey, backlog);
+        }
+
+        final int backlogPeak = encoderBacklogPeak.getAndSet(0);
+        if (backlogPeak > 0) {
+            statsCollector.recordLevel(backlogPeakKey, backlogPeak);
+        }
+
+        final long encodedBatches = encodedBatchCount();
+        if (encodedBatches != lastEncodedBatchCount) {
+            statsCollector.recordCount(encodedBatchCountKey, encodedBatches - lastEncodedBatchCount);
+            lastEncodedBatchCount = encodedBatches;
+        }
+
+        final long batchPoolMisses = batchPoolMissCount();
+        if (batchPoolMisses != lastBatchPoolMissCount) {
+            statsCollector.recordCount(batchPoolMissCountKey, batchPoolMisses - lastBatchPoolMissCount);
+            lastBatchPoolMissCount = batchPoolMisses;
+        }
+
+        statsCollector.clientProxyFlush();
+    }
+
     class WebSocketDelegate {
         final int requestBatchSize;
 
@@ -249,12 +455,45 @@ public class WebSocketServiceServerHandler {
 
         final WebSocketMessage serverWebSocket;
 
+        final boolean binary;
+
+        final ExecutorService parserWorker;
+
+        final int encoderIndex;
+
+        final ExecutorService encoderWorker;
+
+        /**
+         * Batches come back here once the encoder has sent them, so a busy connection keeps reusing the same few.
+         */
+        final BlockingQueue<ResponseBatch> batchPool = new ArrayBlockingQueue<>(4);
+
+        /**
+         * Used only by the parser worker of this connection.
+         */
+        final ProtocolDictionary incomingDictionary = new ProtocolDictionary();
+
+        /**
+         * Used only by the encoder worker of this connection.
+         */
+        final ProtocolDictionary outgoingDictionary = new ProtocolDictionary();
+
+        /**
+         * The client sent us dictionary entries so it can read them, answer in kind.
+         */
+        volatile boolean useDictionary;
+
         volatile long lastSend;
 
         private WebSocketDelegate(int requestBatchSize, WebSocketMessage serverWebSocket) {
             this.requestBatchSize = requestBatchSize;
             outputMessages = new ArrayBlockingQueue<>(requestBatchSize);
             this.serverWebSocket = serverWebSocket;
+            this.binary = isBinaryProtocol(serverWebSocket.getMessage());
+            final int worker = nextWorker.getAndIncrement() & Integer.MAX_VALUE;
+            this.parserWorker = protocolParserWorkers[worker % protocolParserWorkers.length];
+            this.encoderIndex = worker % protocolEncoderWorkers.length;
+            this.encoderWorker = protocolEncoderWorkers[encoderIndex];
         }
 
 
@@ -271,27 +510,29 @@ public class WebSocketServiceServerHandler {
                 return;
             }
 
-            List<Response<Object>> messages = new ArrayList<>(outputMessages.size() + 1);
-
-            Response<Object> currentMessage = outputMessages.poll();
-
-            while (currentMessage != null) {
-
-                messages.add(currentMessage);
-                currentMessage = outputMessages.poll();
-
+            ResponseBatch batch = batchPool.poll();
+            if (batch == null) {
+                batchPoolMissCount.increment();
+                batch = new ResponseBatch(this);
             }
 
+            outputMessages.drainTo(batch.responses);
+
             if (message != null) {
-                messages.add(message);
+                batch.responses.add(message);
             }
 
+            if (batch.responses.size() == 0) {
+                batchPool.offer(batch);
+                return;
+            }
 
-            protocolEncoderThreadPool.execute(() -> {
-                @SuppressWarnings("unchecked") final String textMessage = encoderRef.get().encodeAsString((Collection<Message<Object>>) (Object) messages);
-                serverWebSocket.getSender().sendText(textMessage);
-            });
+            final int backlog = encoderBacklog.incrementAndGet(encoderIndex);
+            if (backlog > encoderBacklogPeak.get()) {
+                encoderBacklogPeak.accumulateAndGet(backlog, Math::max);
+            }
 
+            encoderWorker.execute(batch);
 
             lastSend = now;
 
@@ -300,5 +541,41 @@ public class WebSocketServiceServerHandler {
 
     }
 
+    /**
+     * Responses flushed together for one connection, encoded and sent on the encoder worker of that connection.
+     * Recycled through the pool of the connection once sent.
+     */
+    final class ResponseBatch implements Runnable {
+
+        final WebSocketDelegate delegate;
+
+        final List<Message<Object>> responses;
+
+        private ResponseBatch(final WebSocketDelegate delegate) {
+            this.delegate = delegate;
+            this.responses = new ArrayList<>(delegate.requestBatchSize + 1);
+        }
+
+        @Override
+        public void run() {
+            try {
+                final WebSocketSender sender = delegate.serverWebSocket.getSender();
+                if (delegate.binary) {
+                    sender.sendBytes(binaryEncoderRef.get().encodeAsBytes(responses));
+                } else {
+                    sender.sendText(encoderRef.get().encodeAsString(responses,
+                            delegate.useDictionary ? delegate.outgoingDictionary : null));
+                }
+                encodedBatchCount.increment();
+            } catch (Exception ex) {
+                logger.warn("websocket unable to send responses", ex);
+            } finally {
+                responses.clear();
+                delegate.batchPool.offer(this);
+                encoderBacklog.decrementAndGet(delegate.encoderIndex);
+            }
+        }
+    }
+
 
 }
@@ -30,15 +30,20 @@ import io.advantageous.qbit.bindings.ArgParamURIPositionBinding;
 import io.advantageous.qbit.bindings.MethodBinding;
 import io.advantageous.qbit.bindings.RequestParamBinding;
 import io.advantageous.qbit.http.request.HttpRequest;
+import io.advantageous.qbit.json.JsonCodecRegistry;
 import io.advantageous.qbit.message.Event;
 import io.advantageous.qbit.message.MethodCall;
+import io.advantageous.qbit.message.RawArgs;
 import io.advantageous.qbit.message.Request;
 import io.advantageous.qbit.message.Response;
+import io.advantageous.qbit.message.impl.MethodCallImpl;
 import io.advantageous.qbit.message.impl.ResponseImpl;
 import io.advantageous.qbit.queue.QueueCallBackHandler;
 import io.advantageous.qbit.queue.SendQueue;
 import io.advantageous.qbit.reactive.Callback;
 import io.advantageous.qbit.service.ServiceMethodHandler;
+import io.advantageous.qbit.service.stats.StatsCollector;
+import io.advantageous.qbit.util.Timer;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
@@ -72,13 +77,119 @@ public class BoonServiceMethodCallHandler implements ServiceMethodHandler {
     private SendQueue<Response<Object>> responseSendQueue;
     private final Map<String, MethodAccess> eventMap = new ConcurrentHashMap<>();
 
+    /**
+     * Per method stats slots, one for each method, allocated during init.
+     */
+    private final Map<MethodAccess, MethodCallStats> methodStatsMap = new IdentityHashMap<>();
+    private final Map<String, MethodCallStats> methodStatsByName = new HashMap<>();
+
+    /**
+     * Per method stats config, statsCollector is null unless method stats are enabled.
+     */
+    private StatsCollector statsCollector;
+    private String statsServiceName;
+    private Timer timer;
+    private long flushInterval;
+    /** Call times are not sampled if this is 0, same as the service stats. */
+    private int sampleEvery;
+    private long lastFlush;
+
+    /**
+     * Method stats slot of the call that is currently being invoked, and its start time if the call is sampled.
+     */
+    private MethodCallStats currentMethodStats;
+    private long callStartTime;
+
+    /**
+     * Decoders for args that come in as JSON text, built the first time each method is called that way
+     * with codecs from the registry they were built against.
+     */
+    private final Map<MethodAccess, MethodArgDecoder> argDecoders = new IdentityHashMap<>();
+    private JsonCodecRegistry codecRegistry;
+
     public BoonServiceMethodCallHandler(final boolean invokeDynamic) {
         this.invokeDynamic = invokeDynamic;
     }
 
+    @Override
+    public void enableMethodStats(final String serviceName,
+                                  final StatsCollector statsCollector,
+                                  final Timer timer,
+                                  final long flushInterval,
+                                  final int sampleEvery) {
+        this.statsServiceName = serviceName;
+        this.timer = timer;
+        this.flushInterval = flushInterval;
+        this.sampleEvery = sampleEvery <= 0 ? 0 : sampleEvery;
+        this.lastFlush = timer.now();
+        methodStatsMap.values().forEach(methodCallStats -> methodCallStats.initKeys(serviceName));
+        this.statsCollector = statsCollector;
+    }
+
     @Override
     public Response<Object> receiveMethodCall(MethodCall<Object> methodCall) {
 
+        if (statsCollector == null) {
+            return doReceiveMethodCall(methodCall);
+        }
+
+        currentMethodStats = null;
+        callStartTime = 0;
+
+        final Response<Object> response = doReceiveMethodCall(methodCall);
+
+        /* Async methods only count the synchronous part of the call, and errors sent to the callback are not counted. */
+        if (currentMethodStats != null) {
+            if (callStartTime != 0) {
+                currentMethodStats.recordTime(statsCollector, System.nanoTime() - callStartTime);
+            }
+            currentMethodStats.recordCall(response != null && response.wasErrors());
+            currentMethodStats = null;
+        }
+        return response;
+    }
+
+    private void trackMethodStats(final MethodCallStats methodCallStats) {
+        currentMethodStats = methodCallStats;
+        if (methodCallStats != null && sampleEvery > 0 && methodCallStats.sample(sampleEvery)) {
+            callStartTime = System.nanoTime();
+        }
+    }
+
+    private void trackMethodStats(final Pair<MethodBinding, MethodAccess> binding) {
+        if (statsCollector != null && binding instanceof BoundMethod) {
+            trackMethodStats(((BoundMethod) binding).methodCallStats);
+        }
+    }
+
+    private void flushMethodStatsIfNeeded() {
+        if (statsCollector == null) {
+            return;
+        }
+
+        final long now = timer.now();
+        if (now - lastFlush > flushInterval) {
+            lastFlush = now;
+            for (MethodCallStats methodCallStats : methodStatsMap.values()) {
+                methodCallStats.flush(statsCollector);
+            }
+        }
+    }
+
+    private MethodCallStats methodCallStats(final MethodAccess methodAccess) {
+        MethodCallStats methodCallStats = methodStatsMap.get(methodAccess);
+        if (methodCallStats == null) {
+            methodCallStats = new MethodCallStats(methodAccess);
+            if (statsServiceName != null) {
+                methodCallStats.initKeys(statsServiceName);
+            }
+            methodStatsMap.put(methodAccess, methodCallStats);
+        }
+        return methodCallStats;
+    }
+
+    private Response<Object> doReceiveMethodCall(MethodCall<Object> methodCall) {
+
         try {
             if (methodCall.name() != null && !methodCall.name().isEmpty()) {
                 return invokeByName(methodCall);
@@ -120,6 +231,7 @@ public class BoonServiceMethodCallHandler implements ServiceMethodHandler {
 
 
         if (binding != null) {
+            trackMethodStats(binding);
             return invokeByAddressWithSimpleBinding(methodCall, binding);
         } else {
             return invokeByAddressWithComplexBinding(methodCall);
@@ -149,6 +261,8 @@ public class BoonServiceMethodCallHandler implements ServiceMethodHandler {
         }
 
 
+        trackMethodStats(binding);
+
         final String[] split = StringScanner.split(methodCall.address(), '/');
 
 
@@ -238,6 +352,7 @@ public class BoonServiceMethodCallHandler implements ServiceMethodHandler {
 
     private Response<Object> mapArgsAsyncHandlersAndInvoke(MethodCall<Object> methodCall, MethodAccess method) {
 
+        decodeRawArgs(methodCall, method);
 
         if (method.parameterTypes().length == 0) {
 
@@ -322,6 +437,36 @@ public class BoonServiceMethodCallHandler implements ServiceMethodHandler {
     }
 
 
+    /**
+     * Decodes args that are still JSON text straight into the parameter types of the method.
+     */
+    private void decodeRawArgs(final MethodCall<Object> methodCall, final MethodAccess method) {
+
+        if (!(methodCall instanceof MethodCallImpl)) {
+            return;
+        }
+
+        final MethodCallImpl methodCallImpl = (MethodCallImpl) methodCall;
+        final RawArgs rawArgs = methodCallImpl.rawArgs();
+
+        if (rawArgs == null) {
+            return;
+        }
+
+        final JsonCodecRegistry registry = JsonCodecRegistry.registry();
+        if (registry != codecRegistry) {
+            argDecoders.clear();
+            codecRegistry = registry;
+        }
+
+        MethodArgDecoder argDecoder = argDecoders.get(method);
+        if (argDecoder == null) {
+            argDecoder = new MethodArgDecoder(method, registry);
+            argDecoders.put(method, argDecoder);
+        }
+        methodCallImpl.setBody(argDecoder.decode(rawArgs));
+    }
+
     private boolean hasHandlers(MethodAccess method) {
 
         for (Class<?> paramType : method.parameterTypes()) {
@@ -502,7 +647,15 @@ public class BoonServiceMethodCallHandler implements ServiceMethodHandler {
     }
 
     private Response<Object> invokeByName(MethodCall<Object> methodCall) {
-        final MethodAccess method = classMeta.method(methodCall.name());
+        final MethodAccess method;
+
+        if (statsCollector != null) {
+            final MethodCallStats methodCallStats = methodStatsByName.get(methodCall.name());
+            trackMethodStats(methodCallStats);
+            method = methodCallStats != null ? methodCallStats.method() : null;
+        } else {
+            method = classMeta.method(methodCall.name());
+        }
 
         if (method != null) {
              return mapArgsAsyncHandlersAndInvoke(methodCall, method);
@@ -632,6 +785,12 @@ public class BoonServiceMethodCallHandler implements ServiceMethodHandler {
         readMethodMetaData();
         initQueueHandlerMethods();
 
+        for (MethodAccess methodAccess : classMeta.methods()) {
+            if (!methodStatsByName.containsKey(methodAccess.name())) {
+                methodStatsByName.put(methodAccess.name(), methodCallStats(classMeta.method(methodAccess.name())));
+            }
+        }
+
     }
 
     private void initQueueHandlerMethods() {
@@ -732,7 +891,7 @@ public class BoonServiceMethodCallHandler implements ServiceMethodHandler {
             this.methodMap.put(methodBinding.address(), mappings);
         }
 
-        mappings.put(methodBinding.method(), new Pair<>(methodBinding, methodAccess));
+        mappings.put(methodBinding.method(), new BoundMethod(methodBinding, methodAccess, methodCallStats(methodAccess)));
 
     }
 
@@ -894,12 +1053,14 @@ public class BoonServiceMethodCallHandler implements ServiceMethodHandler {
     @Override
     public void empty() {
 
+        flushMethodStatsIfNeeded();
         queueCallBackHandler.queueEmpty();
 
     }
 
     @Override
     public void limit() {
+        flushMethodStatsIfNeeded();
         queueCallBackHandler.queueLimit();
     }
 
@@ -910,6 +1071,7 @@ public class BoonServiceMethodCallHandler implements ServiceMethodHandler {
 
     @Override
     public void idle() {
+        flushMethodStatsIfNeeded();
         queueCallBackHandler.queueIdle();
     }
 
@@ -917,6 +1079,22 @@ public class BoonServiceMethodCallHandler implements ServiceMethodHandler {
         return methodMap;
     }
 
+    /**
+     * Method binding that also points to the stats slot of the method, so the slot does not have to be looked up per call.
+     */
+    static class BoundMethod extends Pair<MethodBinding, MethodAccess> {
+        private static final long serialVersionUID = 1L;
+
+        final MethodCallStats methodCallStats;
+
+        BoundMethod(final MethodBinding methodBinding,
+                    final MethodAccess methodAccess,
+                    final MethodCallStats methodCallStats) {
+            super(methodBinding, methodAccess);
+            this.methodCallStats = methodCallStats;
+        }
+    }
+
     static class BoonCallBackWrapper implements Callback<Object> {
         final SendQueue<Response<Object>> responseSendQueue;
         final MethodCall<Object> methodCall;
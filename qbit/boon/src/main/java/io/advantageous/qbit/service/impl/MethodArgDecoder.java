@@ -0,0 +1,116 @@
+package io.advantageous.qbit.service.impl;
+
+import io.advantageous.boon.core.reflection.MethodAccess;
+import io.advantageous.qbit.json.JsonCodec;
+import io.advantageous.qbit.json.JsonCodecRegistry;
+import io.advantageous.qbit.message.RawArgs;
+import io.advantageous.qbit.reactive.Callback;
+
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Decodes the raw JSON args of a call into the parameter types of one service method.
+ * <p>
+ * Built once per method the first time it is called with raw args. Args fill the parameters that are not
+ * callbacks in order, the same way the handler maps decoded args. Parameters that are objects, or collections
+ * and maps of objects, are read straight into those types with codecs from the {@link JsonCodecRegistry}.
+ * Everything else, and anything that does not read, is decoded to plain JSON values and left to the usual coercion.
+ * </p>
+ */
+class MethodArgDecoder {
+
+    private final JsonCodec<?>[] decoders;
+
+    MethodArgDecoder(final MethodAccess method, final JsonCodecRegistry codecRegistry) {
+
+        final Class<?>[] parameterTypes = method.parameterTypes();
+        final Type[] genericTypes = method.method().getGenericParameterTypes();
+
+        int argCount = 0;
+        for (Class<?> parameterType : parameterTypes) {
+            if (parameterType != Callback.class) {
+                argCount++;
+            }
+        }
+
+        decoders = new JsonCodec<?>[argCount];
+
+        int argIndex = 0;
+        for (int index = 0; index < parameterTypes.length; index++) {
+            if (parameterTypes[index] != Callback.class) {
+                final Type genericType = genericTypes.length == parameterTypes.length ? genericTypes[index] : null;
+                decoders[argIndex++] = decoderFor(parameterTypes[index], genericType, codecRegistry);
+            }
+        }
+    }
+
+    Object[] decode(final RawArgs rawArgs) {
+
+        final Object[] args = new Object[rawArgs.size()];
+
+        for (int index = 0; index < args.length; index++) {
+            final String json = rawArgs.arg(index);
+            final JsonCodec<?> decoder = index < decoders.length ? decoders[index] : null;
+
+            if (json == null || decoder == null || json.equals("null")) {
+                args[index] = rawArgs.decode(index);
+                continue;
+            }
+
+            try {
+                args[index] = decoder.fromJson(json);
+            } catch (Exception ex) {
+                args[index] = rawArgs.decode(index);
+            }
+        }
+        return args;
+    }
+
+    private static JsonCodec<?> decoderFor(final Class<?> type,
+                                           final Type genericType,
+                                           final JsonCodecRegistry codecRegistry) {
+
+        if (type.isArray() || Collection.class.isAssignableFrom(type)) {
+            final Class<?> componentType = type.isArray() ? type.getComponentType() : typeArgument(genericType, 0);
+            if (isObjectType(componentType)) {
+                return codecRegistry.listCodec(componentType);
+            }
+        } else if (Map.class.isAssignableFrom(type)) {
+            final Class<?> keyType = typeArgument(genericType, 0);
+            final Class<?> valueType = typeArgument(genericType, 1);
+            if (keyType != null && isObjectType(valueType)) {
+                return codecRegistry.mapCodec(keyType, valueType);
+            }
+        } else if (isObjectType(type)) {
+            return codecRegistry.codec(type);
+        }
+        return null;
+    }
+
+    private static Class<?> typeArgument(final Type genericType, final int index) {
+        if (genericType instanceof ParameterizedType) {
+            final Type[] arguments = ((ParameterizedType) genericType).getActualTypeArguments();
+            if (index < arguments.length && arguments[index] instanceof Class) {
+                return (Class<?>) arguments[index];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Classes with fields to read into, not JDK types, enums or anything that has to be picked by coercion.
+     */
+    private static boolean isObjectType(final Class<?> type) {
+        return type != null
+                && !type.isPrimitive()
+                && !type.isArray()
+                && !type.isInterface()
+                && !type.isEnum()
+                && !Modifier.isAbstract(type.getModifiers())
+                && !type.getName().startsWith("java.");
+    }
+}
@@ -0,0 +1,82 @@
+package io.advantageous.qbit.service.impl;
+
+import io.advantageous.boon.core.reflection.MethodAccess;
+import io.advantageous.qbit.service.stats.StatsCollector;
+
+/**
+ * Per method stats slot.
+ * <p>
+ * One slot is allocated for each service method when the handler is initialized,
+ * and the bindings point straight at it, so recording a call is a few field updates on the service thread.
+ * Counts are accumulated here and sent to the {@link StatsCollector} when the handler flushes.
+ * </p>
+ */
+class MethodCallStats {
+
+    private final MethodAccess method;
+
+    private String callCountKey;
+    private String errorCountKey;
+    private String callTimeKey;
+
+    private int callCount;
+    private int errorCount;
+    private int sampleCount;
+
+    MethodCallStats(final MethodAccess method) {
+        this.method = method;
+    }
+
+    MethodAccess method() {
+        return method;
+    }
+
+    void initKeys(final String serviceName) {
+        final String prefix = serviceName + ".method." + method.name();
+        callCountKey = prefix + ".callCount";
+        errorCountKey = prefix + ".errorCount";
+        callTimeKey = prefix + ".callTimeSample";
+    }
+
+    /**
+     * Checks if this call should be timed.
+     *
+     * @param sampleEvery time one out of this many calls
+     * @return true if the call should be timed
+     */
+    boolean sample(final int sampleEvery) {
+        sampleCount++;
+        if (sampleCount >= sampleEvery) {
+            sampleCount = 0;
+            return true;
+        }
+        return false;
+    }
+
+    void recordCall(final boolean error) {
+        callCount++;
+        if (error) {
+            errorCount++;
+        }
+    }
+
+    void recordTime(final StatsCollector statsCollector, final long duration) {
+        if (duration > 0) {
+            statsCollector.recordTiming(callTimeKey, duration);
+        }
+    }
+
+    void flush(final StatsCollector statsCollector) {
+
+        /* We are only sending the counts if they are not 0. */
+        if (callCount > 0) {
+            statsCollector.recordCount(callCountKey, callCount);
+            callCount = 0;
+        }
+
+        if (errorCount > 0) {
+            statsCollector.recordCount(errorCountKey, errorCount);
+            errorCount = 0;
+        }
+    }
+}
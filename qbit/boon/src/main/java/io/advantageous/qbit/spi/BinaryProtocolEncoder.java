@@ -0,0 +1,369 @@
+/*
+ * Copyright (c) 2015. Rick Hightower, Geoff Chandler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * QBit - The Microservice lib for Java : JSON, WebSocket, REST. Be The Web!
+ */
+
+package io.advantageous.qbit.spi;
+
+import io.advantageous.boon.json.JsonSerializer;
+import io.advantageous.boon.json.JsonSerializerFactory;
+import io.advantageous.qbit.message.Message;
+import io.advantageous.qbit.message.MethodCall;
+import io.advantageous.qbit.message.Response;
+import io.advantageous.qbit.trace.TraceContext;
+import io.advantageous.qbit.util.MultiMap;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.advantageous.qbit.service.Protocol.*;
+
+/**
+ * Binary protocol encoder, the binary twin of {@link BoonProtocolEncoder}.
+ * <p>
+ * A frame is the binary marker, the version and the message type ({@code m}, {@code r} or {@code g}).
+ * A group holds a count and then each message prefixed with its length.
+ * Ids and timestamps are zig-zag varints. Addresses, names and header keys/values go through a string table
+ * that lives for one frame, so the return address and method names of a batch are written once.
+ * Args and response bodies are typed, with JSON as the fallback for anything that is not a
+ * primitive, a string or a byte array.
+ * </p>
+ *
+ * @author Rick Hightower
+ */
+public class BinaryProtocolEncoder implements ProtocolBinaryEncoder {
+
+    private final ThreadLocal<JsonSerializer> jsonSerializer = new ThreadLocal<JsonSerializer>() {
+        @Override
+        protected JsonSerializer initialValue() {
+            return new JsonSerializerFactory().addFilter((parent, fieldAccess) -> !fieldAccess.name().equals("metaClass")).create();
+        }
+    };
+
+    private final ThreadLocal<Output> outputRef = new ThreadLocal<Output>() {
+        @Override
+        protected Output initialValue() {
+            return new Output(1000);
+        }
+    };
+
+    @Override
+    public byte[] encodeAsBytes(final Response<Object> response) {
+        final Output output = startFrame(PROTOCOL_MESSAGE_TYPE_RESPONSE);
+        encodeResponse(output, response);
+        return output.toBytes();
+    }
+
+    public byte[] encodeAsBytes(final MethodCall<Object> methodCall) {
+        final Output output = startFrame(PROTOCOL_MESSAGE_TYPE_METHOD);
+        encodeMethodCall(output, methodCall);
+        return output.toBytes();
+    }
+
+    @Override
+    public byte[] encodeAsBytes(final Collection<Message<Object>> messages) {
+        return encodeGroup(messages).toBytes();
+    }
+
+    private Output encodeGroup(final Collection<Message<Object>> messages) {
+        final Output output = startFrame(PROTOCOL_MESSAGE_TYPE_GROUP);
+        output.writeVarInt(messages.size());
+
+        for (Message<Object> message : messages) {
+
+            /* Reserve room for the length, most messages are under 16K so two bytes. */
+            final int lengthPosition = output.reserve(2);
+
+            if (message instanceof MethodCall) {
+                output.write(PROTOCOL_MESSAGE_TYPE_METHOD);
+                encodeMethodCall(output, (MethodCall<Object>) message);
+            } else if (message instanceof Response) {
+                output.write(PROTOCOL_MESSAGE_TYPE_RESPONSE);
+                encodeResponse(output, (Response<Object>) message);
+            } else {
+                output.write(PROTOCOL_MESSAGE_TYPE_EVENT);
+            }
+
+            output.patchLength(lengthPosition);
+        }
+
+        return output;
+    }
+
+    private Output startFrame(final int messageType) {
+        final Output output = outputRef.get();
+        output.recycle();
+        output.write(PROTOCOL_BINARY_MARKER);
+        output.write(PROTOCOL_BINARY_VERSION);
+        output.write(messageType);
+        return output;
+    }
+
+    private void encodeMethodCall(final Output output, final MethodCall<Object> methodCall) {
+        output.writeVarLong(methodCall.id());
+        output.writeString(methodCall.address());
+        output.writeString(methodCall.returnAddress());
+        encodeHeadersAndParams(output, methodCall.headers());
+        encodeHeadersAndParams(output, methodCall.params());
+        output.writeString(methodCall.objectName());
+        output.writeString(methodCall.name());
+        output.writeVarLong(methodCall.timestamp());
+        encodeTraceContext(output, methodCall.traceContext());
+
+        final Object body = methodCall.body();
+        if (body instanceof Object[]) {
+            final Object[] args = (Object[]) body;
+            output.writeVarInt(args.length);
+
+            //noinspection ForLoopReplaceableByForEach
+            for (int index = 0; index < args.length; index++) {
+                encodeValue(output, args[index]);
+            }
+        } else if (body instanceof Collection) {
+            final Collection<?> args = (Collection<?>) body;
+            output.writeVarInt(args.size());
+            for (Object arg : args) {
+                encodeValue(output, arg);
+            }
+        } else if (body != null) {
+            output.writeVarInt(1);
+            encodeValue(output, body);
+        } else {
+            output.writeVarInt(0);
+        }
+    }
+
+    private void encodeResponse(final Output output, final Response<Object> response) {
+        output.writeVarLong(response.id());
+        output.writeString(response.address());
+        output.writeString(response.returnAddress());
+        output.writeVarLong(response.timestamp());
+        encodeTraceContext(output, response.traceContext());
+        output.write(response.wasErrors() ? 1 : 0);
+        encodeValue(output, response.body());
+    }
+
+    private void encodeTraceContext(final Output output, final TraceContext traceContext) {
+        if (traceContext == null) {
+            output.write(0);
+            return;
+        }
+        output.write(traceContext.sampled() ? 2 : 1);
+        output.writeLong(traceContext.traceId());
+        output.writeLong(traceContext.spanId());
+        output.writeLong(traceContext.parentSpanId());
+    }
+
+    private void encodeHeadersAndParams(final Output output, final MultiMap<String, String> headerOrParams) {
+
+        if (headerOrParams == null || headerOrParams.size() == 0) {
+            output.writeVarInt(0);
+            return;
+        }
+
+        final Map<? extends String, ? extends Collection<String>> map = headerOrParams.baseMap();
+
+        int count = 0;
+        for (Map.Entry<? extends String, ? extends Collection<String>> entry : map.entrySet()) {
+            if (entry.getValue().size() > 0 && !TraceContext.HEADER.equals(entry.getKey())) {
+                count++;
+            }
+        }
+
+        output.writeVarInt(count);
+
+        for (Map.Entry<? extends String, ? extends Collection<String>> entry : map.entrySet()) {
+            final Collection<String> values = entry.getValue();
+            if (values.size() == 0 || TraceContext.HEADER.equals(entry.getKey())) {
+                continue;
+            }
+            output.writeString(entry.getKey());
+            output.writeVarInt(values.size());
+            for (String value : values) {
+                output.writeString(value);
+            }
+        }
+    }
+
+    private void encodeValue(final Output output, final Object value) {
+        if (value == null) {
+            output.write(BINARY_TYPE_NULL);
+        } else if (value instanceof Boolean) {
+            output.write((Boolean) value ? BINARY_TYPE_TRUE : BINARY_TYPE_FALSE);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            output.write(BINARY_TYPE_INT);
+            output.writeVarLong(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            output.write(BINARY_TYPE_LONG);
+            output.writeVarLong((Long) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            output.write(BINARY_TYPE_DOUBLE);
+            output.writeLong(Double.doubleToRawLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof String) {
+            output.write(BINARY_TYPE_STRING);
+            output.writeString((String) value);
+        } else if (value instanceof byte[]) {
+            final byte[] bytes = (byte[]) value;
+            output.write(BINARY_TYPE_BYTES);
+            output.writeVarInt(bytes.length);
+            output.write(bytes, 0, bytes.length);
+        } else {
+            output.write(BINARY_TYPE_JSON);
+            output.writeUtf8(jsonSerializer.get().serialize(value).toString());
+        }
+    }
+
+    /**
+     * Growable output buffer with the per frame string table.
+     */
+    private static final class Output {
+
+        private final Map<String, Integer> strings = new HashMap<>();
+        private byte[] buffer;
+        private int position;
+
+        private Output(final int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        void recycle() {
+            position = 0;
+            strings.clear();
+        }
+
+        byte[] toBytes() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensure(final int length) {
+            if (position + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+            }
+        }
+
+        int reserve(final int length) {
+            ensure(length);
+            final int start = position;
+            position += length;
+            return start;
+        }
+
+        void write(final int value) {
+            ensure(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void write(final byte[] bytes, final int offset, final int length) {
+            ensure(length);
+            System.arraycopy(bytes, offset, buffer, position, length);
+            position += length;
+        }
+
+        void writeLong(final long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        /**
+         * Zig-zag so small negative ids like -1 stay one byte.
+         */
+        void writeVarLong(final long signed) {
+            long value = (signed << 1) ^ (signed >> 63);
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeString(final String value) {
+            if (value == null) {
+                writeVarInt(BINARY_STRING_NULL);
+                return;
+            }
+
+            final Integer slot = strings.get(value);
+            if (slot != null) {
+                writeVarInt(BINARY_STRING_REF + slot);
+                return;
+            }
+
+            strings.put(value, strings.size());
+            writeVarInt(BINARY_STRING_NEW);
+            writeUtf8(value);
+        }
+
+        void writeUtf8(final String value) {
+            final int length = value.length();
+
+            /* Most of what we send is ASCII, skip the charset encoder for it. */
+            boolean ascii = true;
+            for (int index = 0; index < length; index++) {
+                if (value.charAt(index) >= 0x80) {
+                    ascii = false;
+                    break;
+                }
+            }
+
+            if (ascii) {
+                writeVarInt(length);
+                ensure(length);
+                for (int index = 0; index < length; index++) {
+                    buffer[position++] = (byte) value.charAt(index);
+                }
+            } else {
+                final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarInt(bytes.length);
+                write(bytes, 0, bytes.length);
+            }
+        }
+
+        /**
+         * Writes the length of what was written after the two reserved bytes at lengthPosition,
+         * moving the message if the length does not fit in two varint bytes.
+         */
+        void patchLength(final int lengthPosition) {
+            final int start = lengthPosition + 2;
+            final int length = position - start;
+
+            if (length < 0x4000) {
+                buffer[lengthPosition] = (byte) ((length & 0x7F) | 0x80);
+                buffer[lengthPosition + 1] = (byte) (length >>> 7);
+                return;
+            }
+
+            final byte[] message = Arrays.copyOfRange(buffer, start, position);
+            position = lengthPosition;
+            writeVarInt(length);
+            write(message, 0, message.length);
+        }
+    }
+}
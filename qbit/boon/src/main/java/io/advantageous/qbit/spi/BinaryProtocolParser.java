@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2015. Rick Hightower, Geoff Chandler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * QBit - The Microservice lib for Java : JSON, WebSocket, REST. Be The Web!
+ */
+
+package io.advantageous.qbit.spi;
+
+import io.advantageous.boon.core.Str;
+import io.advantageous.boon.json.JsonParserAndMapper;
+import io.advantageous.boon.json.JsonParserFactory;
+import io.advantageous.qbit.message.Message;
+import io.advantageous.qbit.message.MethodCall;
+import io.advantageous.qbit.message.MethodCallBuilder;
+import io.advantageous.qbit.message.Response;
+import io.advantageous.qbit.message.impl.ResponseImpl;
+import io.advantageous.qbit.trace.TraceContext;
+import io.advantageous.qbit.trace.Tracing;
+import io.advantageous.qbit.util.MultiMap;
+import io.advantageous.qbit.util.SmallMultiMap;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static io.advantageous.boon.core.Exceptions.die;
+import static io.advantageous.qbit.service.Protocol.*;
+
+/**
+ * Parses frames written by {@link BinaryProtocolEncoder}.
+ * Like {@link BoonProtocolParser} this is not thread safe, use one per thread.
+ *
+ * @author Rick Hightower
+ */
+public class BinaryProtocolParser implements ProtocolParser {
+
+    private final JsonParserAndMapper jsonParser = new JsonParserFactory().create();
+
+    private final List<String> strings = new ArrayList<>();
+
+    /**
+     * True if the bytes are a binary frame.
+     *
+     * @param bytes bytes from the wire
+     * @return true if this parser can read them
+     */
+    public static boolean isBinaryFrame(final byte[] bytes) {
+        return bytes.length > 2 && bytes[PROTOCOL_MARKER_POSITION] == PROTOCOL_BINARY_MARKER;
+    }
+
+    @Override
+    public boolean supports(Object body, MultiMap<String, String> params) {
+        return body instanceof byte[] && isBinaryFrame((byte[]) body);
+    }
+
+    @Override
+    public MethodCall<Object> parseMethodCall(Object body) {
+        return parseMethodCallUsingAddressPrefix("", body);
+    }
+
+    @Override
+    public MethodCall<Object> parseMethodCallUsingAddressPrefix(String addressPrefix, Object body) {
+        final Input input = start(body);
+        if (input == null || input.read() != PROTOCOL_MESSAGE_TYPE_METHOD) {
+            return null;
+        }
+        return parseMethodCall(input, addressPrefix);
+    }
+
+    @Override
+    public List<Message<Object>> parse(String address, Object body) {
+
+        final Input input = frame(body);
+        if (input == null) {
+            return null;
+        }
+
+        final List<Message<Object>> messages = new ArrayList<>();
+        parseFrame(address, input, messages::add);
+        return messages;
+    }
+
+    @Override
+    public void parse(String address, Object body, ProtocolDictionary dictionary, Consumer<Message<Object>> consumer) {
+
+        final Input input = frame(body);
+        if (input != null) {
+            parseFrame(address, input, consumer);
+        }
+    }
+
+    private Input frame(final Object body) {
+        if (!(body instanceof byte[])) {
+            die("Body must be a byte array at this point");
+            return null;
+        }
+        return start(body);
+    }
+
+    private void parseFrame(final String address, final Input input, final Consumer<Message<Object>> consumer) {
+
+        final int messageType = input.read();
+
+        if (messageType == PROTOCOL_MESSAGE_TYPE_METHOD) {
+            consumer.accept((Message<Object>) parseMethodCall(input, ""));
+        } else if (messageType == PROTOCOL_MESSAGE_TYPE_RESPONSE) {
+            consumer.accept((Message<Object>) parseResponse(input));
+        } else if (messageType == PROTOCOL_MESSAGE_TYPE_GROUP) {
+
+            final int count = input.readVarInt();
+
+            for (int index = 0; index < count; index++) {
+                final int length = input.readVarInt();
+                final int end = input.position + length;
+                final int type = input.read();
+
+                if (type == PROTOCOL_MESSAGE_TYPE_METHOD) {
+                    consumer.accept((Message<Object>) parseMethodCall(input, address));
+                } else if (type == PROTOCOL_MESSAGE_TYPE_RESPONSE) {
+                    consumer.accept((Message<Object>) parseResponse(input));
+                }
+                input.position = end;
+            }
+
+        } else {
+            die("Unsupported binary message type", messageType);
+        }
+    }
+
+    @Override
+    public List<MethodCall<Object>> parseMethods(Object body) {
+        return asMethodCalls(parse("", body));
+    }
+
+    @Override
+    public List<MethodCall<Object>> parseMethodCallListUsingAddressPrefix(String addressPrefix, Object body) {
+        return asMethodCalls(parse("", body));
+    }
+
+    /**
+     * The list is handed back as parsed. A group can carry responses next to the method calls and those are left in,
+     * so the element type is not checked here.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<MethodCall<Object>> asMethodCalls(final List<Message<Object>> messages) {
+        return (List<MethodCall<Object>>) (Object) messages;
+    }
+
+    @Override
+    public Response<Object> parseResponse(Object body) {
+        final Input input = start(body);
+        if (input == null || input.read() != PROTOCOL_MESSAGE_TYPE_RESPONSE) {
+            return null;
+        }
+        return parseResponse(input);
+    }
+
+    private Input start(final Object body) {
+        if (!(body instanceof byte[]) || !isBinaryFrame((byte[]) body)) {
+            return null;
+        }
+        final byte[] bytes = (byte[]) body;
+        if (bytes[BINARY_VERSION_POSITION] != PROTOCOL_BINARY_VERSION) {
+            die("Unsupported binary protocol version", bytes[BINARY_VERSION_POSITION]);
+        }
+        strings.clear();
+        return new Input(bytes, BINARY_MESSAGE_TYPE_POSITION);
+    }
+
+    private MethodCall<Object> parseMethodCall(final Input input, final String addressPrefix) {
+
+        final long id = input.readVarLong();
+        final String address = readString(input);
+        String returnAddress = readString(input);
+
+        if (!Str.isEmpty(addressPrefix)) {
+            returnAddress = Str.add(addressPrefix, "" + ((char) PROTOCOL_ARG_SEPARATOR), returnAddress);
+        }
+
+        final MultiMap<String, String> headers = readHeadersOrParams(input);
+        final MultiMap<String, String> params = readHeadersOrParams(input);
+        final String objectName = readString(input);
+        final String methodName = readString(input);
+        final long timestamp = input.readVarLong();
+
+        TraceContext traceContext = readTraceContext(input);
+
+        final int argCount = input.readVarInt();
+        final Object[] args = new Object[argCount];
+        for (int index = 0; index < argCount; index++) {
+            args[index] = readValue(input);
+        }
+
+        /* Method calls are parsed where they come in, so they join the trace of the sender or start one. */
+        if (traceContext == null) {
+            traceContext = Tracing.forIncomingRequest(null);
+        }
+
+        return new MethodCallBuilder().setId(id).setAddress(address).setReturnAddress(returnAddress)
+                .setHeaders(headers).setObjectName(objectName).setName(methodName).setTimestamp(timestamp)
+                .setBody(args).setParams(params).setTraceContext(traceContext).build();
+    }
+
+    private Response<Object> parseResponse(final Input input) {
+
+        final long id = input.readVarLong();
+        final String address = readString(input);
+        final String returnAddress = readString(input);
+        final long timestamp = input.readVarLong();
+        final TraceContext traceContext = readTraceContext(input);
+        final boolean wasErrors = input.read() == 1;
+        final Object body = readValue(input);
+
+        final ResponseImpl<Object> response = new ResponseImpl<>(id, timestamp, address, returnAddress, null,
+                body, null, wasErrors);
+        response.traceContext(traceContext);
+        return response;
+    }
+
+    private TraceContext readTraceContext(final Input input) {
+        final int flag = input.read();
+        if (flag == 0) {
+            return null;
+        }
+        return new TraceContext(input.readLong(), input.readLong(), input.readLong(), flag == 2);
+    }
+
+    private MultiMap<String, String> readHeadersOrParams(final Input input) {
+        final int count = input.readVarInt();
+        if (count == 0) {
+            return null;
+        }
+
+        final MultiMap<String, String> map = new SmallMultiMap<>();
+        for (int entry = 0; entry < count; entry++) {
+            final String key = readString(input);
+            final int valueCount = input.readVarInt();
+            for (int index = 0; index < valueCount; index++) {
+                map.add(key, readString(input));
+            }
+        }
+        return map;
+    }
+
+    private String readString(final Input input) {
+        final int tag = input.readVarInt();
+        if (tag == BINARY_STRING_NULL) {
+            return null;
+        } else if (tag == BINARY_STRING_NEW) {
+            final String value = input.readUtf8();
+            strings.add(value);
+            return value;
+        } else {
+            return strings.get(tag - BINARY_STRING_REF);
+        }
+    }
+
+    private Object readValue(final Input input) {
+        final int type = input.read();
+        switch (type) {
+            case BINARY_TYPE_NULL:
+                return null;
+            case BINARY_TYPE_FALSE:
+                return Boolean.FALSE;
+            case BINARY_TYPE_TRUE:
+                return Boolean.TRUE;
+            case BINARY_TYPE_INT:
+                return (int) input.readVarLong();
+            case BINARY_TYPE_LONG:
+                return input.readVarLong();
+            case BINARY_TYPE_DOUBLE:
+                return Double.longBitsToDouble(input.readLong());
+            case BINARY_TYPE_STRING:
+                return readString(input);
+            case BINARY_TYPE_BYTES:
+                final int length = input.readVarInt();
+                final byte[] bytes = new byte[length];
+                System.arraycopy(input.bytes, input.position, bytes, 0, length);
+                input.position += length;
+                return bytes;
+            case BINARY_TYPE_JSON:
+                return jsonParser.parse(input.readUtf8());
+            default:
+                die("Unknown binary value type", type);
+                return null;
+        }
+    }
+
+    /**
+     * Read position over a frame.
+     */
+    private static final class Input {
+
+        private final byte[] bytes;
+        private int position;
+
+        private Input(final byte[] bytes, final int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        int read() {
+            return bytes[position++] & 0xFF;
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int index = 0; index < 8; index++) {
+                value = (value << 8) | (bytes[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            int current;
+            do {
+                current = bytes[position++];
+                value |= (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            return value;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            long current;
+            do {
+                current = bytes[position++];
+                value |= (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String readUtf8() {
+            final int length = readVarInt();
+            final String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
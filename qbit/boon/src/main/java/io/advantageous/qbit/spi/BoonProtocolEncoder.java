@@ -25,6 +25,7 @@ import io.advantageous.qbit.message.Message;
 import io.advantageous.qbit.message.MethodCall;
 import io.advantageous.qbit.message.Response;
 import io.advantageous.qbit.service.Protocol;
+import io.advantageous.qbit.trace.TraceContext;
 import io.advantageous.qbit.util.MultiMap;
 
 import java.util.Collection;
@@ -58,19 +59,24 @@ public class BoonProtocolEncoder implements ProtocolEncoder {
     @Override
     public String encodeAsString(Response<Object> response) {
         CharBuf buf = CharBuf.createCharBuf();
-        encodeAsString(buf, response, true);
+        encodeAsString(buf, response, true, null);
         return buf.toString();
     }
 
     @Override
     public String encodeAsString(MethodCall<Object> methodCall) {
         CharBuf buf = CharBuf.createCharBuf();
-        encodeAsString(buf, methodCall, true);
+        encodeAsString(buf, methodCall, true, null);
         return buf.toString();
     }
 
     @Override
     public String encodeAsString(Collection<Message<Object>> messages) {
+        return encodeAsString(messages, null);
+    }
+
+    @Override
+    public String encodeAsString(Collection<Message<Object>> messages, ProtocolDictionary dictionary) {
         CharBuf buf = bufRef.get();
         buf.recycle();
 
@@ -83,9 +89,9 @@ public class BoonProtocolEncoder implements ProtocolEncoder {
             boolean encodeAddress = index == 0;
 
             if (message instanceof MethodCall) {
-                encodeAsString(buf, (MethodCall<Object>) message, encodeAddress);
+                encodeAsString(buf, (MethodCall<Object>) message, encodeAddress, dictionary);
             } else if (message instanceof Response) {
-                encodeAsString(buf, (Response<Object>) message, encodeAddress);
+                encodeAsString(buf, (Response<Object>) message, encodeAddress, dictionary);
             }
             buf.addChar(PROTOCOL_MESSAGE_SEPARATOR);
 
@@ -97,16 +103,17 @@ public class BoonProtocolEncoder implements ProtocolEncoder {
     }
 
 
-    private void encodeAsString(CharBuf buf, MethodCall<Object> methodCall, boolean encodeAddress) {
+    private void encodeAsString(CharBuf buf, MethodCall<Object> methodCall, boolean encodeAddress,
+                                ProtocolDictionary dictionary) {
         buf.addChar(PROTOCOL_MARKER);
         buf.addChar(PROTOCOL_MESSAGE_TYPE_METHOD);
         buf.addChar(PROTOCOL_SEPARATOR);
         buf.add(methodCall.id());
         buf.addChar(PROTOCOL_SEPARATOR);
-        buf.add(methodCall.address());
+        encodeName(buf, methodCall.address(), dictionary);
         buf.addChar(PROTOCOL_SEPARATOR);
 
-        buf.add(methodCall.returnAddress());
+        encodeName(buf, methodCall.returnAddress(), dictionary);
 
 //        if (encodeAddress) {
 //            buf.add(methodCall.returnAddress());
@@ -117,12 +124,13 @@ public class BoonProtocolEncoder implements ProtocolEncoder {
 
         buf.addChar(PROTOCOL_SEPARATOR);
         encodeHeadersAndParams(buf, methodCall.headers());
+        encodeTraceContext(buf, methodCall.traceContext());
         buf.addChar(PROTOCOL_SEPARATOR);
         encodeHeadersAndParams(buf, methodCall.params());
         buf.addChar(PROTOCOL_SEPARATOR);
-        buf.add(methodCall.objectName());
+        encodeName(buf, methodCall.objectName(), dictionary);
         buf.addChar(PROTOCOL_SEPARATOR);
-        buf.add(methodCall.name());
+        encodeName(buf, methodCall.name(), dictionary);
         buf.addChar(PROTOCOL_SEPARATOR);
         buf.add(methodCall.timestamp());
         buf.addChar(PROTOCOL_SEPARATOR);
@@ -150,18 +158,20 @@ public class BoonProtocolEncoder implements ProtocolEncoder {
     }
 
 
-    private void encodeAsString(CharBuf buf, Response<Object> response, boolean encodeAddress) {
+    private void encodeAsString(CharBuf buf, Response<Object> response, boolean encodeAddress,
+                                ProtocolDictionary dictionary) {
         buf.addChar(PROTOCOL_MARKER);
         buf.addChar(PROTOCOL_MESSAGE_TYPE_RESPONSE);
         buf.addChar(PROTOCOL_SEPARATOR);
         buf.add(response.id());
         buf.addChar(PROTOCOL_SEPARATOR);
-        buf.add(response.address());
+        encodeName(buf, response.address(), dictionary);
         buf.addChar(PROTOCOL_SEPARATOR);
 
-        buf.add(response.returnAddress());
+        encodeName(buf, response.returnAddress(), dictionary);
+        buf.addChar(PROTOCOL_SEPARATOR);
+        encodeTraceContext(buf, response.traceContext()); //header
         buf.addChar(PROTOCOL_SEPARATOR);
-        buf.addChar(PROTOCOL_SEPARATOR); //reserved for header
         buf.addChar(PROTOCOL_SEPARATOR); //reserved for params
         buf.addChar(PROTOCOL_SEPARATOR); //reserved for object name
         buf.addChar(PROTOCOL_SEPARATOR); //reserved for method name
@@ -180,6 +190,45 @@ public class BoonProtocolEncoder implements ProtocolEncoder {
         }
     }
 
+    /**
+     * Writes an address or name, as a dictionary reference if it was sent on this connection before.
+     */
+    private void encodeName(CharBuf buf, String value, ProtocolDictionary dictionary) {
+        if (dictionary == null || value == null || value.isEmpty()) {
+            buf.add(value);
+            return;
+        }
+
+        int id = dictionary.idOf(value);
+        if (id != -1) {
+            buf.addChar(PROTOCOL_DICTIONARY_REF);
+            buf.add(id);
+            return;
+        }
+
+        id = dictionary.define(value);
+        if (id != -1) {
+            buf.addChar(PROTOCOL_DICTIONARY_DEFINE);
+            buf.add(id);
+            buf.addChar(PROTOCOL_DICTIONARY_DEFINE);
+        }
+        buf.add(value);
+    }
+
+    /**
+     * Writes the trace context as one more header entry.
+     */
+    private void encodeTraceContext(CharBuf buf, TraceContext traceContext) {
+        if (traceContext == null) {
+            return;
+        }
+        buf.add(TraceContext.HEADER);
+        buf.addChar(Protocol.PROTOCOL_KEY_HEADER_DELIM);
+        buf.add(traceContext.encode());
+        buf.addChar(Protocol.PROTOCOL_VALUE_HEADER_DELIM);
+        buf.addChar(Protocol.PROTOCOL_ENTRY_HEADER_DELIM);
+    }
+
     private void encodeHeadersAndParams(CharBuf buf, MultiMap<String, String> headerOrParams) {
 
         if (headerOrParams == null) {
@@ -192,7 +241,7 @@ public class BoonProtocolEncoder implements ProtocolEncoder {
 
             final Collection<String> values = entry.getValue();
 
-            if (values.size() == 0) {
+            if (values.size() == 0 || TraceContext.HEADER.equals(entry.getKey())) {
                 continue;
             }
 
@@ -18,30 +18,38 @@
 
 package io.advantageous.qbit.spi;
 
-import io.advantageous.boon.core.Lists;
 import io.advantageous.boon.core.Str;
 import io.advantageous.boon.core.reflection.FastStringUtils;
 import io.advantageous.boon.json.JsonParserAndMapper;
 import io.advantageous.boon.json.JsonParserFactory;
 import io.advantageous.boon.primitive.CharScanner;
-import io.advantageous.boon.primitive.Chr;
 import io.advantageous.qbit.message.Message;
 import io.advantageous.qbit.message.MethodCall;
 import io.advantageous.qbit.message.MethodCallBuilder;
+import io.advantageous.qbit.message.RawArgs;
 import io.advantageous.qbit.message.Response;
 import io.advantageous.qbit.message.impl.ResponseImpl;
-import io.advantageous.qbit.service.Protocol;
+import io.advantageous.qbit.trace.TraceContext;
+import io.advantageous.qbit.trace.Tracing;
 import io.advantageous.qbit.util.MultiMap;
-import io.advantageous.qbit.util.MultiMapImpl;
+import io.advantageous.qbit.util.SmallMultiMap;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static io.advantageous.boon.core.Exceptions.die;
 import static io.advantageous.qbit.service.Protocol.*;
 
 /**
  * created by Richard on 9/26/14.
+ * <p>
+ * Walks the frame in place. Messages and fields are found by index in the char array of the body,
+ * only the strings that end up in the message are copied out. Method call args stay JSON text
+ * in {@link RawArgs} until the method they are for is known.
+ * Not thread safe, use one per thread.
+ * </p>
  *
  * @author Rick Hightower
  */
@@ -57,7 +65,7 @@ public class BoonProtocolParser implements ProtocolParser {
         }
         final char[] chars = FastStringUtils.toCharArray(args);
 
-        return parseMessageFromChars(addressPrefix, chars, null);
+        return parseMessageFromChars(addressPrefix, chars, 0, chars.length, null);
     }
 
 
@@ -100,6 +108,38 @@ public class BoonProtocolParser implements ProtocolParser {
 
     @Override
     public List<Message<Object>> parse(String address, Object body) {
+        return parse(address, body, null);
+    }
+
+    @Override
+    public List<Message<Object>> parse(String address, Object body, ProtocolDictionary dictionary) {
+
+        final char[] chars = frameChars(body);
+
+        if (chars == null) {
+            return null;
+        }
+
+        final List<Message<Object>> messages = new ArrayList<>();
+        parseFrame(address, chars, dictionary, messages::add);
+        return messages;
+
+    }
+
+    @Override
+    public void parse(String address, Object body, ProtocolDictionary dictionary, Consumer<Message<Object>> consumer) {
+
+        final char[] chars = frameChars(body);
+
+        if (chars != null) {
+            parseFrame(address, chars, dictionary, consumer);
+        }
+    }
+
+    /**
+     * Chars of the body without copying them, or null if the body is not in this protocol.
+     */
+    private char[] frameChars(Object body) {
 
         if (!(body instanceof String)) {
 
@@ -116,62 +156,64 @@ public class BoonProtocolParser implements ProtocolParser {
 
         final char[] chars = FastStringUtils.toCharArray(args);
         if (chars.length > 2 && chars[PROTOCOL_MARKER_POSITION] == PROTOCOL_MARKER) {
+            return chars;
+        }
+        return null;
+    }
 
-            final char versionMarker = chars[VERSION_MARKER_POSITION];
-
-            if (versionMarker == PROTOCOL_MESSAGE_TYPE_METHOD) {
-                return Lists.list((Message<Object>) handleFastBodySubmissionVersion1Chars("", chars, null));
-            } else if (versionMarker == PROTOCOL_MESSAGE_TYPE_RESPONSE) {
-                return Lists.list((Message<Object>) parseResponseFromChars("", chars, null));
-            } else if (versionMarker == PROTOCOL_MESSAGE_TYPE_GROUP) {
+    private void parseFrame(String address, char[] chars, ProtocolDictionary dictionary,
+                            Consumer<Message<Object>> consumer) {
 
-                String returnAddress = null;
+        final char versionMarker = chars[VERSION_MARKER_POSITION];
 
-                final char[][] messageBuffers = CharScanner.splitFrom(chars, (char) PROTOCOL_MESSAGE_SEPARATOR, 2);
+        if (versionMarker == PROTOCOL_MESSAGE_TYPE_METHOD) {
+            consumer.accept((Message<Object>) handleFastBodySubmissionVersion1Chars("", chars, 0, chars.length, dictionary));
+        } else if (versionMarker == PROTOCOL_MESSAGE_TYPE_RESPONSE) {
+            consumer.accept((Message<Object>) parseResponseFromChars(chars, 0, chars.length, dictionary));
+        } else if (versionMarker == PROTOCOL_MESSAGE_TYPE_GROUP) {
 
-                List<Message<Object>> messages = new ArrayList<>(messageBuffers.length);
+            /* Each message of the group ends with a message separator, hand them out as we reach them. */
+            int start = VERSION_MARKER_POSITION + 1;
 
-                int index = 0;
+            while (start < chars.length) {
 
-                for (char[] methodCall : messageBuffers) {
-                    final Message<Object> m = parseMessageFromChars(address, methodCall, returnAddress);
+                final int end = indexOf(chars, (char) PROTOCOL_MESSAGE_SEPARATOR, start, chars.length);
 
-                    if (index == 0) {
-                        if (m instanceof MethodCall) {
-                            final MethodCall call = (MethodCall) m;
-                            returnAddress = call.returnAddress();
-                        } else if (m instanceof Response) {
-                            final Response response = (Response) m;
-                            returnAddress = response.returnAddress();
-                        }
-                    }
-                    messages.add(m);
-                    index++;
+                final Message<Object> message = parseMessageFromChars(address, chars, start, end, dictionary);
+                if (message != null) {
+                    consumer.accept(message);
                 }
-
-                return messages;
-
-
-            } else {
-                die("Unsupported method call", args);
-                return null;
-
+                start = end + 1;
             }
-        }
-        return null;
 
+        } else {
+            die("Unsupported method call", new String(chars));
+        }
     }
 
     @Override
     public List<MethodCall<Object>> parseMethods(Object body) {
-        //noinspection unchecked
-        return (List<MethodCall<Object>>) (Object) parse("", body);
+        return asMethodCalls(parse("", body));
     }
 
     @Override
     public List<MethodCall<Object>> parseMethodCallListUsingAddressPrefix(String addressPrefix, Object body) {
-        //noinspection unchecked
-        return (List<MethodCall<Object>>) (Object) parse("", body);
+        return asMethodCalls(parse("", body));
+    }
+
+    @Override
+    public List<MethodCall<Object>> parseMethodCallListUsingAddressPrefix(String addressPrefix, Object body,
+                                                                          ProtocolDictionary dictionary) {
+        return asMethodCalls(parse("", body, dictionary));
+    }
+
+    /**
+     * The list is handed back as parsed. A group can carry responses next to the method calls and those are left in,
+     * so the element type is not checked here.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<MethodCall<Object>> asMethodCalls(final List<Message<Object>> messages) {
+        return (List<MethodCall<Object>>) (Object) messages;
     }
 
     @Override
@@ -186,7 +228,7 @@ public class BoonProtocolParser implements ProtocolParser {
                 if (versionMarker == PROTOCOL_MESSAGE_TYPE_RESPONSE) {
 
 
-                    return parseResponseFromChars("", args, null);
+                    return parseResponseFromChars(args, 0, args.length, null);
                 } else {
                     return null;
                 }
@@ -197,65 +239,68 @@ public class BoonProtocolParser implements ProtocolParser {
         return null;
     }
 
-    private Response<Object> parseResponseFromChars(String addressPrefix, char[] args, String parentReturnAddress) {
-        final char[][] chars = CharScanner.splitFromStartWithLimit(args, (char) PROTOCOL_SEPARATOR, 0, RESPONSE_RETURN);
-
-
-        String messageId = FastStringUtils.noCopyStringFromChars(chars[MESSAGE_ID_POS]);
-
-        long id = 0L;
-        if (!Str.isEmpty(messageId)) {
-            id = Long.parseLong(messageId);
-        }
-
-        String address = FastStringUtils.noCopyStringFromChars(chars[ADDRESS_POS]);
-
-
-        String returnAddress = FastStringUtils.noCopyStringFromChars(chars[RETURN_ADDRESS_POS]);
+    private Response<Object> parseResponseFromChars(char[] chars, int start, int end, ProtocolDictionary dictionary) {
 
+        final Fields fields = new Fields(chars, start, end);
 
-        String stime = FastStringUtils.noCopyStringFromChars(chars[TIMESTAMP_POS]);
+        fields.next(); //message id
+        final long id = fields.asLong();
 
+        fields.next();
+        final String address = parseName(chars, fields.from, fields.to, dictionary);
 
-        long timestamp = 0L;
-
-        if (!Str.isEmpty(stime)) {
-            timestamp = Long.parseLong(stime);
-        }
+        fields.next();
+        final String returnAddress = parseName(chars, fields.from, fields.to, dictionary);
 
+        fields.next();
+        final int headerFrom = fields.from;
+        final int headerTo = fields.to;
 
-        char[] wasErrorsStr = chars[WAS_ERRORS_POS];
+        fields.next(); //params
+        fields.next(); //object name
+        fields.next(); //method name
 
+        fields.next();
+        final long timestamp = fields.asLong();
 
-        boolean wasErrors = wasErrorsStr != null && wasErrorsStr.length == 1 && wasErrorsStr[0] == '1';
+        fields.next();
+        final boolean wasErrors = fields.to - fields.from == 1 && chars[fields.from] == '1';
 
-        char[] messageBodyChars = chars[RESPONSE_RETURN];
+        fields.rest();
 
         Object messageBody;
-        if (!Chr.isEmpty(messageBodyChars)) {
-            messageBody = jsonParser.parse(messageBodyChars);
+        if (!fields.isEmpty()) {
+            messageBody = jsonParser.parse(fields.copy());
         } else {
             messageBody = null;
         }
-        return new ResponseImpl<>(id, timestamp, address, returnAddress, null, messageBody, null, wasErrors);
+        final ResponseImpl<Object> response = new ResponseImpl<>(id, timestamp, address, returnAddress, null,
+                messageBody, null, wasErrors);
+
+        if (headerTo > headerFrom) {
+            final MultiMap<String, String> headers = parseHeaders(chars, headerFrom, headerTo);
+            response.traceContext(TraceContext.decode(headers.get(TraceContext.HEADER)));
+        }
+        return response;
 
 
     }
 
 
-    private Message<Object> parseMessageFromChars(String addressPrefix, char[] chars, String returnAddress) {
+    private Message<Object> parseMessageFromChars(String addressPrefix, char[] chars, int start, int end,
+                                                  ProtocolDictionary dictionary) {
 
 
-        if (chars.length > 2 && chars[PROTOCOL_MARKER_POSITION] == PROTOCOL_MARKER) {
+        if (end - start > 2 && chars[start + PROTOCOL_MARKER_POSITION] == PROTOCOL_MARKER) {
 
-            final char versionMarker = chars[VERSION_MARKER_POSITION];
+            final char versionMarker = chars[start + VERSION_MARKER_POSITION];
 
             if (versionMarker == PROTOCOL_MESSAGE_TYPE_METHOD) {
-                return handleFastBodySubmissionVersion1Chars(addressPrefix, chars, returnAddress);
+                return handleFastBodySubmissionVersion1Chars(addressPrefix, chars, start, end, dictionary);
             } else if (versionMarker == PROTOCOL_MESSAGE_TYPE_RESPONSE) {
-                return parseResponseFromChars(addressPrefix, chars, returnAddress);
+                return parseResponseFromChars(chars, start, end, dictionary);
             } else {
-                die("Unsupported method call", new String(chars));
+                die("Unsupported method call", new String(chars, start, end - start));
                 return null;
             }
         }
@@ -263,70 +308,110 @@ public class BoonProtocolParser implements ProtocolParser {
     }
 
 
-    private MethodCall<Object> handleFastBodySubmissionVersion1Chars(String addressPrefix, char[] args, String parentReturnAddress) {
-
-        final char[][] chars = CharScanner.splitFromStartWithLimit(args, (char) PROTOCOL_SEPARATOR, 0, METHOD_NAME_POS + 2);
+    private MethodCall<Object> handleFastBodySubmissionVersion1Chars(String addressPrefix, char[] chars, int start,
+                                                                     int end, ProtocolDictionary dictionary) {
 
+        final Fields fields = new Fields(chars, start, end);
 
-        long id = 0L;
-        if (!Chr.isEmpty(chars[MESSAGE_ID_POS])) {
-            id = CharScanner.parseLong(chars[MESSAGE_ID_POS]);
-        }
-
-        String address = FastStringUtils.noCopyStringFromChars(chars[ADDRESS_POS]);
+        fields.next();
+        final long id = fields.asLong();
 
+        fields.next();
+        final String address = parseName(chars, fields.from, fields.to, dictionary);
 
-        String returnAddress;
 
-        returnAddress = FastStringUtils.noCopyStringFromChars(chars[RETURN_ADDRESS_POS]);
+        fields.next();
+        String returnAddress = parseName(chars, fields.from, fields.to, dictionary);
 
         if (!Str.isEmpty(addressPrefix)) {
             returnAddress = Str.add(addressPrefix, "" + ((char) PROTOCOL_ARG_SEPARATOR), returnAddress);
         }
 
 
-        String headerBlock = FastStringUtils.noCopyStringFromChars(chars[HEADER_POS]);
-
-        MultiMap<String, String> headers = parseHeaders(headerBlock);
+        fields.next();
+        final MultiMap<String, String> headers = parseHeaders(chars, fields.from, fields.to);
 
 
-        String paramBlock = FastStringUtils.noCopyStringFromChars(chars[PARAMS_POS]);
+        fields.next();
+        final MultiMap<String, String> params = parseHeaders(chars, fields.from, fields.to);
 
+        /* Object name first, dictionary entries are defined in the order they were encoded. */
+        fields.next();
+        final String objectName = parseName(chars, fields.from, fields.to, dictionary);
 
-        MultiMap<String, String> params = parseHeaders(paramBlock);
 
-        String methodName = FastStringUtils.noCopyStringFromChars(chars[METHOD_NAME_POS]);
+        fields.next();
+        final String methodName = parseName(chars, fields.from, fields.to, dictionary);
 
 
-        String objectName = FastStringUtils.noCopyStringFromChars(chars[OBJECT_NAME_POS]);
+        fields.next();
+        final long timestamp = fields.asLong();
 
+        fields.rest();
+        final RawArgs argList = parseArgs(chars, fields.from, fields.to);
 
-        long timestamp = 0L;
-
-        if (!Chr.isEmpty(chars[TIMESTAMP_POS])) {
-            //timestamp = Long.parseLong(stime);
-            timestamp = CharScanner.parseLong(chars[TIMESTAMP_POS]);
+        /* Method calls are parsed where they come in, so they join the trace of the sender or start one. */
+        TraceContext traceContext = headers != null ? TraceContext.decode(headers.get(TraceContext.HEADER)) : null;
+        if (traceContext == null) {
+            traceContext = Tracing.forIncomingRequest(null);
         }
 
-        char[] body = chars[ARGS_POS];
+        return new MethodCallBuilder().setId(id).setAddress(address).setReturnAddress(returnAddress).setHeaders(headers).setObjectName(objectName).setName(methodName).setTimestamp(timestamp).setBody(argList).setParams(params).setTraceContext(traceContext).build();
+
+    }
 
+    /**
+     * Args are JSON values each followed by an arg separator. They are kept as JSON text,
+     * the service handler decodes them into the parameter types of the method it calls.
+     */
+    private RawArgs parseArgs(char[] chars, int from, int to) {
 
-        final char[][] argumentList = CharScanner.split(body, (char) PROTOCOL_ARG_SEPARATOR);
+        int count = 1;
+        for (int index = from; index < to; index++) {
+            if (chars[index] == PROTOCOL_ARG_SEPARATOR) {
+                count++;
+            }
+        }
+        if (to > from && chars[to - 1] == PROTOCOL_ARG_SEPARATOR) {
+            count--;
+        }
 
-        Object[] argList = new Object[argumentList.length];
+        final String[] argList = new String[count];
 
-        for (int index = 0; index < argumentList.length; index++) {
-            char[] charArgs = argumentList[index];
+        int argStart = from;
+        for (int index = 0; index < count; index++) {
+            final int argEnd = indexOf(chars, (char) PROTOCOL_ARG_SEPARATOR, argStart, to);
 
-            if (charArgs.length == 0) {
+            if (argEnd == argStart) {
                 break;
             }
-            Object arg = jsonParser.parse(charArgs);
-            argList[index] = arg;
+            argList[index] = new String(chars, argStart, argEnd - argStart);
+            argStart = argEnd + 1;
+        }
+        return new RawArgs(argList);
+    }
+
+    /**
+     * Reads an address or name that may be a dictionary definition or reference.
+     */
+    private String parseName(char[] chars, int from, int to, ProtocolDictionary dictionary) {
+
+        if (from == to || (chars[from] != PROTOCOL_DICTIONARY_DEFINE && chars[from] != PROTOCOL_DICTIONARY_REF)) {
+            return new String(chars, from, to - from);
+        }
+
+        if (dictionary == null) {
+            die("Message uses the protocol dictionary but this connection has none");
         }
 
-        return new MethodCallBuilder().setId(id).setAddress(address).setReturnAddress(returnAddress).setHeaders(headers).setObjectName(objectName).setName(methodName).setTimestamp(timestamp).setBody(argList).setParams(params).build();
+        if (chars[from] == PROTOCOL_DICTIONARY_REF) {
+            return dictionary.get(CharScanner.parseInt(chars, from + 1, to));
+        }
 
+        final int end = indexOf(chars, (char) PROTOCOL_DICTIONARY_DEFINE, from + 1, to);
+        final String value = new String(chars, end + 1, to - end - 1);
+        dictionary.put(CharScanner.parseInt(chars, from + 1, end), value);
+        return value;
     }
 
     public MultiMap<String, String> parseHeaders(String header) {
@@ -335,25 +420,39 @@ public class BoonProtocolParser implements ProtocolParser {
             return null;
         }
 
-        MultiMap<String, String> params = new MultiMapImpl<>();
+        final char[] chars = FastStringUtils.toCharArray(header);
+        return parseHeaders(chars, 0, chars.length);
+    }
 
-        final char[][] split = CharScanner.split(FastStringUtils.toCharArray(header), (char) Protocol.PROTOCOL_ENTRY_HEADER_DELIM);
+    private MultiMap<String, String> parseHeaders(char[] chars, int from, int to) {
 
-        for (char[] entry : split) {
+        if (from == to) {
+            return null;
+        }
 
-            final char[][] kvSplit = CharScanner.split(entry, (char) PROTOCOL_KEY_HEADER_DELIM);
-            if (kvSplit.length > 1) {
-                char[] ckey = kvSplit[0];
-                char[] valuesAsOne = kvSplit[1];
-                final char[][] values = CharScanner.split(valuesAsOne, (char) PROTOCOL_VALUE_HEADER_DELIM);
-                String key = new String(ckey);
-                for (char[] value : values) {
+        MultiMap<String, String> params = new SmallMultiMap<>();
 
-                    params.add(key, new String(value));
-                }
+        int entryStart = from;
 
-            }
+        while (entryStart < to) {
 
+            final int entryEnd = indexOf(chars, (char) PROTOCOL_ENTRY_HEADER_DELIM, entryStart, to);
+            final int keyEnd = indexOf(chars, (char) PROTOCOL_KEY_HEADER_DELIM, entryStart, entryEnd);
+
+            /* Entries without values are skipped. */
+            if (keyEnd + 1 < entryEnd) {
+
+                final String key = new String(chars, entryStart, keyEnd - entryStart);
+                final int valuesEnd = indexOf(chars, (char) PROTOCOL_KEY_HEADER_DELIM, keyEnd + 1, entryEnd);
+
+                int valueStart = keyEnd + 1;
+                while (valueStart < valuesEnd) {
+                    final int valueEnd = indexOf(chars, (char) PROTOCOL_VALUE_HEADER_DELIM, valueStart, valuesEnd);
+                    params.add(key, new String(chars, valueStart, valueEnd - valueStart));
+                    valueStart = valueEnd + 1;
+                }
+            }
+            entryStart = entryEnd + 1;
         }
 
         return params;
@@ -361,5 +460,55 @@ public class BoonProtocolParser implements ProtocolParser {
 
     }
 
+    private static int indexOf(char[] chars, char c, int from, int to) {
+        int index = from;
+        while (index < to && chars[index] != c) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Walks the separator delimited fields of one message, from and to are the bounds of the current field.
+     */
+    private static final class Fields {
+
+        private final char[] chars;
+        private final int end;
+        private int from;
+        private int to;
+
+        private Fields(char[] chars, int start, int end) {
+            this.chars = chars;
+            this.end = end;
+            this.to = indexOf(chars, (char) PROTOCOL_SEPARATOR, start, end); //marker and message type
+        }
+
+        void next() {
+            from = to < end ? to + 1 : end;
+            to = indexOf(chars, (char) PROTOCOL_SEPARATOR, from, end);
+        }
+
+        /**
+         * The last field runs to the end of the message.
+         */
+        void rest() {
+            from = to < end ? to + 1 : end;
+            to = end;
+        }
+
+        boolean isEmpty() {
+            return from == to;
+        }
+
+        long asLong() {
+            return from == to ? 0L : CharScanner.parseLong(chars, from, to);
+        }
+
+        char[] copy() {
+            return Arrays.copyOfRange(chars, from, to);
+        }
+    }
+
 
 }
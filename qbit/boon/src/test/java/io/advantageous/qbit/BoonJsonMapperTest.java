@@ -0,0 +1,72 @@
+package io.advantageous.qbit;
+
+import io.advantageous.qbit.json.JsonMapper;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class BoonJsonMapperTest {
+
+    private final JsonMapper jsonMapper = new BoonJsonMapper();
+
+    @Test
+    public void testBytesMatchString() {
+
+        final StringBuilder builder = new StringBuilder();
+        for (int index = 0; index < 3000; index++) {
+            builder.append("café 中 😀 ");
+        }
+        final Employee employee = new Employee(builder.toString(), 42);
+
+        final byte[] expected = jsonMapper.toJson(employee).getBytes(StandardCharsets.UTF_8);
+
+        assertArrayEquals(expected, jsonMapper.toJsonBytes(employee));
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        jsonMapper.toJson(employee, outputStream);
+        assertArrayEquals(expected, outputStream.toByteArray());
+    }
+
+    @Test
+    public void testReadBytes() {
+
+        final byte[] json = "{\"name\":\"René\",\"age\":7}".getBytes(StandardCharsets.UTF_8);
+
+        final Employee employee = jsonMapper.fromJson(json, Employee.class);
+        assertEquals("René", employee.name);
+        assertEquals(7, employee.age);
+
+        assertEquals("René", jsonMapper.fromJson(ByteBuffer.wrap(json), Employee.class).name);
+
+        final List<Employee> employees = jsonMapper.fromJsonArray(
+                jsonMapper.toJsonBytes(Arrays.asList(employee, new Employee("Bob", 3))), Employee.class);
+        assertEquals(2, employees.size());
+        assertEquals("Bob", employees.get(1).name);
+
+        final Map<String, Employee> map = jsonMapper.fromJsonMap(
+                "{\"boss\":{\"name\":\"Sue\",\"age\":50}}".getBytes(StandardCharsets.UTF_8),
+                String.class, Employee.class);
+        assertEquals(50, map.get("boss").age);
+    }
+
+    public static class Employee {
+        String name;
+        int age;
+
+        public Employee() {
+        }
+
+        Employee(String name, int age) {
+            this.name = name;
+            this.age = age;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package io.advantageous.qbit.json;
+
+import io.advantageous.boon.core.TypeType;
+import io.advantageous.qbit.BoonJsonMapper;
+import io.advantageous.qbit.meta.ParameterMeta;
+import io.advantageous.qbit.meta.params.BodyParam;
+import io.advantageous.qbit.spi.FactorySPI;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class JsonCodecRegistryTest {
+
+    private JsonCodecRegistry original;
+
+    @Before
+    public void setUp() {
+        original = JsonCodecRegistry.registry();
+    }
+
+    @After
+    public void tearDown() {
+        FactorySPI.setJsonCodecProvider(original.provider());
+    }
+
+    @Test
+    public void testCodecsAreCached() {
+
+        final JsonCodecRegistry registry = new JsonCodecRegistry(new JsonMapperCodecProvider(new BoonJsonMapper()));
+
+        assertSame(registry.codec(Employee.class), registry.codec(Employee.class));
+        assertSame(registry.listCodec(Employee.class), registry.listCodec(Employee.class));
+        assertSame(registry.mapCodec(String.class, Employee.class), registry.mapCodec(String.class, Employee.class));
+
+        final Employee employee = registry.codec(Employee.class)
+                .fromJson("{\"name\":\"Rick\",\"age\":42}".getBytes(StandardCharsets.UTF_8));
+        assertEquals("Rick", employee.name);
+        assertEquals(42, employee.age);
+
+        final List<Employee> employees = registry.listCodec(Employee.class).fromJson("[{\"name\":\"Bob\"}]");
+        assertEquals("Bob", employees.get(0).name);
+
+        final Map<String, Employee> map = registry.mapCodec(String.class, Employee.class)
+                .fromJson("{\"boss\":{\"name\":\"Sue\",\"age\":50}}");
+        assertEquals(50, map.get("boss").age);
+    }
+
+    @Test
+    public void testParameterCodecFollowsProvider() {
+
+        final ParameterMeta parameterMeta = new ParameterMeta(Employee.class, TypeType.INSTANCE,
+                new BodyParam(true, null, null));
+
+        final JsonCodec<Object> codec = parameterMeta.codec(JsonCodecRegistry.registry());
+        assertSame(codec, parameterMeta.codec(JsonCodecRegistry.registry()));
+
+        final AtomicInteger resolved = new AtomicInteger();
+        FactorySPI.setJsonCodecProvider(new JsonMapperCodecProvider(new BoonJsonMapper()) {
+            @Override
+            public <T> JsonCodec<T> codec(Class<T> type) {
+                resolved.incrementAndGet();
+                return super.codec(type);
+            }
+        });
+
+        final JsonCodec<Object> swapped = parameterMeta.codec(JsonCodecRegistry.registry());
+        assertNotSame(codec, swapped);
+        assertSame(swapped, parameterMeta.codec(JsonCodecRegistry.registry()));
+        assertEquals(1, resolved.get());
+
+        assertEquals("Rick", ((Employee) swapped.fromJson("{\"name\":\"Rick\"}")).name);
+    }
+
+    @Test
+    public void testDefaultDoesNotReplaceProvider() {
+
+        final JsonCodecProvider provider = new JsonMapperCodecProvider(new BoonJsonMapper());
+
+        assertSame(original, FactorySPI.setJsonCodecProviderIfAbsent(provider));
+        assertSame(original, JsonCodecRegistry.registry());
+        assertSame(original.provider(), JsonCodecRegistry.registry().provider());
+    }
+
+    public static class Employee {
+        String name;
+        int age;
+    }
+}
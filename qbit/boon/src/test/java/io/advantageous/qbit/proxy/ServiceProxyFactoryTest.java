@@ -24,6 +24,7 @@ import io.advantageous.qbit.QBit;
 import io.advantageous.qbit.annotation.RequestMapping;
 import io.advantageous.qbit.message.MethodCall;
 import io.advantageous.qbit.message.Response;
+import io.advantageous.qbit.message.impl.LocalMethodCall;
 import io.advantageous.qbit.queue.Queue;
 import io.advantageous.qbit.queue.ReceiveQueue;
 import io.advantageous.qbit.queue.ReceiveQueueListener;
@@ -178,6 +179,48 @@ public class ServiceProxyFactoryTest {
 
     }
 
+    @Test
+    public void testLocalProxyMakesLeanCalls() {
+        final SomeInterface myService = serviceBundle.createLocalProxy(SomeInterface.class, "myService");
+
+        calls.clear();
+
+        myService.method2("Hello", 5);
+
+        ok = calls.size() == 1 || die();
+
+        final MethodCall<Object> call = calls.get(0);
+        ok = call instanceof LocalMethodCall || die(call.toString());
+        ok = call.name().equals("method2") || die();
+        ok = call.objectName().equals("myService") || die();
+        ok = call.address().endsWith("/myService/method2") || die(call.address());
+        ok = !call.hasParams() && !call.hasHeaders() || die();
+        ok = call.headers().size() == 0 || die();
+        ok = !call.hasCallback() || die();
+        ok = ((Object[]) call.body())[0].equals("Hello") || die();
+    }
+
+    @Test
+    public void testProxyReusesMethodAddress() {
+        final SomeInterface myService = serviceBundle.createLocalProxy(SomeInterface.class, "myService");
+
+        calls.clear();
+
+        myService.method2("Hello", 5);
+        myService.method2("Bye", 6);
+        myService.method1();
+
+        ok = calls.size() == 3 || die();
+        ok = calls.get(0).address() == calls.get(1).address() || die();
+        ok = calls.get(2).address().endsWith("/myService/method1") || die();
+        ok = calls.get(0).id() != calls.get(1).id() || die();
+
+        ok = myService.toString().contains("myService") || die();
+        ok = myService.hashCode() == myService.hashCode() || die();
+        ok = myService.equals(myService) || die();
+        ok = calls.size() == 3 || die();
+    }
+
     @Test
     public void callingActualService() {
 
@@ -0,0 +1,69 @@
+package io.advantageous.qbit.server;
+
+import io.advantageous.qbit.BoonJsonMapper;
+import io.advantageous.qbit.annotation.RequestMapping;
+import io.advantageous.qbit.http.request.HttpRequestBuilder;
+import io.advantageous.qbit.service.ServiceBundle;
+import io.advantageous.qbit.service.ServiceBundleBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class HttpRequestServiceServerHandlerUsingMetaImplTest {
+
+    private ServiceBundle serviceBundle;
+    private HttpRequestServiceServerHandlerUsingMetaImpl handler;
+    private final AtomicInteger accepted = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        serviceBundle = ServiceBundleBuilder.serviceBundleBuilder().setAddress("/services").build();
+        serviceBundle.addServiceObject("ping", new PingService());
+        serviceBundle.startServiceBundle();
+
+        handler = new HttpRequestServiceServerHandlerUsingMetaImpl(30, serviceBundle, new BoonJsonMapper(), 100, 0);
+        handler.addRestSupportFor(PingService.class, "/services");
+        handler.start();
+    }
+
+    @After
+    public void tearDown() {
+        serviceBundle.stop();
+    }
+
+    @Test
+    public void testIngressQueueOfExitedThreadIsDropped() throws Exception {
+
+        for (int index = 0; index < 5; index++) {
+            final Thread thread = new Thread(this::ping);
+            thread.start();
+            thread.join();
+        }
+        assertEquals(5, accepted.get());
+        assertEquals(5, handler.ingressQueueCount());
+
+        ping();
+        Thread.sleep(5);
+        handler.httpRequestQueueIdle(null);
+        assertEquals(1, handler.ingressQueueCount());
+    }
+
+    private void ping() {
+        handler.handleRestCall(HttpRequestBuilder.httpRequestBuilder()
+                .setUri("/services/ping/ping").setMethodGet()
+                .setTextReceiver((code, contentType, body) -> accepted.incrementAndGet())
+                .build());
+    }
+
+    @RequestMapping("/ping")
+    public static class PingService {
+
+        @RequestMapping("/ping")
+        public void ping() {
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package io.advantageous.qbit.server;
+
+import io.advantageous.qbit.BoonJsonMapper;
+import io.advantageous.qbit.http.request.HttpChunkedResponseReceiver;
+import io.advantageous.qbit.http.request.HttpStreamingResponse;
+import io.advantageous.qbit.json.JsonMapper;
+import io.advantageous.qbit.util.MultiMap;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class HttpStreamingResponseTest {
+
+    private final JsonMapper jsonMapper = new BoonJsonMapper();
+
+    @Test
+    public void testWaitsForDrain() {
+
+        final List<Integer> numbers = new ArrayList<>();
+        IntStream.range(0, 10_000).forEach(numbers::add);
+
+        final ChunkReceiver receiver = new ChunkReceiver();
+        HttpStreamingResponse.jsonArray(numbers.iterator()).writeTo(receiver, jsonMapper, Runnable::run);
+
+        /* Full after every chunk, so nothing more is pulled until it drains. */
+        while (!receiver.ended) {
+            assertNotNull(receiver.onDrain);
+            final Runnable onDrain = receiver.onDrain;
+            receiver.onDrain = null;
+            onDrain.run();
+        }
+
+        assertTrue(receiver.chunks > 2);
+        assertEquals("application/json", receiver.contentType);
+        assertEquals(numbers, jsonMapper.fromJsonArray(receiver.body.toString(), Integer.class));
+    }
+
+    @Test
+    public void testItemsAreNotReadOnTheDrainCallback() {
+
+        final List<Integer> numbers = new ArrayList<>();
+        IntStream.range(0, 10_000).forEach(numbers::add);
+        final Iterator<Integer> source = numbers.iterator();
+
+        final boolean[] pumping = new boolean[1];
+        final Iterator<Integer> items = new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                assertTrue(pumping[0]);
+                return source.hasNext();
+            }
+
+            @Override
+            public Integer next() {
+                assertTrue(pumping[0]);
+                return source.next();
+            }
+        };
+
+        final List<Runnable> pumps = new ArrayList<>();
+        final ChunkReceiver receiver = new ChunkReceiver();
+        HttpStreamingResponse.jsonArray(items).writeTo(receiver, jsonMapper, pumps::add);
+
+        while (!receiver.ended) {
+            /* The drain callback stands in for the I/O thread, it only schedules a pump. */
+            if (receiver.onDrain != null) {
+                final Runnable onDrain = receiver.onDrain;
+                receiver.onDrain = null;
+                onDrain.run();
+            }
+            assertEquals(1, pumps.size());
+            pumping[0] = true;
+            pumps.remove(0).run();
+            pumping[0] = false;
+        }
+
+        assertEquals(numbers, jsonMapper.fromJsonArray(receiver.body.toString(), Integer.class));
+    }
+
+    @Test
+    public void testNdjsonInOneBody() {
+
+        final List<String> names = new ArrayList<>();
+        names.add("a");
+        names.add("b");
+
+        final byte[] body = HttpStreamingResponse.ndjson(names.iterator()).toBytes(jsonMapper);
+        assertEquals("\"a\"\n\"b\"\n", new String(body, StandardCharsets.UTF_8));
+    }
+
+    private static class ChunkReceiver implements HttpChunkedResponseReceiver {
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private String contentType;
+        private boolean full;
+        private boolean ended;
+        private int chunks;
+        private Runnable onDrain;
+
+        @Override
+        public void startChunks(int code, String contentType, MultiMap<String, String> headers, Runnable onClose) {
+            this.contentType = contentType;
+        }
+
+        @Override
+        public void writeChunk(byte[] chunk) {
+            assertFalse(full);
+            body.write(chunk, 0, chunk.length);
+            chunks++;
+            full = true;
+        }
+
+        @Override
+        public void endChunks() {
+            ended = true;
+        }
+
+        @Override
+        public void abortChunks() {
+            fail();
+        }
+
+        @Override
+        public boolean isWriteQueueFull() {
+            return full;
+        }
+
+        @Override
+        public void onDrain(Runnable onDrain) {
+            this.onDrain = () -> {
+                full = false;
+                onDrain.run();
+            };
+        }
+    }
+}
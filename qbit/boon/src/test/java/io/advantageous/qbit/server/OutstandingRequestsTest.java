@@ -0,0 +1,81 @@
+package io.advantageous.qbit.server;
+
+import io.advantageous.qbit.http.request.HttpRequest;
+import io.advantageous.qbit.http.request.HttpRequestBuilder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OutstandingRequestsTest {
+
+    private final OutstandingRequests outstandingRequests = new OutstandingRequests();
+
+    @Test
+    public void testAddAndRemove() {
+
+        final List<HttpRequest> requests = new ArrayList<>();
+        for (int index = 1; index <= 1_000; index++) {
+            final HttpRequest request = request(index, 10);
+            requests.add(request);
+            outstandingRequests.add(request);
+        }
+        assertEquals(1_000, outstandingRequests.size());
+
+        for (int index = 0; index < requests.size(); index += 2) {
+            assertTrue(outstandingRequests.remove(requests.get(index)));
+            assertFalse(outstandingRequests.remove(requests.get(index)));
+        }
+        assertEquals(500, outstandingRequests.size());
+
+        for (int index = 1; index < requests.size(); index += 2) {
+            assertTrue(outstandingRequests.remove(requests.get(index)));
+        }
+        assertEquals(0, outstandingRequests.size());
+    }
+
+    @Test
+    public void testSharedIdRemovesOnlyThatRequest() {
+
+        final HttpRequest first = request(7, 10);
+        final HttpRequest second = request(7, 20);
+        outstandingRequests.add(first);
+        outstandingRequests.add(second);
+
+        assertTrue(outstandingRequests.remove(second));
+        assertFalse(outstandingRequests.remove(second));
+        assertEquals(1, outstandingRequests.size());
+        assertTrue(outstandingRequests.remove(first));
+    }
+
+    @Test
+    public void testExpireOldestFirst() {
+
+        final HttpRequest answered = request(1, 10);
+        final HttpRequest handled = request(2, 20);
+        final HttpRequest old = request(3, 30);
+        final HttpRequest young = request(4, 100);
+        outstandingRequests.add(answered);
+        outstandingRequests.add(handled);
+        outstandingRequests.add(old);
+        outstandingRequests.add(young);
+
+        outstandingRequests.remove(answered);
+        handled.handled();
+
+        final List<?> timedOut = outstandingRequests.expire(50);
+        assertEquals(1, timedOut.size());
+        assertSame(old, timedOut.get(0));
+        assertEquals(1, outstandingRequests.size());
+
+        assertTrue(outstandingRequests.expire(50).isEmpty());
+        assertSame(young, outstandingRequests.expire(101).get(0));
+        assertEquals(0, outstandingRequests.size());
+    }
+
+    private static HttpRequest request(final long id, final long timestamp) {
+        return HttpRequestBuilder.httpRequestBuilder().setUri("/test").setId(id).setTimestamp(timestamp).build();
+    }
+}
@@ -0,0 +1,76 @@
+package io.advantageous.qbit.server;
+
+import io.advantageous.boon.core.Sys;
+import io.advantageous.qbit.QBit;
+import io.advantageous.qbit.http.server.websocket.WebSocketMessage;
+import io.advantageous.qbit.http.server.websocket.WebSocketMessageBuilder;
+import io.advantageous.qbit.http.websocket.WebSocketSender;
+import io.advantageous.qbit.message.MethodCallBuilder;
+import io.advantageous.qbit.message.impl.ResponseImpl;
+import io.advantageous.qbit.service.ServiceBundle;
+import io.advantageous.qbit.service.ServiceBundleBuilder;
+import io.advantageous.qbit.service.stats.StatsCollector;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class WebSocketServiceServerHandlerTest {
+
+    @Test
+    public void testResponseBatchesAreRecycled() {
+
+        final Map<String, Long> counts = new ConcurrentHashMap<>();
+        final StatsCollector statsCollector = new StatsCollector() {
+            @Override
+            public void recordCount(String name, long count) {
+                counts.merge(name, count, Long::sum);
+            }
+        };
+
+        final ServiceBundle serviceBundle = new ServiceBundleBuilder().setAddress("/services").build();
+        final WebSocketServiceServerHandler handler = new WebSocketServiceServerHandler(2, serviceBundle, 1, 1,
+                statsCollector, "test.websocket");
+
+        final AtomicInteger framesSent = new AtomicInteger();
+        final WebSocketSender sender = message -> framesSent.incrementAndGet();
+
+        final String call = QBit.factory().createEncoder().encodeAsString(MethodCallBuilder.methodCallBuilder()
+                .setName("method").setAddress("/services/mock/method").setReturnAddress("client").build());
+        final WebSocketMessage webSocketMessage = new WebSocketMessageBuilder().setUri("/services")
+                .setRemoteAddress("client").setMessage(call).setSender(sender).build();
+
+        /* Registers the connection. */
+        handler.handleWebSocketCall(webSocketMessage);
+
+        for (int batch = 0; batch < 10; batch++) {
+            /* The third response does not fit in the queue of two, so all three are flushed together. */
+            for (int index = 0; index < 3; index++) {
+                handler.handleResponseFromServiceBundleToWebSocketSender(
+                        new ResponseImpl<>(index, 1L, "addr", "client", null, "body", null, false), webSocketMessage);
+            }
+            waitForEncoder(handler, batch + 1);
+        }
+
+        assertEquals(10, framesSent.get());
+        /* Only the first flush had to allocate a batch, the rest reused it. */
+        assertEquals(1, handler.batchPoolMissCount());
+
+        Sys.sleep(300);
+        handler.checkResponseBatchSend();
+        assertEquals(10L, (long) counts.get("test.websocket.encoder.batches"));
+        assertEquals(1L, (long) counts.get("test.websocket.encoder.batchPoolMisses"));
+    }
+
+    private static void waitForEncoder(final WebSocketServiceServerHandler handler, final int batches) {
+        for (int index = 0; index < 100; index++) {
+            if (handler.encodedBatchCount() >= batches && handler.encoderBacklog() == 0) {
+                return;
+            }
+            Sys.sleep(10);
+        }
+    }
+}
@@ -26,16 +26,25 @@ import io.advantageous.qbit.Factory;
 import io.advantageous.qbit.QBit;
 import io.advantageous.qbit.annotation.RequestMapping;
 import io.advantageous.qbit.bindings.MethodBinding;
+import io.advantageous.qbit.message.MethodCallBuilder;
+import io.advantageous.qbit.message.RawArgs;
 import io.advantageous.qbit.message.Response;
+import io.advantageous.qbit.service.stats.StatsCollector;
 import io.advantageous.qbit.util.MultiMap;
 import io.advantageous.qbit.util.MultiMapImpl;
+import io.advantageous.qbit.util.Timer;
 import org.junit.Test;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static io.advantageous.boon.core.Exceptions.die;
 import static io.advantageous.boon.core.IO.puts;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 
 /**
@@ -236,9 +245,130 @@ public class BoonServiceMethodCallHandlerTest {
 
     }
 
+    @Test
+    public void testMethodStats() {
+
+        final Map<String, Long> counts = new HashMap<>();
+        final Map<String, Long> timings = new HashMap<>();
+
+        final StatsCollector statsCollector = new StatsCollector() {
+            @Override
+            public void recordCount(String name, long count) {
+                counts.merge(name, count, Long::sum);
+            }
+
+            @Override
+            public void recordTiming(String name, long duration) {
+                timings.put(name, duration);
+            }
+        };
+
+        BoonServiceMethodCallHandler impl = new BoonServiceMethodCallHandler(true);
+        impl.enableMethodStats("foo", statsCollector, Timer.timer(), -1, 2);
+        impl.init(new Foo(), "", "", null);
+
+        final Factory factory = QBit.factory();
+
+        for (int index = 0; index < 4; index++) {
+            impl.receiveMethodCall(factory.createMethodCallByAddress("/boo/baz/baaah/pluck", null, null, null));
+        }
+        impl.receiveMethodCall(factory.createMethodCallByNames("someMethod3", "", null, null, null));
+        impl.receiveMethodCall(factory.createMethodCallByNames("fail", "", null, null, null));
+
+        impl.empty();
+
+        assertEquals(4L, (long) counts.get("foo.method.foo.callCount"));
+        assertNull(counts.get("foo.method.foo.errorCount"));
+        assertEquals(1L, (long) counts.get("foo.method.someMethod3.callCount"));
+        assertEquals(1L, (long) counts.get("foo.method.fail.callCount"));
+        assertEquals(1L, (long) counts.get("foo.method.fail.errorCount"));
+        assertTrue(timings.containsKey("foo.method.foo.callTimeSample"));
+
+        /* Counts are reset after a flush. */
+        counts.clear();
+        impl.empty();
+        assertTrue(counts.isEmpty());
+    }
+
+    @Test
+    public void testRawArgsDecodedToParameterTypes() {
+
+        BoonServiceMethodCallHandler impl = new BoonServiceMethodCallHandler(true);
+        impl.init(new Foo(), "", "", null);
+
+        for (int index = 0; index < 2; index++) {
+            methodCalled = false;
+            hired = null;
+            team = null;
+
+            impl.receiveMethodCall(new MethodCallBuilder().setName("hire").setBody(new RawArgs(new String[]{
+                    "{\"name\":\"Rick\",\"age\":40}",
+                    "[{\"name\":\"Geoff\",\"age\":30},{\"name\":\"Diana\",\"age\":" + (20 + index) + "}]",
+                    "5"})).build());
+
+            assertTrue(methodCalled);
+            assertEquals("Rick", hired.name);
+            assertEquals(40, hired.age);
+            assertEquals(2, team.size());
+            assertEquals(20 + index, team.get(1).age);
+            assertEquals(5, teamSize);
+        }
+    }
+
+    Employee hired;
+    List<Employee> team;
+    int teamSize;
+
+    public static class Employee {
+        String name;
+        int age;
+    }
+
+    @Test
+    public void testMethodStatsWithoutSampling() {
+
+        final Map<String, Long> counts = new HashMap<>();
+        final Map<String, Long> timings = new HashMap<>();
+
+        final StatsCollector statsCollector = new StatsCollector() {
+            @Override
+            public void recordCount(String name, long count) {
+                counts.merge(name, count, Long::sum);
+            }
+
+            @Override
+            public void recordTiming(String name, long duration) {
+                timings.put(name, duration);
+            }
+        };
+
+        BoonServiceMethodCallHandler impl = new BoonServiceMethodCallHandler(true);
+        impl.enableMethodStats("foo", statsCollector, Timer.timer(), -1, 0);
+        impl.init(new Foo(), "", "", null);
+
+        final Factory factory = QBit.factory();
+
+        for (int index = 0; index < 4; index++) {
+            impl.receiveMethodCall(factory.createMethodCallByAddress("/boo/baz/baaah/pluck", null, null, null));
+        }
+
+        impl.empty();
+
+        /* Calls are still counted, 0 only turns off timing like it does for the service stats. */
+        assertEquals(4L, (long) counts.get("foo.method.foo.callCount"));
+        assertTrue(timings.isEmpty());
+    }
+
     @RequestMapping("/boo/baz")
     class Foo {
 
+        public void hire(Employee employee, List<Employee> employees, int size) {
+            methodCalled = true;
+            hired = employee;
+            team = employees;
+            teamSize = size;
+        }
+
         @RequestMapping("/baaah/pluck")
         public void foo() {
 
@@ -273,6 +403,10 @@ public class BoonServiceMethodCallHandlerTest {
 
             methodCalled = true;
         }
+
+        public String fail() {
+            throw new IllegalStateException("fail");
+        }
     }
 
 }
@@ -24,19 +24,26 @@ import io.advantageous.boon.core.Str;
 import io.advantageous.boon.core.Sys;
 import io.advantageous.qbit.Factory;
 import io.advantageous.qbit.QBit;
+import io.advantageous.qbit.json.JsonCodec;
+import io.advantageous.qbit.json.JsonCodecRegistry;
+import io.advantageous.qbit.json.JsonMapperCodecProvider;
 import io.advantageous.qbit.message.MethodCall;
+import io.advantageous.qbit.message.MethodCallBuilder;
+import io.advantageous.qbit.message.RawArgs;
 import io.advantageous.qbit.message.Response;
 import io.advantageous.qbit.queue.ReceiveQueue;
 import io.advantageous.qbit.reactive.Callback;
 import io.advantageous.qbit.service.ServiceBundle;
 import io.advantageous.qbit.service.ServiceBundleBuilder;
 import io.advantageous.qbit.service.ServiceQueue;
+import io.advantageous.qbit.spi.FactorySPI;
 import io.advantageous.qbit.util.MultiMap;
 import junit.framework.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -226,6 +233,52 @@ public class ServiceBundleImplTest {
 
     }
 
+    @Test
+    public void testRawArgsDecodedToParameterTypes() throws Exception {
+
+        final JsonCodecRegistry previous = JsonCodecRegistry.registry();
+        final List<Class<?>> codecTypes = new CopyOnWriteArrayList<>();
+        final JsonMapperCodecProvider provider = new JsonMapperCodecProvider(previous.mapper()) {
+            @Override
+            public <T> JsonCodec<T> codec(final Class<T> type) {
+                codecTypes.add(type);
+                return super.codec(type);
+            }
+        };
+        FactorySPI.setJsonCodecProvider(provider);
+
+        try {
+            final HireService hireService = new HireService();
+            serviceBundle.addServiceObject("/hire", hireService);
+
+            serviceBundle.call(new MethodCallBuilder().setAddress("/foo/hire/hire")
+                    .setBody(new RawArgs(new String[]{"{\"name\":\"Rick\",\"age\":40}"})).build());
+            serviceBundle.flushSends();
+
+            for (int index = 0; index < 100 && hireService.hired.get() == null; index++) {
+                Sys.sleep(10);
+            }
+
+            ok = "Rick".equals(hireService.hired.get().name) || die();
+            ok = codecTypes.contains(Employee.class) || die(codecTypes);
+        } finally {
+            FactorySPI.setJsonCodecProvider(previous.provider());
+        }
+    }
+
+    public static class Employee {
+        String name;
+        int age;
+    }
+
+    public static class HireService {
+        final AtomicReference<Employee> hired = new AtomicReference<>();
+
+        public void hire(Employee employee) {
+            hired.set(employee);
+        }
+    }
+
     public static class AdderService {
         int sum;
 
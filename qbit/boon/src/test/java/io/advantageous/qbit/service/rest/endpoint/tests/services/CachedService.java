@@ -0,0 +1,45 @@
+package io.advantageous.qbit.service.rest.endpoint.tests.services;
+
+import io.advantageous.boon.core.Sys;
+import io.advantageous.qbit.QBit;
+import io.advantageous.qbit.annotation.CacheResponse;
+import io.advantageous.qbit.annotation.PathVariable;
+import io.advantageous.qbit.annotation.RequestMapping;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RequestMapping("/cached")
+public class CachedService {
+
+    public static final String PRICES_CHANGED = "prices.changed";
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @CacheResponse(ttl = 60_000, maxEntries = 2, invalidateOn = PRICES_CHANGED)
+    @RequestMapping("/price/{0}")
+    public String price(@PathVariable String item) {
+        return item + ":" + calls.incrementAndGet();
+    }
+
+    /**
+     * Prices change while the first quote is being worked out.
+     */
+    @CacheResponse(ttl = 60_000, invalidateOn = PRICES_CHANGED)
+    @RequestMapping("/quote/{0}")
+    public String quote(@PathVariable String item) {
+        if (calls.get() == 0) {
+            QBit.factory().systemEventManager().send(PRICES_CHANGED, item);
+            Sys.sleep(500);
+        }
+        return item + ":" + calls.incrementAndGet();
+    }
+
+    @RequestMapping("/uncached/{0}")
+    public String uncached(@PathVariable String item) {
+        return item + ":" + calls.incrementAndGet();
+    }
+
+    public int calls() {
+        return calls.get();
+    }
+}
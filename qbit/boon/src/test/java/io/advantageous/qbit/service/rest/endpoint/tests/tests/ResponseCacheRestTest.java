@@ -0,0 +1,85 @@
+package io.advantageous.qbit.service.rest.endpoint.tests.tests;
+
+import io.advantageous.boon.core.Sys;
+import io.advantageous.qbit.QBit;
+import io.advantageous.qbit.server.EndpointServerBuilder;
+import io.advantageous.qbit.server.ServiceEndpointServer;
+import io.advantageous.qbit.service.rest.endpoint.tests.services.CachedService;
+import io.advantageous.qbit.service.rest.endpoint.tests.sim.HttpServerSimulator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ResponseCacheRestTest {
+
+    ServiceEndpointServer serviceEndpointServer;
+    HttpServerSimulator httpServerSimulator;
+    CachedService cachedService;
+
+    @Before
+    public void before() {
+
+        cachedService = new CachedService();
+        httpServerSimulator = new HttpServerSimulator();
+
+        serviceEndpointServer = EndpointServerBuilder.endpointServerBuilder()
+                .setHttpServer(httpServerSimulator)
+                .setFlushInterval(10)
+                .build()
+                .initServices(cachedService).startServer();
+    }
+
+    @After
+    public void after() {
+        serviceEndpointServer.stop();
+    }
+
+    @Test
+    public void testHitSkipsService() {
+
+        assertEquals("\"apple:1\"", httpServerSimulator.get("/cached/price/apple").body());
+        assertEquals("\"apple:1\"", httpServerSimulator.get("/cached/price/apple").body());
+        assertEquals("\"pear:2\"", httpServerSimulator.get("/cached/price/pear").body());
+        assertEquals(2, cachedService.calls());
+
+        assertEquals("\"apple:3\"", httpServerSimulator.get("/cached/uncached/apple").body());
+        assertEquals("\"apple:4\"", httpServerSimulator.get("/cached/uncached/apple").body());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedDropped() {
+
+        httpServerSimulator.get("/cached/price/a");
+        httpServerSimulator.get("/cached/price/b");
+        httpServerSimulator.get("/cached/price/a");
+        httpServerSimulator.get("/cached/price/c");
+        assertEquals(3, cachedService.calls());
+
+        assertEquals("\"a:1\"", httpServerSimulator.get("/cached/price/a").body());
+        assertEquals("\"b:4\"", httpServerSimulator.get("/cached/price/b").body());
+    }
+
+    @Test
+    public void testEventInvalidates() {
+
+        httpServerSimulator.get("/cached/price/apple");
+
+        QBit.factory().systemEventManager().send(CachedService.PRICES_CHANGED, "apple");
+        Sys.sleep(500);
+
+        assertEquals("\"apple:2\"", httpServerSimulator.get("/cached/price/apple").body());
+        assertEquals(2, cachedService.calls());
+    }
+
+    @Test
+    public void testResponseNotStoredAfterInvalidation() {
+
+        /* The cache is cleared while the service works on the first quote, so that quote is not kept. */
+        assertEquals("\"apple:1\"", httpServerSimulator.get("/cached/quote/apple").body());
+        assertEquals("\"apple:2\"", httpServerSimulator.get("/cached/quote/apple").body());
+        assertEquals("\"apple:2\"", httpServerSimulator.get("/cached/quote/apple").body());
+        assertEquals(2, cachedService.calls());
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2015. Rick Hightower, Geoff Chandler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * QBit - The Microservice lib for Java : JSON, WebSocket, REST. Be The Web!
+ */
+
+package io.advantageous.qbit.spi;
+
+import io.advantageous.boon.core.Lists;
+import io.advantageous.qbit.message.Message;
+import io.advantageous.qbit.message.MethodCall;
+import io.advantageous.qbit.message.MethodCallBuilder;
+import io.advantageous.qbit.message.Response;
+import io.advantageous.qbit.message.impl.ResponseImpl;
+import io.advantageous.qbit.trace.TraceContext;
+import io.advantageous.qbit.util.MultiMap;
+import io.advantageous.qbit.util.MultiMapImpl;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BinaryProtocolTest {
+
+    private final BinaryProtocolEncoder encoder = new BinaryProtocolEncoder();
+    private final ProtocolParser parser = new BinaryProtocolParser();
+
+    @Test
+    public void testMethodCallRoundTrip() {
+
+        final MultiMap<String, String> multiMap = new MultiMapImpl<>(ArrayList.class);
+        multiMap.add("fruit", "apple");
+        multiMap.add("fruit", "pair");
+        multiMap.put("veggies", "yuck");
+
+        final TraceContext traceContext = TraceContext.root(true).child();
+
+        final MethodCall<Object> method = new MethodCallBuilder().setId(-7L).setName("foo").setObjectName("obj")
+                .setAddress("addr").setReturnAddress("Raddr").setTimestamp(1234567890123L)
+                .setHeaders(multiMap).setParams(multiMap).setTraceContext(traceContext)
+                .setBody(new Object[]{1, 2L, 3.5d, "bar", "été", true, null, new byte[]{1, 2, 3},
+                        Lists.list("a", "b")}).build();
+
+        final byte[] bytes = encoder.encodeAsBytes(method);
+        assertTrue(parser.supports(bytes, null));
+        assertFalse(parser.supports("\u001cm", null));
+
+        final MethodCall<Object> parsed = parser.parseMethodCall(bytes);
+
+        assertEquals(-7L, parsed.id());
+        assertEquals("foo", parsed.name());
+        assertEquals("obj", parsed.objectName());
+        assertEquals("addr", parsed.address());
+        assertEquals("Raddr", parsed.returnAddress());
+        assertEquals(1234567890123L, parsed.timestamp());
+        assertEquals(traceContext, parsed.traceContext());
+        final List<String> fruit = new ArrayList<>();
+        parsed.params().getAll("fruit").forEach(fruit::add);
+        assertEquals(Lists.list("apple", "pair"), fruit);
+        assertEquals("yuck", parsed.headers().get("veggies"));
+
+        final Object[] args = (Object[]) parsed.body();
+        assertEquals(1, args[0]);
+        assertEquals(2L, args[1]);
+        assertEquals(3.5d, args[2]);
+        assertEquals("bar", args[3]);
+        assertEquals("été", args[4]);
+        assertEquals(true, args[5]);
+        assertNull(args[6]);
+        assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) args[7]);
+        assertEquals(2, ((List) args[8]).size());
+        assertEquals("b", ((List) args[8]).get(1).toString());
+    }
+
+    @Test
+    public void testGroupSharesStrings() {
+
+        final List<Message<Object>> methods = new ArrayList<>();
+        for (int index = 0; index < 100; index++) {
+            methods.add(new MethodCallBuilder().setId(index).setName("someMethod").setAddress("/services/someService")
+                    .setReturnAddress("someReturnAddress").setBody(new Object[]{index}).build());
+        }
+
+        final byte[] bytes = encoder.encodeAsBytes(methods);
+
+        /* The names are written once, after that each call is a few bytes. */
+        final String text = new BoonProtocolEncoder().encodeAsString(methods);
+        assertTrue(bytes.length * 3 < text.length());
+
+        final List<MethodCall<Object>> parsed = parser.parseMethods(bytes);
+        assertEquals(100, parsed.size());
+        for (int index = 0; index < 100; index++) {
+            final MethodCall<Object> methodCall = parsed.get(index);
+            assertEquals(index, methodCall.id());
+            assertEquals("someMethod", methodCall.name());
+            assertEquals("someReturnAddress", methodCall.returnAddress());
+            assertEquals(index, ((Object[]) methodCall.body())[0]);
+        }
+    }
+
+    @Test
+    public void testLargeMessageInGroup() {
+
+        final StringBuilder builder = new StringBuilder();
+        for (int index = 0; index < 50_000; index++) {
+            builder.append((char) ('a' + index % 26));
+        }
+        final String big = builder.toString();
+
+        final List<Message<Object>> methods = new ArrayList<>();
+        methods.add(new MethodCallBuilder().setId(1).setName("big").setBody(new Object[]{big}).build());
+        methods.add(new MethodCallBuilder().setId(2).setName("small").setBody(new Object[]{"x"}).build());
+
+        final List<MethodCall<Object>> parsed = parser.parseMethods(encoder.encodeAsBytes(methods));
+        assertEquals(2, parsed.size());
+        assertEquals(big, ((Object[]) parsed.get(0).body())[0]);
+        assertEquals("small", parsed.get(1).name());
+    }
+
+    @Test
+    public void testResponses() {
+
+        final TraceContext traceContext = TraceContext.root(false);
+        final MethodCall<Object> method = new MethodCallBuilder().setId(5L).setName("foo").setAddress("addr")
+                .setReturnAddress("Raddr").setTraceContext(traceContext).build();
+
+        final Response<Object> parsedResponse = parser.parseResponse(
+                encoder.encodeAsBytes(ResponseImpl.response(method, Lists.list(1, 2, 3))));
+
+        assertEquals(5L, parsedResponse.id());
+        assertEquals("Raddr", parsedResponse.returnAddress());
+        assertEquals(traceContext, parsedResponse.traceContext());
+        assertFalse(parsedResponse.wasErrors());
+        assertEquals(3, ((List) parsedResponse.body()).size());
+
+        final List<Message<Object>> responses = new ArrayList<>();
+        responses.add(new ResponseImpl<>(1L, 2L, "addr", "Raddr", null, "body", null, true));
+        responses.add(new ResponseImpl<>(2L, 2L, "addr", "Raddr", null, null, null, false));
+
+        final List<Message<Object>> parsed = parser.parse("", encoder.encodeAsBytes(responses));
+        assertEquals(2, parsed.size());
+
+        final Response<Object> first = (Response<Object>) parsed.get(0);
+        assertTrue(first.wasErrors());
+        assertEquals("body", first.body());
+        assertNull(first.traceContext());
+        assertNull(((Response<Object>) parsed.get(1)).body());
+    }
+
+    @Test
+    public void testJsonFallback() {
+
+        final Map<String, Object> map = new java.util.HashMap<>();
+        map.put("name", "rick");
+        map.put("age", 42);
+
+        final MethodCall<Object> method = new MethodCallBuilder().setName("foo").setBody(new Object[]{map}).build();
+        final Object arg = ((Object[]) parser.parseMethodCall(encoder.encodeAsBytes(method)).body())[0];
+
+        assertTrue(arg instanceof Map);
+        assertEquals("rick", ((Map) arg).get("name").toString());
+        assertEquals(42, ((Map) arg).get("age"));
+    }
+}
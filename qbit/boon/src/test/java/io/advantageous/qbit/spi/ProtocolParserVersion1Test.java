@@ -25,6 +25,9 @@ import io.advantageous.qbit.message.MethodCall;
 import io.advantageous.qbit.message.MethodCallBuilder;
 import io.advantageous.qbit.message.Response;
 import io.advantageous.qbit.message.impl.ResponseImpl;
+import io.advantageous.qbit.sender.Sender;
+import io.advantageous.qbit.sender.SenderEndPoint;
+import io.advantageous.qbit.trace.TraceContext;
 import io.advantageous.qbit.util.MultiMap;
 import io.advantageous.qbit.util.MultiMapImpl;
 import junit.framework.Assert;
@@ -33,6 +36,8 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 import static io.advantageous.boon.core.Exceptions.die;
 import static io.advantageous.boon.core.IO.puts;
@@ -84,6 +89,130 @@ public class ProtocolParserVersion1Test {
 
     }
 
+    @Test
+    public void testEncodeParseTraceContext() {
+
+        BoonProtocolEncoder encoder = new BoonProtocolEncoder();
+        ProtocolParser parser = new BoonProtocolParser();
+
+        final TraceContext traceContext = TraceContext.root(true).child();
+
+        MethodCall<Object> method = new MethodCallBuilder().setId(1L).setName("foo").setBody("bar")
+                .setAddress("addr").setTraceContext(traceContext).build();
+
+        final MethodCall<Object> parsedMethod = parser.parseMethodCall(encoder.encodeAsString(method));
+        Assert.assertEquals(traceContext, parsedMethod.traceContext());
+        Assert.assertEquals("bar", parsedMethod.args()[0].toString());
+
+        /* The response shares the trace context of the call. */
+        final Response<Object> response = ResponseImpl.response(method, "body");
+        final Response<Object> parsedResponse = parser.parseResponse(encoder.encodeAsString(response));
+        Assert.assertEquals(traceContext, parsedResponse.traceContext());
+        Assert.assertEquals("body", parsedResponse.body().toString());
+
+        /* Messages without a trace context still parse. */
+        ResponseImpl<Object> untraced = new ResponseImpl<>(1L, 2L, "addr", "Raddr", null, "body", null, false);
+        Assert.assertNull(parser.parseResponse(encoder.encodeAsString(untraced)).traceContext());
+    }
+
+    @Test
+    public void testEncodeParseWithDictionary() {
+
+        BoonProtocolEncoder encoder = new BoonProtocolEncoder();
+        ProtocolParser parser = new BoonProtocolParser();
+
+        final ProtocolDictionary sending = new ProtocolDictionary();
+        final ProtocolDictionary receiving = new ProtocolDictionary();
+
+        final List<Message<Object>> methods = new ArrayList<>();
+        for (int index = 0; index < 12; index++) {
+            methods.add(new MethodCallBuilder().setId(index).setName("method" + (index % 2))
+                    .setAddress("/services/someService").setReturnAddress("someReturnAddress-1234")
+                    .setObjectName("someService").setBody("arg" + index).build());
+        }
+
+        final String first = encoder.encodeAsString(methods, sending);
+        final String second = encoder.encodeAsString(methods, sending);
+
+        /* Second time around only ids are sent. */
+        Assert.assertTrue(second.length() < first.length());
+        Assert.assertFalse(second.contains("someReturnAddress"));
+        Assert.assertEquals(5, sending.size());
+
+        for (String encoded : Lists.list(first, second)) {
+            final List<Message<Object>> parsed = parser.parse("", encoded, receiving);
+            Assert.assertEquals(12, parsed.size());
+            for (int index = 0; index < 12; index++) {
+                final MethodCall<Object> methodCall = (MethodCall<Object>) parsed.get(index);
+                Assert.assertEquals("method" + (index % 2), methodCall.name());
+                Assert.assertEquals("/services/someService", methodCall.address());
+                Assert.assertEquals("someReturnAddress-1234", methodCall.returnAddress());
+                Assert.assertEquals("someService", methodCall.objectName());
+                Assert.assertEquals("arg" + index, methodCall.args()[0].toString());
+            }
+        }
+
+        /* Responses go through the dictionary of the other direction. */
+        final List<Message<Object>> responses = new ArrayList<>();
+        responses.add(ResponseImpl.response((MethodCall<Object>) methods.get(0), "body"));
+        final ProtocolDictionary responseSending = new ProtocolDictionary();
+        final ProtocolDictionary responseReceiving = new ProtocolDictionary();
+        parser.parse("", encoder.encodeAsString(responses, responseSending), responseReceiving); //defines
+        final Response<Object> response = (Response<Object>) parser.parse("",
+                encoder.encodeAsString(responses, responseSending), responseReceiving).get(0);
+        Assert.assertEquals("someReturnAddress-1234", response.returnAddress());
+
+        /* Ids without the dictionary that defined them are an error. */
+        try {
+            parser.parse("", second, new ProtocolDictionary());
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testDictionaryEncodedForTheConnectionItGoesOutOn() {
+
+        final ProtocolParser parser = new BoonProtocolParser();
+        final ProtocolDictionary sending = new ProtocolDictionary();
+        final List<String> sent = new ArrayList<>();
+        final AtomicBoolean reconnect = new AtomicBoolean();
+
+        final Sender<String> sender = new Sender<String>() {
+            @Override
+            public void send(String returnAddress, String buffer) {
+                sent.add(buffer);
+            }
+
+            @Override
+            public void send(String returnAddress, List<Message<Object>> messages,
+                             Function<List<Message<Object>>, String> encoder) {
+                /* Reconnects before encoding, like the client does. */
+                if (reconnect.get()) {
+                    sending.clear();
+                }
+                sent.add(encoder.apply(messages));
+            }
+        };
+
+        final SenderEndPoint endPoint = new SenderEndPoint(new BoonProtocolEncoder(), "/services/someService",
+                sender, sending, null, 10);
+
+        final List<MethodCall<Object>> methods = new ArrayList<>();
+        methods.add(new MethodCallBuilder().setId(1).setName("method").setAddress("/services/someService")
+                .setReturnAddress("someReturnAddress-1234").setObjectName("someService").setBody("arg").build());
+
+        endPoint.call(methods);
+        reconnect.set(true);
+        endPoint.call(methods);
+
+        /* The new connection starts with an empty dictionary on the other side. */
+        final MethodCall<Object> methodCall = (MethodCall<Object>) parser.parse("", sent.get(1),
+                new ProtocolDictionary()).get(0);
+        Assert.assertEquals("method", methodCall.name());
+        Assert.assertEquals("someReturnAddress-1234", methodCall.returnAddress());
+    }
+
     @Test
     public void testEncodeDecodeManyMethods() {
 
@@ -170,6 +299,49 @@ public class ProtocolParserVersion1Test {
 
     }
 
+    @Test
+    public void testParseGroupStreaming() {
+
+        BoonProtocolEncoder encoder = new BoonProtocolEncoder();
+        ProtocolParser parser = new BoonProtocolParser();
+
+        final List<Message<Object>> list = new ArrayList<>();
+        for (int index = 0; index < 10; index++) {
+            list.add(new MethodCallBuilder().setId(index).setName("method" + index).setAddress("addr")
+                    .setReturnAddress("ret").setBody(new Object[]{"arg" + index, index}).setTimestamp(100 + index).build());
+        }
+        list.add(new ResponseImpl<>(-1L, 5L, "addr", "ret", null, "error", null, true));
+
+        final String s = encoder.encodeAsString(list);
+
+        final List<Message<Object>> parsed = new ArrayList<>();
+        parser.parse("", s, null, parsed::add);
+
+        Assert.assertEquals(11, parsed.size());
+
+        for (int index = 0; index < 10; index++) {
+            final MethodCall<Object> call = (MethodCall<Object>) parsed.get(index);
+            Assert.assertEquals(index, call.id());
+            Assert.assertEquals("method" + index, call.name());
+            Assert.assertEquals(100 + index, call.timestamp());
+            final Object[] args = (Object[]) call.body();
+            Assert.assertEquals(2, args.length);
+            Assert.assertEquals("arg" + index, args[0].toString());
+            Assert.assertEquals(index, ((Number) args[1]).intValue());
+        }
+
+        final Response<Object> response = (Response<Object>) parsed.get(10);
+        Assert.assertEquals(-1L, response.id());
+        Assert.assertTrue(response.wasErrors());
+        Assert.assertEquals("error", response.body().toString());
+
+        /* No args still parses to a single empty slot, like it always has. */
+        final MethodCall<Object> noArgs = parser.parseMethodCall(encoder.encodeAsString(
+                new MethodCallBuilder().setName("noArgs").setAddress("addr").build()));
+        Assert.assertEquals("noArgs", noArgs.name());
+        Assert.assertEquals(1, ((Object[]) noArgs.body()).length);
+    }
+
     @Test
     public void testEncodeDecodeMap() {
         MultiMap<String, String> multiMap = new MultiMapImpl<>(ArrayList.class);
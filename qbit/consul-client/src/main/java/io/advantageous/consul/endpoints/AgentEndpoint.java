@@ -30,6 +30,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static io.advantageous.boon.core.reflection.MapObjectConversion.fromMap;
 import static io.advantageous.boon.json.JsonFactory.*;
@@ -449,6 +450,38 @@ public class AgentEndpoint extends Endpoint {
         check("service:" + serviceId, status, note);
     }
 
+    /**
+     * Same as {@link #check(String, Status, String)} without blocking the calling thread.
+     *
+     * @param checkId check id
+     * @param status  state
+     * @param note    note
+     * @return future completed on the I/O thread, it fails with NotRegisteredException if the check is unknown
+     */
+    public CompletableFuture<Void> checkAsync(String checkId, Status status, String note) {
+
+        final URI uri = createURI("/check/" + status.getUri() + "/" + checkId);
+
+        return asyncHTTP().get(Str.isEmpty(note) ? uri.toString() : uri.toString() + "?note=" + note)
+                .thenAccept(httpResponse -> {
+                    if (httpResponse.code() != 200) {
+                        notRegistered("Unable to perform check", uri, httpResponse.code(), httpResponse.body());
+                    }
+                });
+    }
+
+    /**
+     * Same as {@link #checkTtl(String, Status, String)} without blocking the calling thread.
+     *
+     * @param serviceId service id
+     * @param status    state
+     * @param note      note
+     * @return future completed on the I/O thread
+     */
+    public CompletableFuture<Void> checkTtlAsync(String serviceId, Status status, String note) {
+        return checkAsync("service:" + serviceId, status, note);
+    }
+
     /**
      * Sets a TTL check to "passing" state
      *
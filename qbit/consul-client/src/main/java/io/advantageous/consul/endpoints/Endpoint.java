@@ -1,6 +1,7 @@
 package io.advantageous.consul.endpoints;
 
 import io.advantageous.boon.core.Str;
+import io.advantageous.qbit.http.AsyncHTTP;
 
 import java.net.URI;
 
@@ -11,6 +12,7 @@ public class Endpoint {
     private final String scheme;
     private final String port;
     private final String host;
+    private AsyncHTTP asyncHTTP;
 
 
     public Endpoint(final String scheme, final String host,  final String port, final String rootPath) {
@@ -27,6 +29,17 @@ public class Endpoint {
         this(rootURI.getScheme(), rootURI.getHost(), "" + rootURI.getPort(), rootPath);
     }
 
+    /**
+     * @param asyncHTTP client used by the async calls, the shared one is used if this is not set
+     */
+    public void setAsyncHTTP(final AsyncHTTP asyncHTTP) {
+        this.asyncHTTP = asyncHTTP;
+    }
+
+    protected AsyncHTTP asyncHTTP() {
+        return asyncHTTP == null ? AsyncHTTP.asyncHTTP() : asyncHTTP;
+    }
+
     protected URI createURI(String path) {
 
         URI uri = URI.create(Str.add(scheme, "://", host, ":", port, rootPath, path));
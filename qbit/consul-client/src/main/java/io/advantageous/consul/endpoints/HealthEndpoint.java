@@ -29,6 +29,7 @@ import io.advantageous.qbit.http.request.HttpRequestBuilder;
 
 import java.net.URI;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import static io.advantageous.consul.domain.ConsulException.die;
 
 /**
@@ -374,6 +375,37 @@ public class HealthEndpoint extends Endpoint {
         return RequestUtils.consulResponseList(ServiceHealth.class, httpResponse);
     }
 
+    /**
+     * Retrieves the healthy services without blocking the calling thread.
+     * <p>
+     * GET /v1/health/service/{service}?passing
+     *
+     * @param serviceName    name of the service
+     * @param datacenter     datacenter
+     * @param tag            tag
+     * @param requestOptions The Query Options to use.
+     * @return future of the {@link io.advantageous.consul.domain.ConsulResponse}, completed on the I/O thread
+     */
+    public CompletableFuture<ConsulResponse<List<ServiceHealth>>> getHealthyServicesAsync(final String serviceName,
+                                                                                         final String datacenter,
+                                                                                         final String tag,
+                                                                                         final RequestOptions requestOptions) {
+
+        final URI uri = createURI("/service/" + serviceName);
+
+        final HttpRequestBuilder httpRequestBuilder = RequestUtils
+                .getHttpRequestBuilder(datacenter, tag, requestOptions, "");
+
+        httpRequestBuilder.addParam("passing", "true");
+
+        return asyncHTTP().get(uri.toString() + "?" + httpRequestBuilder.paramString()).thenApply(httpResponse -> {
+            if (httpResponse.code() != 200) {
+                die("Unable to retrieve the service", uri, httpResponse.code(), httpResponse.body());
+            }
+            return RequestUtils.consulResponseList(ServiceHealth.class, httpResponse);
+        });
+    }
+
     /**
      * Retrieves the healthchecks for all nodes.
      * <p>
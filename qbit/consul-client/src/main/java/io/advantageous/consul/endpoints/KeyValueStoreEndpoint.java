@@ -29,6 +29,7 @@ import io.advantageous.qbit.http.request.HttpTextResponse;
 
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static io.advantageous.boon.json.JsonFactory.fromJsonArray;
@@ -98,6 +99,33 @@ public class KeyValueStoreEndpoint extends Endpoint{
         return getKeyValueOptional(httpResponse);
     }
 
+    /**
+     * Retrieves a {@link io.advantageous.consul.domain.KeyValue} without blocking the calling thread.
+     * <p>
+     * GET /v1/keyValueStore/{key}
+     *
+     * @param key            The key to retrieve.
+     * @param requestOptions The query options.
+     * @return future of the value or {@link java.util.Optional#empty()}, completed on the I/O thread
+     */
+    public CompletableFuture<Optional<KeyValue>> getValueAsync(final String key, RequestOptions requestOptions) {
+
+        final URI uri = createURI("/" + key);
+
+        final HttpRequestBuilder httpRequestBuilder = RequestUtils
+                .getHttpRequestBuilder(null, null, requestOptions, "");
+
+        return asyncHTTP().get(uri.toString() + "?" + httpRequestBuilder.paramString()).thenApply(httpResponse -> {
+            if (httpResponse.code() == 404) {
+                return Optional.<KeyValue>empty();
+            }
+            if (httpResponse.code() != 200) {
+                die("Unable to retrieve the key", key, uri, httpResponse.code(), httpResponse.body());
+            }
+            return getKeyValueOptional(httpResponse);
+        });
+    }
+
     private Optional<KeyValue> getKeyValueOptional(HttpTextResponse httpResponse) {
         final List<KeyValue> keyValues = fromJsonArray(httpResponse.body(), KeyValue.class);
 
@@ -29,7 +29,9 @@ import io.advantageous.qbit.http.HttpTransport;
 import io.advantageous.qbit.http.client.HttpClient;
 import io.advantageous.qbit.http.config.HttpServerOptions;
 import io.advantageous.qbit.http.server.HttpServer;
+import io.advantageous.qbit.json.JsonCodecProvider;
 import io.advantageous.qbit.json.JsonMapper;
+import io.advantageous.qbit.json.JsonMapperCodecProvider;
 import io.advantageous.qbit.message.MethodCall;
 import io.advantageous.qbit.message.Request;
 import io.advantageous.qbit.message.Response;
@@ -46,6 +48,8 @@ import io.advantageous.qbit.service.health.HealthServiceAsync;
 import io.advantageous.qbit.service.impl.CallbackManager;
 import io.advantageous.qbit.service.stats.StatsCollector;
 import io.advantageous.qbit.spi.FactorySPI;
+import io.advantageous.qbit.spi.ProtocolBinaryEncoder;
+import io.advantageous.qbit.spi.ProtocolDictionary;
 import io.advantageous.qbit.spi.ProtocolEncoder;
 import io.advantageous.qbit.spi.ProtocolParser;
 import io.advantageous.qbit.system.QBitSystemManager;
@@ -190,6 +194,15 @@ public interface Factory {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Create an encoder for the binary protocol.
+     *
+     * @return encoder that writes bytes.
+     */
+    default ProtocolBinaryEncoder createBinaryEncoder() {
+        throw new UnsupportedOperationException();
+    }
+
 
 
     /**
@@ -232,6 +245,64 @@ public interface Factory {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Create a remote proxy that sends addresses and method names through the connection's dictionary.
+     * Factories that do not support dictionaries ignore it.
+     *
+     * @param serviceInterface client view of client
+     * @param uri              uri of client
+     * @param serviceName      name of the client that we are proxying method calls to.
+     * @param host             host
+     * @param port             port
+     * @param connected        connected
+     * @param returnAddressArg return address
+     * @param sender           how we are sending the message over the wire
+     * @param dictionary       sending side dictionary of the connection
+     * @param beforeMethodCall before method call
+     * @param requestBatchSize request batch size
+     * @param <T>              type of client
+     * @return remote proxy
+     */
+    default <T> T createRemoteProxyWithReturnAddress(Class<T> serviceInterface, String uri, String serviceName,
+                                                     String host,
+                                                     int port,
+                                                     AtomicBoolean connected,
+                                                     String returnAddressArg,
+                                                     Sender<String> sender,
+                                                     ProtocolDictionary dictionary,
+                                                     BeforeMethodCall beforeMethodCall,
+                                                     int requestBatchSize) {
+        return createRemoteProxyWithReturnAddress(serviceInterface, uri, serviceName, host, port, connected,
+                returnAddressArg, sender, beforeMethodCall, requestBatchSize);
+    }
+
+    /**
+     * Create a remote proxy that sends method calls with the binary protocol.
+     *
+     * @param serviceInterface client view of client
+     * @param uri              uri of client
+     * @param serviceName      name of the client that we are proxying method calls to.
+     * @param host             host
+     * @param port             port
+     * @param connected        connected
+     * @param returnAddressArg return address
+     * @param sender           how we are sending the bytes over the wire
+     * @param beforeMethodCall before method call
+     * @param requestBatchSize request batch size
+     * @param <T>              type of client
+     * @return remote proxy
+     */
+    default <T> T createBinaryRemoteProxyWithReturnAddress(Class<T> serviceInterface, String uri, String serviceName,
+                                                           String host,
+                                                           int port,
+                                                           AtomicBoolean connected,
+                                                           String returnAddressArg,
+                                                           Sender<byte[]> sender,
+                                                           BeforeMethodCall beforeMethodCall,
+                                                           int requestBatchSize) {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * Parses a method call using an address prefix and a body.
      * Useful for Websocket calls and POST calls (if you don't care about request params).
@@ -278,6 +349,16 @@ public interface Factory {
     }
 
 
+    /**
+     * Creates the JSON engine used for typed reads, by default codecs on top of {@link #createJsonMapper()}.
+     *
+     * @return json codec provider
+     */
+    default JsonCodecProvider createJsonCodecProvider() {
+        return new JsonMapperCodecProvider(createJsonMapper());
+    }
+
+
     default HttpClient createHttpClient(
             String host,
             int port,
@@ -351,17 +432,53 @@ public interface Factory {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Same as the other createServiceServer, the stats collector gets the WebSocket encoder stats.
+     */
+    default ServiceEndpointServer createServiceServer(final HttpTransport httpServer,
+                                                      final ProtocolEncoder encoder,
+                                                      final ProtocolParser protocolParser,
+                                                      final ServiceBundle serviceBundle,
+                                                      final JsonMapper jsonMapper,
+                                                      final int timeOutInSeconds,
+                                                      final int numberOfOutstandingRequests,
+                                                      final int batchSize,
+                                                      final int flushInterval,
+                                                      final QBitSystemManager systemManager,
+                                                      final String endpointName,
+                                                      final ServiceDiscovery serviceDiscovery,
+                                                      final int port,
+                                                      final int ttlSeconds,
+                                                      final HealthServiceAsync healthServiceAsync,
+                                                      final StatsCollector statsCollector
+    ) {
+        return createServiceServer(httpServer, encoder, protocolParser, serviceBundle, jsonMapper, timeOutInSeconds,
+                numberOfOutstandingRequests, batchSize, flushInterval, systemManager, endpointName, serviceDiscovery,
+                port, ttlSeconds, healthServiceAsync);
+    }
+
 
     default Client createClient(String uri, HttpClient httpClient, int requestBatchSize) {
         throw new UnsupportedOperationException();
     }
 
 
+    default Client createClient(String uri, HttpClient httpClient, int requestBatchSize, boolean binaryProtocol,
+                                boolean protocolDictionary) {
+        throw new UnsupportedOperationException();
+    }
+
+
     default ProtocolParser createProtocolParser() {
         throw new UnsupportedOperationException();
     }
 
 
+    default ProtocolParser createBinaryProtocolParser() {
+        throw new UnsupportedOperationException();
+    }
+
+
     default EventManager eventManagerProxy() {
         return null;
     }
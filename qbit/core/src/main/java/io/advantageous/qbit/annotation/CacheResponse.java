@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2015. Rick Hightower, Geoff Chandler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * QBit - The Microservice lib for Java : JSON, WebSocket, REST. Be The Web!
+ */
+
+package io.advantageous.qbit.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Caches the encoded response of an idempotent GET endpoint in the HTTP server.
+ * <p>
+ * Entries are keyed by the request path and the bound request and header params.
+ * A hit is written straight from the I/O thread without calling the service.
+ * Only successful JSON responses are cached.
+ * </p>
+ * <p>
+ * Hits never reach the service bundle, so they also skip its beforeMethodCall interceptors,
+ * an auth check done there included. Only cache responses that every caller may see.
+ * </p>
+ *
+ * @see io.advantageous.qbit.annotation.RequestMapping
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CacheResponse {
+
+    /**
+     * How long an entry is served before the service is called again.
+     * @return time to live in milliseconds
+     */
+    long ttl() default 1000;
+
+    /**
+     * Least recently used entries are dropped past this size.
+     * @return max entries kept for the method
+     */
+    int maxEntries() default 1000;
+
+    /**
+     * Event channels that clear the cache of this method when an event is sent to them.
+     * @return channel names
+     */
+    String[] invalidateOn() default {};
+}
@@ -38,6 +38,8 @@ public class ClientBuilder {
     public static final String QBIT_CLIENT_BUILDER = "qbit.client.builder.";
 
     private int protocolBatchSize = 10;
+    private boolean binaryProtocol;
+    private boolean protocolDictionary;
     private String uri;
     private HttpClientBuilder httpClientBuilder;
 
@@ -52,6 +54,8 @@ public class ClientBuilder {
         httpClientBuilder.setPipeline(propertyResolver.getBooleanProperty("pipeline", true));
         httpClientBuilder.setTimeOutInMilliseconds(propertyResolver.getIntegerProperty("timeOutInMilliseconds", 3000));
         this.protocolBatchSize = propertyResolver.getIntegerProperty("protocolBatchSize", protocolBatchSize);
+        this.binaryProtocol = propertyResolver.getBooleanProperty("binaryProtocol", false);
+        this.protocolDictionary = propertyResolver.getBooleanProperty("protocolDictionary", false);
         httpClientBuilder.setTimeOutInMilliseconds(propertyResolver.getIntegerProperty("flushInterval", 500));
         this.uri = propertyResolver.getStringProperty("uri", "/services");
         httpClientBuilder.setTimeOutInMilliseconds(propertyResolver.getIntegerProperty("timeoutSeconds", 30) * 1000);
@@ -206,6 +210,38 @@ public class ClientBuilder {
         return this;
     }
 
+    public boolean isBinaryProtocol() {
+        return binaryProtocol;
+    }
+
+    /**
+     * Send method calls as binary WebSocket frames using the binary protocol.
+     * The server answers binary calls with binary responses.
+     *
+     * @param binaryProtocol true for binary
+     * @return this, fluent
+     */
+    public ClientBuilder setBinaryProtocol(boolean binaryProtocol) {
+        this.binaryProtocol = binaryProtocol;
+        return this;
+    }
+
+    public boolean isProtocolDictionary() {
+        return protocolDictionary;
+    }
+
+    /**
+     * Send addresses and method names once per connection, later calls send a short id.
+     * Applies to the text protocol, the server mirrors it in its responses.
+     *
+     * @param protocolDictionary true to use the dictionary
+     * @return this, fluent
+     */
+    public ClientBuilder setProtocolDictionary(boolean protocolDictionary) {
+        this.protocolDictionary = protocolDictionary;
+        return this;
+    }
+
     public Client build() {
 
         /**
@@ -218,7 +254,10 @@ public class ClientBuilder {
 
         //noinspection UnnecessaryLocalVariable
         @SuppressWarnings("UnnecessaryLocalVariable")
-        Client client = QBit.factory().createClient(uri, httpClientBuilder.build(), protocolBatchSize);
+        Client client = binaryProtocol || protocolDictionary ?
+                QBit.factory().createClient(uri, httpClientBuilder.build(), protocolBatchSize, binaryProtocol,
+                        protocolDictionary) :
+                QBit.factory().createClient(uri, httpClientBuilder.build(), protocolBatchSize);
         return client;
 
     }
@@ -43,7 +43,8 @@ public class ChannelManager<T> {
     private final String eventBusName;
     private EventListener<T> consumer;
     private int sentCount;
-    private String sentCountStatKey;
+    private final String sentCountStatKey;
+    private final String listenerCountStatKey;
 
     public ChannelManager(final String eventBusName, final String name, StatsCollector statsCollector) {
         logger.info("Channel {} was created", name);
@@ -55,6 +56,7 @@ public class ChannelManager<T> {
         listeners = new ArrayList<>();
 
         sentCountStatKey = eventBusName + "." + name;
+        listenerCountStatKey = eventBusName + "::" + name;
 
 
     }
@@ -68,7 +70,7 @@ public class ChannelManager<T> {
         if (eventListener.subscriber()) {
             if (debug) logger.debug("subscription to channel <> from <> ", name, eventListener);
             listeners.add(eventListener);
-            stats.recordLevel(eventBusName + "::" + name, listeners.size());
+            stats.recordLevel(listenerCountStatKey, listeners.size());
         } else {
             if (debug) logger.debug("consumer to channel <> from <> ", name, eventListener);
             consumer = eventListener;
@@ -88,7 +90,7 @@ public class ChannelManager<T> {
         if (eventListener.subscriber()) {
             logger.info("remove subscription to channel {} from {} ", name, eventListener);
             listeners.remove(eventListener);
-            stats.recordLevel(eventBusName + "::" + name, listeners.size());
+            stats.recordLevel(listenerCountStatKey, listeners.size());
         } else {
 
             if (consumer == eventListener) {
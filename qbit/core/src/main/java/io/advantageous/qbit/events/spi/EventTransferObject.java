@@ -18,7 +18,10 @@
 
 package io.advantageous.qbit.events.spi;
 
+import io.advantageous.qbit.annotation.JsonIgnore;
 import io.advantageous.qbit.message.Event;
+import io.advantageous.qbit.trace.TraceContext;
+import io.advantageous.qbit.trace.Tracing;
 
 /**
  * Holds the data for an event.
@@ -29,11 +32,14 @@ public class EventTransferObject<T> implements Event<T> {
     private final T body;
     private final long id;
     private final String topic;
+    @JsonIgnore
+    private final transient TraceContext traceContext;
 
     public EventTransferObject(T body, long id, String topic) {
         this.body = body;
         this.id = id;
         this.topic = topic;
+        this.traceContext = Tracing.forOutgoingCall();
     }
 
 
@@ -41,6 +47,12 @@ public class EventTransferObject<T> implements Event<T> {
         this.body = null;
         this.id = 0L;
         this.topic = "";
+        this.traceContext = null;
+    }
+
+    @Override
+    public TraceContext traceContext() {
+        return traceContext;
     }
 
     @Override
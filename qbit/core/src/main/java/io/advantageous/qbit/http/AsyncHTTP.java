@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2015. Rick Hightower, Geoff Chandler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * QBit - The Microservice lib for Java : JSON, WebSocket, REST. Be The Web!
+ */
+
+package io.advantageous.qbit.http;
+
+import io.advantageous.qbit.http.client.HttpClientBuilder;
+import io.advantageous.qbit.http.client.HttpClientPool;
+import io.advantageous.qbit.http.client.HttpClientPoolBuilder;
+import io.advantageous.qbit.http.client.HttpClientTimeoutException;
+import io.advantageous.qbit.http.request.HttpRequestBuilder;
+import io.advantageous.qbit.http.request.HttpResponseBuilder;
+import io.advantageous.qbit.http.request.HttpTextReceiver;
+import io.advantageous.qbit.http.request.HttpTextResponse;
+import io.advantageous.qbit.reactive.Callback;
+import io.advantageous.qbit.service.Stoppable;
+import io.advantageous.qbit.util.MultiMap;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking counterpart of {@link HTTP}.
+ * <p>
+ * Requests go out through an {@link HttpClientPool}, so connections to a host are kept alive and reused,
+ * and no thread waits on a response. Results come back to a {@link Callback} or a {@link CompletableFuture},
+ * on the I/O thread of the client. A request that gets no response within the timeout fails with an
+ * {@link HttpClientTimeoutException}, the pool aborts it and hands its slot to the next request.
+ * </p>
+ */
+public class AsyncHTTP implements Stoppable {
+
+    private final HttpClientPool httpPool;
+    private final HttpClientPool httpsPool;
+    private final long timeoutInMilliseconds;
+
+    /**
+     * @param httpPool              pool for http URLs
+     * @param httpsPool             pool for https URLs
+     * @param timeoutInMilliseconds how long to wait for a response
+     */
+    public AsyncHTTP(final HttpClientPool httpPool, final HttpClientPool httpsPool, final long timeoutInMilliseconds) {
+        this.httpPool = httpPool;
+        this.httpsPool = httpsPool;
+        this.timeoutInMilliseconds = timeoutInMilliseconds;
+    }
+
+    /**
+     * @return shared instance with keep alive pools and the {@link HTTP#DEFAULT_TIMEOUT_SECONDS} timeout
+     */
+    public static AsyncHTTP asyncHTTP() {
+        return Shared.INSTANCE;
+    }
+
+    public CompletableFuture<HttpTextResponse> get(final String url) {
+        return send("GET", url, null, null);
+    }
+
+    public CompletableFuture<HttpTextResponse> delete(final String url) {
+        return send("DELETE", url, null, null);
+    }
+
+    public CompletableFuture<HttpTextResponse> postJSON(final String url, final String jsonString) {
+        return send("POST", url, jsonString, HTTP.APPLICATION_JSON);
+    }
+
+    public CompletableFuture<HttpTextResponse> putJSON(final String url, final String jsonString) {
+        return send("PUT", url, jsonString, HTTP.APPLICATION_JSON);
+    }
+
+    public CompletableFuture<HttpTextResponse> send(final String method, final String url,
+                                                    final String body, final String contentType) {
+        final CompletableFuture<HttpTextResponse> future = new CompletableFuture<>();
+        send(method, url, body, contentType, new Callback<HttpTextResponse>() {
+            @Override
+            public void accept(final HttpTextResponse response) {
+                future.complete(response);
+            }
+
+            @Override
+            public void onError(final Throwable error) {
+                future.completeExceptionally(error);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Sends a request, the callback gets the response of any status or the error, once.
+     *
+     * @param method      HTTP method
+     * @param url         full URL, query string included
+     * @param body        body, or null
+     * @param contentType content type of the body, or null
+     * @param callback    callback
+     */
+    public void send(final String method, final String url, final String body, final String contentType,
+                     final Callback<HttpTextResponse> callback) {
+
+        final URI uri = URI.create(url);
+        final boolean ssl = "https".equalsIgnoreCase(uri.getScheme());
+        final int port = uri.getPort() != -1 ? uri.getPort() : ssl ? 443 : 80;
+        final String pathAndQuery = (uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath())
+                + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+
+        final HttpRequestBuilder httpRequestBuilder = HttpRequestBuilder.httpRequestBuilder()
+                .setMethod(method).setUri(pathAndQuery)
+                .setTextReceiver(new HttpTextReceiver() {
+                    @Override
+                    public void response(int code, String mimeType, String responseBody) {
+                        response(code, mimeType, responseBody, MultiMap.empty());
+                    }
+
+                    @Override
+                    public void response(int code, String mimeType, String responseBody,
+                                         MultiMap<String, String> headers) {
+                        callback.accept((HttpTextResponse) HttpResponseBuilder.httpResponseBuilder()
+                                .setCode(code).setContentType(mimeType).setBody(responseBody == null ? "" : responseBody)
+                                .setHeaders(headers).build());
+                    }
+                })
+                .setErrorHandler(callback::onError);
+
+        if (body != null) {
+            httpRequestBuilder.setBody(body);
+        }
+        if (contentType != null) {
+            httpRequestBuilder.setContentType(contentType);
+        }
+
+        /* The pool gets the response or the error to the callback once, a late response is dropped. */
+        (ssl ? httpsPool : httpPool).sendHttpRequest(uri.getHost(), port, httpRequestBuilder.build(),
+                timeoutInMilliseconds);
+    }
+
+    @Override
+    public void stop() {
+        httpPool.stop();
+        httpsPool.stop();
+    }
+
+    private static final class Shared {
+
+        private static final AsyncHTTP INSTANCE = new AsyncHTTP(
+                HttpClientPoolBuilder.httpClientPoolBuilder()
+                        .setHttpClientBuilder(HttpClientBuilder.httpClientBuilder().setKeepAlive(true))
+                        .build(),
+                HttpClientPoolBuilder.httpClientPoolBuilder()
+                        .setHttpClientBuilder(HttpClientBuilder.httpClientBuilder().setKeepAlive(true).setSsl(true))
+                        .build(),
+                TimeUnit.SECONDS.toMillis(HTTP.DEFAULT_TIMEOUT_SECONDS));
+    }
+}
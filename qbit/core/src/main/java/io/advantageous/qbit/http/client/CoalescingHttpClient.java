@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2015. Rick Hightower, Geoff Chandler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * QBit - The Microservice lib for Java : JSON, WebSocket, REST. Be The Web!
+ */
+
+package io.advantageous.qbit.http.client;
+
+import io.advantageous.qbit.http.request.HttpRequest;
+import io.advantageous.qbit.http.request.HttpResponseReceiver;
+import io.advantageous.qbit.http.websocket.WebSocket;
+import io.advantageous.qbit.util.MultiMap;
+import io.advantageous.qbit.util.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Wraps an {@link HttpClient} so identical GETs that overlap share one request to the server.
+ * <p>
+ * GETs match when their URI, params and headers are the same and their receivers both take text or both take
+ * bytes. The first one goes out, the ones that come in before its response are parked, and the response is handed
+ * to all of them. With a cache time set, successful responses also answer matching GETs for that long afterwards.
+ * Every other method goes straight to the wrapped client.
+ * </p>
+ *
+ * @see HttpClientBuilder#setCoalesceGets(boolean)
+ */
+public class CoalescingHttpClient implements HttpClient {
+
+    private static final int MAX_CACHED_RESPONSES = 1_000;
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingHttpClient.class);
+
+    private final HttpClient httpClient;
+    private final long cacheTimeInMilliseconds;
+    private final Map<String, InFlightGet> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, CachedResponse> cachedResponses = new ConcurrentHashMap<>();
+
+    /**
+     * @param httpClient              client that sends the requests
+     * @param cacheTimeInMilliseconds how long a 200 response answers matching GETs, 0 to only share in flight ones
+     */
+    public CoalescingHttpClient(final HttpClient httpClient, final long cacheTimeInMilliseconds) {
+        this.httpClient = httpClient;
+        this.cacheTimeInMilliseconds = cacheTimeInMilliseconds;
+    }
+
+    @Override
+    public void sendHttpRequest(final HttpRequest request) {
+
+        if (!"GET".equals(request.getMethod()) || request.getReceiver() == null) {
+            httpClient.sendHttpRequest(request);
+            return;
+        }
+
+        final String key = key(request);
+
+        if (cacheTimeInMilliseconds > 0) {
+            final CachedResponse cachedResponse = cachedResponses.get(key);
+            if (cachedResponse != null) {
+                if (cachedResponse.expiresAt >= Timer.clockTime()) {
+                    //noinspection unchecked
+                    request.getReceiver().response(cachedResponse.code, cachedResponse.contentType,
+                            cachedResponse.body, cachedResponse.headers);
+                    return;
+                }
+                cachedResponses.remove(key, cachedResponse);
+            }
+        }
+
+        final InFlightGet created = new InFlightGet(key, request.getReceiver());
+        final InFlightGet existing = inFlight.putIfAbsent(key, created);
+        if (existing != null && existing.join(request.getReceiver())) {
+            return;
+        }
+        if (existing != null) {
+            /* Answered between the lookup and the join, this one goes out on its own. */
+            inFlight.replace(key, existing, created);
+        }
+
+        try {
+            httpClient.sendHttpRequest(new HttpRequest(request.id(), request.getUri(), request.getMethod(),
+                    request.getParams(), request.getHeaders(), request.getBody(), request.getRemoteAddress(),
+                    request.getContentType(), created, request.timestamp()));
+        } catch (RuntimeException ex) {
+            created.errorHandler().accept(ex);
+        }
+    }
+
+    /**
+     * @return number of distinct GETs waiting on a response
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private static String key(final HttpRequest request) {
+
+        final StringBuilder key = new StringBuilder(request.getUri());
+        key.append(request.getReceiver().isText() ? "\u0000T" : "\u0000B");
+        appendSorted(key, '?', request.getParams());
+        appendSorted(key, '#', request.getHeaders());
+        return key.toString();
+    }
+
+    private static void appendSorted(final StringBuilder key, final char marker,
+                                     final MultiMap<String, String> values) {
+        if (values == null || values.size() == 0) {
+            return;
+        }
+        for (String name : new TreeSet<>(values.keySet())) {
+            for (String value : values.getAll(name)) {
+                key.append('\u0000').append(marker).append(name).append('=').append(value);
+            }
+        }
+    }
+
+    private void cache(final String key, final int code, final String contentType, final Object body,
+                       final MultiMap<String, String> headers) {
+
+        if (cacheTimeInMilliseconds <= 0 || code != 200) {
+            return;
+        }
+        final long now = Timer.clockTime();
+        if (cachedResponses.size() >= MAX_CACHED_RESPONSES) {
+            cachedResponses.values().removeIf(cachedResponse -> cachedResponse.expiresAt < now);
+            if (cachedResponses.size() >= MAX_CACHED_RESPONSES) {
+                return;
+            }
+        }
+        cachedResponses.put(key, new CachedResponse(code, contentType, body, headers, now + cacheTimeInMilliseconds));
+    }
+
+    @Override
+    public boolean isClosed() {
+        return httpClient.isClosed();
+    }
+
+    @Override
+    public WebSocket createWebSocket(final String uri) {
+        return httpClient.createWebSocket(uri);
+    }
+
+    @Override
+    public void periodicFlushCallback(final Consumer<Void> periodicFlushCallback) {
+        httpClient.periodicFlushCallback(periodicFlushCallback);
+    }
+
+    @Override
+    public int getPort() {
+        return httpClient.getPort();
+    }
+
+    @Override
+    public String getHost() {
+        return httpClient.getHost();
+    }
+
+    @Override
+    public HttpClient startClient() {
+        httpClient.startClient();
+        return this;
+    }
+
+    @Override
+    public void start() {
+        httpClient.start();
+    }
+
+    @Override
+    public void flush() {
+        httpClient.flush();
+    }
+
+    @Override
+    public void stop() {
+        httpClient.stop();
+    }
+
+    private static final class CachedResponse {
+
+        private final int code;
+        private final String contentType;
+        private final Object body;
+        private final MultiMap<String, String> headers;
+        private final long expiresAt;
+
+        private CachedResponse(final int code, final String contentType, final Object body,
+                               final MultiMap<String, String> headers, final long expiresAt) {
+            this.code = code;
+            this.contentType = contentType;
+            this.body = body;
+            this.headers = headers;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Receiver of the request that went out, it hands the response to every receiver that joined it.
+     */
+    private final class InFlightGet implements HttpResponseReceiver<Object> {
+
+        private final String key;
+        private final boolean text;
+        private final List<HttpResponseReceiver<Object>> receivers = new ArrayList<>(2);
+        private boolean answered;
+
+        private InFlightGet(final String key, final HttpResponseReceiver<Object> receiver) {
+            this.key = key;
+            this.text = receiver.isText();
+            this.receivers.add(receiver);
+        }
+
+        private synchronized boolean join(final HttpResponseReceiver<Object> receiver) {
+            if (answered) {
+                return false;
+            }
+            receivers.add(receiver);
+            return true;
+        }
+
+        /**
+         * @return receivers to answer, no more can join once this is called
+         */
+        private List<HttpResponseReceiver<Object>> answer() {
+            inFlight.remove(key, this);
+            synchronized (this) {
+                answered = true;
+                return receivers;
+            }
+        }
+
+        @Override
+        public boolean isText() {
+            return text;
+        }
+
+        @Override
+        public void response(final int code, final String contentType, final Object body) {
+            response(code, contentType, body, MultiMap.empty());
+        }
+
+        @Override
+        public void response(final int code, final String contentType, final Object body,
+                             final MultiMap<String, String> headers) {
+            cache(key, code, contentType, body, headers);
+            for (HttpResponseReceiver<Object> receiver : answer()) {
+                try {
+                    receiver.response(code, contentType, body, headers);
+                } catch (Exception ex) {
+                    logger.warn("Receiver of a shared GET failed " + key, ex);
+                }
+            }
+        }
+
+        @Override
+        public Consumer<Exception> errorHandler() {
+            return exception -> {
+                for (HttpResponseReceiver<Object> receiver : answer()) {
+                    try {
+                        receiver.errorHandler().accept(exception);
+                    } catch (Exception ex) {
+                        logger.warn("Error handler of a shared GET failed " + key, ex);
+                    }
+                }
+            };
+        }
+    }
+}
@@ -61,6 +61,17 @@ public interface HttpClient extends ServiceFlushable, Stoppable, Startable {
     default void sendHttpRequest(HttpRequest request) {
     }
 
+    /**
+     * Sends the request and aborts it if no response came in time, its receiver gets the error.
+     * Clients that can not abort a request only send it.
+     *
+     * @param request               request
+     * @param timeoutInMilliseconds how long to wait for the response, -1 to wait as long as it takes
+     */
+    default void sendHttpRequest(HttpRequest request, long timeoutInMilliseconds) {
+        sendHttpRequest(request);
+    }
+
     default void sendGetRequest(String uri) {
 
         final HttpRequest httpRequest = httpRequestBuilder()
@@ -53,6 +53,8 @@ public class HttpClientBuilder {
     private String trustStorePassword;
     private boolean tcpNoDelay = true;
     private int soLinger = 100;
+    private boolean coalesceGets;
+    private long coalesceCacheTimeInMilliseconds;
 
 
     public HttpClientBuilder(PropertyResolver propertyResolver) {
@@ -72,6 +74,9 @@ public class HttpClientBuilder {
         this.tcpNoDelay = propertyResolver.getBooleanProperty("tcpNoDelay", tcpNoDelay);
         this.trustStorePath = propertyResolver.getStringProperty("trustStorePath", trustStorePath);
         this.trustStorePassword = propertyResolver.getStringProperty("trustStorePassword", trustStorePassword);
+        this.coalesceGets = propertyResolver.getBooleanProperty("coalesceGets", coalesceGets);
+        this.coalesceCacheTimeInMilliseconds = propertyResolver.getLongProperty("coalesceCacheTimeInMilliseconds",
+                coalesceCacheTimeInMilliseconds);
 
 
     }
@@ -245,6 +250,32 @@ public class HttpClientBuilder {
         this.soLinger = soLinger;
     }
 
+    public boolean isCoalesceGets() {
+        return coalesceGets;
+    }
+
+    /**
+     * @param coalesceGets identical GETs in flight at the same time share one request
+     * @return this
+     */
+    public HttpClientBuilder setCoalesceGets(boolean coalesceGets) {
+        this.coalesceGets = coalesceGets;
+        return this;
+    }
+
+    public long getCoalesceCacheTimeInMilliseconds() {
+        return coalesceCacheTimeInMilliseconds;
+    }
+
+    /**
+     * @param coalesceCacheTimeInMilliseconds how long a shared GET keeps answering with its 200 response
+     * @return this
+     */
+    public HttpClientBuilder setCoalesceCacheTimeInMilliseconds(long coalesceCacheTimeInMilliseconds) {
+        this.coalesceCacheTimeInMilliseconds = coalesceCacheTimeInMilliseconds;
+        return this;
+    }
+
     public HttpClient build() {
         //noinspection UnnecessaryLocalVariable
         @SuppressWarnings("UnnecessaryLocalVariable") final HttpClient httpClient = QBit.factory().createHttpClient(
@@ -266,6 +297,9 @@ public class HttpClientBuilder {
                 this.isTcpNoDelay(),
                 this.getSoLinger());
 
+        if (isCoalesceGets()) {
+            return new CoalescingHttpClient(httpClient, getCoalesceCacheTimeInMilliseconds());
+        }
         return httpClient;
     }
 
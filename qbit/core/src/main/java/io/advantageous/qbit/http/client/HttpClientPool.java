@@ -0,0 +1,548 @@
+/*
+ * Copyright (c) 2015. Rick Hightower, Geoff Chandler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * QBit - The Microservice lib for Java : JSON, WebSocket, REST. Be The Web!
+ */
+
+package io.advantageous.qbit.http.client;
+
+import io.advantageous.qbit.http.request.HttpRequest;
+import io.advantageous.qbit.http.request.HttpResponseReceiver;
+import io.advantageous.qbit.service.ServiceFlushable;
+import io.advantageous.qbit.service.Stoppable;
+import io.advantageous.qbit.service.stats.StatsCollector;
+import io.advantageous.qbit.util.MultiMap;
+import io.advantageous.qbit.util.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Sends requests to many hosts, with one {@link HttpClient} per host and port.
+ * <p>
+ * Clients are created the first time a host is called. Each host gets a cap on the requests it has in flight,
+ * which is its connections times the pipelining depth unless a lower cap is set. Requests past the cap wait in a
+ * queue and go out as responses come back. A request that finds the queue full fails right away with an
+ * {@link HttpClientException}. Hosts that have been idle longer than the idle timeout are stopped.
+ * </p>
+ * <p>
+ * A request only leaves the in flight count when its response or an error reaches its receiver, or when its
+ * timeout passes. The timeout counts from the send, time spent in the queue included, and fails the receiver with
+ * an {@link HttpClientTimeoutException}. The client is asked to abort the request when the timeout passes, and a
+ * response that comes after it anyway is dropped.
+ * </p>
+ *
+ * @see HttpClientPoolBuilder
+ */
+public class HttpClientPool implements ServiceFlushable, Stoppable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpClientPool.class);
+    private static final ScheduledThreadPoolExecutor timeouts = createTimeoutExecutor();
+
+    private final Map<String, HostPool> hostPools = new ConcurrentHashMap<>();
+    private final BiFunction<String, Integer, HttpClient> clientFactory;
+    private final int maxInFlightPerHost;
+    private final int maxQueuedPerHost;
+    private final long requestTimeoutInMilliseconds;
+    private final long idleTimeoutInMilliseconds;
+    private final StatsCollector statsCollector;
+    private final String statsPrefix;
+    private final AtomicLong lastEvictionCheck = new AtomicLong(Timer.clockTime());
+
+    public HttpClientPool(final BiFunction<String, Integer, HttpClient> clientFactory,
+                          final int maxInFlightPerHost,
+                          final long idleTimeoutInMilliseconds,
+                          final StatsCollector statsCollector,
+                          final String statsPrefix) {
+        this(clientFactory, maxInFlightPerHost, -1, -1, idleTimeoutInMilliseconds, statsCollector, statsPrefix);
+    }
+
+    /**
+     * @param maxQueuedPerHost             most requests waiting for a slot per host, -1 for no cap
+     * @param requestTimeoutInMilliseconds how long a request may take, -1 for no timeout
+     */
+    public HttpClientPool(final BiFunction<String, Integer, HttpClient> clientFactory,
+                          final int maxInFlightPerHost,
+                          final int maxQueuedPerHost,
+                          final long requestTimeoutInMilliseconds,
+                          final long idleTimeoutInMilliseconds,
+                          final StatsCollector statsCollector,
+                          final String statsPrefix) {
+        this.clientFactory = clientFactory;
+        this.maxInFlightPerHost = maxInFlightPerHost;
+        this.maxQueuedPerHost = maxQueuedPerHost;
+        this.requestTimeoutInMilliseconds = requestTimeoutInMilliseconds;
+        this.idleTimeoutInMilliseconds = idleTimeoutInMilliseconds;
+        this.statsCollector = statsCollector;
+        this.statsPrefix = statsPrefix;
+    }
+
+    /**
+     * Sends the request to the host, or queues it if the host is at its in flight cap.
+     *
+     * @param host    host
+     * @param port    port
+     * @param request request, its receiver gets the response
+     */
+    public void sendHttpRequest(final String host, final int port, final HttpRequest request) {
+        sendHttpRequest(host, port, request, requestTimeoutInMilliseconds);
+    }
+
+    /**
+     * Sends the request to the host, or queues it if the host is at its in flight cap.
+     *
+     * @param host                  host
+     * @param port                  port
+     * @param request               request, its receiver gets the response
+     * @param timeoutInMilliseconds how long the request may take, -1 for no timeout
+     */
+    public void sendHttpRequest(final String host, final int port, final HttpRequest request,
+                                final long timeoutInMilliseconds) {
+
+        evictIdleIfDue();
+
+        final PendingRequest pending = new PendingRequest(request,
+                timeoutInMilliseconds > 0 ? Timer.clockTime() + timeoutInMilliseconds : 0L);
+        final String key = key(host, port);
+        while (true) {
+            final HostPool hostPool = hostPools.computeIfAbsent(key, k -> new HostPool(k, host, port));
+            if (hostPool.send(pending)) {
+                return;
+            }
+            /* Evicted between the lookup and the send, the next lookup creates a new one. */
+            hostPools.remove(key, hostPool);
+        }
+    }
+
+    /**
+     * @param host host
+     * @param port port
+     * @return stats of the host, or null if it has no client
+     */
+    public HostStats stats(final String host, final int port) {
+        final HostPool hostPool = hostPools.get(key(host, port));
+        return hostPool == null ? null : hostPool.stats();
+    }
+
+    /**
+     * @return number of hosts that have a client
+     */
+    public int hostCount() {
+        return hostPools.size();
+    }
+
+    /**
+     * Stops the clients of hosts that have nothing in flight or queued and were idle past the timeout.
+     */
+    public void evictIdle() {
+        final long now = Timer.clockTime();
+        lastEvictionCheck.set(now);
+        for (HostPool hostPool : hostPools.values()) {
+            if (hostPool.closeIfIdle(now - idleTimeoutInMilliseconds)) {
+                hostPools.remove(hostPool.key, hostPool);
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+        hostPools.values().forEach(hostPool -> hostPool.client.flush());
+    }
+
+    @Override
+    public void stop() {
+        for (HostPool hostPool : hostPools.values()) {
+            hostPool.close();
+        }
+        hostPools.clear();
+    }
+
+    private void evictIdleIfDue() {
+        if (idleTimeoutInMilliseconds <= 0) {
+            return;
+        }
+        final long lastCheck = lastEvictionCheck.get();
+        if (Timer.clockTime() - lastCheck > idleTimeoutInMilliseconds
+                && lastEvictionCheck.compareAndSet(lastCheck, Timer.clockTime())) {
+            evictIdle();
+        }
+    }
+
+    private static String key(final String host, final int port) {
+        return host + ':' + port;
+    }
+
+    private static ScheduledThreadPoolExecutor createTimeoutExecutor() {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "HttpClientPool timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    /**
+     * A request and when it times out, 0 if it does not.
+     */
+    private static final class PendingRequest {
+
+        private final HttpRequest request;
+        private final long deadline;
+
+        private PendingRequest(final HttpRequest request, final long deadline) {
+            this.request = request;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * Point in time stats of one host.
+     */
+    public static final class HostStats {
+
+        private final int inFlight;
+        private final int queued;
+        private final long completed;
+        private final long averageLatency;
+
+        private HostStats(final int inFlight, final int queued, final long completed, final long averageLatency) {
+            this.inFlight = inFlight;
+            this.queued = queued;
+            this.completed = completed;
+            this.averageLatency = averageLatency;
+        }
+
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        public int getQueued() {
+            return queued;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        /**
+         * @return average milliseconds from sending a request to its response
+         */
+        public long getAverageLatency() {
+            return averageLatency;
+        }
+
+        @Override
+        public String toString() {
+            return "HostStats{" +
+                    "inFlight=" + inFlight +
+                    ", queued=" + queued +
+                    ", completed=" + completed +
+                    ", averageLatency=" + averageLatency +
+                    '}';
+        }
+    }
+
+    private final class HostPool {
+
+        private final String key;
+        private final String statsName;
+        private final HttpClient client;
+        private final Lock lock = new ReentrantLock();
+        private final ArrayDeque<PendingRequest> queued = new ArrayDeque<>();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong totalLatency = new AtomicLong();
+        private int inFlight;
+        private long lastUsed = Timer.clockTime();
+        private boolean closed;
+
+        private HostPool(final String key, final String host, final int port) {
+            this.key = key;
+            this.statsName = statsPrefix + host + "." + port;
+            this.client = clientFactory.apply(host, port);
+            this.client.start();
+        }
+
+        private boolean send(final PendingRequest pending) {
+            boolean rejected = false;
+            lock.lock();
+            try {
+                if (closed) {
+                    return false;
+                }
+                if (client.isClosed()) {
+                    /* Lost its connection, the requests already queued still drain through it and fail. */
+                    closed = true;
+                    return false;
+                }
+                lastUsed = Timer.clockTime();
+                if (inFlight < maxInFlightPerHost) {
+                    inFlight++;
+                    recordLevels();
+                } else if (maxQueuedPerHost < 0 || queued.size() < maxQueuedPerHost) {
+                    queued.add(pending);
+                    recordLevels();
+                    return true;
+                } else {
+                    rejected = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (rejected) {
+                reject(pending.request);
+            } else {
+                dispatch(pending);
+            }
+            return true;
+        }
+
+        private void reject(final HttpRequest request) {
+            if (statsCollector != null) {
+                statsCollector.recordCount(statsName + ".rejected", 1);
+            }
+            request.getReceiver().errorHandler().accept(
+                    new HttpClientException("Too many requests queued for " + key));
+        }
+
+        /**
+         * Sends the request, and keeps sending queued ones while the client fails them right away or they have
+         * already timed out.
+         */
+        private void dispatch(final PendingRequest first) {
+            PendingRequest pending = first;
+            while (pending != null) {
+                final long now = Timer.clockTime();
+                final PooledReceiver receiver = new PooledReceiver(this, pending.request.getReceiver(), now);
+                if (pending.deadline != 0L && now >= pending.deadline) {
+                    pending = receiver.fail(timedOut());
+                    continue;
+                }
+                final long timeout = pending.deadline == 0L ? -1 : pending.deadline - now;
+                if (timeout > 0) {
+                    receiver.timeout = timeouts.schedule(receiver::expire, timeout, TimeUnit.MILLISECONDS);
+                }
+                try {
+                    client.sendHttpRequest(copyWithReceiver(pending.request, receiver), timeout);
+                    return;
+                } catch (Exception ex) {
+                    pending = receiver.fail(ex);
+                }
+            }
+        }
+
+        private HttpClientTimeoutException timedOut() {
+            if (statsCollector != null) {
+                statsCollector.recordCount(statsName + ".timeouts", 1);
+            }
+            return new HttpClientTimeoutException("No response in time from " + key);
+        }
+
+        /**
+         * @return next queued request, which takes over the in flight slot
+         */
+        private PendingRequest complete(final long sentAt) {
+
+            final long latency = Timer.clockTime() - sentAt;
+            completed.incrementAndGet();
+            totalLatency.addAndGet(latency);
+            if (statsCollector != null) {
+                statsCollector.recordTiming(statsName + ".latency", latency);
+            }
+
+            final PendingRequest next;
+            lock.lock();
+            try {
+                lastUsed = Timer.clockTime();
+                next = queued.poll();
+                if (next == null) {
+                    inFlight--;
+                }
+                recordLevels();
+            } finally {
+                lock.unlock();
+            }
+            return next;
+        }
+
+        private void recordLevels() {
+            if (statsCollector != null) {
+                statsCollector.recordLevel(statsName + ".inFlight", inFlight);
+                statsCollector.recordLevel(statsName + ".queued", queued.size());
+            }
+        }
+
+        private boolean closeIfIdle(final long idleSince) {
+            lock.lock();
+            try {
+                if (closed || inFlight > 0 || !queued.isEmpty() || lastUsed > idleSince) {
+                    return false;
+                }
+                closed = true;
+            } finally {
+                lock.unlock();
+            }
+            client.stop();
+            return true;
+        }
+
+        private void close() {
+            lock.lock();
+            try {
+                closed = true;
+            } finally {
+                lock.unlock();
+            }
+            client.stop();
+        }
+
+        private HostStats stats() {
+            lock.lock();
+            try {
+                final long count = completed.get();
+                return new HostStats(inFlight, queued.size(), count, count == 0 ? 0 : totalLatency.get() / count);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static HttpRequest copyWithReceiver(final HttpRequest request, final HttpResponseReceiver<?> receiver) {
+        return new HttpRequest(request.id(), request.getUri(), request.getMethod(), request.getParams(),
+                request.getHeaders(), request.hasSpooledBody() ? null : request.getBody(),
+                request.hasSpooledBody() ? request.getSpooledBody() : null,
+                request.getRemoteAddress(), request.getContentType(), receiver, request.timestamp());
+    }
+
+    /**
+     * Hands the response to the caller's receiver and frees the in flight slot once, on a response, an error or a
+     * timeout. Whatever comes after the first is dropped.
+     */
+    private static final class PooledReceiver implements HttpResponseReceiver<Object> {
+
+        private final HostPool hostPool;
+        private final HttpResponseReceiver<Object> receiver;
+        private final long sentAt;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile ScheduledFuture<?> timeout;
+
+        private PooledReceiver(final HostPool hostPool, final HttpResponseReceiver<Object> receiver,
+                               final long sentAt) {
+            this.hostPool = hostPool;
+            this.receiver = receiver;
+            this.sentAt = sentAt;
+        }
+
+        @Override
+        public boolean isText() {
+            return receiver.isText();
+        }
+
+        @Override
+        public void response(final int code, final String contentType, final Object body) {
+            if (done.compareAndSet(false, true)) {
+                try {
+                    receiver.response(code, contentType, body);
+                } finally {
+                    complete();
+                }
+            }
+        }
+
+        @Override
+        public void response(final int code, final String contentType, final Object body,
+                             final MultiMap<String, String> headers) {
+            if (done.compareAndSet(false, true)) {
+                try {
+                    receiver.response(code, contentType, body, headers);
+                } finally {
+                    complete();
+                }
+            }
+        }
+
+        @Override
+        public Consumer<Exception> errorHandler() {
+            return exception -> {
+                if (done.compareAndSet(false, true)) {
+                    try {
+                        receiver.errorHandler().accept(exception);
+                    } finally {
+                        complete();
+                    }
+                }
+            };
+        }
+
+        /**
+         * No response in time, the request may still be out but its slot goes to the next one.
+         */
+        private void expire() {
+            if (done.compareAndSet(false, true)) {
+                try {
+                    receiver.errorHandler().accept(hostPool.timedOut());
+                } catch (Exception handlerFailed) {
+                    logger.warn("Error handler failed for a request that timed out", handlerFailed);
+                } finally {
+                    complete();
+                }
+            }
+        }
+
+        private void complete() {
+            cancelTimeout();
+            final PendingRequest next = hostPool.complete(sentAt);
+            if (next != null) {
+                hostPool.dispatch(next);
+            }
+        }
+
+        private void cancelTimeout() {
+            final ScheduledFuture<?> timeout = this.timeout;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+        }
+
+        /**
+         * The send failed before it left, or the request timed out in the queue. The caller dispatches the next
+         * request itself.
+         */
+        private PendingRequest fail(final Exception exception) {
+            if (!done.compareAndSet(false, true)) {
+                return null;
+            }
+            cancelTimeout();
+            try {
+                receiver.errorHandler().accept(exception);
+            } catch (Exception handlerFailed) {
+                logger.warn("Error handler failed for a request that could not be sent", handlerFailed);
+            }
+            return hostPool.complete(sentAt);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2015. Rick Hightower, Geoff Chandler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * QBit - The Microservice lib for Java : JSON, WebSocket, REST. Be The Web!
+ */
+
+package io.advantageous.qbit.http.client;
+
+import io.advantageous.qbit.http.HTTP;
+import io.advantageous.qbit.service.stats.StatsCollector;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds an {@link HttpClientPool}.
+ * <p>
+ * The clients of every host are built from the same {@link HttpClientBuilder}, with the host, port and
+ * pool size set for each one. With pipelining on, a host takes up to its connections times the pipelining depth
+ * requests in flight, otherwise one request per connection.
+ * </p>
+ */
+public class HttpClientPoolBuilder {
+
+    private HttpClientBuilder httpClientBuilder;
+    private int maxConnectionsPerHost = 4;
+    private int pipelineDepth = 8;
+    private int maxInFlightPerHost = -1;
+    private int maxQueuedPerHost = 1_000;
+    private long requestTimeoutInMilliseconds = TimeUnit.SECONDS.toMillis(HTTP.DEFAULT_TIMEOUT_SECONDS);
+    private long idleTimeoutInMilliseconds = 60_000;
+    private StatsCollector statsCollector;
+    private String statsPrefix = "qbit.http.client.pool.";
+
+    public static HttpClientPoolBuilder httpClientPoolBuilder() {
+        return new HttpClientPoolBuilder();
+    }
+
+    public HttpClientBuilder getHttpClientBuilder() {
+        if (httpClientBuilder == null) {
+            httpClientBuilder = HttpClientBuilder.httpClientBuilder();
+        }
+        return httpClientBuilder;
+    }
+
+    public HttpClientPoolBuilder setHttpClientBuilder(HttpClientBuilder httpClientBuilder) {
+        this.httpClientBuilder = httpClientBuilder;
+        return this;
+    }
+
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public HttpClientPoolBuilder setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        return this;
+    }
+
+    public int getPipelineDepth() {
+        return pipelineDepth;
+    }
+
+    /**
+     * @param pipelineDepth requests sent on one connection before its responses come back, if pipelining is on
+     * @return this
+     */
+    public HttpClientPoolBuilder setPipelineDepth(int pipelineDepth) {
+        this.pipelineDepth = pipelineDepth;
+        return this;
+    }
+
+    public int getMaxInFlightPerHost() {
+        return maxInFlightPerHost;
+    }
+
+    /**
+     * @param maxInFlightPerHost lower cap on requests in flight to one host, -1 to use connections times depth
+     * @return this
+     */
+    public HttpClientPoolBuilder setMaxInFlightPerHost(int maxInFlightPerHost) {
+        this.maxInFlightPerHost = maxInFlightPerHost;
+        return this;
+    }
+
+    public int getMaxQueuedPerHost() {
+        return maxQueuedPerHost;
+    }
+
+    /**
+     * @param maxQueuedPerHost most requests waiting for a slot per host, past it requests fail right away,
+     *                         -1 for no cap
+     * @return this
+     */
+    public HttpClientPoolBuilder setMaxQueuedPerHost(int maxQueuedPerHost) {
+        this.maxQueuedPerHost = maxQueuedPerHost;
+        return this;
+    }
+
+    public long getRequestTimeoutInMilliseconds() {
+        return requestTimeoutInMilliseconds;
+    }
+
+    /**
+     * @param requestTimeoutInMilliseconds how long a request may take, queued time included, -1 for no timeout
+     * @return this
+     */
+    public HttpClientPoolBuilder setRequestTimeoutInMilliseconds(long requestTimeoutInMilliseconds) {
+        this.requestTimeoutInMilliseconds = requestTimeoutInMilliseconds;
+        return this;
+    }
+
+    public long getIdleTimeoutInMilliseconds() {
+        return idleTimeoutInMilliseconds;
+    }
+
+    /**
+     * @param idleTimeoutInMilliseconds how long a host can go unused before its client is stopped, 0 to keep them
+     * @return this
+     */
+    public HttpClientPoolBuilder setIdleTimeoutInMilliseconds(long idleTimeoutInMilliseconds) {
+        this.idleTimeoutInMilliseconds = idleTimeoutInMilliseconds;
+        return this;
+    }
+
+    public StatsCollector getStatsCollector() {
+        return statsCollector;
+    }
+
+    /**
+     * @param statsCollector gets the in flight and queued levels and the latency of each host
+     * @return this
+     */
+    public HttpClientPoolBuilder setStatsCollector(StatsCollector statsCollector) {
+        this.statsCollector = statsCollector;
+        return this;
+    }
+
+    public String getStatsPrefix() {
+        return statsPrefix;
+    }
+
+    public HttpClientPoolBuilder setStatsPrefix(String statsPrefix) {
+        this.statsPrefix = statsPrefix;
+        return this;
+    }
+
+    public HttpClientPool build() {
+
+        final HttpClientBuilder clientBuilder = getHttpClientBuilder();
+        final int connections = Math.max(1, getMaxConnectionsPerHost());
+        final int depth = clientBuilder.isPipeline() ? Math.max(1, getPipelineDepth()) : 1;
+        final int maxInFlight = getMaxInFlightPerHost() > 0
+                ? Math.min(getMaxInFlightPerHost(), connections * depth) : connections * depth;
+
+        return new HttpClientPool((host, port) -> {
+            synchronized (clientBuilder) {
+                return clientBuilder.setHost(host).setPort(port).setPoolSize(connections).build();
+            }
+        }, maxInFlight, getMaxQueuedPerHost(), getRequestTimeoutInMilliseconds(), getIdleTimeoutInMilliseconds(),
+                getStatsCollector(), getStatsPrefix());
+    }
+}
@@ -18,6 +18,8 @@
 
 package io.advantageous.qbit.http.config;
 
+import java.util.Map;
+
 /**
  * created by rhightower on 2/14/15.
  */
@@ -88,6 +90,30 @@ public class HttpServerConfig extends HttpServerOptions {
         this.compressionSupport = compressionSupport;
     }
 
+    public void setWebSocketCompressionThreshold(int webSocketCompressionThreshold) {
+        this.webSocketCompressionThreshold = webSocketCompressionThreshold;
+    }
+
+    public void setMaxInMemoryBodySize(int maxInMemoryBodySize) {
+        this.maxInMemoryBodySize = maxInMemoryBodySize;
+    }
+
+    public void setBodySpillDirectory(String bodySpillDirectory) {
+        this.bodySpillDirectory = bodySpillDirectory;
+    }
+
+    public void setMaxBodySize(long maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public void setRouteConcurrencyLimits(Map<String, Integer> routeConcurrencyLimits) {
+        this.routeConcurrencyLimits = routeConcurrencyLimits;
+    }
+
     public void setReuseAddress(boolean reuseAddress) {
         this.reuseAddress = reuseAddress;
     }
@@ -18,6 +18,11 @@
 
 package io.advantageous.qbit.http.config;
 
+import io.advantageous.qbit.util.FrameCompressor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * @author rhightower
  *         on 2/14/15.
@@ -40,6 +45,12 @@ public class HttpServerOptions implements Cloneable {
     protected boolean keepAlive = true;
     protected int maxWebSocketFrameSize = 100_000_000;
     protected boolean compressionSupport = false;
+    protected int webSocketCompressionThreshold = FrameCompressor.DEFAULT_THRESHOLD;
+    protected int maxInMemoryBodySize = -1;
+    protected String bodySpillDirectory;
+    protected long maxBodySize = -1;
+    protected int maxConcurrentRequests = -1;
+    protected Map<String, Integer> routeConcurrencyLimits = new LinkedHashMap<>();
     protected boolean reuseAddress = true;
     protected int idleTimeout = 30_000;
     protected boolean ssl = false;
@@ -123,6 +134,61 @@ public class HttpServerOptions implements Cloneable {
         return compressionSupport;
     }
 
+    /**
+     * With compression support on, WebSocket frames at least this big are deflated for clients that ask for it.
+     *
+     * @return threshold in bytes
+     */
+    public int getWebSocketCompressionThreshold() {
+        return webSocketCompressionThreshold;
+    }
+
+    /**
+     * Streams POST and PUT bodies in as they arrive when zero or more, bodies bigger than this are spilled to disk.
+     * The default of -1 reads each body whole before the request is handled.
+     *
+     * @return max bytes of a body kept on heap
+     */
+    public int getMaxInMemoryBodySize() {
+        return maxInMemoryBodySize;
+    }
+
+    /**
+     * @return directory that streamed bodies are spilled to, null for the default temp directory
+     */
+    public String getBodySpillDirectory() {
+        return bodySpillDirectory;
+    }
+
+    /**
+     * Turns POST and PUT requests away with a 413 when their Content-Length is bigger than this.
+     * Streamed bodies are also cut off with a 413 once this many bytes came in. The default of -1 takes any size.
+     *
+     * @return max bytes of a request body
+     */
+    public long getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * Turns requests away with a 429 before their body is read once this many are in flight.
+     * The limit adapts down from here when latency climbs. The default of -1 lets every request in.
+     *
+     * @return most requests in flight at once
+     */
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    /**
+     * Budgets of routes, by path prefix, that requests must also fit in. Only used with max concurrent requests.
+     *
+     * @return most requests in flight at once per path prefix
+     */
+    public Map<String, Integer> getRouteConcurrencyLimits() {
+        return routeConcurrencyLimits;
+    }
+
     public boolean isReuseAddress() {
         return reuseAddress;
     }
@@ -163,6 +229,12 @@ public class HttpServerOptions implements Cloneable {
                 ", keepAlive=" + keepAlive +
                 ", maxWebSocketFrameSize=" + maxWebSocketFrameSize +
                 ", compressionSupport=" + compressionSupport +
+                ", webSocketCompressionThreshold=" + webSocketCompressionThreshold +
+                ", maxInMemoryBodySize=" + maxInMemoryBodySize +
+                ", bodySpillDirectory='" + bodySpillDirectory + '\'' +
+                ", maxBodySize=" + maxBodySize +
+                ", maxConcurrentRequests=" + maxConcurrentRequests +
+                ", routeConcurrencyLimits=" + routeConcurrencyLimits +
                 ", reuseAddress=" + reuseAddress +
                 '}';
     }
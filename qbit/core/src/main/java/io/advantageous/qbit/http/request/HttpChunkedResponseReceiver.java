@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2015. Rick Hightower, Geoff Chandler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * QBit - The Microservice lib for Java : JSON, WebSocket, REST. Be The Web!
+ */
+
+package io.advantageous.qbit.http.request;
+
+import io.advantageous.qbit.util.MultiMap;
+
+/**
+ * Implemented by response receivers that can write a response in chunks as it is produced.
+ * <p>
+ * Used to write a {@link HttpStreamingResponse}. Receivers that are not chunked get the whole response at once.
+ * </p>
+ * <p>
+ * Chunks are written from a pump thread, not from the receiver's I/O thread. A receiver with an I/O thread hands
+ * the writes over to it in the order they were made.
+ * </p>
+ */
+public interface HttpChunkedResponseReceiver {
+
+    /**
+     * Writes the status and headers.
+     *
+     * @param onClose called if the connection closes before the response ends
+     */
+    void startChunks(int code, String contentType, MultiMap<String, String> headers, Runnable onClose);
+
+    void writeChunk(byte[] chunk);
+
+    void endChunks();
+
+    /**
+     * Gives up on a response that already started, the client sees the response cut short.
+     */
+    void abortChunks();
+
+    /**
+     * @return true if chunks should not be written until the receiver drains
+     */
+    boolean isWriteQueueFull();
+
+    /**
+     * @param onDrain called once, on the receiver's I/O thread if it has one, when chunks can be written
+     */
+    void onDrain(Runnable onDrain);
+}
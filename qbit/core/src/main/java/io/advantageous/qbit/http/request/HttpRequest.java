@@ -38,7 +38,8 @@ public class HttpRequest implements Request<Object> {
     private final String remoteAddress;
     private final MultiMap<String, String> params;
     private final MultiMap<String, String> headers;
-    private final byte[] body;
+    private final SpooledBody spooledBody;
+    private byte[] body;
     private final String contentType;
     private final String method;
     private final HttpResponseReceiver receiver;
@@ -49,8 +50,19 @@ public class HttpRequest implements Request<Object> {
     public HttpRequest(long id, final String uri, final String method, final MultiMap<String, String> params,
                        final MultiMap<String, String> headers,
                        final byte[] body, final String remoteAddress, String contentType, final HttpResponseReceiver response, long timestamp) {
+        this(id, uri, method, params, headers, body, null, remoteAddress, contentType, response, timestamp);
+    }
+
+    /**
+     * @param spooledBody body that was streamed in, the bytes are only read from it if asked for
+     */
+    public HttpRequest(long id, final String uri, final String method, final MultiMap<String, String> params,
+                       final MultiMap<String, String> headers,
+                       final byte[] body, final SpooledBody spooledBody, final String remoteAddress,
+                       String contentType, final HttpResponseReceiver<?> response, long timestamp) {
 
         this.uri = uri;
+        this.spooledBody = spooledBody;
         this.messageId = id;
         this.params = params;
         this.body = body;
@@ -114,7 +126,7 @@ public class HttpRequest implements Request<Object> {
 
     @Override
     public Object body() {
-        return body;
+        return getBody();
     }
 
     @Override
@@ -127,11 +139,25 @@ public class HttpRequest implements Request<Object> {
     }
 
     public byte[] getBody() {
+        if (body == null && spooledBody != null) {
+            body = spooledBody.bytes();
+        }
         return body;
     }
 
     public String getBodyAsString() {
-        return new String(body, StandardCharsets.UTF_8);
+        return new String(getBody(), StandardCharsets.UTF_8);
+    }
+
+    public boolean hasSpooledBody() {
+        return spooledBody != null;
+    }
+
+    /**
+     * @return the streamed body, or the bytes wrapped as one if the body was read whole
+     */
+    public SpooledBody getSpooledBody() {
+        return spooledBody != null ? spooledBody : SpooledBody.spooledBody(getBody());
     }
 
     public String getMethod() {
@@ -210,7 +236,7 @@ public class HttpRequest implements Request<Object> {
                 ", remoteAddress='" + remoteAddress + '\'' +
                 ", params=" + params +
                 ", headers=" + headers +
-                ", body=" + Arrays.toString(body) +
+                ", body=" + (spooledBody != null ? spooledBody : Arrays.toString(body)) +
                 ", contentType='" + contentType + '\'' +
                 ", method='" + method + '\'' +
                 ", receiver=" + receiver +
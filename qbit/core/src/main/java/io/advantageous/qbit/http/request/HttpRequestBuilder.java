@@ -25,6 +25,7 @@ import io.advantageous.qbit.http.HttpContentTypes;
 import io.advantageous.qbit.util.GzipUtils;
 import io.advantageous.qbit.util.MultiMap;
 import io.advantageous.qbit.util.MultiMapImpl;
+import io.advantageous.qbit.util.SmallMultiMap;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
@@ -56,6 +57,7 @@ public class HttpRequestBuilder {
     private MultiMap<String, String> params;
     private MultiMap<String, String> headers;
     private byte[] body;
+    private SpooledBody spooledBody;
     private String method = "GET";
     private Consumer<Exception> errorHandler;
 
@@ -228,7 +230,8 @@ public class HttpRequestBuilder {
         }
         return new HttpRequest(this.getId(), newURI, this.getMethod(), this.getParams(),
                 this.getHeaders(),
-                this.getBodyBytes() != null ? this.getBodyBytes() : EMPTY_STRING,
+                this.getBodyBytes() != null || this.getSpooledBody() != null ? this.getBodyBytes() : EMPTY_STRING,
+                this.getSpooledBody(),
                 this.getRemoteAddress(), this.getContentType(), httpResponse, this.getTimestamp());
     }
 
@@ -254,8 +257,8 @@ public class HttpRequestBuilder {
         }
         final HttpRequest request = new HttpRequest(this.getId(), newURI, this.getMethod(), this.getParams(),
                 this.getHeaders(),
-                this.getBodyBytes() != null ? this.getBodyBytes() : new byte[]{},
-                this.getRemoteAddress(), this.getContentType(), httpResponse, this.getTimestamp());
+                this.getBodyBytes() != null || this.getSpooledBody() != null ? this.getBodyBytes() : new byte[]{},
+                this.getSpooledBody(), this.getRemoteAddress(), this.getContentType(), httpResponse, this.getTimestamp());
 
         return request;
     }
@@ -345,7 +348,7 @@ public class HttpRequestBuilder {
 
     public HttpRequestBuilder addHeader(final String name, final String value) {
         if (headers == null) {
-            headers = new MultiMapImpl<>();
+            headers = new SmallMultiMap<>();
         }
         headers.put(name, value);
         return this;
@@ -440,6 +443,18 @@ public class HttpRequestBuilder {
         return this;
     }
 
+    public SpooledBody getSpooledBody() {
+        return spooledBody;
+    }
+
+    /**
+     * Sets a body that was streamed in, used instead of the body bytes.
+     */
+    public HttpRequestBuilder setSpooledBody(SpooledBody spooledBody) {
+        this.spooledBody = spooledBody;
+        return this;
+    }
+
     public HttpRequestBuilder setJsonBodyForPostGzip(String jsonBodyForPostGzip) {
         try {
             this.setBodyBytes(GzipUtils.encode(jsonBodyForPostGzip));
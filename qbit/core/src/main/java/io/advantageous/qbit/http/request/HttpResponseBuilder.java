@@ -3,7 +3,7 @@ package io.advantageous.qbit.http.request;
 import io.advantageous.qbit.http.request.impl.HttpBinaryResponseImpl;
 import io.advantageous.qbit.http.request.impl.HttpTextResponseImpl;
 import io.advantageous.qbit.util.MultiMap;
-import io.advantageous.qbit.util.MultiMapImpl;
+import io.advantageous.qbit.util.SmallMultiMap;
 
 public class HttpResponseBuilder {
 
@@ -46,7 +46,7 @@ public class HttpResponseBuilder {
 
     public MultiMap<String, String> getHeaders() {
         if (headers == null) {
-            headers = new MultiMapImpl<>();
+            headers = new SmallMultiMap<>();
         }
         return headers;
     }
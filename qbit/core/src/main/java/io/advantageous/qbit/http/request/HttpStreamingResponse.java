@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2015. Rick Hightower, Geoff Chandler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * QBit - The Microservice lib for Java : JSON, WebSocket, REST. Be The Web!
+ */
+
+package io.advantageous.qbit.http.request;
+
+import io.advantageous.qbit.http.HttpStatus;
+import io.advantageous.qbit.json.JsonMapper;
+import io.advantageous.qbit.util.MultiMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Response that a service method returns to send a large result as it is read instead of all at once.
+ * <p>
+ * Items are pulled from the iterator, written as JSON and sent in chunks of about {@value #CHUNK_SIZE} bytes,
+ * either as the elements of one JSON array or as newline delimited JSON. The server stops pulling while the
+ * connection's write queue is full and carries on once it drains. An iterator that is also {@link AutoCloseable}
+ * is closed when the response ends.
+ * </p>
+ * <p>
+ * The iterator is never read on the receiver's I/O thread, it is read on a pump thread and only the encoded
+ * chunks are handed to the receiver. The iterator is read by one thread at a time, but not always by the same
+ * thread, and not by the service's thread, so it must not rely on thread locals or on the service's queue.
+ * </p>
+ * <p>
+ * Receivers that can not write in chunks get all of the items in one response.
+ * </p>
+ */
+public class HttpStreamingResponse implements HttpResponse<Iterator<?>> {
+
+    public static final int CHUNK_SIZE = 8192;
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpStreamingResponse.class);
+
+    /**
+     * Reads iterators and encodes chunks off the I/O threads.
+     */
+    private static final ExecutorService pumps = Executors.newCachedThreadPool(new PumpThreadFactory());
+
+    public enum Format {
+        JSON_ARRAY("application/json"),
+        NDJSON("application/x-ndjson");
+
+        private final String contentType;
+
+        Format(final String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+    }
+
+    private final int code;
+    private final Format format;
+    private final Iterator<?> items;
+    private final MultiMap<String, String> headers;
+
+    public HttpStreamingResponse(final int code, final Format format, final Iterator<?> items,
+                                 final MultiMap<String, String> headers) {
+        this.code = code;
+        this.format = format;
+        this.items = items;
+        this.headers = headers;
+    }
+
+    public static HttpStreamingResponse jsonArray(final Iterator<?> items) {
+        return new HttpStreamingResponse(HttpStatus.OK, Format.JSON_ARRAY, items, MultiMap.empty());
+    }
+
+    public static HttpStreamingResponse ndjson(final Iterator<?> items) {
+        return new HttpStreamingResponse(HttpStatus.OK, Format.NDJSON, items, MultiMap.empty());
+    }
+
+    @Override
+    public MultiMap<String, String> headers() {
+        return headers;
+    }
+
+    @Override
+    public int code() {
+        return code;
+    }
+
+    @Override
+    public String contentType() {
+        return format.contentType();
+    }
+
+    @Override
+    public Iterator<?> body() {
+        return items;
+    }
+
+    @Override
+    public boolean isText() {
+        return true;
+    }
+
+    public Format format() {
+        return format;
+    }
+
+    /**
+     * Writes the items in chunks, pausing whenever the receiver's write queue is full.
+     *
+     * @param receiver   chunked receiver
+     * @param jsonMapper mapper for the items
+     */
+    public void writeTo(final HttpChunkedResponseReceiver receiver, final JsonMapper jsonMapper) {
+        writeTo(receiver, jsonMapper, pumps);
+    }
+
+    /**
+     * Writes the items in chunks, pausing whenever the receiver's write queue is full.
+     *
+     * @param receiver   chunked receiver
+     * @param jsonMapper mapper for the items
+     * @param executor   reads the items and encodes the chunks, must not be the receiver's I/O thread
+     */
+    public void writeTo(final HttpChunkedResponseReceiver receiver, final JsonMapper jsonMapper,
+                        final Executor executor) {
+        new ChunkWriter(receiver, jsonMapper, executor).start();
+    }
+
+    /**
+     * Reads all of the items into one body, for receivers that can not write in chunks.
+     *
+     * @param jsonMapper mapper for the items
+     * @return body
+     */
+    public byte[] toBytes(final JsonMapper jsonMapper) {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try {
+            boolean first = true;
+            if (format == Format.JSON_ARRAY) {
+                body.write('[');
+            }
+            while (items.hasNext()) {
+                writeItem(body, items.next(), first, jsonMapper);
+                first = false;
+            }
+            if (format == Format.JSON_ARRAY) {
+                body.write(']');
+            }
+        } finally {
+            closeItems();
+        }
+        return body.toByteArray();
+    }
+
+    private void writeItem(final ByteArrayOutputStream out, final Object item, final boolean first,
+                           final JsonMapper jsonMapper) {
+        if (format == Format.JSON_ARRAY && !first) {
+            out.write(',');
+        }
+        jsonMapper.toJson(item, out);
+        if (format == Format.NDJSON) {
+            out.write('\n');
+        }
+    }
+
+    private void closeItems() {
+        if (items instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) items).close();
+            } catch (Exception ex) {
+                logger.warn("Unable to close streamed items", ex);
+            }
+        }
+    }
+
+    /**
+     * Pulls items while the receiver takes them. Only one thread pumps at a time, the next pump is
+     * only scheduled once this one stops. The receiver's drain callback only schedules the pump on the executor.
+     */
+    private final class ChunkWriter {
+
+        private final HttpChunkedResponseReceiver receiver;
+        private final JsonMapper jsonMapper;
+        private final Executor executor;
+        private final ByteArrayOutputStream chunk = new ByteArrayOutputStream(CHUNK_SIZE + CHUNK_SIZE / 4);
+        private volatile boolean closed;
+        private boolean first = true;
+
+        private ChunkWriter(final HttpChunkedResponseReceiver receiver, final JsonMapper jsonMapper,
+                            final Executor executor) {
+            this.receiver = receiver;
+            this.jsonMapper = jsonMapper;
+            this.executor = executor;
+        }
+
+        private void start() {
+            receiver.startChunks(code, format.contentType(), headers, () -> closed = true);
+            if (format == Format.JSON_ARRAY) {
+                chunk.write('[');
+            }
+            receiver.onDrain(this::schedulePump);
+        }
+
+        private void schedulePump() {
+            try {
+                executor.execute(this::pump);
+            } catch (Exception ex) {
+                logger.error("Unable to schedule streamed response", ex);
+                receiver.abortChunks();
+                closeItems();
+            }
+        }
+
+        private void pump() {
+            try {
+                while (!closed) {
+                    if (receiver.isWriteQueueFull()) {
+                        receiver.onDrain(this::schedulePump);
+                        return;
+                    }
+                    while (chunk.size() < CHUNK_SIZE && items.hasNext()) {
+                        writeItem(chunk, items.next(), first, jsonMapper);
+                        first = false;
+                    }
+                    if (!items.hasNext()) {
+                        if (format == Format.JSON_ARRAY) {
+                            chunk.write(']');
+                        }
+                        receiver.writeChunk(chunk.toByteArray());
+                        receiver.endChunks();
+                        closeItems();
+                        return;
+                    }
+                    receiver.writeChunk(chunk.toByteArray());
+                    chunk.reset();
+                }
+                /* The client went away. */
+                closeItems();
+            } catch (Exception ex) {
+                logger.error("Unable to stream response", ex);
+                receiver.abortChunks();
+                closeItems();
+            }
+        }
+    }
+
+    private static final class PumpThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "HttpStreamingResponse pump " + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HttpStreamingResponse{" +
+                "code=" + code +
+                ", format=" + format +
+                ", headers=" + headers +
+                '}';
+    }
+}
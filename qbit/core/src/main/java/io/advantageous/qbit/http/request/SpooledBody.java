@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2015. Rick Hightower, Geoff Chandler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * QBit - The Microservice lib for Java : JSON, WebSocket, REST. Be The Web!
+ */
+
+package io.advantageous.qbit.http.request;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Body of an HTTP request that is read as it arrives instead of being buffered whole.
+ * <p>
+ * Chunks are kept in memory until the body grows past the in-memory limit, then everything is spilled to a
+ * temp file and the rest is appended there. A service method that takes a {@code SpooledBody} gets the body as is
+ * and reads it with {@link #inputStream()}. Any other method gets the bytes as usual.
+ * </p>
+ * <p>
+ * Chunks are written one at a time, not always by the same thread, and the body is handed to the service once
+ * {@link #end()} is called. Writes that touch the disk block, so servers keep them off their I/O threads.
+ * The spill file is deleted by {@link #close()}. A service method that takes the body closes it when done with it,
+ * the server releases every other body once the response is written.
+ * </p>
+ */
+public class SpooledBody implements Closeable {
+
+    private static final int INITIAL_SIZE = 4096;
+
+    private final int maxInMemorySize;
+    private final File spillDirectory;
+    private byte[] buffer;
+    private long length;
+    private File file;
+    private FileChannel fileChannel;
+    private boolean ended;
+    private volatile boolean handedOff;
+
+    /**
+     * @param maxInMemorySize bodies bigger than this are spilled to disk
+     * @param spillDirectory  directory of the spill files, null for the default temp directory
+     * @param expectedLength  content length if known, or -1
+     */
+    public SpooledBody(final int maxInMemorySize, final File spillDirectory, final long expectedLength) {
+        this.maxInMemorySize = maxInMemorySize;
+        this.spillDirectory = spillDirectory;
+        this.buffer = new byte[(int) Math.min(expectedLength > 0 ? expectedLength : INITIAL_SIZE,
+                Math.max(maxInMemorySize, 0))];
+    }
+
+    /**
+     * Wraps a body that was already read whole.
+     *
+     * @param bytes body
+     * @return ended body
+     */
+    public static SpooledBody spooledBody(final byte[] bytes) {
+        final SpooledBody body = new SpooledBody(bytes.length, null, 0);
+        body.buffer = bytes;
+        body.length = bytes.length;
+        body.ended = true;
+        return body;
+    }
+
+    /**
+     * Whether a chunk this big would be appended in memory, anything else touches the disk.
+     *
+     * @param chunkLength length of the next chunk
+     * @return true if the chunk would be kept in memory
+     */
+    public boolean fitsInMemory(final int chunkLength) {
+        return fileChannel == null && length + chunkLength <= maxInMemorySize;
+    }
+
+    /**
+     * Appends a chunk.
+     *
+     * @param chunk bytes from its position to its limit are appended
+     */
+    public void write(final ByteBuffer chunk) {
+
+        if (ended) {
+            throw new IllegalStateException("Body already ended");
+        }
+
+        final int chunkLength = chunk.remaining();
+
+        if (fileChannel == null && length + chunkLength > maxInMemorySize) {
+            spill();
+        }
+
+        try {
+            if (fileChannel != null) {
+                while (chunk.hasRemaining()) {
+                    fileChannel.write(chunk);
+                }
+            } else {
+                if (length + chunkLength > buffer.length) {
+                    buffer = Arrays.copyOf(buffer, (int) Math.min(Math.max(buffer.length * 2, length + chunkLength),
+                            maxInMemorySize));
+                }
+                chunk.get(buffer, (int) length, chunkLength);
+            }
+        } catch (IOException ex) {
+            close();
+            throw new IllegalStateException("Unable to write body to " + file, ex);
+        }
+        length += chunkLength;
+    }
+
+    public void write(final byte[] chunk) {
+        write(ByteBuffer.wrap(chunk));
+    }
+
+    /**
+     * Marks the body complete, no more chunks will come.
+     */
+    public void end() {
+        ended = true;
+        if (fileChannel != null) {
+            try {
+                fileChannel.close();
+            } catch (IOException ex) {
+                close();
+                throw new IllegalStateException("Unable to finish body in " + file, ex);
+            }
+        }
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public boolean isInMemory() {
+        return file == null;
+    }
+
+    public boolean isEnded() {
+        return ended;
+    }
+
+    /**
+     * Reads the body from the start. Can be called more than once.
+     *
+     * @return stream over the body
+     */
+    public InputStream inputStream() {
+        if (file == null) {
+            return new ByteArrayInputStream(buffer, 0, (int) length);
+        }
+        try {
+            return Files.newInputStream(file.toPath());
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to read body from " + file, ex);
+        }
+    }
+
+    /**
+     * Reads the whole body into memory, for methods that take the body as an object.
+     *
+     * @return body
+     */
+    public byte[] bytes() {
+        if (file == null) {
+            return buffer.length == length ? buffer : Arrays.copyOf(buffer, (int) length);
+        }
+        try {
+            return Files.readAllBytes(file.toPath());
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to read body from " + file, ex);
+        }
+    }
+
+    /**
+     * Passes the body to the service method that takes it, closing it is then up to the method.
+     *
+     * @return this
+     */
+    public SpooledBody handOff() {
+        handedOff = true;
+        return this;
+    }
+
+    public boolean isHandedOff() {
+        return handedOff;
+    }
+
+    /**
+     * Closes the body unless it was handed off to a service method.
+     */
+    public void release() {
+        if (!handedOff) {
+            close();
+        }
+    }
+
+    /**
+     * Deletes the spill file if there is one.
+     */
+    @Override
+    public void close() {
+        if (fileChannel != null) {
+            try {
+                fileChannel.close();
+            } catch (IOException ignore) {
+                /* Deleting it anyway. */
+            }
+        }
+        if (file != null) {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    private void spill() {
+        try {
+            file = File.createTempFile("qbit-body", ".tmp", spillDirectory);
+            fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+            final ByteBuffer inMemory = ByteBuffer.wrap(buffer, 0, (int) length);
+            while (inMemory.hasRemaining()) {
+                fileChannel.write(inMemory);
+            }
+            buffer = null;
+        } catch (IOException ex) {
+            close();
+            throw new IllegalStateException("Unable to spill body to disk", ex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SpooledBody{" +
+                "length=" + length +
+                ", file=" + file +
+                ", ended=" + ended +
+                '}';
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2015. Rick Hightower, Geoff Chandler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * QBit - The Microservice lib for Java : JSON, WebSocket, REST. Be The Web!
+ */
+
+package io.advantageous.qbit.http.server;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides at the edge of the server whether a request is let in, before its body is read or decoded.
+ * <p>
+ * Every admitted request holds a {@link Permit} until its response is written. The number of permits out is
+ * capped by a limit that adapts to how long requests take (AIMD). While latency stays near the best seen, and at
+ * least half the permits are in use, the limit grows by one per response up to its max. Once latency climbs past
+ * twice the best seen, which is what a queue backing up in front of the services looks like from here, the limit
+ * is cut by a tenth, at most once per round trip. The best latency is relearned every {@value #PROBE_SAMPLES}
+ * responses so the limit can follow a service that got slower for good.
+ * </p>
+ * <p>
+ * Routes can get their own budget, a request to a route has to get a permit from the route and from the server.
+ * Routes are matched by the longest path prefix.
+ * </p>
+ */
+public class AdmissionController {
+
+    static final int PROBE_SAMPLES = 1_000;
+
+    /**
+     * Latencies under this never count as congestion, near idle services are too noisy to go by.
+     */
+    private static final long MIN_CONGESTED_LATENCY = 1_000_000L;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final ConcurrencyLimit serverLimit;
+    private final String[] routePrefixes;
+    private final ConcurrencyLimit[] routeLimits;
+    private final LongSupplier nanoClock;
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param maxConcurrentRequests most requests in flight at once for the whole server
+     * @param routeLimits           most requests in flight at once per path prefix
+     */
+    public AdmissionController(final int maxConcurrentRequests, final Map<String, Integer> routeLimits) {
+        this(maxConcurrentRequests, routeLimits, System::nanoTime);
+    }
+
+    /**
+     * @param maxConcurrentRequests most requests in flight at once for the whole server
+     * @param routeLimits           most requests in flight at once per path prefix
+     * @param nanoClock             clock latencies are measured with
+     */
+    public AdmissionController(final int maxConcurrentRequests, final Map<String, Integer> routeLimits,
+                               final LongSupplier nanoClock) {
+
+        this.serverLimit = new ConcurrencyLimit(maxConcurrentRequests);
+        this.nanoClock = nanoClock;
+
+        final List<String> prefixes = new ArrayList<>(routeLimits == null ? Collections.emptySet() : routeLimits.keySet());
+        prefixes.sort((left, right) -> right.length() - left.length());
+
+        this.routePrefixes = prefixes.toArray(new String[prefixes.size()]);
+        this.routeLimits = new ConcurrencyLimit[routePrefixes.length];
+        for (int index = 0; index < routePrefixes.length; index++) {
+            this.routeLimits[index] = new ConcurrencyLimit(routeLimits.get(routePrefixes[index]));
+        }
+    }
+
+    /**
+     * @param path path of the request
+     * @return permit to hand back once the response is written, null if the request should be turned away
+     */
+    public Permit tryAcquire(final String path) {
+
+        final ConcurrencyLimit routeLimit = routeLimit(path);
+
+        if (routeLimit != null && !routeLimit.tryAcquire()) {
+            rejected.increment();
+            return null;
+        }
+
+        if (!serverLimit.tryAcquire()) {
+            if (routeLimit != null) {
+                routeLimit.cancel();
+            }
+            rejected.increment();
+            return null;
+        }
+
+        return new Permit(routeLimit, nanoClock.getAsLong());
+    }
+
+    /**
+     * @return current limit of the server
+     */
+    public int getLimit() {
+        return serverLimit.limit;
+    }
+
+    /**
+     * @param path path of a request
+     * @return current limit of the route the path falls under, or of the server if it falls under none
+     */
+    public int getLimit(final String path) {
+        final ConcurrencyLimit routeLimit = routeLimit(path);
+        return routeLimit == null ? serverLimit.limit : routeLimit.limit;
+    }
+
+    public int getInFlight() {
+        return serverLimit.inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    private ConcurrencyLimit routeLimit(final String path) {
+        if (path != null) {
+            for (int index = 0; index < routePrefixes.length; index++) {
+                if (path.startsWith(routePrefixes[index])) {
+                    return routeLimits[index];
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Held by one admitted request. Only the first release counts.
+     */
+    public final class Permit {
+
+        private final ConcurrencyLimit routeLimit;
+        private final long startTime;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(final ConcurrencyLimit routeLimit, final long startTime) {
+            this.routeLimit = routeLimit;
+            this.startTime = startTime;
+        }
+
+        /**
+         * The response was written, its latency feeds the limits.
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                final long latency = nanoClock.getAsLong() - startTime;
+                serverLimit.complete(latency);
+                if (routeLimit != null) {
+                    routeLimit.complete(latency);
+                }
+            }
+        }
+
+        /**
+         * The request went away without a response, give the permit back without a latency.
+         */
+        public void drop() {
+            if (released.compareAndSet(false, true)) {
+                serverLimit.cancel();
+                if (routeLimit != null) {
+                    routeLimit.cancel();
+                }
+            }
+        }
+    }
+
+    private final class ConcurrencyLimit {
+
+        private final int maxLimit;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile int limit;
+
+        /* Guarded by this. */
+        private long bestLatency = Long.MAX_VALUE;
+        private long lastDecrease;
+        private int samples;
+
+        private ConcurrencyLimit(final int maxLimit) {
+            this.maxLimit = Math.max(1, maxLimit);
+            this.limit = this.maxLimit;
+        }
+
+        private boolean tryAcquire() {
+            while (true) {
+                final int current = inFlight.get();
+                if (current >= limit) {
+                    return false;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void cancel() {
+            inFlight.decrementAndGet();
+        }
+
+        private void complete(final long latency) {
+
+            final int inFlightBefore = inFlight.getAndDecrement();
+
+            synchronized (this) {
+                if (++samples >= PROBE_SAMPLES) {
+                    samples = 0;
+                    bestLatency = latency;
+                } else if (latency < bestLatency) {
+                    bestLatency = latency;
+                }
+
+                if (latency > MIN_CONGESTED_LATENCY && latency > bestLatency * LATENCY_TOLERANCE) {
+                    final long now = nanoClock.getAsLong();
+                    if (now - lastDecrease >= latency) {
+                        limit = Math.max(1, (int) (limit * BACKOFF_RATIO));
+                        lastDecrease = now;
+                    }
+                } else if (inFlightBefore * 2 >= limit && limit < maxLimit) {
+                    limit++;
+                }
+            }
+        }
+    }
+}
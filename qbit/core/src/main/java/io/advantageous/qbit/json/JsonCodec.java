@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2015. Rick Hightower, Geoff Chandler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * QBit - The Microservice lib for Java : JSON, WebSocket, REST. Be The Web!
+ */
+
+package io.advantageous.qbit.json;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads JSON into one type.
+ * <p>
+ * Codecs are resolved once per type by a {@link JsonCodecProvider} and cached by the {@link JsonCodecRegistry},
+ * so an engine can do its type introspection up front. Codecs are shared between threads.
+ * </p>
+ *
+ * @param <T> type this codec reads
+ */
+public interface JsonCodec<T> {
+
+    T fromJson(String json);
+
+    default T fromJson(byte[] json) {
+        return fromJson(new String(json, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2015. Rick Hightower, Geoff Chandler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * QBit - The Microservice lib for Java : JSON, WebSocket, REST. Be The Web!
+ */
+
+package io.advantageous.qbit.json;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A JSON engine behind the {@link JsonCodecRegistry}.
+ * <p>
+ * The default wraps the {@link JsonMapper} of the factory, see {@link JsonMapperCodecProvider}.
+ * Register another one with {@link io.advantageous.qbit.spi.FactorySPI#setJsonCodecProvider(JsonCodecProvider)}
+ * to swap engines without touching service code.
+ * </p>
+ */
+public interface JsonCodecProvider {
+
+    /**
+     * General purpose mapper of this engine, used for writing and for JSON that has no declared type.
+     *
+     * @return mapper, must be safe to share between threads
+     */
+    JsonMapper mapper();
+
+    <T> JsonCodec<T> codec(Class<T> type);
+
+    <T> JsonCodec<List<T>> listCodec(Class<T> componentType);
+
+    <K, V> JsonCodec<Map<K, V>> mapCodec(Class<K> keyType, Class<V> valueType);
+}
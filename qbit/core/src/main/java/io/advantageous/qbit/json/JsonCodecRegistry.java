@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2015. Rick Hightower, Geoff Chandler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * QBit - The Microservice lib for Java : JSON, WebSocket, REST. Be The Web!
+ */
+
+package io.advantageous.qbit.json;
+
+import io.advantageous.qbit.QBit;
+import io.advantageous.qbit.meta.ParameterMeta;
+import io.advantageous.qbit.spi.FactorySPI;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves JSON codecs once per type and keeps them.
+ * <p>
+ * There is one registry per {@link JsonCodecProvider}. Setting a new provider in {@link FactorySPI}
+ * starts a new registry, and anything that cached codecs from the old one resolves them again.
+ * </p>
+ */
+public class JsonCodecRegistry {
+
+    private final JsonCodecProvider provider;
+    private final Map<Class<?>, JsonCodec<?>> codecs = new ConcurrentHashMap<>();
+    private final Map<Class<?>, JsonCodec<?>> listCodecs = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Map<Class<?>, JsonCodec<?>>> mapCodecs = new ConcurrentHashMap<>();
+
+    public JsonCodecRegistry(final JsonCodecProvider provider) {
+        this.provider = provider;
+    }
+
+    /**
+     * Registry of the current provider, the factory's JSON mapper if none was set.
+     *
+     * @return registry
+     */
+    public static JsonCodecRegistry registry() {
+        final JsonCodecRegistry registry = FactorySPI.getJsonCodecRegistry();
+        if (registry != null) {
+            return registry;
+        }
+        return FactorySPI.setJsonCodecProviderIfAbsent(QBit.factory().createJsonCodecProvider());
+    }
+
+    public JsonCodecProvider provider() {
+        return provider;
+    }
+
+    public JsonMapper mapper() {
+        return provider.mapper();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> JsonCodec<T> codec(final Class<T> type) {
+        return (JsonCodec<T>) codecs.computeIfAbsent(type, provider::codec);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> JsonCodec<List<T>> listCodec(final Class<T> componentType) {
+        return (JsonCodec<List<T>>) listCodecs.computeIfAbsent(componentType, provider::listCodec);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K, V> JsonCodec<Map<K, V>> mapCodec(final Class<K> keyType, final Class<V> valueType) {
+        return (JsonCodec<Map<K, V>>) mapCodecs.computeIfAbsent(keyType, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(valueType, value -> provider.mapCodec(keyType, valueType));
+    }
+
+    /**
+     * Codec for a parameter, arrays and collections read as lists of the component type.
+     *
+     * @param parameterMeta parameter
+     * @return codec
+     */
+    @SuppressWarnings("unchecked")
+    public JsonCodec<Object> codec(final ParameterMeta parameterMeta) {
+        if (parameterMeta.isArray() || parameterMeta.isCollection()) {
+            return (JsonCodec<Object>) (Object) listCodec(parameterMeta.getComponentClass());
+        } else if (parameterMeta.isMap()) {
+            return (JsonCodec<Object>) (Object) mapCodec(parameterMeta.getComponentClassKey(),
+                    parameterMeta.getComponentClassValue());
+        } else {
+            return (JsonCodec<Object>) codec(parameterMeta.getClassType());
+        }
+    }
+}
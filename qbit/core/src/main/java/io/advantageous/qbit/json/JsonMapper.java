@@ -18,6 +18,11 @@
 
 package io.advantageous.qbit.json;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
@@ -39,4 +44,55 @@ public interface JsonMapper {
     String toJson(Object object);
 
     <K,V> Map<K, V> fromJsonMap(String json, Class<K> componentClassKey, Class<V> componentClassValue);
+
+
+    /*
+     * Byte oriented versions, JSON is UTF-8 on the wire.
+     * The defaults go through a String, mappers that can read and write UTF-8 directly should override them.
+     */
+
+    default Object fromJson(byte[] json) {
+        return fromJson(new String(json, StandardCharsets.UTF_8));
+    }
+
+    default <T> T fromJson(byte[] json, Class<T> cls) {
+        return fromJson(new String(json, StandardCharsets.UTF_8), cls);
+    }
+
+    default <T> List<T> fromJsonArray(byte[] json, Class<T> componentClass) {
+        return fromJsonArray(new String(json, StandardCharsets.UTF_8), componentClass);
+    }
+
+    default <K, V> Map<K, V> fromJsonMap(byte[] json, Class<K> componentClassKey, Class<V> componentClassValue) {
+        return fromJsonMap(new String(json, StandardCharsets.UTF_8), componentClassKey, componentClassValue);
+    }
+
+    default <T> T fromJson(ByteBuffer json, Class<T> cls) {
+        return fromJson(bytes(json), cls);
+    }
+
+    default byte[] toJsonBytes(Object object) {
+        return toJson(object).getBytes(StandardCharsets.UTF_8);
+    }
+
+    default void toJson(Object object, OutputStream outputStream) {
+        try {
+            outputStream.write(toJsonBytes(object));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Remaining bytes of the buffer, without copying when the buffer wraps exactly an array.
+     */
+    static byte[] bytes(ByteBuffer buffer) {
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0
+                && buffer.remaining() == buffer.array().length) {
+            return buffer.array();
+        }
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
 }
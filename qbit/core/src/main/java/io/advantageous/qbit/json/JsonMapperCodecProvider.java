@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2015. Rick Hightower, Geoff Chandler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * QBit - The Microservice lib for Java : JSON, WebSocket, REST. Be The Web!
+ */
+
+package io.advantageous.qbit.json;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Codecs on top of any {@link JsonMapper}, each codec just remembers its types and calls the mapper.
+ */
+public class JsonMapperCodecProvider implements JsonCodecProvider {
+
+    private final JsonMapper jsonMapper;
+
+    /**
+     * @param jsonMapper mapper to delegate to, must be safe to share between threads
+     */
+    public JsonMapperCodecProvider(final JsonMapper jsonMapper) {
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    public JsonMapper mapper() {
+        return jsonMapper;
+    }
+
+    @Override
+    public <T> JsonCodec<T> codec(final Class<T> type) {
+        return new JsonCodec<T>() {
+            @Override
+            public T fromJson(String json) {
+                return jsonMapper.fromJson(json, type);
+            }
+
+            @Override
+            public T fromJson(byte[] json) {
+                return jsonMapper.fromJson(json, type);
+            }
+        };
+    }
+
+    @Override
+    public <T> JsonCodec<List<T>> listCodec(final Class<T> componentType) {
+        return new JsonCodec<List<T>>() {
+            @Override
+            public List<T> fromJson(String json) {
+                return jsonMapper.fromJsonArray(json, componentType);
+            }
+
+            @Override
+            public List<T> fromJson(byte[] json) {
+                return jsonMapper.fromJsonArray(json, componentType);
+            }
+        };
+    }
+
+    @Override
+    public <K, V> JsonCodec<Map<K, V>> mapCodec(final Class<K> keyType, final Class<V> valueType) {
+        return new JsonCodec<Map<K, V>>() {
+            @Override
+            public Map<K, V> fromJson(String json) {
+                return jsonMapper.fromJsonMap(json, keyType, valueType);
+            }
+
+            @Override
+            public Map<K, V> fromJson(byte[] json) {
+                return jsonMapper.fromJsonMap(json, keyType, valueType);
+            }
+        };
+    }
+}
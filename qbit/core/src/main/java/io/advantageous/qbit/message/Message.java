@@ -19,6 +19,7 @@
 package io.advantageous.qbit.message;
 
 
+import io.advantageous.qbit.trace.TraceContext;
 import io.advantageous.qbit.util.MultiMap;
 
 /**
@@ -48,4 +49,13 @@ public interface Message<T> {
         return headers().containsKey("QBIT_REPLICATED_MESSAGE");
     }
 
+    /**
+     * Trace context of this message, see {@link io.advantageous.qbit.trace.Tracing}.
+     *
+     * @return trace context or null if the message is not traced
+     */
+    default TraceContext traceContext() {
+        return null;
+    }
+
 }
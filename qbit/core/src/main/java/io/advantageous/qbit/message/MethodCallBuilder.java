@@ -20,6 +20,8 @@ package io.advantageous.qbit.message;
 
 import io.advantageous.qbit.message.impl.MethodCallImpl;
 import io.advantageous.qbit.service.Protocol;
+import io.advantageous.qbit.trace.TraceContext;
+import io.advantageous.qbit.trace.Tracing;
 import io.advantageous.qbit.util.MultiMap;
 import io.advantageous.qbit.util.Timer;
 
@@ -43,6 +45,7 @@ public class MethodCallBuilder {
     private String objectName;
     private String returnAddress;
     private Request<Object> originatingRequest;
+    private TraceContext traceContext;
 
     public static MethodCallBuilder methodCallBuilder() {
         return new MethodCallBuilder();
@@ -62,7 +65,8 @@ public class MethodCallBuilder {
                 .setBody(arg)
                 .setObjectName(methodCall.objectName())
                 .setReturnAddress(methodCall.returnAddress())
-                .setOriginatingRequest(methodCall.originatingRequest()).build();
+                .setOriginatingRequest(methodCall.originatingRequest())
+                .setTraceContext(methodCall.traceContext()).build();
 
     }
 
@@ -191,12 +195,34 @@ public class MethodCallBuilder {
         return this;
     }
 
-    public MethodCall<Object> build() {
+    public TraceContext getTraceContext() {
+        return traceContext;
+    }
 
+    public MethodCallBuilder setTraceContext(TraceContext traceContext) {
+        this.traceContext = traceContext;
+        return this;
+    }
 
-        return new MethodCallImpl(getTimestamp(), getId(), getName(), getAddress(), getParams(), getHeaders(),
-                getBody(), getObjectName(), getReturnAddress(), getOriginatingRequest());
+    /**
+     * Builds the method call.
+     * If no trace context was set and tracing is on, calls that come from an HTTP or WebSocket request
+     * join or start a trace, and calls made while a traced call is being handled get a child span.
+     *
+     * @return method call
+     */
+    public MethodCall<Object> build() {
+
+        final MethodCallImpl methodCall = new MethodCallImpl(getTimestamp(), getId(), getName(), getAddress(),
+                getParams(), getHeaders(), getBody(), getObjectName(), getReturnAddress(), getOriginatingRequest());
 
+        TraceContext traceContext = getTraceContext();
+        if (traceContext == null && Tracing.isEnabled()) {
+            traceContext = originatingRequest != null ?
+                    Tracing.forIncomingRequest(originatingRequest.headers()) : Tracing.forOutgoingCall();
+        }
+        methodCall.traceContext(traceContext);
+        return methodCall;
     }
 
     public boolean hasParams() {
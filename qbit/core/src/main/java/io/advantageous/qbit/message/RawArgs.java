@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2015. Rick Hightower, Geoff Chandler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * QBit - The Microservice lib for Java : JSON, WebSocket, REST. Be The Web!
+ */
+
+package io.advantageous.qbit.message;
+
+import io.advantageous.boon.json.JsonParserAndMapper;
+import io.advantageous.boon.json.JsonParserFactory;
+
+import java.util.Arrays;
+
+/**
+ * Args of a method call that came in over the wire, still as JSON text.
+ * <p>
+ * The service handler decodes them straight into the parameter types of the method it calls.
+ * Anything else that asks the method call for its body gets them decoded to plain JSON values with {@link #decode()},
+ * which is what the parser used to do up front.
+ * </p>
+ */
+public final class RawArgs {
+
+    private static final ThreadLocal<JsonParserAndMapper> jsonParser = new ThreadLocal<JsonParserAndMapper>() {
+        @Override
+        protected JsonParserAndMapper initialValue() {
+            return new JsonParserFactory().create();
+        }
+    };
+
+    private final String[] args;
+
+    /**
+     * @param args JSON text of each arg, a null slot is a missing arg
+     */
+    public RawArgs(final String[] args) {
+        this.args = args;
+    }
+
+    public int size() {
+        return args.length;
+    }
+
+    /**
+     * @param index position of the arg
+     * @return JSON text of the arg, or null if it was missing
+     */
+    public String arg(final int index) {
+        return args[index];
+    }
+
+    /**
+     * Decodes every arg to plain JSON values, lists, maps, strings and numbers.
+     *
+     * @return args
+     */
+    public Object[] decode() {
+        final Object[] decoded = new Object[args.length];
+        for (int index = 0; index < args.length; index++) {
+            decoded[index] = decode(index);
+        }
+        return decoded;
+    }
+
+    /**
+     * Decodes one arg to plain JSON values.
+     *
+     * @param index position of the arg
+     * @return arg
+     */
+    public Object decode(final int index) {
+        return args[index] == null ? null : jsonParser.get().parse(args[index]);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(args);
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2015. Rick Hightower, Geoff Chandler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * QBit - The Microservice lib for Java : JSON, WebSocket, REST. Be The Web!
+ */
+
+package io.advantageous.qbit.message.impl;
+
+import io.advantageous.qbit.message.MethodCall;
+import io.advantageous.qbit.reactive.Callback;
+import io.advantageous.qbit.trace.TraceContext;
+import io.advantageous.qbit.trace.Tracing;
+
+import java.util.Arrays;
+
+/**
+ * Method call made through a proxy to a service in the same JVM.
+ * <p>
+ * Nothing goes over the wire, so there are no headers or params, no originating request and no body transform.
+ * Just the names, the ids and the args, which is all the service bundle needs to dispatch it.
+ * Proxies that hand calls to a remote endpoint keep using {@link MethodCallImpl}.
+ * </p>
+ */
+public final class LocalMethodCall implements MethodCall<Object> {
+
+    private final long id;
+    private final long timestamp;
+    private final String name;
+    private final String objectName;
+    private final String address;
+    private final String returnAddress;
+    private final Object[] args;
+    private final boolean hasCallback;
+    private final TraceContext traceContext;
+
+    public LocalMethodCall(final long id,
+                           final long timestamp,
+                           final String name,
+                           final String objectName,
+                           final String address,
+                           final String returnAddress,
+                           final Object[] args) {
+        this(id, timestamp, name, objectName, address, returnAddress, args, detectCallback(args));
+    }
+
+    /**
+     * For callers that already know from the method signature whether a callback is passed.
+     */
+    public LocalMethodCall(final long id,
+                           final long timestamp,
+                           final String name,
+                           final String objectName,
+                           final String address,
+                           final String returnAddress,
+                           final Object[] args,
+                           final boolean hasCallback) {
+        this.id = id;
+        this.timestamp = timestamp;
+        this.name = name;
+        this.objectName = objectName;
+        this.address = address;
+        this.returnAddress = returnAddress;
+        this.args = args;
+        this.hasCallback = hasCallback;
+        this.traceContext = Tracing.isEnabled() ? Tracing.forOutgoingCall() : null;
+    }
+
+    private static boolean detectCallback(final Object[] args) {
+        if (args == null) {
+            return false;
+        }
+        for (int index = 0; index < args.length; index++) {
+            if (args[index] instanceof Callback) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public long id() {
+        return id;
+    }
+
+    @Override
+    public long timestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String objectName() {
+        return objectName;
+    }
+
+    @Override
+    public String address() {
+        return address;
+    }
+
+    @Override
+    public String returnAddress() {
+        return returnAddress;
+    }
+
+    @Override
+    public Object body() {
+        return args;
+    }
+
+    @Override
+    public boolean hasCallback() {
+        return hasCallback;
+    }
+
+    @Override
+    public boolean hasParams() {
+        return false;
+    }
+
+    @Override
+    public boolean hasHeaders() {
+        return false;
+    }
+
+    @Override
+    public boolean isHandled() {
+        return false;
+    }
+
+    @Override
+    public void handled() {
+    }
+
+    @Override
+    public boolean isSingleton() {
+        return true;
+    }
+
+    @Override
+    public TraceContext traceContext() {
+        return traceContext;
+    }
+
+    @Override
+    public String toString() {
+        return "LocalMethodCall{" +
+                "name='" + name + '\'' +
+                ", address='" + address + '\'' +
+                ", args=" + Arrays.toString(args) +
+                ", timestamp=" + timestamp +
+                ", id=" + id +
+                ", objectName='" + objectName + '\'' +
+                ", returnAddress='" + returnAddress + '\'' +
+                '}';
+    }
+}
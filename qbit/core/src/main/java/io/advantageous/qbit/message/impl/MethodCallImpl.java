@@ -19,8 +19,10 @@
 package io.advantageous.qbit.message.impl;
 
 import io.advantageous.qbit.message.MethodCall;
+import io.advantageous.qbit.message.RawArgs;
 import io.advantageous.qbit.message.Request;
 import io.advantageous.qbit.reactive.Callback;
+import io.advantageous.qbit.trace.TraceContext;
 import io.advantageous.qbit.util.MultiMap;
 
 /**
@@ -43,6 +45,7 @@ public class MethodCallImpl implements MethodCall<Object> {
     private final boolean hasCallback;
     private Object transformedBody;
     private Request<Object> originatingRequest;
+    private TraceContext traceContext;
 
 
     @Override
@@ -66,6 +69,9 @@ public class MethodCallImpl implements MethodCall<Object> {
     }
 
     private boolean detectCallback() {
+        if (body instanceof RawArgs) {
+            return false;
+        }
         final Object[] args = this.args();
         for (int index = 0; index < args.length; index++) {
             if (args[index] instanceof Callback) {
@@ -132,9 +138,21 @@ public class MethodCallImpl implements MethodCall<Object> {
 
     @Override
     public Object body() {
+        if (transformedBody == null && body instanceof RawArgs) {
+            transformedBody = ((RawArgs) body).decode();
+        }
         return transformedBody == null ? body : transformedBody;
     }
 
+    /**
+     * Args as they came over the wire, for the handler that knows the parameter types to decode them.
+     *
+     * @return raw args, or null if the body is not raw args or was already decoded or replaced
+     */
+    public RawArgs rawArgs() {
+        return transformedBody == null && body instanceof RawArgs ? (RawArgs) body : null;
+    }
+
 
     public void setBody(Object[] body) {
 
@@ -146,6 +164,15 @@ public class MethodCallImpl implements MethodCall<Object> {
         this.originatingRequest = originatingRequest;
     }
 
+    @Override
+    public TraceContext traceContext() {
+        return traceContext;
+    }
+
+    public void traceContext(TraceContext traceContext) {
+        this.traceContext = traceContext;
+    }
+
     @Override
     public boolean isSingleton() {
         return true;
@@ -22,6 +22,7 @@ import io.advantageous.qbit.annotation.JsonIgnore;
 import io.advantageous.qbit.message.MethodCall;
 import io.advantageous.qbit.message.Request;
 import io.advantageous.qbit.message.Response;
+import io.advantageous.qbit.trace.TraceContext;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -44,6 +45,8 @@ public class ResponseImpl<T> implements Response<T> {
     @JsonIgnore
     private transient Object transformedBody;
     private boolean errors;
+    @JsonIgnore
+    private transient TraceContext traceContext;
 
 
     public ResponseImpl(MethodCall<Object> methodCall, T returnValue) {
@@ -167,6 +170,22 @@ public class ResponseImpl<T> implements Response<T> {
         return this.request;
     }
 
+    /**
+     * Responses share the trace context of the call they answer,
+     * unless the response was decoded from the wire and has its own.
+     */
+    @Override
+    public TraceContext traceContext() {
+        if (traceContext != null) {
+            return traceContext;
+        }
+        return request != null ? request.traceContext() : null;
+    }
+
+    public void traceContext(TraceContext traceContext) {
+        this.traceContext = traceContext;
+    }
+
     @SuppressWarnings("SimplifiableIfStatement")
     @Override
     public boolean equals(Object o) {
@@ -18,6 +18,9 @@
 package io.advantageous.qbit.meta;
 
 import io.advantageous.boon.core.TypeType;
+import io.advantageous.qbit.annotation.JsonIgnore;
+import io.advantageous.qbit.json.JsonCodec;
+import io.advantageous.qbit.json.JsonCodecRegistry;
 import io.advantageous.qbit.meta.params.Param;
 
 
@@ -36,6 +39,10 @@ public class ParameterMeta {
     private final Class<?> componentClassKey;
     private final Class<?> componentClassValue;
 
+    /* Codec resolved for this parameter and the registry it came from, swapped together. */
+    @JsonIgnore
+    private volatile CachedCodec cachedCodec;
+
 
     public ParameterMeta(Class<?> classType,
                          TypeType type,
@@ -139,4 +146,29 @@ public class ParameterMeta {
     public Class<?> getComponentClassValue() {
         return componentClassValue;
     }
+
+    /**
+     * Codec that reads this parameter from JSON, resolved on first use and kept until the registry changes.
+     *
+     * @param registry registry to resolve from
+     * @return codec
+     */
+    public JsonCodec<Object> codec(final JsonCodecRegistry registry) {
+        CachedCodec cached = cachedCodec;
+        if (cached == null || cached.registry != registry) {
+            cached = new CachedCodec(registry, registry.codec(this));
+            cachedCodec = cached;
+        }
+        return cached.codec;
+    }
+
+    private static final class CachedCodec {
+        private final JsonCodecRegistry registry;
+        private final JsonCodec<Object> codec;
+
+        private CachedCodec(final JsonCodecRegistry registry, final JsonCodec<Object> codec) {
+            this.registry = registry;
+            this.codec = codec;
+        }
+    }
 }
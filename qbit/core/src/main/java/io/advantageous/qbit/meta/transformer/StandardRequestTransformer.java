@@ -20,10 +20,11 @@ package io.advantageous.qbit.meta.transformer;
 
 import io.advantageous.boon.core.Str;
 import io.advantageous.boon.core.reflection.MapObjectConversion;
-import io.advantageous.qbit.Factory;
-import io.advantageous.qbit.QBit;
 import io.advantageous.qbit.annotation.RequestMethod;
 import io.advantageous.qbit.http.request.HttpRequest;
+import io.advantageous.qbit.http.request.SpooledBody;
+import io.advantageous.qbit.json.JsonCodec;
+import io.advantageous.qbit.json.JsonCodecRegistry;
 import io.advantageous.qbit.json.JsonMapper;
 import io.advantageous.qbit.message.MethodCall;
 import io.advantageous.qbit.message.MethodCallBuilder;
@@ -35,7 +36,6 @@ import io.advantageous.qbit.reactive.Callback;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -55,16 +55,18 @@ public class StandardRequestTransformer implements RequestTransformer {
 
     private final Map<RequestMethod, StandardMetaDataProvider> metaDataProviderMap;
 
-    private final Factory factory = QBit.factory();
-
+    /**
+     * @deprecated bodies are now read with the codecs of {@link JsonCodecRegistry}. Kept for subclasses, it gives
+     * back the mapper of the registered codec provider.
+     */
+    @Deprecated
     protected final ThreadLocal<JsonMapper> jsonMapper = new ThreadLocal<JsonMapper>() {
         @Override
         protected JsonMapper initialValue() {
-            return factory.createJsonMapper();
+            return JsonCodecRegistry.registry().mapper();
         }
     };
 
-
     public StandardRequestTransformer(final Map<RequestMethod, StandardMetaDataProvider> metaDataProviderMap) {
         this.metaDataProviderMap = metaDataProviderMap;
     }
@@ -100,6 +102,12 @@ public class StandardRequestTransformer implements RequestTransformer {
 
         final List<Object> args = new ArrayList<>(parameters.size());
 
+        final JsonCodecRegistry codecRegistry = JsonCodecRegistry.registry();
+
+        /* Body params by position all read the same JSON array, parse it once. */
+        Object bodyArray = null;
+        SpooledBody spooledBody = null;
+
         for (ParameterMeta parameterMeta : parameters) {
 
             ParamType paramType = parameterMeta.getParam().getParamType();
@@ -173,13 +181,21 @@ public class StandardRequestTransformer implements RequestTransformer {
 
                 case BODY:
                     BodyParam bodyParam = (BodyParam) parameterMeta.getParam();
-                    value = request.body();
-                    if (value instanceof byte[]) {
-                        final byte[] bytes = (byte[]) value;
-                        value = new String(bytes, StandardCharsets.UTF_8);
+
+                    /* Methods that take the body as a stream get it without it being read into memory. */
+                    if (parameterMeta.getClassType() == SpooledBody.class) {
+                        spooledBody = request.getSpooledBody();
+                        if (bodyParam.isRequired() && spooledBody.length() == 0) {
+                            errorsList.add("Unable to find body");
+                            return null;
+                        }
+                        value = spooledBody;
+                        break;
                     }
 
-                    if (bodyParam.isRequired() && Str.isEmpty(value)) {
+                    value = request.body();
+
+                    if (bodyParam.isRequired() && isEmptyBody(value)) {
 
                         errorsList.add("Unable to find body");
                         return null;
@@ -187,15 +203,7 @@ public class StandardRequestTransformer implements RequestTransformer {
                     }
 
                     try {
-                        if (parameterMeta.isArray() || parameterMeta.isCollection()) {
-                            value = jsonMapper.get().fromJsonArray(value.toString(), parameterMeta.getComponentClass());
-                        } else if (parameterMeta.isMap()) {
-
-                            value = jsonMapper.get().fromJsonMap(value.toString(), parameterMeta.getComponentClassKey(),
-                                    parameterMeta.getComponentClassValue());
-                        } else {
-                            value = jsonMapper.get().fromJson(value.toString(), parameterMeta.getClassType());
-                        }
+                        value = readBody(parameterMeta.codec(codecRegistry), value);
                     }catch (Exception exception) {
                         errorsList.add("Unable to JSON parse body :: " + exception.getMessage());
                         logger.warn("Unable to parse object", exception);
@@ -205,19 +213,19 @@ public class StandardRequestTransformer implements RequestTransformer {
                 case BODY_BY_POSITION:
                     BodyArrayParam bodyArrayParam = (BodyArrayParam) parameterMeta.getParam();
                     value = request.body();
-                    if (value instanceof byte[]) {
-                        final byte[] bytes = (byte[]) value;
-                        value = new String(bytes, StandardCharsets.UTF_8);
-                    }
 
-                    if (bodyArrayParam.isRequired() && Str.isEmpty(value)) {
+                    if (bodyArrayParam.isRequired() && isEmptyBody(value)) {
 
                         errorsList.add("Unable to find body");
                         return null;
 
                     }
 
-                    value = jsonMapper.get().fromJson(value.toString());
+                    if (bodyArray == null) {
+                        bodyArray = value instanceof byte[] ? codecRegistry.mapper().fromJson((byte[]) value) :
+                                codecRegistry.mapper().fromJson(value.toString());
+                    }
+                    value = bodyArray;
 
                     if (value instanceof List) {
                         final List list = (List) value;
@@ -238,9 +246,25 @@ public class StandardRequestTransformer implements RequestTransformer {
 
         }
 
+        /* The method closes the body it takes, the server only closes bodies that were not handed to a method. */
+        if (spooledBody != null && errorsList.isEmpty()) {
+            spooledBody.handOff();
+        }
+
         methodCallBuilder.setBody(args);
 
         return methodCallBuilder.build();
 
     }
+
+    private static boolean isEmptyBody(final Object body) {
+        return body instanceof byte[] ? ((byte[]) body).length == 0 : Str.isEmpty(body);
+    }
+
+    /**
+     * Reads the body with the codec of the parameter, bytes are parsed as they are without going through a String.
+     */
+    private static Object readBody(final JsonCodec<Object> codec, final Object body) {
+        return body instanceof byte[] ? codec.fromJson((byte[]) body) : codec.fromJson(body.toString());
+    }
 }
@@ -19,8 +19,12 @@
 package io.advantageous.qbit.sender;
 
 
+import io.advantageous.qbit.message.Message;
 import io.advantageous.qbit.service.Stoppable;
 
+import java.util.List;
+import java.util.function.Function;
+
 /**
  * created by Richard on 10/1/14.
  * This could be a TCP/IP connection, a websocket, an HTTP long poll, etc.
@@ -32,5 +36,18 @@ import io.advantageous.qbit.service.Stoppable;
 public interface Sender<T> extends Stoppable {
 
     void send(String returnAddress, T buffer);
+
+    /**
+     * Sends messages whose encoding depends on the connection, like addresses sent through a protocol dictionary.
+     * Senders that may reconnect override this to encode once they know which connection the messages go out on.
+     *
+     * @param returnAddress return address
+     * @param messages      messages
+     * @param encoder       encodes the messages for the current connection
+     */
+    default void send(String returnAddress, List<Message<Object>> messages,
+                      Function<List<Message<Object>>, T> encoder) {
+        send(returnAddress, encoder.apply(messages));
+    }
     //add a close here
 }
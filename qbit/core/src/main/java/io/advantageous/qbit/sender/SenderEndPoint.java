@@ -23,6 +23,8 @@ import io.advantageous.qbit.message.MethodCall;
 import io.advantageous.qbit.service.BeforeMethodCall;
 import io.advantageous.qbit.service.EndPoint;
 import io.advantageous.qbit.service.impl.NoOpBeforeMethodCall;
+import io.advantageous.qbit.spi.ProtocolBinaryEncoder;
+import io.advantageous.qbit.spi.ProtocolDictionary;
 import io.advantageous.qbit.spi.ProtocolEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,8 +45,11 @@ public class SenderEndPoint implements EndPoint {
 
 
     private final ProtocolEncoder encoder;
+    private final ProtocolBinaryEncoder binaryEncoder;
     private final String address;
     private final Sender<String> sender;
+    private final Sender<byte[]> binarySender;
+    private final ProtocolDictionary dictionary;
     private final BeforeMethodCall beforeMethodCall;
     private final BlockingQueue<MethodCall<Object>> methodCalls;
     private final int requestBatchSize;
@@ -52,7 +57,28 @@ public class SenderEndPoint implements EndPoint {
 
     public SenderEndPoint(ProtocolEncoder encoder, String address, Sender<String> sender, BeforeMethodCall beforeMethodCall,
                           int requestBatchSize) {
+        this(encoder, null, address, sender, null, null, beforeMethodCall, requestBatchSize);
+    }
+
+    /**
+     * @param encoder          encoder
+     * @param address          address
+     * @param sender           sender
+     * @param dictionary       sending side dictionary of the connection, shared by all end points that use the
+     *                         connection, encoding and sending is done under its lock so ids go out in order
+     * @param beforeMethodCall before method call
+     * @param requestBatchSize request batch size
+     */
+    public SenderEndPoint(ProtocolEncoder encoder, String address, Sender<String> sender, ProtocolDictionary dictionary,
+                          BeforeMethodCall beforeMethodCall, int requestBatchSize) {
+        this(encoder, null, address, sender, null, dictionary, beforeMethodCall, requestBatchSize);
+    }
+
+    private SenderEndPoint(ProtocolEncoder encoder, ProtocolBinaryEncoder binaryEncoder, String address,
+                           Sender<String> sender, Sender<byte[]> binarySender, ProtocolDictionary dictionary,
+                           BeforeMethodCall beforeMethodCall, int requestBatchSize) {
         this.encoder = encoder;
+        this.binaryEncoder = binaryEncoder;
         this.address = address;
 
         this.beforeMethodCall = beforeMethodCall == null ? new NoOpBeforeMethodCall() : beforeMethodCall;
@@ -61,6 +87,24 @@ public class SenderEndPoint implements EndPoint {
         this.methodCalls = new ArrayBlockingQueue<>(requestBatchSize);
 
         this.sender = sender;
+        this.binarySender = binarySender;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Creates an end point that sends batches with {@link ProtocolBinaryEncoder#encodeAsBytes(java.util.Collection)}.
+     *
+     * @param encoder          binary encoder
+     * @param address          address
+     * @param sender           sends the bytes
+     * @param beforeMethodCall before method call
+     * @param requestBatchSize request batch size
+     * @return end point
+     */
+    public static SenderEndPoint binarySenderEndPoint(ProtocolBinaryEncoder encoder, String address,
+                                                      Sender<byte[]> sender, BeforeMethodCall beforeMethodCall,
+                                                      int requestBatchSize) {
+        return new SenderEndPoint(null, encoder, address, null, sender, null, beforeMethodCall, requestBatchSize);
     }
 
     @Override
@@ -85,6 +129,18 @@ public class SenderEndPoint implements EndPoint {
         if (methodCalls.size() > 0) {
             String returnAddress = methodCalls.get(0).returnAddress();
             @SuppressWarnings("unchecked") List<Message<Object>> methods = (List<Message<Object>>) (Object) methodCalls;
+            send(returnAddress, methods);
+        }
+    }
+
+    private void send(String returnAddress, List<Message<Object>> methods) {
+        if (binarySender != null) {
+            binarySender.send(returnAddress, binaryEncoder.encodeAsBytes(methods));
+        } else if (dictionary != null) {
+            synchronized (dictionary) {
+                sender.send(returnAddress, methods, messages -> encoder.encodeAsString(messages, dictionary));
+            }
+        } else {
             sender.send(returnAddress, encoder.encodeAsString(methods));
         }
     }
@@ -133,7 +189,7 @@ public class SenderEndPoint implements EndPoint {
 
             if (count > requestBatchSize) {
 
-                sender.send(returnAddress, encoder.encodeAsString(methods));
+                send(returnAddress, methods);
                 methods.clear();
                 count = 0;
             }
@@ -149,7 +205,7 @@ public class SenderEndPoint implements EndPoint {
 
 
         if (methods.size() > 0) {
-            sender.send(returnAddress, encoder.encodeAsString(methods));
+            send(returnAddress, methods);
         }
 
 
@@ -161,6 +217,10 @@ public class SenderEndPoint implements EndPoint {
         } catch (Exception ex) {
             logger.warn("Unable to flush before stop", ex);
         }
-        sender.stop();
+        if (binarySender != null) {
+            binarySender.stop();
+        } else {
+            sender.stop();
+        }
     }
 }
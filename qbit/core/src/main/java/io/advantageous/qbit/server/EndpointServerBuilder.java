@@ -608,7 +608,7 @@ public class EndpointServerBuilder {
                 getEncoder(), getParser(), serviceBundle, getJsonMapper(), this.getTimeoutSeconds(),
                 this.getNumberOfOutstandingRequests(), this.getRequestBatchSize(),
                 this.getFlushInterval(), this.getSystemManager(), getEndpointName(),
-                getServiceDiscovery(), getPort(), getTtlSeconds(), getHealthService());
+                getServiceDiscovery(), getPort(), getTtlSeconds(), getHealthService(), getStatsCollector());
 
 
         if (serviceEndpointServer != null && qBitSystemManager != null) {
@@ -60,5 +60,44 @@ public class Protocol {
     public static final int WAS_ERRORS_POS = 9;
     public static final int RESPONSE_RETURN = 10;
 
+    /**
+     * Text protocol, a dictionary field is either {@code DEFINE id DEFINE value}, which sends a string and its
+     * connection scoped id, or {@code REF id}. See {@link io.advantageous.qbit.spi.ProtocolDictionary}.
+     */
+    public static final int PROTOCOL_DICTIONARY_DEFINE = 0x11;
+    public static final int PROTOCOL_DICTIONARY_REF = 0x12;
+
+    /**
+     * First byte of a binary frame. Never the first byte of a text message, so a transport that
+     * can't tell text frames from binary frames can still route on it.
+     */
+    public static final int PROTOCOL_BINARY_MARKER = 0x1b;
+    public static final int PROTOCOL_BINARY_VERSION = 1;
+    public static final int BINARY_VERSION_POSITION = 1;
+    public static final int BINARY_MESSAGE_TYPE_POSITION = 2;
+
+    /**
+     * First byte of a deflated frame, see {@link io.advantageous.qbit.util.FrameCompressor}.
+     */
+    public static final int PROTOCOL_COMPRESSED_MARKER = 0x18;
+
+    public static final int BINARY_TYPE_NULL = 0;
+    public static final int BINARY_TYPE_FALSE = 1;
+    public static final int BINARY_TYPE_TRUE = 2;
+    public static final int BINARY_TYPE_INT = 3;
+    public static final int BINARY_TYPE_LONG = 4;
+    public static final int BINARY_TYPE_DOUBLE = 5;
+    public static final int BINARY_TYPE_STRING = 6;
+    public static final int BINARY_TYPE_BYTES = 7;
+    public static final int BINARY_TYPE_JSON = 8;
+
+    /**
+     * Binary string reference tags, a string is null, new (and gets the next slot in the frame's table)
+     * or a reference to slot {@code tag - BINARY_STRING_REF}.
+     */
+    public static final int BINARY_STRING_NULL = 0;
+    public static final int BINARY_STRING_NEW = 1;
+    public static final int BINARY_STRING_REF = 2;
+
 
 }
@@ -76,6 +76,8 @@ public class ServiceBuilder {
 
     private boolean createCallbackHandler = true;
 
+    private boolean methodStats;
+
     public static ServiceBuilder serviceBuilder() {
         return new ServiceBuilder();
     }
@@ -366,6 +368,23 @@ public class ServiceBuilder {
     }
 
 
+    public boolean isMethodStats() {
+        return methodStats;
+    }
+
+    /**
+     * Records per method call counts, error counts and sampled call times.
+     * Only used if stats collection is registered, see registerStatsCollections.
+     *
+     * @param methodStats true to turn on per method stats
+     * @return this
+     */
+    public ServiceBuilder setMethodStats(boolean methodStats) {
+        this.methodStats = methodStats;
+        return this;
+    }
+
+
     public ServiceBuilder registerHealthChecksWithTTLInSeconds(
             final HealthServiceAsync healthServiceAsync,
             final String serviceName, final int seconds) {
@@ -396,8 +415,17 @@ public class ServiceBuilder {
 
         ServiceQueueSizer serviceQueueSizer =  null;
 
+        final ServiceMethodHandler methodHandler =
+                QBit.factory().createServiceMethodHandler(this.isInvokeDynamic());
+
         if (statsConfig!=null) {
 
+            if (methodStats) {
+                methodHandler.enableMethodStats(statsConfig.serviceName, statsConfig.statsCollector,
+                        getTimer(), TimeUnit.SECONDS.toMillis(statsConfig.flushTimeSeconds),
+                        statsConfig.sampleEvery);
+            }
+
 
             serviceQueueSizer = new ServiceQueueSizer();
             this.addQueueCallbackHandler(new ServiceStatsListener(statsConfig.serviceName,
@@ -411,7 +439,7 @@ public class ServiceBuilder {
                 this.getServiceObject(),
                 this.getRequestQueueBuilder(),
                 this.getResponseQueueBuilder(),
-                QBit.factory().createServiceMethodHandler(this.isInvokeDynamic()),
+                methodHandler,
                 this.getResponseQueue(),
                 this.isAsyncResponse(),
                 this.isHandleCallbacks(),
@@ -424,6 +452,7 @@ public class ServiceBuilder {
 
         if (serviceQueueSizer!=null) {
             serviceQueueSizer.setServiceQueue(serviceQueue);
+            serviceQueueSizer.setCallbackManager(getCallbackManager());
         }
 
         if (qBitSystemManager != null) {
@@ -23,6 +23,8 @@ import io.advantageous.qbit.message.MethodCall;
 import io.advantageous.qbit.message.Response;
 import io.advantageous.qbit.queue.ReceiveQueueListener;
 import io.advantageous.qbit.queue.SendQueue;
+import io.advantageous.qbit.service.stats.StatsCollector;
+import io.advantageous.qbit.util.Timer;
 
 import java.util.Collection;
 
@@ -52,4 +54,18 @@ public interface ServiceMethodHandler extends ReceiveQueueListener<MethodCall<Ob
     void queueInit();
 
     void handleEvent(Event<Object> event);
+
+    /**
+     * Turns on per method call counts, error counts and sampled call times.
+     * This should be called before init. Handlers that do not track per method stats ignore it.
+     *
+     * @param serviceName     service name used as the stat name prefix
+     * @param statsCollector  stats collector
+     * @param timer           timer used to decide when to flush
+     * @param flushInterval   how often to send the counts in milliseconds
+     * @param sampleEvery     time one out of this many calls of each method, 0 turns off timing
+     */
+    default void enableMethodStats(String serviceName, StatsCollector statsCollector, Timer timer,
+                                   long flushInterval, int sampleEvery) {
+    }
 }
@@ -47,6 +47,7 @@
 
 package io.advantageous.qbit.service.impl;
 
+import io.advantageous.boon.core.Str;
 import io.advantageous.boon.core.reflection.BeanUtils;
 import io.advantageous.qbit.Factory;
 import io.advantageous.qbit.GlobalConstants;
@@ -58,6 +59,8 @@ import io.advantageous.qbit.queue.*;
 import io.advantageous.qbit.reactive.Callback;
 import io.advantageous.qbit.service.*;
 import io.advantageous.qbit.system.QBitSystemManager;
+import io.advantageous.qbit.trace.TraceContext;
+import io.advantageous.qbit.trace.Tracing;
 import io.advantageous.qbit.transforms.NoOpResponseTransformer;
 import io.advantageous.qbit.transforms.Transformer;
 import io.advantageous.qbit.util.MultiMap;
@@ -346,7 +349,21 @@ public class BaseServiceQueueImpl implements ServiceQueue {
             if (debug) logger.debug("ServiceImpl::doHandleMethodCall() before handling stopped processing");
             return false;
         }
-        Response<Object> response = serviceMethodHandler.receiveMethodCall(methodCall);
+        final TraceContext traceContext = methodCall.traceContext();
+        Response<Object> response;
+        if (traceContext == null) {
+            response = serviceMethodHandler.receiveMethodCall(methodCall);
+        } else {
+            final TraceContext previous = Tracing.enter(traceContext);
+            final long startTime = System.nanoTime();
+            try {
+                response = serviceMethodHandler.receiveMethodCall(methodCall);
+            } finally {
+                Tracing.exit(previous);
+            }
+            Tracing.recordSpan(traceContext, Str.isEmpty(methodCall.name()) ? methodCall.address() : methodCall.name(),
+                    startTime, response != null && response.wasErrors());
+        }
 //        if (debug) {
 //            logger.debug("ServiceImpl::receive() \nRESPONSE\n" + response + "\nFROM CALL\n" + methodCall + " name " + methodCall.name() + "\n\n");
 //        }
@@ -487,7 +504,19 @@ public class BaseServiceQueueImpl implements ServiceQueue {
     /* Handles the event processing. */
         Event<Object> event = eventReceiveQueue.poll();
         while (event != null) {
-            serviceMethodHandler.handleEvent(event);
+            final TraceContext traceContext = event.traceContext();
+            if (traceContext == null) {
+                serviceMethodHandler.handleEvent(event);
+            } else {
+                final TraceContext previous = Tracing.enter(traceContext);
+                final long startTime = System.nanoTime();
+                try {
+                    serviceMethodHandler.handleEvent(event);
+                } finally {
+                    Tracing.exit(previous);
+                }
+                Tracing.recordSpan(traceContext, event.channel(), startTime, false);
+            }
             event = eventReceiveQueue.poll();
         }
         flushEventManagerCalls();
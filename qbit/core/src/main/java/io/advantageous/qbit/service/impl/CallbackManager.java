@@ -15,4 +15,13 @@ public interface CallbackManager {
     void handleResponse(Response<Object> response);
 
     void process(long currentTime);
+
+    /**
+     * Number of callbacks waiting on a response.
+     *
+     * @return outstanding callback count
+     */
+    default int outstandingCallbackCount() {
+        return 0;
+    }
 }
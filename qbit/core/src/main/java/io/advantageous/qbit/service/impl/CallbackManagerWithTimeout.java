@@ -20,8 +20,11 @@ package io.advantageous.qbit.service.impl;
 
 import io.advantageous.qbit.message.MethodCall;
 import io.advantageous.qbit.message.Response;
+import io.advantageous.qbit.message.impl.MethodCallImpl;
 import io.advantageous.qbit.queue.Queue;
 import io.advantageous.qbit.reactive.Callback;
+import io.advantageous.qbit.trace.TraceContext;
+import io.advantageous.qbit.trace.Tracing;
 import io.advantageous.qbit.util.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -82,6 +85,13 @@ public class CallbackManagerWithTimeout implements CallbackManager {
 
     @Override
     public void registerCallbacks(MethodCall<Object> methodCall) {
+
+        /* Args still in wire form can not hold callbacks, and reading the body would decode them before the
+           handler gets to decode them into the parameter types. */
+        if (methodCall instanceof MethodCallImpl && ((MethodCallImpl) methodCall).rawArgs() != null) {
+            return;
+        }
+
         Object args = methodCall.body();
 
         /** Look for callbackWithTimeout handler in the args */
@@ -135,6 +145,20 @@ public class CallbackManagerWithTimeout implements CallbackManager {
             return;
         }
 
+        /* Calls made from the callback become children of the call that answered. */
+        final TraceContext traceContext = response.traceContext();
+        final TraceContext previous = traceContext != null ? Tracing.enter(traceContext) : null;
+        try {
+            handleResponse(response, handler);
+        } finally {
+            if (traceContext != null) {
+                Tracing.exit(previous);
+            }
+        }
+    }
+
+    private void handleResponse(final Response<Object> response, final Callback<Object> handler) {
+
         if (response.wasErrors()) {
 
             if (debug)  {
@@ -156,6 +180,11 @@ public class CallbackManagerWithTimeout implements CallbackManager {
 
     }
 
+    @Override
+    public int outstandingCallbackCount() {
+        return handlers.size();
+    }
+
     @Override
     public void process(long currentTime) {
         if (currentTime != 0) {
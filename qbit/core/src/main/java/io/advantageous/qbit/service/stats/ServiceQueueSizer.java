@@ -1,15 +1,21 @@
 package io.advantageous.qbit.service.stats;
 
 import io.advantageous.qbit.service.ServiceQueue;
+import io.advantageous.qbit.service.impl.CallbackManager;
 
 public class ServiceQueueSizer {
 
     private ServiceQueue serviceQueue;
+    private CallbackManager callbackManager;
 
     public synchronized void setServiceQueue(ServiceQueue serviceQueue) {
         this.serviceQueue = serviceQueue;
     }
 
+    public synchronized void setCallbackManager(CallbackManager callbackManager) {
+        this.callbackManager = callbackManager;
+    }
+
     public int requestSize() {
        return serviceQueue.requestQueue().size();
     }
@@ -18,4 +24,8 @@ public class ServiceQueueSizer {
         return serviceQueue.responseQueue().size();
     }
 
+    public int callbackSize() {
+        return callbackManager == null ? 0 : callbackManager.outstandingCallbackCount();
+    }
+
 }
@@ -23,6 +23,7 @@ public class ServiceStatsListener implements QueueCallBackHandler {
 
     private final String queueRequestSizeKey;
     private final String queueResponseSizeKey;
+    private final String callbackSizeKey;
     private final String receiveCountKey;
     private final String receiveTimeKey;
 
@@ -40,6 +41,7 @@ public class ServiceStatsListener implements QueueCallBackHandler {
     /** Added these so we are only sending if they change and not all of the time. */
     private int lastRequestSize=-1;
     private int lastResponseSize=-1;
+    private int lastCallbackSize=-1;
 
 
 
@@ -61,7 +63,8 @@ public class ServiceStatsListener implements QueueCallBackHandler {
         receiveTimeKey = serviceName + ".callTimeSample";
         this.queueRequestSizeKey =  serviceName + ".queueRequestSize";
         this.queueResponseSizeKey =  serviceName + ".queueResponseSize";
-        this.sampleEvery = sampleEvery == 0 ? -1 : sampleEvery;
+        this.callbackSizeKey =  serviceName + ".callbacksOutstanding";
+        this.sampleEvery = sampleEvery <= 0 ? -1 : sampleEvery;
         this.serviceQueueSizer = serviceQueueSizer;
     }
 
@@ -178,6 +181,12 @@ public class ServiceStatsListener implements QueueCallBackHandler {
                 lastResponseSize = responseSize;
                 statsCollector.recordLevel(queueResponseSizeKey, responseSize);
             }
+
+            final int callbackSize = serviceQueueSizer.callbackSize();
+            if (callbackSize != lastCallbackSize) {
+                lastCallbackSize = callbackSize;
+                statsCollector.recordLevel(callbackSizeKey, callbackSize);
+            }
         }
 
     }
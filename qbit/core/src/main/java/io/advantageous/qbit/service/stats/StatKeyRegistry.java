@@ -0,0 +1,223 @@
+package io.advantageous.qbit.service.stats;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Interns stat names to int ids and caps the number of distinct series.
+ *
+ * <p>
+ * Stat names are built dynamically (service name + suffix, event bus name + channel name).
+ * If an id or other unbounded value ends up in a name, every map keyed by stat name grows
+ * without limit. The registry hands out ids until {@code maxSeries} names are known. After that,
+ * new names are folded into the overflow series ({@link #OVERFLOW_ID}) and counted as dropped.
+ * </p>
+ *
+ * <p>
+ * Lookups of known names are a single concurrent map read. Registration of new names is
+ * synchronized, and once the cap is reached, unknown names are dropped without taking the lock.
+ * </p>
+ */
+public class StatKeyRegistry {
+
+    /**
+     * Default number of distinct series to track.
+     */
+    public static final int DEFAULT_MAX_SERIES = 10_000;
+
+    /**
+     * Series that collects everything recorded against dropped names.
+     */
+    public static final String DEFAULT_OVERFLOW_NAME = "qbit.stats.overflow";
+
+    /**
+     * Series used to report how many records were folded into the overflow series.
+     * This counts records, not distinct names, a name that keeps getting recorded is counted every time.
+     */
+    public static final String DROPPED_RECORDS_NAME = "qbit.stats.droppedRecords";
+
+    /**
+     * Id of the overflow series.
+     */
+    public static final int OVERFLOW_ID = 0;
+
+    /**
+     * Id of the dropped records counter.
+     */
+    public static final int DROPPED_RECORDS_ID = 1;
+
+    /**
+     * Returned by {@link #lookup(String)} for a name that was never interned.
+     */
+    public static final int NOT_FOUND = -1;
+
+    /**
+     * How many dropped names we keep around for reporting.
+     */
+    private static final int MAX_DROPPED_SAMPLES = 20;
+
+    private static final int RESERVED_IDS = 2;
+
+    private final Logger logger = LoggerFactory.getLogger(StatKeyRegistry.class);
+    private final ConcurrentHashMap<String, Integer> idMap;
+    private final List<String> droppedSamples = new ArrayList<>(MAX_DROPPED_SAMPLES);
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final int maxSeries;
+    private final String overflowName;
+    private volatile String[] names;
+    private volatile int size;
+
+    public StatKeyRegistry(final int maxSeries, final String overflowName) {
+        this.maxSeries = maxSeries;
+        this.overflowName = overflowName;
+        this.idMap = new ConcurrentHashMap<>(Math.min(maxSeries, 1_000) + RESERVED_IDS);
+        this.names = new String[Math.min(maxSeries, 100) + RESERVED_IDS];
+        register(overflowName);
+        register(DROPPED_RECORDS_NAME);
+    }
+
+    public StatKeyRegistry(final int maxSeries) {
+        this(maxSeries, DEFAULT_OVERFLOW_NAME);
+    }
+
+    public StatKeyRegistry() {
+        this(DEFAULT_MAX_SERIES, DEFAULT_OVERFLOW_NAME);
+    }
+
+    /**
+     * Returns the id for this stat name.
+     * If the registry is full the name is not registered and {@link #OVERFLOW_ID} is returned.
+     *
+     * @param name stat name
+     * @return id of the stat name or {@link #OVERFLOW_ID}
+     */
+    public int intern(final String name) {
+        final Integer id = idMap.get(name);
+        if (id != null) {
+            return id;
+        }
+
+        if (size >= maxSeries + RESERVED_IDS) {
+            drop(name);
+            return OVERFLOW_ID;
+        }
+        return register(name);
+    }
+
+    /**
+     * Returns the id for this stat name without registering it or counting it as dropped, for reads.
+     *
+     * @param name stat name
+     * @return id of the stat name, {@link #OVERFLOW_ID} if the registry is full and the name was not interned
+     * (that is where it was recorded), otherwise {@link #NOT_FOUND}
+     */
+    public int lookup(final String name) {
+        final Integer id = idMap.get(name);
+        if (id != null) {
+            return id;
+        }
+        return size >= maxSeries + RESERVED_IDS ? OVERFLOW_ID : NOT_FOUND;
+    }
+
+    /**
+     * Returns the canonical instance of this stat name, or the overflow name if the name was dropped.
+     *
+     * @param name stat name
+     * @return name that should be used to record the stat
+     */
+    public String internName(final String name) {
+        return name(intern(name));
+    }
+
+    /**
+     * Looks up the name for an id.
+     *
+     * @param id id handed out by {@link #intern(String)}
+     * @return stat name
+     */
+    public String name(final int id) {
+        return names[id];
+    }
+
+    /**
+     * Number of ids handed out including the reserved ones.
+     *
+     * @return size
+     */
+    public int size() {
+        return size;
+    }
+
+    public int maxSeries() {
+        return maxSeries;
+    }
+
+    public String overflowName() {
+        return overflowName;
+    }
+
+    /**
+     * Number of records that were folded into the overflow series.
+     *
+     * @return dropped count
+     */
+    public long droppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * A few of the names that were dropped, handy for tracking down a bad key pattern.
+     *
+     * @return copy of the dropped name samples
+     */
+    public List<String> droppedSamples() {
+        synchronized (droppedSamples) {
+            return new ArrayList<>(droppedSamples);
+        }
+    }
+
+    private synchronized int register(final String name) {
+
+        final Integer existingId = idMap.get(name);
+        if (existingId != null) {
+            return existingId;
+        }
+
+        if (size >= maxSeries + RESERVED_IDS) {
+            drop(name);
+            return OVERFLOW_ID;
+        }
+
+        final int id = size;
+        if (id == names.length) {
+            names = Arrays.copyOf(names, Math.min(names.length * 2, maxSeries + RESERVED_IDS));
+        }
+        names[id] = name;
+        size = id + 1;
+        idMap.put(name, id);
+        return id;
+    }
+
+    private void drop(final String name) {
+        final long count = droppedCount.incrementAndGet();
+
+        if (count == 1) {
+            logger.warn("StatKeyRegistry reached max series {}, stat {} and other new stats are recorded as {}",
+                    maxSeries, name, overflowName);
+        }
+
+        if (droppedSamples.size() < MAX_DROPPED_SAMPLES) {
+            synchronized (droppedSamples) {
+                if (droppedSamples.size() < MAX_DROPPED_SAMPLES && !droppedSamples.contains(name)) {
+                    droppedSamples.add(name);
+                }
+            }
+        }
+    }
+}
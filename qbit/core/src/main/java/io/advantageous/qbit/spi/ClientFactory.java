@@ -31,4 +31,20 @@ import io.advantageous.qbit.http.client.HttpClient;
 public interface ClientFactory {
 
     Client create(String uri, HttpClient httpClient, int requestBatchSize);
+
+    /**
+     * @param uri              uri
+     * @param httpClient       http client
+     * @param requestBatchSize request batch size
+     * @param binaryProtocol     true to talk to the server with the binary protocol
+     * @param protocolDictionary true to send addresses and method names through a connection scoped dictionary
+     * @return client
+     */
+    default Client create(String uri, HttpClient httpClient, int requestBatchSize, boolean binaryProtocol,
+                          boolean protocolDictionary) {
+        if (binaryProtocol || protocolDictionary) {
+            throw new UnsupportedOperationException("Protocol options not supported by this client factory");
+        }
+        return create(uri, httpClient, requestBatchSize);
+    }
 }
@@ -20,6 +20,8 @@ package io.advantageous.qbit.spi;
 
 import io.advantageous.qbit.Factory;
 import io.advantageous.qbit.events.spi.EventManagerFactory;
+import io.advantageous.qbit.json.JsonCodecProvider;
+import io.advantageous.qbit.json.JsonCodecRegistry;
 
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -41,6 +43,8 @@ public class FactorySPI {
 
     private static final AtomicReference<EventManagerFactory> eventManagerFactoryRef = new AtomicReference<>();
 
+    private static final AtomicReference<JsonCodecRegistry> jsonCodecRegistryRef = new AtomicReference<>();
+
     public static EventManagerFactory getEventManagerFactory() {
         return eventManagerFactoryRef.get();
     }
@@ -84,4 +88,28 @@ public class FactorySPI {
         clientFactoryRef.set(clientFactory);
 
     }
+
+    public static JsonCodecRegistry getJsonCodecRegistry() {
+        return jsonCodecRegistryRef.get();
+    }
+
+    /**
+     * Swaps the JSON engine, codecs cached from the previous provider are resolved again.
+     *
+     * @param provider json codec provider
+     */
+    public static void setJsonCodecProvider(JsonCodecProvider provider) {
+        jsonCodecRegistryRef.set(new JsonCodecRegistry(provider));
+    }
+
+    /**
+     * Sets the JSON engine only if none is set yet.
+     *
+     * @param provider json codec provider
+     * @return the registry in use, which is not the one for this provider if another thread got there first
+     */
+    public static JsonCodecRegistry setJsonCodecProviderIfAbsent(JsonCodecProvider provider) {
+        jsonCodecRegistryRef.compareAndSet(null, new JsonCodecRegistry(provider));
+        return jsonCodecRegistryRef.get();
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2015. Rick Hightower, Geoff Chandler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * QBit - The Microservice lib for Java : JSON, WebSocket, REST. Be The Web!
+ */
+
+package io.advantageous.qbit.spi;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Connection scoped table of addresses and method names.
+ * <p>
+ * One dictionary covers one direction of one connection. The sending side assigns an id the first time it
+ * encodes a string and sends the string with the id, after that it only sends the id.
+ * The receiving side keeps the mirror table. Both sides must see messages in the order they were encoded,
+ * so the sender encodes and sends under the dictionary lock and the receiver parses one connection on one thread.
+ * </p>
+ * Not thread safe.
+ */
+public class ProtocolDictionary {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    /**
+     * Strings longer than this are always sent as is.
+     */
+    public static final int MAX_STRING_LENGTH = 512;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final int maxEntries;
+
+    public ProtocolDictionary() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public ProtocolDictionary(final int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Sending side, looks up the id of a string.
+     *
+     * @param value string to send
+     * @return id or -1 if the string has not been sent yet
+     */
+    public int idOf(final String value) {
+        final Integer id = ids.get(value);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Sending side, assigns the next id to a string.
+     *
+     * @param value string to send
+     * @return id, or -1 if the dictionary is full or the string is too long to be worth it
+     */
+    public int define(final String value) {
+        if (strings.size() >= maxEntries || value.length() > MAX_STRING_LENGTH) {
+            return -1;
+        }
+        final int id = strings.size();
+        strings.add(value);
+        ids.put(value, id);
+        return id;
+    }
+
+    /**
+     * Receiving side, stores a string the other side defined.
+     *
+     * @param id    id assigned by the sender
+     * @param value string
+     */
+    public void put(final int id, final String value) {
+        if (id == strings.size()) {
+            strings.add(value);
+        } else if (id < strings.size()) {
+            strings.set(id, value);
+        } else {
+            throw new IllegalStateException("Protocol dictionary out of sync, got id " + id +
+                    " expected " + strings.size());
+        }
+    }
+
+    /**
+     * Receiving side, resolves an id.
+     *
+     * @param id id sent by the other side
+     * @return string
+     */
+    public String get(final int id) {
+        if (id < 0 || id >= strings.size()) {
+            throw new IllegalStateException("Protocol dictionary out of sync, unknown id " + id);
+        }
+        return strings.get(id);
+    }
+
+    public int size() {
+        return strings.size();
+    }
+
+    /**
+     * Forget everything, used when the connection is re-established.
+     */
+    public void clear() {
+        ids.clear();
+        strings.clear();
+    }
+}
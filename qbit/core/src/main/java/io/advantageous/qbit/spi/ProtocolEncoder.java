@@ -22,6 +22,7 @@ import io.advantageous.qbit.message.Message;
 import io.advantageous.qbit.message.MethodCall;
 import io.advantageous.qbit.message.Response;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 
 /**
@@ -29,7 +30,7 @@ import java.util.Collection;
  *
  * @author rhightower
  */
-public interface ProtocolEncoder {
+public interface ProtocolEncoder extends ProtocolBinaryEncoder {
 
     String encodeAsString(Response<Object> response);
 
@@ -37,4 +38,33 @@ public interface ProtocolEncoder {
 
     String encodeAsString(Collection<Message<Object>> messages);
 
+    /**
+     * Encodes messages sending addresses and method names through a connection scoped dictionary.
+     * Encoders that do not support dictionaries ignore it.
+     *
+     * @param messages   messages
+     * @param dictionary sending side dictionary of the connection
+     * @return encoded messages
+     */
+    default String encodeAsString(Collection<Message<Object>> messages, ProtocolDictionary dictionary) {
+        return encodeAsString(messages);
+    }
+
+    /**
+     * Encodes a response for a binary transport.
+     * Text encoders send the UTF-8 of the text form, binary encoders override this.
+     *
+     * @param response response
+     * @return encoded response
+     */
+    @Override
+    default byte[] encodeAsBytes(Response<Object> response) {
+        return encodeAsString(response).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    default byte[] encodeAsBytes(Collection<Message<Object>> messages) {
+        return encodeAsString(messages).getBytes(StandardCharsets.UTF_8);
+    }
+
 }
@@ -24,6 +24,7 @@ import io.advantageous.qbit.message.Response;
 import io.advantageous.qbit.util.MultiMap;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * This parses the wire format to get method calls.  Could also be called a decoder.
@@ -42,10 +43,43 @@ public interface ProtocolParser {
 
     List<Message<Object>> parse(String address, Object body);
 
+    /**
+     * Parses messages that may use the connection scoped dictionary.
+     *
+     * @param address    address
+     * @param body       body
+     * @param dictionary receiving side dictionary of the connection
+     * @return messages
+     */
+    default List<Message<Object>> parse(String address, Object body, ProtocolDictionary dictionary) {
+        return parse(address, body);
+    }
+
+    /**
+     * Parses messages and hands each one to the consumer as soon as it is read,
+     * so a large group does not have to be held as a list.
+     *
+     * @param address    address
+     * @param body       body
+     * @param dictionary receiving side dictionary of the connection, may be null
+     * @param consumer   gets each message in the order it was encoded
+     */
+    default void parse(String address, Object body, ProtocolDictionary dictionary, Consumer<Message<Object>> consumer) {
+        final List<Message<Object>> messages = parse(address, body, dictionary);
+        if (messages != null) {
+            messages.forEach(consumer);
+        }
+    }
+
     List<MethodCall<Object>> parseMethods(Object body);
 
 
     List<MethodCall<Object>> parseMethodCallListUsingAddressPrefix(String addressPrefix, Object body);
 
+    default List<MethodCall<Object>> parseMethodCallListUsingAddressPrefix(String addressPrefix, Object body,
+                                                                           ProtocolDictionary dictionary) {
+        return parseMethodCallListUsingAddressPrefix(addressPrefix, body);
+    }
+
     Response<Object> parseResponse(Object body);
 }
@@ -0,0 +1,88 @@
+package io.advantageous.qbit.trace;
+
+/**
+ * A timed call recorded by {@link SpanRecorder}.
+ * Ids are hex strings so they match the trace header and survive JSON as is.
+ */
+public class Span {
+
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final String name;
+    private final long startTime;
+    private final long queueWaitNanos;
+    private final long executionNanos;
+    private final boolean error;
+
+    public Span(final TraceContext traceContext,
+                final String name,
+                final long startTime,
+                final long queueWaitNanos,
+                final long executionNanos,
+                final boolean error) {
+        this.traceId = Long.toHexString(traceContext.traceId());
+        this.spanId = Long.toHexString(traceContext.spanId());
+        this.parentSpanId = Long.toHexString(traceContext.parentSpanId());
+        this.name = name;
+        this.startTime = startTime;
+        this.queueWaitNanos = queueWaitNanos;
+        this.executionNanos = executionNanos;
+        this.error = error;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return wall clock time in millis when execution started
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * @return time between sending the message and the service picking it up
+     */
+    public long getQueueWaitNanos() {
+        return queueWaitNanos;
+    }
+
+    /**
+     * @return time the service spent handling the message
+     */
+    public long getExecutionNanos() {
+        return executionNanos;
+    }
+
+    public boolean isError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "Span{" +
+                "traceId='" + traceId + '\'' +
+                ", spanId='" + spanId + '\'' +
+                ", parentSpanId='" + parentSpanId + '\'' +
+                ", name='" + name + '\'' +
+                ", startTime=" + startTime +
+                ", queueWaitNanos=" + queueWaitNanos +
+                ", executionNanos=" + executionNanos +
+                ", error=" + error +
+                '}';
+    }
+}
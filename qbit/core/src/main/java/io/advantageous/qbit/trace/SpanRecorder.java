@@ -0,0 +1,75 @@
+package io.advantageous.qbit.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed size ring buffer of the most recent spans.
+ * <p>
+ * Service threads record without locking, older spans are overwritten.
+ * Readers get a snapshot, which may miss a span that is being written at the same time.
+ * </p>
+ */
+public class SpanRecorder {
+
+    private final AtomicReferenceArray<Span> spans;
+    private final AtomicLong sequence = new AtomicLong();
+    private final int capacity;
+
+    public SpanRecorder(final int capacity) {
+        this.capacity = capacity;
+        this.spans = new AtomicReferenceArray<>(capacity);
+    }
+
+    public void record(final Span span) {
+        final long index = sequence.getAndIncrement();
+        spans.lazySet((int) (index % capacity), span);
+    }
+
+    /**
+     * Recent spans, oldest first.
+     *
+     * @return copy of the recorded spans
+     */
+    public List<Span> spans() {
+        final long end = sequence.get();
+        final long start = Math.max(0, end - capacity);
+        final List<Span> list = new ArrayList<>((int) (end - start));
+        for (long index = start; index < end; index++) {
+            final Span span = spans.get((int) (index % capacity));
+            if (span != null) {
+                list.add(span);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Recent spans that belong to a trace.
+     *
+     * @param traceId trace id in hex
+     * @return spans of the trace, oldest first
+     */
+    public List<Span> trace(final String traceId) {
+        final List<Span> list = new ArrayList<>();
+        for (Span span : spans()) {
+            if (span.getTraceId().equals(traceId)) {
+                list.add(span);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * @return number of spans recorded since start, including the ones that were overwritten
+     */
+    public long count() {
+        return sequence.get();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,146 @@
+package io.advantageous.qbit.trace;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Trace and span ids carried by a message.
+ * <p>
+ * A method call carries the span of the call itself. The parent span is the span of the call that was
+ * being handled when this call was made, or 0 for the root of a trace.
+ * On the wire the context is written as a single header, {@code traceId-spanId-parentSpanId-sampled} in hex,
+ * see {@link #encode()} and {@link #decode(String)}.
+ * </p>
+ * <p>
+ * The context also remembers when it was created or decoded on this JVM, which is when the message was
+ * sent to the queue. This is used to split queue wait time from execution time.
+ * </p>
+ */
+public final class TraceContext {
+
+    /**
+     * Header used to carry the trace context in method calls, responses and HTTP requests.
+     */
+    public static final String HEADER = "X-QBit-Trace";
+
+    private final long traceId;
+    private final long spanId;
+    private final long parentSpanId;
+    private final boolean sampled;
+    private final long createdNanos;
+
+    public TraceContext(final long traceId, final long spanId, final long parentSpanId, final boolean sampled) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.sampled = sampled;
+        this.createdNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts a new trace.
+     *
+     * @param sampled true if spans of this trace should be recorded
+     * @return root context
+     */
+    public static TraceContext root(final boolean sampled) {
+        final long traceId = newId();
+        return new TraceContext(traceId, traceId, 0L, sampled);
+    }
+
+    /**
+     * Creates the context for a call made while handling this one.
+     *
+     * @return child context
+     */
+    public TraceContext child() {
+        return new TraceContext(traceId, newId(), spanId, sampled);
+    }
+
+    public long traceId() {
+        return traceId;
+    }
+
+    public long spanId() {
+        return spanId;
+    }
+
+    public long parentSpanId() {
+        return parentSpanId;
+    }
+
+    public boolean sampled() {
+        return sampled;
+    }
+
+    /**
+     * When this context was created or decoded, from {@link System#nanoTime()}.
+     *
+     * @return created time in nanos
+     */
+    public long createdNanos() {
+        return createdNanos;
+    }
+
+    public String encode() {
+        return Long.toHexString(traceId) + '-' + Long.toHexString(spanId) + '-' +
+                Long.toHexString(parentSpanId) + '-' + (sampled ? '1' : '0');
+    }
+
+    /**
+     * Decodes a context written by {@link #encode()}.
+     *
+     * @param value encoded context
+     * @return context or null if the value is empty or malformed
+     */
+    public static TraceContext decode(final String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+
+        final int first = value.indexOf('-');
+        final int second = first == -1 ? -1 : value.indexOf('-', first + 1);
+        final int third = second == -1 ? -1 : value.indexOf('-', second + 1);
+        if (third == -1 || third != value.length() - 2) {
+            return null;
+        }
+
+        try {
+            return new TraceContext(
+                    Long.parseUnsignedLong(value.substring(0, first), 16),
+                    Long.parseUnsignedLong(value.substring(first + 1, second), 16),
+                    Long.parseUnsignedLong(value.substring(second + 1, third), 16),
+                    value.charAt(third + 1) == '1');
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static long newId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0L);
+        return id;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TraceContext)) return false;
+        final TraceContext that = (TraceContext) o;
+        return traceId == that.traceId && spanId == that.spanId &&
+                parentSpanId == that.parentSpanId && sampled == that.sampled;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (traceId ^ (traceId >>> 32));
+        result = 31 * result + (int) (spanId ^ (spanId >>> 32));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
@@ -0,0 +1,140 @@
+package io.advantageous.qbit.trace;
+
+import io.advantageous.qbit.util.MultiMap;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Built in call tracing.
+ * <p>
+ * Off by default. When enabled, requests that come in over HTTP or WebSocket start a trace
+ * (or join the one in the {@link TraceContext#HEADER} header), calls made while a traced call is being handled
+ * get a child span, and the trace context travels with method calls, responses and events.
+ * Sampled spans are timed by the service queue and kept in an in-process {@link SpanRecorder}
+ * that the admin endpoint exposes.
+ * </p>
+ * <p>
+ * Configure with system properties {@code io.advantageous.qbit.trace.ENABLED},
+ * {@code io.advantageous.qbit.trace.SAMPLE_RATE} (fraction of new traces that are recorded)
+ * and {@code io.advantageous.qbit.trace.BUFFER_SIZE}, or with the setters.
+ * </p>
+ */
+public final class Tracing {
+
+    private static volatile boolean enabled =
+            Boolean.valueOf(System.getProperty("io.advantageous.qbit.trace.ENABLED", "false"));
+
+    private static volatile double sampleRate =
+            Double.valueOf(System.getProperty("io.advantageous.qbit.trace.SAMPLE_RATE", "0.01"));
+
+    private static volatile SpanRecorder recorder =
+            new SpanRecorder(Integer.valueOf(System.getProperty("io.advantageous.qbit.trace.BUFFER_SIZE", "1000")));
+
+    private static final ThreadLocal<TraceContext> current = new ThreadLocal<>();
+
+    private Tracing() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(final boolean enabled) {
+        Tracing.enabled = enabled;
+    }
+
+    public static double getSampleRate() {
+        return sampleRate;
+    }
+
+    public static void setSampleRate(final double sampleRate) {
+        Tracing.sampleRate = sampleRate;
+    }
+
+    public static SpanRecorder recorder() {
+        return recorder;
+    }
+
+    public static void setRecorder(final SpanRecorder recorder) {
+        Tracing.recorder = recorder;
+    }
+
+    /**
+     * Trace context of the message being handled by this thread.
+     *
+     * @return current context or null
+     */
+    public static TraceContext current() {
+        return current.get();
+    }
+
+    /**
+     * Makes this context current for this thread.
+     *
+     * @param traceContext context of the message about to be handled
+     * @return the context that was current before, pass it to {@link #exit(TraceContext)}
+     */
+    public static TraceContext enter(final TraceContext traceContext) {
+        final TraceContext previous = current.get();
+        current.set(traceContext);
+        return previous;
+    }
+
+    public static void exit(final TraceContext previous) {
+        current.set(previous);
+    }
+
+    /**
+     * Context for a call, response or event sent from this thread.
+     *
+     * @return child of the current context, or null if tracing is off or nothing is being traced
+     */
+    public static TraceContext forOutgoingCall() {
+        if (!enabled) {
+            return null;
+        }
+        final TraceContext traceContext = current.get();
+        return traceContext == null ? null : traceContext.child();
+    }
+
+    /**
+     * Context for a request that came in from outside, joins the trace in the headers or starts a new one.
+     *
+     * @param headers request headers, may be null
+     * @return context, or null if tracing is off
+     */
+    public static TraceContext forIncomingRequest(final MultiMap<String, String> headers) {
+        if (!enabled) {
+            return null;
+        }
+
+        if (headers != null && headers.size() > 0) {
+            final TraceContext traceContext = TraceContext.decode(headers.get(TraceContext.HEADER));
+            if (traceContext != null) {
+                return traceContext;
+            }
+        }
+        return TraceContext.root(ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    /**
+     * Records a span if the context is sampled.
+     *
+     * @param traceContext context of the message that was handled
+     * @param name         what was handled, method name or address
+     * @param startNanos   when handling started, from {@link System#nanoTime()}
+     * @param error        true if handling failed
+     */
+    public static void recordSpan(final TraceContext traceContext,
+                                  final String name,
+                                  final long startNanos,
+                                  final boolean error) {
+        if (!traceContext.sampled()) {
+            return;
+        }
+        final long endNanos = System.nanoTime();
+        final long queueWait = Math.max(0, startNanos - traceContext.createdNanos());
+        final long startTime = System.currentTimeMillis() - (endNanos - startNanos) / 1_000_000;
+        recorder.record(new Span(traceContext, name, startTime, queueWait, endNanos - startNanos, error));
+    }
+}
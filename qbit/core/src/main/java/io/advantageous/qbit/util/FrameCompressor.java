@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2015. Rick Hightower, Geoff Chandler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * QBit - The Microservice lib for Java : JSON, WebSocket, REST. Be The Web!
+ */
+
+package io.advantageous.qbit.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static io.advantageous.qbit.service.Protocol.PROTOCOL_COMPRESSED_MARKER;
+
+/**
+ * Per connection deflate of WebSocket frames.
+ * <p>
+ * A compressed frame is {@link io.advantageous.qbit.service.Protocol#PROTOCOL_COMPRESSED_MARKER} followed by
+ * the raw deflate of the original frame, text protocol as UTF-8 or a binary protocol frame.
+ * Each frame is compressed on its own so frames can be written from more than one thread, the deflater and
+ * inflater are kept and reset so a connection does not allocate new ones per frame.
+ * Frames under the threshold are not worth it and go out as they are.
+ * A side only sends compressed frames if the other side asked for them with {@link #HEADER}.
+ * </p>
+ */
+public class FrameCompressor {
+
+    /**
+     * WebSocket handshake header a client sends to say it reads compressed frames.
+     */
+    public static final String HEADER = "X-QBit-Frame-Compression";
+    public static final String DEFLATE = "deflate";
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    private final int threshold;
+    private final int maxFrameSize;
+    private final Object deflateLock = new Object();
+    private final Object inflateLock = new Object();
+
+    /* Created on first use, most connections never send or get a frame big enough to compress. */
+    private Deflater deflater;
+    private Inflater inflater;
+    private byte[] deflateBuffer;
+    private byte[] inflateBuffer;
+    private ByteArrayOutputStream deflateOut;
+    private ByteArrayOutputStream inflateOut;
+    private boolean closed;
+
+    /**
+     * @param threshold frames smaller than this many bytes are not compressed
+     */
+    public FrameCompressor(final int threshold) {
+        this(threshold, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param threshold    frames smaller than this many bytes are not compressed
+     * @param maxFrameSize most bytes a compressed frame may inflate to, past this it is refused
+     */
+    public FrameCompressor(final int threshold, final int maxFrameSize) {
+        this.threshold = threshold;
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    public int threshold() {
+        return threshold;
+    }
+
+    public static boolean isCompressed(final byte[] frame) {
+        return frame.length > 0 && frame[0] == PROTOCOL_COMPRESSED_MARKER;
+    }
+
+    /**
+     * @param text text protocol frame
+     * @return compressed frame, or null if the text is under the threshold
+     */
+    public byte[] compress(final String text) {
+        if (text.length() < threshold) {
+            return null;
+        }
+        return compress(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param frame frame
+     * @return compressed frame, or null if the frame is under the threshold
+     */
+    public byte[] compress(final byte[] frame) {
+        if (frame.length < threshold) {
+            return null;
+        }
+
+        synchronized (deflateLock) {
+            if (closed) {
+                return null;
+            }
+            if (deflater == null) {
+                deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+                deflateBuffer = new byte[8192];
+                deflateOut = new ByteArrayOutputStream(8192);
+            }
+            deflater.reset();
+            deflateOut.reset();
+            deflateOut.write(PROTOCOL_COMPRESSED_MARKER);
+            deflater.setInput(frame);
+            deflater.finish();
+            while (!deflater.finished()) {
+                final int count = deflater.deflate(deflateBuffer);
+                deflateOut.write(deflateBuffer, 0, count);
+            }
+            return deflateOut.toByteArray();
+        }
+    }
+
+    /**
+     * @param frame compressed frame
+     * @return the original frame
+     * @throws IllegalStateException if the frame is not valid deflate or inflates past the max frame size
+     */
+    public byte[] decompress(final byte[] frame) {
+
+        synchronized (inflateLock) {
+            if (closed) {
+                throw new IllegalStateException("Connection closed");
+            }
+            if (inflater == null) {
+                inflater = new Inflater(true);
+                inflateBuffer = new byte[8192];
+                inflateOut = new ByteArrayOutputStream(8192);
+            }
+            inflater.reset();
+            inflateOut.reset();
+            inflater.setInput(frame, 1, frame.length - 1);
+            try {
+                while (!inflater.finished()) {
+                    final int count = inflater.inflate(inflateBuffer);
+                    if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new IllegalStateException("Truncated compressed frame");
+                    }
+                    if (inflateOut.size() + count > maxFrameSize) {
+                        throw new IllegalStateException("Decompressed frame is over " + maxFrameSize + " bytes");
+                    }
+                    inflateOut.write(inflateBuffer, 0, count);
+                }
+            } catch (DataFormatException ex) {
+                throw new IllegalStateException("Unable to decompress frame", ex);
+            }
+            return inflateOut.toByteArray();
+        }
+    }
+
+    /**
+     * Releases the native deflate and inflate state, call when the connection closes.
+     */
+    public void close() {
+        synchronized (deflateLock) {
+            synchronized (inflateLock) {
+                closed = true;
+                if (deflater != null) {
+                    deflater.end();
+                }
+                if (inflater != null) {
+                    inflater.end();
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FrameCompressor{threshold=" + threshold + ", maxFrameSize=" + maxFrameSize + '}';
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2015. Rick Hightower, Geoff Chandler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * QBit - The Microservice lib for Java : JSON, WebSocket, REST. Be The Web!
+ */
+
+package io.advantageous.qbit.util;
+
+import java.util.*;
+
+/**
+ * Array backed multi map for the handful of headers and params a request carries.
+ * <p>
+ * Every value is stored as a key/value pair in two parallel arrays, in the order it was added.
+ * Lookups scan the arrays, which beats hashing for the few entries a request has and allocates nothing
+ * but the two arrays. Not thread safe, fill it on one thread and hand it off with the request.
+ * </p>
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class SmallMultiMap<K, V> implements MultiMap<K, V> {
+
+    private Object[] keys;
+    private Object[] values;
+    private int count;
+
+    public SmallMultiMap() {
+        this(4);
+    }
+
+    public SmallMultiMap(final int initialCapacity) {
+        keys = new Object[Math.max(initialCapacity, 1)];
+        values = new Object[keys.length];
+    }
+
+    @Override
+    public MultiMap<K, V> add(final K key, final V value) {
+        if (count == keys.length) {
+            keys = Arrays.copyOf(keys, count * 2);
+            values = Arrays.copyOf(values, count * 2);
+        }
+        keys[count] = key;
+        values[count] = value;
+        count++;
+        return this;
+    }
+
+    @Override
+    public V put(final K key, final V value) {
+        add(key, value);
+        return null;
+    }
+
+    @Override
+    public void putAll(final Map<? extends K, ? extends V> map) {
+        for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            add(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public void putAll(final MultiMap<K, V> multiMap) {
+        for (K key : multiMap.keySetMulti()) {
+            for (V value : multiMap.getAll(key)) {
+                add(key, value);
+            }
+        }
+    }
+
+    @Override
+    public V getFirst(final K key) {
+        final int index = indexOf(key, 0);
+        return index == -1 ? null : value(index);
+    }
+
+    @Override
+    public V get(final Object key) {
+        final int index = indexOf(key, 0);
+        return index == -1 ? null : value(index);
+    }
+
+    @Override
+    public V getSingleObject(final K key) {
+        final int index = indexOf(key, 0);
+        if (index == -1 || indexOf(key, index + 1) != -1) {
+            return null;
+        }
+        return value(index);
+    }
+
+    @Override
+    public Iterable<V> getAll(final K key) {
+        return valuesOf(key);
+    }
+
+    @Override
+    public boolean removeValueFrom(final K key, final V value) {
+        for (int index = 0; index < count; index++) {
+            if (Objects.equals(keys[index], key) && Objects.equals(values[index], value)) {
+                removeAt(index);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean removeMulti(final K key) {
+        return removeAll(key);
+    }
+
+    @Override
+    public V remove(final Object key) {
+        final V first = get(key);
+        removeAll(key);
+        return first;
+    }
+
+    private boolean removeAll(final Object key) {
+        boolean removed = false;
+        int index;
+        while ((index = indexOf(key, 0)) != -1) {
+            removeAt(index);
+            removed = true;
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0, count, null);
+        Arrays.fill(values, 0, count, null);
+        count = 0;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (int index = 0; index < count; index++) {
+            if (isFirst(index)) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return indexOf(key, 0) != -1;
+    }
+
+    @Override
+    public boolean containsValue(final Object value) {
+        for (int index = 0; index < count; index++) {
+            if (Objects.equals(values[index], value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("NullableProblems")
+    @Override
+    public Set<K> keySet() {
+        final Set<K> keySet = new LinkedHashSet<>(count * 2);
+        for (int index = 0; index < count; index++) {
+            keySet.add(key(index));
+        }
+        return keySet;
+    }
+
+    @Override
+    public Iterable<K> keySetMulti() {
+        return keySet();
+    }
+
+    @Override
+    public Iterable<V> valueMulti() {
+        return values();
+    }
+
+    @SuppressWarnings("NullableProblems")
+    @Override
+    public Collection<V> values() {
+        final List<V> list = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            list.add(value(index));
+        }
+        return list;
+    }
+
+    /**
+     * Keys with their first value, in the order the keys were first added.
+     */
+    @SuppressWarnings("NullableProblems")
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        final Set<Entry<K, V>> entries = new LinkedHashSet<>(count * 2);
+        for (int index = 0; index < count; index++) {
+            if (isFirst(index)) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(key(index), value(index)));
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public Iterator<Entry<K, Collection<V>>> iterator() {
+        final List<Entry<K, Collection<V>>> entries = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            if (isFirst(index)) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(key(index), valuesOf(key(index))));
+            }
+        }
+        return entries.iterator();
+    }
+
+    @Override
+    public Map<? extends K, ? extends Collection<V>> baseMap() {
+        final Map<K, Collection<V>> map = new LinkedHashMap<>(count * 2);
+        for (int index = 0; index < count; index++) {
+            if (isFirst(index)) {
+                map.put(key(index), valuesOf(key(index)));
+            }
+        }
+        return map;
+    }
+
+    private Collection<V> valuesOf(final Object key) {
+        final int first = indexOf(key, 0);
+        if (first == -1) {
+            return Collections.emptyList();
+        }
+        final int second = indexOf(key, first + 1);
+        if (second == -1) {
+            return Collections.singletonList(value(first));
+        }
+        final List<V> list = new ArrayList<>(4);
+        list.add(value(first));
+        for (int index = second; index != -1; index = indexOf(key, index + 1)) {
+            list.add(value(index));
+        }
+        return list;
+    }
+
+    private int indexOf(final Object key, final int from) {
+        for (int index = from; index < count; index++) {
+            if (Objects.equals(keys[index], key)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isFirst(final int index) {
+        return indexOf(keys[index], 0) == index;
+    }
+
+    private void removeAt(final int index) {
+        final int moved = count - index - 1;
+        if (moved > 0) {
+            System.arraycopy(keys, index + 1, keys, index, moved);
+            System.arraycopy(values, index + 1, values, index, moved);
+        }
+        count--;
+        keys[count] = null;
+        values[count] = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private K key(final int index) {
+        return (K) keys[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(final int index) {
+        return (V) values[index];
+    }
+
+    @Override
+    public String toString() {
+        return "SmallMultiMap{" + baseMap() + '}';
+    }
+}
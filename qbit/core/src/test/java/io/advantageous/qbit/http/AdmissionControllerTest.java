@@ -0,0 +1,86 @@
+package io.advantageous.qbit.http;
+
+import io.advantageous.qbit.http.server.AdmissionController;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class AdmissionControllerTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(1_000 * MS);
+
+    @Test
+    public void testRejectsPastLimit() {
+
+        final AdmissionController controller = new AdmissionController(2, null, clock::get);
+
+        final AdmissionController.Permit first = controller.tryAcquire("/api/a");
+        final AdmissionController.Permit second = controller.tryAcquire("/api/b");
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNull(controller.tryAcquire("/api/c"));
+        assertEquals(1, controller.getRejected());
+
+        first.release();
+        first.release();
+        assertEquals(1, controller.getInFlight());
+
+        second.drop();
+        assertEquals(0, controller.getInFlight());
+        assertNotNull(controller.tryAcquire("/api/c"));
+    }
+
+    @Test
+    public void testRouteBudget() {
+
+        final AdmissionController controller = new AdmissionController(10,
+                Collections.singletonMap("/api/slow", 1), clock::get);
+
+        final AdmissionController.Permit slow = controller.tryAcquire("/api/slow/report");
+        assertNotNull(slow);
+        assertNull(controller.tryAcquire("/api/slow/report"));
+        assertNotNull(controller.tryAcquire("/api/fast"));
+        assertEquals(2, controller.getInFlight());
+
+        slow.release();
+        assertNotNull(controller.tryAcquire("/api/slow/report"));
+    }
+
+    @Test
+    public void testLimitAdaptsToLatency() {
+
+        final AdmissionController controller = new AdmissionController(100, null, clock::get);
+
+        /* Learn the best latency, then let latency climb. */
+        complete(controller, 2 * MS);
+        for (int index = 0; index < 5; index++) {
+            complete(controller, 20 * MS);
+        }
+        final int backedOff = controller.getLimit();
+        assertTrue(backedOff < 100);
+
+        /* Healthy again and busy, the limit grows back. */
+        final AdmissionController.Permit[] permits = new AdmissionController.Permit[backedOff];
+        for (int round = 0; round < 10; round++) {
+            for (int index = 0; index < backedOff; index++) {
+                permits[index] = controller.tryAcquire("/api");
+            }
+            clock.addAndGet(2 * MS);
+            for (AdmissionController.Permit permit : permits) {
+                permit.release();
+            }
+        }
+        assertTrue(controller.getLimit() > backedOff);
+    }
+
+    private void complete(final AdmissionController controller, final long latency) {
+        final AdmissionController.Permit permit = controller.tryAcquire("/api");
+        clock.addAndGet(latency);
+        permit.release();
+    }
+}
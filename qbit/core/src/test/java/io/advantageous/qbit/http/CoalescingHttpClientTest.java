@@ -0,0 +1,107 @@
+package io.advantageous.qbit.http;
+
+import io.advantageous.boon.core.Sys;
+import io.advantageous.qbit.http.client.CoalescingHttpClient;
+import io.advantageous.qbit.http.client.HttpClient;
+import io.advantageous.qbit.http.request.HttpRequest;
+import io.advantageous.qbit.http.request.HttpRequestBuilder;
+import io.advantageous.qbit.http.request.HttpTextReceiver;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+
+public class CoalescingHttpClientTest {
+
+    List<HttpRequest> sent;
+    List<String> bodies;
+    HttpClient wrapped;
+
+    @Before
+    public void setUp() {
+        sent = new ArrayList<>();
+        bodies = new ArrayList<>();
+        wrapped = new HttpClient() {
+            @Override
+            public void sendHttpRequest(HttpRequest request) {
+                sent.add(request);
+            }
+
+            @Override
+            public void start() {
+            }
+        };
+    }
+
+    @Test
+    public void testIdenticalGetsShareOneRequest() {
+
+        final CoalescingHttpClient client = new CoalescingHttpClient(wrapped, 0);
+
+        client.getAsync("/config", (code, contentType, body) -> bodies.add("1:" + body));
+        client.getAsync("/config", (code, contentType, body) -> bodies.add("2:" + body));
+        client.getAsyncWith1Param("/config", "env", "prod", (code, contentType, body) -> bodies.add("3:" + body));
+        client.postAsync("/config", (code, contentType, body) -> bodies.add("4:" + body));
+
+        assertEquals(3, sent.size());
+        assertEquals(2, client.inFlightCount());
+
+        sent.get(0).getReceiver().response(200, "application/json", "{}");
+        assertEquals(2, bodies.size());
+        assertEquals("1:{}", bodies.get(0));
+        assertEquals("2:{}", bodies.get(1));
+        assertEquals(1, client.inFlightCount());
+
+        client.getAsync("/config", (code, contentType, body) -> bodies.add("5:" + body));
+        assertEquals(4, sent.size());
+    }
+
+    @Test
+    public void testCachedResponseAnswers() {
+
+        final CoalescingHttpClient client = new CoalescingHttpClient(wrapped, 500);
+
+        client.getAsync("/profile", (code, contentType, body) -> bodies.add(body));
+        sent.get(0).getReceiver().response(200, "application/json", "\"rick\"");
+
+        client.getAsync("/profile", (code, contentType, body) -> bodies.add(body));
+        assertEquals(1, sent.size());
+        assertEquals(2, bodies.size());
+
+        Sys.sleep(700);
+        client.getAsync("/profile", (code, contentType, body) -> bodies.add(body));
+        assertEquals(2, sent.size());
+    }
+
+    @Test
+    public void testErrorsReachEveryReceiver() {
+
+        final CoalescingHttpClient client = new CoalescingHttpClient(wrapped, 50);
+
+        final List<Exception> errors = new ArrayList<>();
+        for (int index = 0; index < 3; index++) {
+            client.sendHttpRequest(HttpRequestBuilder.httpRequestBuilder().setUri("/down")
+                    .setTextReceiver(new HttpTextReceiver() {
+                        @Override
+                        public void response(int code, String contentType, String body) {
+                        }
+
+                        @Override
+                        public Consumer<Exception> errorHandler() {
+                            return errors::add;
+                        }
+                    }).build());
+        }
+
+        sent.get(0).getReceiver().errorHandler().accept(new Exception("refused"));
+        assertEquals(3, errors.size());
+        assertEquals(0, client.inFlightCount());
+
+        client.getAsync("/down", (code, contentType, body) -> bodies.add(body));
+        assertEquals(2, sent.size());
+    }
+}
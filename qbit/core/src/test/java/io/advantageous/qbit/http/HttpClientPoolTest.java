@@ -0,0 +1,216 @@
+package io.advantageous.qbit.http;
+
+import io.advantageous.boon.core.Sys;
+import io.advantageous.qbit.http.client.HttpClient;
+import io.advantageous.qbit.http.client.HttpClientPool;
+import io.advantageous.qbit.http.request.HttpRequest;
+import io.advantageous.qbit.http.request.HttpRequestBuilder;
+import io.advantageous.qbit.http.request.HttpTextReceiver;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+public class HttpClientPoolTest {
+
+    Map<String, MockClient> clients;
+    AtomicInteger responses;
+    AtomicInteger errors;
+
+    @Before
+    public void setUp() {
+        clients = new ConcurrentHashMap<>();
+        responses = new AtomicInteger();
+        errors = new AtomicInteger();
+    }
+
+    @Test
+    public void testInFlightCapQueuesPerHost() {
+
+        final HttpClientPool pool = createPool(2, 0);
+
+        for (int index = 0; index < 5; index++) {
+            pool.sendHttpRequest("a", 80, request("/a/" + index));
+        }
+        pool.sendHttpRequest("b", 80, request("/b"));
+
+        final MockClient a = clients.get("a:80");
+        assertEquals(2, a.sent.size());
+        assertEquals(1, clients.get("b:80").sent.size());
+        assertEquals(2, pool.stats("a", 80).getInFlight());
+        assertEquals(3, pool.stats("a", 80).getQueued());
+
+        a.sent.get(0).getReceiver().response(200, "text/plain", "ok");
+        assertEquals(3, a.sent.size());
+        assertEquals("/a/2", a.sent.get(2).getUri());
+
+        for (int index = 1; index < 5; index++) {
+            a.sent.get(index).getReceiver().response(200, "text/plain", "ok");
+        }
+
+        assertEquals(5, responses.get());
+        assertEquals(0, pool.stats("a", 80).getInFlight());
+        assertEquals(0, pool.stats("a", 80).getQueued());
+        assertEquals(5, pool.stats("a", 80).getCompleted());
+        assertEquals(2, pool.hostCount());
+    }
+
+    @Test
+    public void testFailedSendsFreeTheirSlots() {
+
+        final HttpClientPool pool = createPool(1, 0);
+
+        pool.sendHttpRequest("a", 80, request("/first"));
+        pool.sendHttpRequest("a", 80, request("/second"));
+        pool.sendHttpRequest("a", 80, request("/third"));
+
+        final MockClient a = clients.get("a:80");
+        a.failSends = true;
+        a.sent.get(0).getReceiver().errorHandler().accept(new Exception("reset"));
+
+        assertEquals(3, errors.get());
+        assertEquals(0, pool.stats("a", 80).getInFlight());
+        assertEquals(0, pool.stats("a", 80).getQueued());
+    }
+
+    @Test
+    public void testIdleHostsEvicted() {
+
+        final HttpClientPool pool = createPool(1, 1);
+
+        pool.sendHttpRequest("a", 80, request("/a"));
+        clients.get("a:80").sent.get(0).getReceiver().response(200, "text/plain", "ok");
+
+        Sys.sleep(100);
+        pool.evictIdle();
+
+        assertEquals(0, pool.hostCount());
+        assertTrue(clients.get("a:80").stopped);
+
+        pool.sendHttpRequest("a", 80, request("/a"));
+        assertEquals(1, pool.hostCount());
+        assertFalse(clients.get("a:80").stopped);
+    }
+
+    @Test
+    public void testFullQueueRejectsRightAway() {
+
+        final HttpClientPool pool = createPool(1, 2, -1, 0);
+
+        for (int index = 0; index < 5; index++) {
+            pool.sendHttpRequest("a", 80, request("/a/" + index));
+        }
+
+        assertEquals(1, clients.get("a:80").sent.size());
+        assertEquals(2, pool.stats("a", 80).getQueued());
+        assertEquals(2, errors.get());
+    }
+
+    @Test
+    public void testTimeoutFreesTheSlot() {
+
+        final HttpClientPool pool = createPool(1, -1, 50, 0);
+
+        pool.sendHttpRequest("a", 80, request("/slow"));
+        pool.sendHttpRequest("a", 80, request("/next"), -1);
+
+        final MockClient a = clients.get("a:80");
+        for (int index = 0; index < 100 && a.sent.size() < 2; index++) {
+            Sys.sleep(10);
+        }
+
+        assertEquals(1, errors.get());
+        assertEquals(2, a.sent.size());
+        assertEquals("/next", a.sent.get(1).getUri());
+        assertEquals(1, pool.stats("a", 80).getInFlight());
+
+        /* Too late, the caller was already told it timed out. */
+        a.sent.get(0).getReceiver().response(200, "text/plain", "ok");
+        assertEquals(0, responses.get());
+        assertEquals(1, pool.stats("a", 80).getInFlight());
+
+        a.sent.get(1).getReceiver().response(200, "text/plain", "ok");
+        assertEquals(1, responses.get());
+        assertEquals(0, pool.stats("a", 80).getInFlight());
+    }
+
+    @Test
+    public void testTimeoutCountsTimeInTheQueue() {
+
+        final HttpClientPool pool = createPool(1, -1, -1, 0);
+
+        pool.sendHttpRequest("a", 80, request("/first"));
+        pool.sendHttpRequest("a", 80, request("/queued"), 10);
+
+        Sys.sleep(50);
+        final MockClient a = clients.get("a:80");
+        a.sent.get(0).getReceiver().response(200, "text/plain", "ok");
+
+        assertEquals(1, responses.get());
+        assertEquals(1, errors.get());
+        assertEquals(1, a.sent.size());
+        assertEquals(0, pool.stats("a", 80).getInFlight());
+    }
+
+    private HttpClientPool createPool(final int maxInFlight, final long idleTimeout) {
+        return createPool(maxInFlight, -1, -1, idleTimeout);
+    }
+
+    private HttpClientPool createPool(final int maxInFlight, final int maxQueued, final long requestTimeout,
+                                      final long idleTimeout) {
+        return new HttpClientPool((host, port) -> {
+            final MockClient client = new MockClient();
+            clients.put(host + ":" + port, client);
+            return client;
+        }, maxInFlight, maxQueued, requestTimeout, idleTimeout, null, "test.");
+    }
+
+    private HttpRequest request(final String uri) {
+        return HttpRequestBuilder.httpRequestBuilder().setUri(uri).setTextReceiver(new HttpTextReceiver() {
+            @Override
+            public void response(int code, String contentType, String body) {
+                responses.incrementAndGet();
+            }
+
+            @Override
+            public Consumer<Exception> errorHandler() {
+                return exception -> errors.incrementAndGet();
+            }
+        }).build();
+    }
+
+    static class MockClient implements HttpClient {
+
+        final List<HttpRequest> sent = new CopyOnWriteArrayList<>();
+        boolean failSends;
+        boolean stopped;
+
+        @Override
+        public void sendHttpRequest(HttpRequest request) {
+            if (failSends) {
+                throw new IllegalStateException("closed");
+            }
+            sent.add(request);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+            stopped = true;
+        }
+    }
+}
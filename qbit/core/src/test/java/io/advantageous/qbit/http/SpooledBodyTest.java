@@ -0,0 +1,87 @@
+package io.advantageous.qbit.http;
+
+import io.advantageous.qbit.http.request.HttpRequest;
+import io.advantageous.qbit.http.request.HttpRequestBuilder;
+import io.advantageous.qbit.http.request.SpooledBody;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class SpooledBodyTest {
+
+    @Test
+    public void testSpillsPastLimit() throws Exception {
+
+        final Path directory = Files.createTempDirectory("spooled");
+        final SpooledBody body = new SpooledBody(100, directory.toFile(), -1);
+
+        final byte[] expected = new byte[1000];
+        for (int index = 0; index < expected.length; index++) {
+            expected[index] = (byte) index;
+        }
+
+        assertTrue(body.fitsInMemory(60));
+        body.write(ByteBuffer.wrap(expected, 0, 60));
+        assertTrue(body.isInMemory());
+        assertTrue(body.fitsInMemory(40));
+        assertFalse(body.fitsInMemory(41));
+
+        body.write(ByteBuffer.wrap(expected, 60, 940));
+        assertFalse(body.fitsInMemory(1));
+        body.end();
+        assertFalse(body.isInMemory());
+        assertEquals(1000, body.length());
+        assertEquals(1, directory.toFile().list().length);
+
+        /* Read more than once. */
+        assertArrayEquals(expected, read(body.inputStream()));
+        assertArrayEquals(expected, body.bytes());
+
+        body.close();
+        assertEquals(0, directory.toFile().list().length);
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testRequestBytesComeFromBody() {
+
+        final SpooledBody body = new SpooledBody(1024, null, 5);
+        body.write("hello".getBytes());
+        body.end();
+        assertTrue(body.isInMemory());
+
+        final HttpRequest request = HttpRequestBuilder.httpRequestBuilder().setMethod("POST")
+                .setSpooledBody(body).build();
+
+        assertTrue(request.hasSpooledBody());
+        assertSame(body, request.getSpooledBody());
+        assertEquals("hello", request.getBodyAsString());
+
+        /* Bodies that were read whole are wrapped. */
+        final HttpRequest plain = HttpRequestBuilder.httpRequestBuilder().setBody("bye").build();
+        assertFalse(plain.hasSpooledBody());
+        assertEquals(3, plain.getSpooledBody().length());
+
+        body.handOff();
+        body.release();
+        assertArrayEquals("hello".getBytes(), body.bytes());
+    }
+
+    private static byte[] read(final InputStream inputStream) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final byte[] chunk = new byte[64];
+        int read;
+        while ((read = inputStream.read(chunk)) != -1) {
+            outputStream.write(chunk, 0, read);
+        }
+        inputStream.close();
+        return outputStream.toByteArray();
+    }
+}
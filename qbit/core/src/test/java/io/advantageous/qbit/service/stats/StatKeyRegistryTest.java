@@ -0,0 +1,82 @@
+package io.advantageous.qbit.service.stats;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StatKeyRegistryTest {
+
+    @Test
+    public void testIntern() {
+        final StatKeyRegistry registry = new StatKeyRegistry(10);
+
+        final int id = registry.intern("foo.bar");
+        assertEquals(id, registry.intern(new String("foo.bar")));
+        assertEquals("foo.bar", registry.name(id));
+        assertTrue(id != StatKeyRegistry.OVERFLOW_ID);
+        assertEquals(0, registry.droppedCount());
+    }
+
+    @Test
+    public void testInternNameReturnsCanonicalInstance() {
+        final StatKeyRegistry registry = new StatKeyRegistry(10);
+
+        final String name = registry.internName("foo.bar");
+        assertSame(name, registry.internName(new String("foo.bar")));
+    }
+
+    @Test
+    public void testOverflow() {
+        final StatKeyRegistry registry = new StatKeyRegistry(3, "overflow");
+
+        for (int index = 0; index < 3; index++) {
+            assertTrue(registry.intern("user." + index) != StatKeyRegistry.OVERFLOW_ID);
+        }
+
+        assertEquals(StatKeyRegistry.OVERFLOW_ID, registry.intern("user.3"));
+        assertEquals(StatKeyRegistry.OVERFLOW_ID, registry.intern("user.4"));
+        assertEquals("overflow", registry.internName("user.5"));
+
+        /* Known names still resolve after the registry is full. */
+        assertEquals("user.1", registry.internName("user.1"));
+
+        assertEquals(3, registry.droppedCount());
+        assertEquals(3, registry.droppedSamples().size());
+        assertTrue(registry.droppedSamples().contains("user.3"));
+    }
+
+    @Test
+    public void testLookupDoesNotIntern() {
+        final StatKeyRegistry registry = new StatKeyRegistry(1, "overflow");
+
+        assertEquals(StatKeyRegistry.NOT_FOUND, registry.lookup("user.0"));
+        assertEquals(2, registry.size());
+
+        final int id = registry.intern("user.0");
+        assertEquals(id, registry.lookup("user.0"));
+
+        assertEquals(StatKeyRegistry.OVERFLOW_ID, registry.lookup("user.1"));
+        assertEquals(StatKeyRegistry.OVERFLOW_ID, registry.lookup("user.1"));
+        assertEquals(0, registry.droppedCount());
+        assertTrue(registry.droppedSamples().isEmpty());
+
+        /* Every record against a dropped name counts, not just the first. */
+        registry.intern("user.1");
+        registry.intern("user.1");
+        assertEquals(2, registry.droppedCount());
+        assertEquals(1, registry.droppedSamples().size());
+    }
+
+    @Test
+    public void testGrow() {
+        final StatKeyRegistry registry = new StatKeyRegistry(1_000);
+
+        for (int index = 0; index < 1_000; index++) {
+            final String name = "stat." + index;
+            assertEquals(name, registry.name(registry.intern(name)));
+        }
+
+        assertEquals(StatKeyRegistry.OVERFLOW_ID, registry.intern("one.too.many"));
+        assertEquals(1, registry.droppedCount());
+    }
+}
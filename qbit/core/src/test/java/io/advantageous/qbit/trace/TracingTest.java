@@ -0,0 +1,100 @@
+package io.advantageous.qbit.trace;
+
+import io.advantageous.qbit.message.MethodCall;
+import io.advantageous.qbit.message.MethodCallBuilder;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TracingTest {
+
+    @After
+    public void tearDown() {
+        Tracing.setEnabled(false);
+        Tracing.exit(null);
+    }
+
+    @Test
+    public void testEncodeDecode() {
+        final TraceContext root = TraceContext.root(true);
+        final TraceContext child = root.child();
+
+        assertEquals(root.traceId(), child.traceId());
+        assertEquals(root.spanId(), child.parentSpanId());
+
+        final TraceContext decoded = TraceContext.decode(child.encode());
+        assertEquals(child, decoded);
+        assertTrue(decoded.sampled());
+
+        assertNull(TraceContext.decode(""));
+        assertNull(TraceContext.decode("abc-def"));
+        assertNull(TraceContext.decode("xyz-1-0-1"));
+    }
+
+    @Test
+    public void testRecorderWrapsAround() {
+        final SpanRecorder recorder = new SpanRecorder(4);
+        final TraceContext traceContext = TraceContext.root(true);
+
+        for (int index = 0; index < 6; index++) {
+            recorder.record(new Span(traceContext.child(), "span" + index, 0, 0, index, false));
+        }
+
+        final List<Span> spans = recorder.spans();
+        assertEquals(4, spans.size());
+        assertEquals("span2", spans.get(0).getName());
+        assertEquals("span5", spans.get(3).getName());
+        assertEquals(6, recorder.count());
+        assertEquals(4, recorder.trace(Long.toHexString(traceContext.traceId())).size());
+        assertEquals(0, recorder.trace("nope").size());
+    }
+
+    @Test
+    public void testPropagation() {
+
+        /* Off by default, nothing is traced. */
+        assertNull(new MethodCallBuilder().setName("foo").build().traceContext());
+
+        Tracing.setEnabled(true);
+
+        /* Not handling a traced call, nothing to propagate. */
+        assertNull(new MethodCallBuilder().setName("foo").build().traceContext());
+
+        final TraceContext traceContext = TraceContext.root(true);
+        final TraceContext previous = Tracing.enter(traceContext);
+        try {
+            final MethodCall<Object> methodCall = new MethodCallBuilder().setName("foo").build();
+            assertEquals(traceContext.traceId(), methodCall.traceContext().traceId());
+            assertEquals(traceContext.spanId(), methodCall.traceContext().parentSpanId());
+
+            /* Transformed calls keep the context. */
+            assertSame(methodCall.traceContext(),
+                    MethodCallBuilder.transformed(methodCall, new Object[0]).traceContext());
+        } finally {
+            Tracing.exit(previous);
+        }
+        assertNull(Tracing.current());
+    }
+
+    @Test
+    public void testRecordSpan() {
+        final SpanRecorder recorder = new SpanRecorder(10);
+        final SpanRecorder oldRecorder = Tracing.recorder();
+        Tracing.setRecorder(recorder);
+        try {
+            Tracing.recordSpan(TraceContext.root(false), "notSampled", System.nanoTime(), false);
+            Tracing.recordSpan(TraceContext.root(true), "sampled", System.nanoTime(), true);
+        } finally {
+            Tracing.setRecorder(oldRecorder);
+        }
+
+        assertEquals(1, recorder.spans().size());
+        final Span span = recorder.spans().get(0);
+        assertEquals("sampled", span.getName());
+        assertTrue(span.isError());
+        assertTrue(span.getQueueWaitNanos() >= 0);
+    }
+}
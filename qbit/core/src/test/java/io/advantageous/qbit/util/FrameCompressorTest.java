@@ -0,0 +1,63 @@
+package io.advantageous.qbit.util;
+
+import io.advantageous.qbit.service.Protocol;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class FrameCompressorTest {
+
+    @Test
+    public void testRoundTrip() {
+
+        final FrameCompressor compressor = new FrameCompressor(100);
+
+        final StringBuilder builder = new StringBuilder();
+        for (int index = 0; index < 1000; index++) {
+            builder.append("\u001cm\u001d").append(index).append("\u001d/services/someService/someMethod été");
+        }
+        final String text = builder.toString();
+
+        /* Reused for each frame, every frame reads on its own. */
+        for (int index = 0; index < 3; index++) {
+            final byte[] compressed = compressor.compress(text);
+            assertTrue(FrameCompressor.isCompressed(compressed));
+            assertTrue(compressed.length * 5 < text.length());
+            assertEquals(text, new String(compressor.decompress(compressed), StandardCharsets.UTF_8));
+        }
+
+        final byte[] binary = text.getBytes(StandardCharsets.UTF_8);
+        binary[0] = (byte) Protocol.PROTOCOL_BINARY_MARKER;
+        assertArrayEquals(binary, compressor.decompress(compressor.compress(binary)));
+
+        compressor.close();
+    }
+
+    @Test
+    public void testUnderThreshold() {
+
+        final FrameCompressor compressor = new FrameCompressor(100);
+        assertNull(compressor.compress("small"));
+        assertNull(compressor.compress(new byte[99]));
+        assertFalse(FrameCompressor.isCompressed("small".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testInflatedSizeCapped() {
+
+        final byte[] zeros = new byte[1_000_000];
+        final byte[] compressed = new FrameCompressor(100).compress(zeros);
+        assertTrue(compressed.length < 10_000);
+
+        final FrameCompressor reader = new FrameCompressor(100, 100_000);
+        try {
+            reader.decompress(compressed);
+            fail();
+        } catch (IllegalStateException expected) {
+            assertTrue(expected.getMessage().contains("100000"));
+        }
+        assertEquals(1_000_000, new FrameCompressor(100, 1_000_000).decompress(compressed).length);
+    }
+}
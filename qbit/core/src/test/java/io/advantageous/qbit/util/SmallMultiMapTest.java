@@ -0,0 +1,72 @@
+package io.advantageous.qbit.util;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class SmallMultiMapTest {
+
+    @Test
+    public void testAddAndGet() {
+        final SmallMultiMap<String, String> map = new SmallMultiMap<>(1);
+        map.add("Accept", "text/html").add("Host", "localhost").add("Accept", "application/json");
+
+        assertEquals(2, map.size());
+        assertEquals("text/html", map.get("Accept"));
+        assertEquals("text/html", map.getFirst("Accept"));
+        assertEquals(Arrays.asList("text/html", "application/json"), map.getAll("Accept"));
+        assertEquals(Collections.singletonList("localhost"), map.getAll("Host"));
+        assertFalse(map.getAll("Missing").iterator().hasNext());
+        assertNull(map.getSingleObject("Accept"));
+        assertEquals("localhost", map.getSingleObject("Host"));
+        assertEquals(new LinkedHashSet<>(Arrays.asList("Accept", "Host")), map.keySet());
+        assertTrue(map.containsKey("Host"));
+        assertTrue(map.containsValue("application/json"));
+        assertEquals(3, map.values().size());
+    }
+
+    @Test
+    public void testViews() {
+        final SmallMultiMap<String, String> map = new SmallMultiMap<>();
+        map.add("a", "1").add("b", "2").add("a", "3");
+
+        final Map<? extends String, ? extends Collection<String>> baseMap = map.baseMap();
+        assertEquals(Arrays.asList("1", "3"), baseMap.get("a"));
+        assertEquals(Collections.singletonList("2"), baseMap.get("b"));
+
+        final List<String> entries = new ArrayList<>();
+        map.entrySet().forEach(entry -> entries.add(entry.getKey() + "=" + entry.getValue()));
+        assertEquals(Arrays.asList("a=1", "b=2"), entries);
+
+        final List<String> multiEntries = new ArrayList<>();
+        for (Map.Entry<String, Collection<String>> entry : map) {
+            multiEntries.add(entry.getKey() + "=" + entry.getValue());
+        }
+        assertEquals(Arrays.asList("a=[1, 3]", "b=[2]"), multiEntries);
+
+        final MultiMap<String, String> copy = new MultiMapImpl<>();
+        copy.putAll(map);
+        assertEquals(Arrays.asList("1", "3"), copy.getAll("a"));
+    }
+
+    @Test
+    public void testRemove() {
+        final SmallMultiMap<String, String> map = new SmallMultiMap<>();
+        map.add("a", "1").add("b", "2").add("a", "3").add("c", "4");
+
+        assertTrue(map.removeValueFrom("a", "3"));
+        assertFalse(map.removeValueFrom("a", "3"));
+        assertEquals(Collections.singletonList("1"), map.getAll("a"));
+
+        assertEquals("2", map.remove("b"));
+        assertFalse(map.containsKey("b"));
+        assertEquals("4", map.get("c"));
+        assertEquals(2, map.size());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get("a"));
+    }
+}
@@ -32,8 +32,10 @@ import javax.servlet.ServletInputStream;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.function.Consumer;
 
 import static io.advantageous.qbit.http.request.HttpRequestBuilder.httpRequestBuilder;
@@ -69,10 +71,7 @@ public class QBitServletUtil {
                                               final HttpRequestBuilder httpRequestBuilder) {
 
         if (request.getMethod().equals("POST") || request.getMethod().equals("PUT")) {
-            final String body = readBody(request);
-            if (body != null) {
-                httpRequestBuilder.setBody(body);
-            }
+            httpRequestBuilder.setBodyBytes(readBodyBytes(request));
         }
     }
 
@@ -87,6 +86,34 @@ public class QBitServletUtil {
         }
     }
 
+    /**
+     * Reads the body as bytes, without decoding it to a String and encoding it back.
+     * With a content length the body is read straight into an array of that size.
+     */
+    public static byte[] readBodyBytes(final HttpServletRequest request) {
+        final int contentLength = request.getContentLength();
+        try (final ServletInputStream inputStream = request.getInputStream()) {
+            if (contentLength >= 0) {
+                final byte[] body = new byte[contentLength];
+                int offset = 0;
+                int read;
+                while (offset < contentLength && (read = inputStream.read(body, offset, contentLength - offset)) != -1) {
+                    offset += read;
+                }
+                return offset == contentLength ? body : Arrays.copyOf(body, offset);
+            }
+            final ByteArrayOutputStream body = new ByteArrayOutputStream();
+            final byte[] chunk = new byte[8192];
+            int read;
+            while ((read = inputStream.read(chunk)) != -1) {
+                body.write(chunk, 0, read);
+            }
+            return body.toByteArray();
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     private HttpRequest doConvertRequest(final AsyncContext asyncContext, Consumer<Exception> onError) {
 
         if (onError == null) {
@@ -19,7 +19,7 @@
 package io.advantageous.qbit.vertx;
 
 import io.advantageous.qbit.util.MultiMap;
-import io.advantageous.qbit.util.MultiMapImpl;
+import io.advantageous.qbit.util.SmallMultiMap;
 import org.vertx.java.core.buffer.Buffer;
 
 import java.nio.charset.StandardCharsets;
@@ -80,7 +80,7 @@ public class BufferUtils {
         final short size = buffer.getShort(location);
 
 
-        MultiMap<String, String> map = size > 0 ? new MultiMapImpl<>() : MultiMap.EMPTY;
+        MultiMap<String, String> map = size > 0 ? new SmallMultiMap<>() : MultiMap.EMPTY;
 
 
         location += 2;
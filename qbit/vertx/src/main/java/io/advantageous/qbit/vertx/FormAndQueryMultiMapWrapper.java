@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2015. Rick Hightower, Geoff Chandler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * QBit - The Microservice lib for Java : JSON, WebSocket, REST. Be The Web!
+ */
+
+package io.advantageous.qbit.vertx;
+
+import io.advantageous.qbit.util.MultiMap;
+
+import java.util.*;
+
+/**
+ * View over the form attributes and the query params of one request, without copying either.
+ * <p>
+ * Form attributes come first, then the query params. Values added through the view go to the form attributes.
+ * </p>
+ */
+public class FormAndQueryMultiMapWrapper extends MultiMapWrapper {
+
+    private final org.vertx.java.core.MultiMap queryParams;
+
+    public FormAndQueryMultiMapWrapper(final org.vertx.java.core.MultiMap formAttributes,
+                                       final org.vertx.java.core.MultiMap queryParams) {
+        super(formAttributes);
+        this.queryParams = queryParams;
+    }
+
+    @Override
+    public Iterator<Map.Entry<String, Collection<String>>> iterator() {
+        final Iterator<String> keys = keySet().iterator();
+
+        return new Iterator<Map.Entry<String, Collection<String>>>() {
+            @Override
+            public boolean hasNext() {
+                return keys.hasNext();
+            }
+
+            @Override
+            public Map.Entry<String, Collection<String>> next() {
+                final String key = keys.next();
+                return new AbstractMap.SimpleImmutableEntry<>(key, getAll(key));
+            }
+        };
+    }
+
+    @Override
+    public String getFirst(final String key) {
+        final String value = vertxMap.get(key);
+        return value != null ? value : queryParams.get(key);
+    }
+
+    @Override
+    public String get(final Object key) {
+        return getFirst((String) key);
+    }
+
+    @Override
+    public String getSingleObject(final String name) {
+        return getFirst(name);
+    }
+
+    @Override
+    public List<String> getAll(final String key) {
+        final List<String> formValues = vertxMap.getAll(key);
+        final List<String> queryValues = queryParams.getAll(key);
+        if (queryValues.isEmpty()) {
+            return formValues;
+        }
+        if (formValues.isEmpty()) {
+            return queryValues;
+        }
+        final List<String> values = new ArrayList<>(formValues.size() + queryValues.size());
+        values.addAll(formValues);
+        values.addAll(queryValues);
+        return values;
+    }
+
+    @Override
+    public boolean removeValueFrom(final String key, final String value) {
+        return removeValue(vertxMap, key, value) || removeValue(queryParams, key, value);
+    }
+
+    private static boolean removeValue(final org.vertx.java.core.MultiMap map, final String key, final String value) {
+        final List<String> values = new ArrayList<>(map.getAll(key));
+        if (!values.remove(value)) {
+            return false;
+        }
+        if (values.isEmpty()) {
+            map.remove(key);
+        } else {
+            map.set(key, values);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean removeMulti(final String key) {
+        vertxMap.remove(key);
+        queryParams.remove(key);
+        return true;
+    }
+
+    @Override
+    public String remove(final Object key) {
+        removeMulti(key.toString());
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        vertxMap.clear();
+        queryParams.clear();
+    }
+
+    @Override
+    public int size() {
+        return keySet().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return vertxMap.isEmpty() && queryParams.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return vertxMap.contains((String) key) || queryParams.contains((String) key);
+    }
+
+    @Override
+    public boolean containsValue(final Object value) {
+        return values().contains(value);
+    }
+
+    @Override
+    public Iterable<String> valueMulti() {
+        return values();
+    }
+
+    @SuppressWarnings("NullableProblems")
+    @Override
+    public Collection<String> values() {
+        final List<String> values = new ArrayList<>();
+        for (Map.Entry<String, String> entry : vertxMap) {
+            values.add(entry.getValue());
+        }
+        for (Map.Entry<String, String> entry : queryParams) {
+            values.add(entry.getValue());
+        }
+        return values;
+    }
+
+    @Override
+    public Iterable<String> keySetMulti() {
+        return keySet();
+    }
+
+    @SuppressWarnings("NullableProblems")
+    @Override
+    public Set<String> keySet() {
+        final Set<String> keys = new LinkedHashSet<>(vertxMap.names());
+        keys.addAll(queryParams.names());
+        return keys;
+    }
+
+    @Override
+    public String toString() {
+        return "FormAndQueryMultiMapWrapper{" + entrySet() + '}';
+    }
+}
@@ -111,8 +111,8 @@ public class MultiMapWrapper implements MultiMap<String, String> {
     @Override
     public Iterable<String> valueMulti() {
         /* We could support this. */
-        //noinspection unchecked
-        return die(Iterable.class, "NOT SUPPORTED");
+        die("NOT SUPPORTED");
+        return null;
     }
 
     @Override
@@ -131,8 +131,12 @@ public class MultiMapWrapper implements MultiMap<String, String> {
     @Override
     public Map<? extends String, ? extends Collection<String>> baseMap() {
 
-        //noinspection unchecked
-        return die(Map.class, "NOT SUPPORTED");
+        final Map<String, Collection<String>> map = new LinkedHashMap<>();
+        for (String key : keySet()) {
+            //noinspection unchecked
+            map.put(key, (Collection<String>) getAll(key));
+        }
+        return map;
     }
 
     @Override
@@ -203,8 +207,8 @@ public class MultiMapWrapper implements MultiMap<String, String> {
     @SuppressWarnings("NullableProblems")
     @Override
     public Collection<String> values() {
-        //noinspection unchecked
-        return die(Collection.class, "Not supported");
+        die("Not supported");
+        return null;
     }
 
     @SuppressWarnings("NullableProblems")
@@ -26,11 +26,17 @@ import io.advantageous.boon.primitive.CharBuf;
 import io.advantageous.qbit.GlobalConstants;
 import io.advantageous.qbit.concurrent.ExecutorContext;
 import io.advantageous.qbit.http.client.HttpClient;
+import io.advantageous.qbit.http.client.HttpClientClosedConnectionException;
+import io.advantageous.qbit.http.client.HttpClientTimeoutException;
 import io.advantageous.qbit.http.request.HttpRequest;
 import io.advantageous.qbit.http.request.HttpResponseReceiver;
 import io.advantageous.qbit.http.websocket.WebSocket;
 import io.advantageous.qbit.http.websocket.WebSocketSender;
 import io.advantageous.qbit.network.NetSocket;
+import io.advantageous.qbit.service.Protocol;
+import io.advantageous.qbit.trace.TraceContext;
+import io.advantageous.qbit.trace.Tracing;
+import io.advantageous.qbit.util.FrameCompressor;
 import io.advantageous.qbit.util.MultiMap;
 import io.advantageous.qbit.vertx.MultiMapWrapper;
 import io.advantageous.qbit.vertx.http.util.VertxCreate;
@@ -39,17 +45,22 @@ import org.slf4j.LoggerFactory;
 import org.vertx.java.core.Vertx;
 import org.vertx.java.core.VertxFactory;
 import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.http.CaseInsensitiveMultiMap;
 import org.vertx.java.core.http.HttpClientRequest;
 import org.vertx.java.core.http.HttpClientResponse;
 import org.vertx.java.core.http.HttpHeaders;
+import org.vertx.java.core.http.WebSocketVersion;
 
 import java.io.UnsupportedEncodingException;
 import java.net.ConnectException;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
@@ -91,8 +102,16 @@ public class HttpVertxClient implements HttpClient {
     private final boolean tcpNoDelay;
     private final int soLinger;
     protected int poolSize;
-    protected org.vertx.java.core.http.HttpClient httpClient;
+    protected volatile org.vertx.java.core.http.HttpClient httpClient;
     protected final Vertx vertx;
+    /**
+     * Web sockets get their own client, so recycling the request connections does not close them.
+     */
+    private org.vertx.java.core.http.HttpClient webSocketClient;
+    /**
+     * Requests sent and not yet answered or failed, so the ones on a client that is closed can be failed.
+     */
+    private final Set<InFlight> inFlight = ConcurrentHashMap.newKeySet();
     volatile long responseCount = 0;
     private ExecutorContext executorContext;
     private final boolean autoFlush;
@@ -143,6 +162,11 @@ public class HttpVertxClient implements HttpClient {
 
     @Override
     public void sendHttpRequest(final HttpRequest request) {
+        sendHttpRequest(request, -1);
+    }
+
+    @Override
+    public void sendHttpRequest(final HttpRequest request, final long timeoutInMilliseconds) {
 
         checkClosed();
 
@@ -152,9 +176,35 @@ public class HttpVertxClient implements HttpClient {
 
         String uri = getURICreateParamsIfNeeded(request);
 
-        final HttpClientRequest httpClientRequest = httpClient.request(
+        final org.vertx.java.core.http.HttpClient client = httpClient;
+        final InFlight sent = new InFlight(request, client);
+
+        final HttpClientRequest httpClientRequest = client.request(
                 request.getMethod(), uri,
-                httpClientResponse -> handleResponse(request, httpClientResponse));
+                httpClientResponse -> handleResponse(sent, httpClientResponse));
+        inFlight.add(sent);
+
+        /* Failures reach the receiver too, so callers waiting on it (like a pool slot) are freed. */
+        httpClientRequest.exceptionHandler(throwable -> {
+            if (throwable instanceof ConnectException) {
+                handleClientException(throwable);
+            }
+            if (!inFlight.remove(sent)) {
+                return;
+            }
+            if (throwable instanceof TimeoutException) {
+                request.getReceiver().errorHandler().accept(
+                        new HttpClientTimeoutException(throwable.getMessage(), throwable));
+                handleRequestTimeout(client);
+                return;
+            }
+            request.getReceiver().errorHandler().accept(
+                    throwable instanceof Exception ? (Exception) throwable : new Exception(throwable));
+        });
+
+        if (timeoutInMilliseconds > 0) {
+            httpClientRequest.setTimeout(timeoutInMilliseconds);
+        }
 
         final MultiMap<String, String> headers = request.getHeaders();
 
@@ -165,6 +215,12 @@ public class HttpVertxClient implements HttpClient {
             }
         }
 
+        /* Requests sent while a traced call is handled carry a child span. */
+        final TraceContext traceContext = Tracing.forOutgoingCall();
+        if (traceContext != null) {
+            httpClientRequest.putHeader(TraceContext.HEADER, traceContext.encode());
+        }
+
         final byte[] body = request.getBody();
 
         if (keepAlive) {
@@ -252,11 +308,16 @@ public class HttpVertxClient implements HttpClient {
             if (httpClient != null) {
                 httpClient.close();
             }
+            if (webSocketClient != null) {
+                webSocketClient.close();
+            }
         } catch (Exception ex) {
 
             logger.debug("problem shutting down vertx httpClient for QBIT Http Client", ex);
         }
 
+        failInFlight(null, "Client of " + host + " port " + port + " was stopped");
+
         if (vertx != null) {
             try {
                 vertx.stop();
@@ -302,27 +363,77 @@ public class HttpVertxClient implements HttpClient {
     }
 
     private WebSocketSender createWebSocketSender(String uri) {
+
+        /*
+         * With compression on we ask the server for deflated frames. A server that sends one reads them too,
+         * from then on our big frames go out deflated as well.
+         * Each connection gets its own compressor, the socket is opened again on reconnect.
+         */
         return new WebSocketSender() {
             volatile org.vertx.java.core.http.WebSocket vertxWebSocket;
+            volatile FrameCompressor compressor;
+            volatile boolean compress;
 
             @Override
             public void sendText(String message) {
-                vertxWebSocket.writeTextFrame(message);
+                final byte[] compressed = compress ? compressor.compress(message) : null;
+                if (compressed != null) {
+                    vertxWebSocket.writeBinaryFrame(new Buffer(compressed));
+                } else {
+                    vertxWebSocket.writeTextFrame(message);
+                }
             }
 
             @Override
             public void openWebSocket(WebSocket webSocket) {
 
-                httpClient.connectWebsocket(uri, vertxWebSocket -> {
+                final org.vertx.java.core.MultiMap handshakeHeaders = new CaseInsensitiveMultiMap();
+                if (tryUseCompression) {
+                    handshakeHeaders.add(FrameCompressor.HEADER, FrameCompressor.DEFLATE);
+                }
+
+                webSocketClient.connectWebsocket(uri, WebSocketVersion.RFC6455, handshakeHeaders, vertxWebSocket -> {
+                    final FrameCompressor compressor = new FrameCompressor(FrameCompressor.DEFAULT_THRESHOLD,
+                            maxWebSocketFrameSize);
+                    this.compress = false;
+                    this.compressor = compressor;
                     this.vertxWebSocket = vertxWebSocket;
 
                     /* Handle on Message. */
-                    vertxWebSocket.dataHandler(
-                            buffer -> webSocket.onTextMessage(buffer.toString("UTF-8"))
-                    );
+                    vertxWebSocket.dataHandler(buffer -> {
+                        final int marker = buffer.length() > 0 ? buffer.getByte(0) : -1;
+                        if (marker == Protocol.PROTOCOL_COMPRESSED_MARKER) {
+                            if (!tryUseCompression) {
+                                webSocket.onError(new IllegalStateException("Compressed frame was not asked for"));
+                                vertxWebSocket.close();
+                                return;
+                            }
+                            compress = true;
+                            final byte[] frame;
+                            try {
+                                frame = compressor.decompress(buffer.getBytes());
+                            } catch (IllegalStateException ex) {
+                                webSocket.onError(ex);
+                                vertxWebSocket.close();
+                                return;
+                            }
+                            if (frame.length > 0 && frame[0] == Protocol.PROTOCOL_BINARY_MARKER) {
+                                webSocket.onBinaryMessage(frame);
+                            } else {
+                                webSocket.onTextMessage(new String(frame, StandardCharsets.UTF_8));
+                            }
+                        } else if (marker == Protocol.PROTOCOL_BINARY_MARKER) {
+                            webSocket.onBinaryMessage(buffer.getBytes());
+                        } else {
+                            webSocket.onTextMessage(buffer.toString("UTF-8"));
+                        }
+                    });
 
                     /* Handle onClose */
-                    vertxWebSocket.closeHandler(event -> webSocket.onClose());
+                    vertxWebSocket.closeHandler(event -> {
+                        compressor.close();
+                        webSocket.onClose();
+                    });
 
                     /* Handle on Exception. */
                     vertxWebSocket.exceptionHandler(event -> {
@@ -346,7 +457,8 @@ public class HttpVertxClient implements HttpClient {
 
             @Override
             public void sendBytes(byte[] message) {
-                vertxWebSocket.writeBinaryFrame(new Buffer(message));
+                final byte[] compressed = compress ? compressor.compress(message) : null;
+                vertxWebSocket.writeBinaryFrame(new Buffer(compressed != null ? compressed : message));
             }
         };
     }
@@ -355,7 +467,8 @@ public class HttpVertxClient implements HttpClient {
     public void flush() {
     }
 
-    private void handleResponse(final HttpRequest request, final HttpClientResponse httpClientResponse) {
+    private void handleResponse(final InFlight sent, final HttpClientResponse httpClientResponse) {
+        final HttpRequest request = sent.request;
         final int statusCode = httpClientResponse.statusCode();
         final MultiMap<String, String> headers = httpClientResponse.headers().size() == 0 ? MultiMap.empty() : new MultiMapWrapper(httpClientResponse.headers());
 
@@ -366,6 +479,11 @@ public class HttpVertxClient implements HttpClient {
 
         httpClientResponse.bodyHandler(buffer -> {
 
+            /* Already failed, it timed out or its client was closed. */
+            if (!inFlight.remove(sent)) {
+                return;
+            }
+
             if (request.getReceiver().isText()) {
                 final String body = buffer.toString("UTF-8");
 
@@ -424,7 +542,19 @@ public class HttpVertxClient implements HttpClient {
     private final int soLinger;
 
          */
-        httpClient = vertx.createHttpClient().setHost(host).setPort(port)
+        httpClient = createVertxHttpClient();
+        webSocketClient = createVertxHttpClient();
+
+        if (debug) logger.debug("HTTP CLIENT: connect:: \nhost {} \nport {}\n", host, port);
+
+        Sys.sleep(100);
+
+        closed.set(false);
+
+    }
+
+    private org.vertx.java.core.http.HttpClient createVertxHttpClient() {
+        final org.vertx.java.core.http.HttpClient client = vertx.createHttpClient().setHost(host).setPort(port)
                 .setConnectTimeout(timeOutInMilliseconds)
                 .setMaxPoolSize(poolSize)
                 .setKeepAlive(keepAlive)
@@ -439,34 +569,65 @@ public class HttpVertxClient implements HttpClient {
                 .setKeyStorePassword(trustStorePassword)
                 .setMaxWebSocketFrameSize(maxWebSocketFrameSize);
 
+        client.setUsePooledBuffers(true);
+        client.exceptionHandler(this::handleClientException);
+        return client;
+    }
 
+    private void handleClientException(final Throwable throwable) {
 
+        if (throwable instanceof ConnectException) {
+            closed.set(true);
+            try {
+                stop();
+            } catch (Exception ex) {
+                logger.warn("Unable to stop client " +
+                        "after failed connection", ex);
+            }
+        } else {
+            logger.error("Unable to connect to " + host + " port " + port, throwable);
+        }
+    }
 
-        httpClient.setUsePooledBuffers(true);
-
-        if (debug) logger.debug("HTTP CLIENT: connect:: \nhost {} \nport {}\n", host, port);
-
-        httpClient.exceptionHandler(throwable -> {
 
-            if (throwable instanceof ConnectException) {
-                closed.set(true);
-                try {
-                    stop();
-                } catch (Exception ex) {
-                    logger.warn("Unable to stop client " +
-                            "after failed connection", ex);
-                }
-            } else {
-                logger.error("Unable to connect to " + host + " port " + port, throwable);
+    /**
+     * Vert.x 2 only reports the timeout, the request still holds its connection and whatever is pipelined behind
+     * it. It has no way to close that one connection, so the request connections are swapped for new ones and
+     * the old ones closed. The requests still on them fail. This runs after the timer callback that reported the
+     * timeout, and leaves Vert.x and the web sockets alone.
+     *
+     * @param timedOut client the timed out request was sent on
+     */
+    private void handleRequestTimeout(final org.vertx.java.core.http.HttpClient timedOut) {
+        vertx.runOnContext(event -> {
+            if (closed.get() || httpClient != timedOut) {
+                return;
             }
+            logger.info("Opening new connections to " + host + " port " + port + " after a request timed out");
+            httpClient = createVertxHttpClient();
+            try {
+                timedOut.close();
+            } catch (Exception ex) {
+                logger.debug("problem closing connections after a request timed out", ex);
+            }
+            failInFlight(timedOut, "Connection to " + host + " port " + port
+                    + " was closed after another request timed out");
         });
-
-        Sys.sleep(100);
-
-        closed.set(false);
-
     }
 
+    /**
+     * Fails the requests still waiting for a response.
+     *
+     * @param client only the requests sent on this client, null for all
+     * @param message error message
+     */
+    private void failInFlight(final org.vertx.java.core.http.HttpClient client, final String message) {
+        for (InFlight sent : inFlight) {
+            if ((client == null || sent.client == client) && inFlight.remove(sent)) {
+                sent.request.getReceiver().errorHandler().accept(new HttpClientClosedConnectionException(message));
+            }
+        }
+    }
 
     public boolean isClosed() {
         return closed.get();
@@ -495,4 +656,14 @@ public class HttpVertxClient implements HttpClient {
     public void start() {
         startClient();
     }
+
+    private static final class InFlight {
+        private final HttpRequest request;
+        private final org.vertx.java.core.http.HttpClient client;
+
+        private InFlight(final HttpRequest request, final org.vertx.java.core.http.HttpClient client) {
+            this.request = request;
+            this.client = client;
+        }
+    }
 }
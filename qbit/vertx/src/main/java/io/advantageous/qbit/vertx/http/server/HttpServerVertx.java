@@ -22,11 +22,14 @@ package io.advantageous.qbit.vertx.http.server;
 import io.advantageous.boon.core.Str;
 import io.advantageous.boon.core.reflection.BeanUtils;
 import io.advantageous.qbit.GlobalConstants;
+import io.advantageous.qbit.http.HttpStatus;
 import io.advantageous.qbit.http.HttpContentTypes;
 import io.advantageous.qbit.http.request.HttpResponseCreator;
 import io.advantageous.qbit.http.request.HttpResponseDecorator;
 import io.advantageous.qbit.http.config.HttpServerOptions;
 import io.advantageous.qbit.http.request.HttpRequest;
+import io.advantageous.qbit.http.request.SpooledBody;
+import io.advantageous.qbit.http.server.AdmissionController;
 import io.advantageous.qbit.http.server.HttpServer;
 import io.advantageous.qbit.http.server.impl.SimpleHttpServer;
 import io.advantageous.qbit.http.server.websocket.WebSocketMessage;
@@ -42,6 +45,9 @@ import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.http.HttpServerRequest;
 import org.vertx.java.core.http.ServerWebSocket;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
@@ -52,6 +58,11 @@ import java.util.function.Predicate;
  */
 public class HttpServerVertx implements HttpServer {
 
+    /**
+     * Content-Length that is not a number, or is negative.
+     */
+    private static final long MALFORMED_CONTENT_LENGTH = -2;
+
     private final Logger logger = LoggerFactory.getLogger(HttpServerVertx.class);
     private final boolean debug = GlobalConstants.DEBUG || logger.isDebugEnabled();
     private final QBitSystemManager systemManager;
@@ -60,8 +71,13 @@ public class HttpServerVertx implements HttpServer {
     private final String host;
     private final Vertx vertx;
     private final HttpServerOptions options;
-    private final VertxServerUtils vertxUtils = new VertxServerUtils();
-    private org.vertx.java.core.http.HttpServer httpServer;
+    private final VertxServerUtils vertxUtils;
+    private final File bodySpillDirectory;
+    /**
+     * Null when every request is let in.
+     */
+    private final AdmissionController admissionController;
+    private final List<org.vertx.java.core.http.HttpServer> httpServers = new ArrayList<>();
 
     /**
      * For Metrics.
@@ -93,6 +109,12 @@ public class HttpServerVertx implements HttpServer {
         this.port = options.getPort();
         this.host = options.getHost();
         this.options = BeanUtils.copy(options);
+        this.bodySpillDirectory = options.getBodySpillDirectory() == null ? null :
+                new File(options.getBodySpillDirectory());
+        this.admissionController = options.getMaxConcurrentRequests() > 0 ?
+                new AdmissionController(options.getMaxConcurrentRequests(), options.getRouteConcurrencyLimits()) : null;
+        this.vertxUtils = new VertxServerUtils(vertx, options.isCompressionSupport() ?
+                options.getWebSocketCompressionThreshold() : -1, options.getMaxWebSocketFrameSize());
         this.setWebSocketIdleConsume(aVoid -> {
         });
         this.setHttpRequestsIdleConsumer(aVoid -> {
@@ -150,7 +172,29 @@ public class HttpServerVertx implements HttpServer {
         if (debug) {
             vertx.setPeriodic(10_000, event -> logger.info("Exception Count {} Close Count {}", exceptionCount, closeCount));
         }
-        httpServer = vertx.createHttpServer();
+        final int serverCount = Math.max(1, options.getWorkers());
+
+        for (int index = 0; index < serverCount; index++) {
+            httpServers.add(createHttpServer());
+        }
+
+        logger.info("HTTP SERVER started on port " + port + " host " + host + " servers " + serverCount);
+
+    }
+
+    /**
+     * Creates one server and has it listen on the shared port.
+     * <p>
+     * Called from outside Vert.x, each server is bound to the next event loop, and Vert.x hands new
+     * connections to the servers on a port round robin. A request is decoded, routed and answered on the
+     * loop that accepted its connection.
+     * </p>
+     *
+     * @return server
+     */
+    private org.vertx.java.core.http.HttpServer createHttpServer() {
+
+        final org.vertx.java.core.http.HttpServer httpServer = vertx.createHttpServer();
 
         httpServer.setTCPNoDelay(options.isTcpNoDelay());
         httpServer.setSoLinger(options.getSoLinger());
@@ -172,9 +216,7 @@ public class HttpServerVertx implements HttpServer {
         } else {
             httpServer.listen(port, host);
         }
-
-        logger.info("HTTP SERVER started on port " + port + " host " + host);
-
+        return httpServer;
     }
 
 
@@ -182,10 +224,11 @@ public class HttpServerVertx implements HttpServer {
     public void stop() {
         simpleHttpServer.stop();
         try {
-            if (httpServer != null) {
+            for (org.vertx.java.core.http.HttpServer httpServer : httpServers) {
 
                 httpServer.close();
             }
+            httpServers.clear();
 
             if (vertx != null) {
                 vertx.stop();
@@ -207,11 +250,38 @@ public class HttpServerVertx implements HttpServer {
             logger.debug("HttpServerVertx::handleHttpRequest::{}:{}", request.method(), request.uri());
         }
 
+        final Runnable onResponseEnd;
+        final Runnable onResponseClosed;
+        if (admissionController != null) {
+            final AdmissionController.Permit permit = admissionController.tryAcquire(request.path());
+            if (permit == null) {
+                rejectRequest(request);
+                return;
+            }
+            /* A client that goes away did not complete a response, it must not feed the limit. */
+            request.response().closeHandler(event -> permit.drop());
+            onResponseEnd = permit::release;
+            onResponseClosed = permit::drop;
+        } else {
+            onResponseEnd = null;
+            onResponseClosed = null;
+        }
+
         switch (request.method()) {
 
             case "PUT":
             case "POST":
 
+                final long contentLength = contentLength(request);
+                if (contentLength == MALFORMED_CONTENT_LENGTH) {
+                    rejectBody(request, HttpStatus.BAD_REQUEST, "\"malformed Content-Length\"", onResponseEnd);
+                    break;
+                }
+                if (options.getMaxBodySize() >= 0 && contentLength > options.getMaxBodySize()) {
+                    rejectBody(request, HttpStatus.REQUEST_TOO_LARGE, "\"request body too large\"", onResponseEnd);
+                    break;
+                }
+
                 final String contentType = request.headers().get("Content-Type");
 
 
@@ -221,17 +291,23 @@ public class HttpServerVertx implements HttpServer {
                     request.endHandler(event -> {
 
                         final HttpRequest postRequest = vertxUtils.createRequest(request, null,
-                                simpleHttpServer.getDecorators(), simpleHttpServer.getHttpResponseCreator());
+                                simpleHttpServer.getDecorators(), simpleHttpServer.getHttpResponseCreator(),
+                                onResponseEnd, onResponseClosed);
 
                         simpleHttpServer.handleRequest(postRequest);
 
                     });
 
+                } else if (options.getMaxInMemoryBodySize() >= 0) {
+
+                    handleStreamedBody(request, contentLength, onResponseEnd, onResponseClosed);
+
                 } else {
 
                     request.bodyHandler((Buffer buffer) -> {
                         final HttpRequest postRequest = vertxUtils.createRequest(request, buffer,
-                                simpleHttpServer.getDecorators(), simpleHttpServer.getHttpResponseCreator());
+                                simpleHttpServer.getDecorators(), simpleHttpServer.getHttpResponseCreator(),
+                                onResponseEnd, onResponseClosed);
 
                         simpleHttpServer.handleRequest(postRequest);
 
@@ -246,11 +322,15 @@ public class HttpServerVertx implements HttpServer {
             case "GET":
                 final HttpRequest getRequest;
                 getRequest = vertxUtils.createRequest(request, null,
-                        simpleHttpServer.getDecorators(), simpleHttpServer.getHttpResponseCreator());
+                        simpleHttpServer.getDecorators(), simpleHttpServer.getHttpResponseCreator(), onResponseEnd,
+                        onResponseClosed);
                 simpleHttpServer.handleRequest(getRequest);
                 break;
 
             default:
+                if (onResponseClosed != null) {
+                    onResponseClosed.run();
+                }
                 throw new IllegalStateException("method not supported yet " + request.method());
 
         }
@@ -258,6 +338,79 @@ public class HttpServerVertx implements HttpServer {
     }
 
 
+    /**
+     * Reads the body chunk by chunk into a spooled body, which spills to disk past the in-memory limit,
+     * and hands the request on once the body has ended.
+     */
+    private void handleStreamedBody(final HttpServerRequest request, final long contentLength,
+                                    final Runnable onResponseEnd, final Runnable onResponseClosed) {
+
+        final SpooledBody spooledBody = new SpooledBody(options.getMaxInMemoryBodySize(), bodySpillDirectory,
+                contentLength);
+
+        new StreamedBodyReader(request, spooledBody, options.getMaxBodySize(), vertx.currentContext(), onResponseEnd,
+                body -> {
+                    final HttpRequest postRequest = vertxUtils.createStreamedRequest(request, body,
+                            simpleHttpServer.getDecorators(), simpleHttpServer.getHttpResponseCreator(),
+                            onResponseEnd, onResponseClosed);
+
+                    simpleHttpServer.handleRequest(postRequest);
+                }).start();
+    }
+
+    /**
+     * @return the Content-Length header, -1 if there is none, or {@link #MALFORMED_CONTENT_LENGTH}
+     */
+    private static long contentLength(final HttpServerRequest request) {
+        final String contentLength = request.headers().get("Content-Length");
+        if (Str.isEmpty(contentLength)) {
+            return -1;
+        }
+        try {
+            final long length = Long.parseLong(contentLength.trim());
+            return length < 0 ? MALFORMED_CONTENT_LENGTH : length;
+        } catch (NumberFormatException ex) {
+            return MALFORMED_CONTENT_LENGTH;
+        }
+    }
+
+    /**
+     * Answers a POST or PUT from its headers, its body is not read.
+     */
+    private void rejectBody(final HttpServerRequest request, final int code, final String message,
+                            final Runnable onResponseEnd) {
+        if (debug) {
+            logger.debug("HttpServerVertx::rejectBody::{}:{} {}", request.method(), request.uri(), code);
+        }
+        request.response().setStatusCode(code).setStatusMessage(HttpStatus.message(code))
+                .putHeader("Content-Type", "application/json")
+                .end(message);
+        if (onResponseEnd != null) {
+            onResponseEnd.run();
+        }
+    }
+
+    /**
+     * @return admission controller of the server, null when the number of requests in flight is not capped
+     */
+    public AdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
+    /**
+     * Turns the request away before its body is read or anything is decoded.
+     */
+    private void rejectRequest(final HttpServerRequest request) {
+        if (debug) {
+            logger.debug("HttpServerVertx::rejectRequest::{}:{} limit {}", request.method(), request.uri(),
+                    admissionController.getLimit(request.path()));
+        }
+        request.response().setStatusCode(HttpStatus.TOO_MANY_REQUEST)
+                .setStatusMessage(HttpStatus.message(HttpStatus.TOO_MANY_REQUEST))
+                .putHeader("Content-Type", "application/json")
+                .end("\"too many requests\"");
+    }
+
     private void setupMetrics(final HttpServerRequest request) {
 
         request.exceptionHandler(event -> {
@@ -0,0 +1,200 @@
+package io.advantageous.qbit.vertx.http.server;
+
+import io.advantageous.qbit.http.HttpStatus;
+import io.advantageous.qbit.http.request.SpooledBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.vertx.java.core.Context;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.http.HttpServerRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Reads a POST or PUT body chunk by chunk into a {@link SpooledBody}.
+ * <p>
+ * Chunks that stay in memory are copied on the event loop. Writes that touch the disk run on a spool thread, and
+ * the request is paused until they are done, so a slow disk holds up that one request and not the event loop.
+ * A body that grows past the max body size is turned away with a 413 and the rest of it is ignored.
+ * </p>
+ * <p>
+ * Everything but the disk writes runs on the event loop of the request.
+ * </p>
+ */
+final class StreamedBodyReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamedBodyReader.class);
+
+    private static final AtomicInteger spoolThreadCount = new AtomicInteger();
+
+    private static final ExecutorService spoolers = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "HttpServerVertx body spool " + spoolThreadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final HttpServerRequest request;
+    private final SpooledBody body;
+    private final long maxBodySize;
+    private final Context context;
+    private final Runnable onResponseEnd;
+    private final Consumer<SpooledBody> onBody;
+
+    /**
+     * Chunks waiting for the spool thread.
+     */
+    private final List<byte[]> queued = new ArrayList<>();
+    private long received;
+    private boolean writing;
+    private boolean endReceived;
+    private boolean done;
+
+    /**
+     * @param request       request to read
+     * @param body          body to read into
+     * @param maxBodySize   most bytes taken, or -1 for any size
+     * @param context       event loop of the request
+     * @param onResponseEnd called when the request is answered here, may be null
+     * @param onBody        gets the ended body
+     */
+    StreamedBodyReader(final HttpServerRequest request, final SpooledBody body, final long maxBodySize,
+                       final Context context, final Runnable onResponseEnd, final Consumer<SpooledBody> onBody) {
+        this.request = request;
+        this.body = body;
+        this.maxBodySize = maxBodySize;
+        this.context = context;
+        this.onResponseEnd = onResponseEnd;
+        this.onBody = onBody;
+    }
+
+    void start() {
+        request.dataHandler(this::handleData);
+        request.exceptionHandler(this::handleException);
+        request.endHandler(event -> handleEnd());
+    }
+
+    private void handleData(final Buffer buffer) {
+        if (done) {
+            return;
+        }
+
+        received += buffer.length();
+        if (maxBodySize >= 0 && received > maxBodySize) {
+            respond(HttpStatus.REQUEST_TOO_LARGE, "\"request body too large\"");
+            return;
+        }
+
+        if (!writing && body.fitsInMemory(buffer.length())) {
+            body.write(buffer.getByteBuf().nioBuffer());
+            return;
+        }
+
+        /* The buffer is only ours until this handler returns. */
+        queued.add(buffer.getBytes());
+        if (!writing) {
+            request.pause();
+            writeQueued();
+        }
+    }
+
+    private void writeQueued() {
+        final List<byte[]> chunks = new ArrayList<>(queued);
+        queued.clear();
+        writing = true;
+
+        spoolers.execute(() -> {
+            IllegalStateException failure = null;
+            try {
+                for (byte[] chunk : chunks) {
+                    body.write(chunk);
+                }
+            } catch (IllegalStateException ex) {
+                failure = ex;
+            }
+            final IllegalStateException error = failure;
+            context.runOnContext(event -> written(error));
+        });
+    }
+
+    private void written(final IllegalStateException failure) {
+        writing = false;
+
+        if (done) {
+            /* Turned away while the write was going, the rest of the body is read and dropped. */
+            body.close();
+            request.resume();
+            return;
+        }
+        if (failure != null) {
+            logger.warn("Unable to spool body of " + request.uri(), failure);
+            respond(HttpStatus.ERROR, "\"unable to read body\"");
+            request.resume();
+            return;
+        }
+        if (!queued.isEmpty()) {
+            writeQueued();
+        } else if (endReceived) {
+            finish();
+        } else {
+            request.resume();
+        }
+    }
+
+    private void handleEnd() {
+        if (done) {
+            return;
+        }
+        endReceived = true;
+        if (!writing) {
+            finish();
+        }
+    }
+
+    private void finish() {
+        done = true;
+        try {
+            body.end();
+        } catch (IllegalStateException ex) {
+            logger.warn("Unable to spool body of " + request.uri(), ex);
+            body.close();
+            answer(HttpStatus.ERROR, "\"unable to read body\"");
+            return;
+        }
+        onBody.accept(body);
+    }
+
+    private void handleException(final Throwable throwable) {
+        logger.warn("Unable to read body of " + request.uri(), throwable);
+        if (done) {
+            return;
+        }
+        done = true;
+        if (!writing) {
+            body.close();
+        }
+    }
+
+    /**
+     * Answers the request before its body is all in, the body is closed once no write is using it.
+     */
+    private void respond(final int code, final String message) {
+        done = true;
+        if (!writing) {
+            body.close();
+        }
+        answer(code, message);
+    }
+
+    private void answer(final int code, final String message) {
+        request.response().setStatusCode(code).setStatusMessage(HttpStatus.message(code))
+                .putHeader("Content-Type", "application/json").end(message);
+        if (onResponseEnd != null) {
+            onResponseEnd.run();
+        }
+    }
+}
@@ -3,9 +3,12 @@ package io.advantageous.qbit.vertx.http.server;
 import io.advantageous.qbit.http.request.HttpResponseCreator;
 import io.advantageous.qbit.http.request.HttpResponseDecorator;
 import io.advantageous.qbit.http.HttpStatus;
+import io.advantageous.qbit.http.request.HttpChunkedResponseReceiver;
 import io.advantageous.qbit.http.request.HttpResponse;
 import io.advantageous.qbit.http.request.HttpResponseReceiver;
+import io.advantageous.qbit.http.request.SpooledBody;
 import io.advantageous.qbit.util.MultiMap;
+import org.vertx.java.core.Context;
 import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.http.HttpServerResponse;
 
@@ -13,8 +16,15 @@ import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class VertxHttpResponseReceiver implements HttpResponseReceiver<Object> {
+public class VertxHttpResponseReceiver implements HttpResponseReceiver<Object>, HttpChunkedResponseReceiver {
+
+    /**
+     * Chunks handed to the event loop but not written yet, past this the pump waits for the loop to catch up.
+     */
+    private static final int MAX_PENDING_CHUNKS = 4;
 
     private final HttpServerResponse response;
     private final CopyOnWriteArrayList<HttpResponseDecorator> decorators;
@@ -22,6 +32,11 @@ public class VertxHttpResponseReceiver implements HttpResponseReceiver<Object> {
     private final String requestPath;
     private final MultiMap<String, String> requestHeaders;
     private final MultiMap<String, String> requestParams;
+    private final SpooledBody requestBody;
+    private final Context context;
+    private final Runnable onResponseEnd;
+    private final Runnable onResponseClosed;
+    private final AtomicInteger pendingChunks = new AtomicInteger();
 
     public VertxHttpResponseReceiver(final String requestPath,
                                      final MultiMap<String, String> headers,
@@ -29,6 +44,30 @@ public class VertxHttpResponseReceiver implements HttpResponseReceiver<Object> {
                                      final HttpServerResponse response,
                                      final CopyOnWriteArrayList<HttpResponseDecorator> decorators,
                                      final HttpResponseCreator httpResponseCreator) {
+        this(requestPath, headers, params, response, decorators, httpResponseCreator, null, null, null, null);
+    }
+
+    /**
+     * @param requestBody streamed request body, released once the response is written
+     * @param context     event loop of the request, chunked responses are handed over to it
+     * @param onResponseEnd    run when the response is written, may be null
+     * @param onResponseClosed run when the connection closes or the response is aborted before it was written,
+     *                         may be null
+     */
+    public VertxHttpResponseReceiver(final String requestPath,
+                                     final MultiMap<String, String> headers,
+                                     final MultiMap<String, String> params,
+                                     final HttpServerResponse response,
+                                     final CopyOnWriteArrayList<HttpResponseDecorator> decorators,
+                                     final HttpResponseCreator httpResponseCreator,
+                                     final SpooledBody requestBody,
+                                     final Context context,
+                                     final Runnable onResponseEnd,
+                                     final Runnable onResponseClosed) {
+        this.requestBody = requestBody;
+        this.onResponseEnd = onResponseEnd;
+        this.onResponseClosed = onResponseClosed;
+        this.context = context;
         this.response = response;
         this.decorators = decorators;
         this.httpResponseCreator = httpResponseCreator;
@@ -36,6 +75,17 @@ public class VertxHttpResponseReceiver implements HttpResponseReceiver<Object> {
         this.requestHeaders = headers;
         this.requestParams = params;
 
+        if (onResponseClosed != null) {
+            response.closeHandler(event -> onResponseClosed.run());
+        }
+    }
+
+    /**
+     * Everything is written as bytes, so take bytes. Decorators may only handle text, give them text.
+     */
+    @Override
+    public boolean isText() {
+        return decorators.size() > 0;
     }
 
     @Override
@@ -79,6 +129,118 @@ public class VertxHttpResponseReceiver implements HttpResponseReceiver<Object> {
 
         Buffer buffer = createBuffer(body, this.response);
         this.response.end(buffer);
+        releaseRequestBody();
+        responseEnded();
+    }
+
+    @Override
+    public void startChunks(final int code, final String contentType, final MultiMap<String, String> headers,
+                            final Runnable onClose) {
+        onLoop(() -> {
+            if (!headers.isEmpty()) {
+                for (Map.Entry<String, Collection<String>> entry : headers) {
+                    this.response.putHeader(entry.getKey(), entry.getValue());
+                }
+            }
+
+            this.response.putHeader("Content-Type", contentType);
+            this.response.setStatusCode(code);
+            this.response.setStatusMessage(HttpStatus.message(code));
+            this.response.setChunked(true);
+            this.response.closeHandler(event -> {
+                onClose.run();
+                responseClosed();
+            });
+        });
+    }
+
+    @Override
+    public void writeChunk(final byte[] chunk) {
+        pendingChunks.incrementAndGet();
+        onLoop(() -> {
+            pendingChunks.decrementAndGet();
+            this.response.write(new Buffer(chunk));
+        });
+    }
+
+    @Override
+    public void endChunks() {
+        onLoop(() -> {
+            this.response.end();
+            releaseRequestBody();
+            responseEnded();
+        });
+    }
+
+    @Override
+    public void abortChunks() {
+        onLoop(() -> {
+            this.response.close();
+            releaseRequestBody();
+            responseClosed();
+        });
+    }
+
+    /**
+     * Also full while chunks are still waiting for the event loop. Those are written before the drain check runs,
+     * so only Netty's queue matters by then.
+     */
+    @Override
+    public boolean isWriteQueueFull() {
+        return pendingChunks.get() >= MAX_PENDING_CHUNKS || this.response.writeQueueFull();
+    }
+
+    /**
+     * Runs on the event loop, after the chunks written before it.
+     * The drain handler can be called from the loop and from the registering thread, only the first call counts.
+     */
+    @Override
+    public void onDrain(final Runnable onDrain) {
+        onLoop(() -> drainThen(onDrain));
+    }
+
+    /**
+     * Chunks are all written from the event loop so chunks written by different threads can not pass each other
+     * in Netty's queue.
+     */
+    private void onLoop(final Runnable runnable) {
+        if (context == null) {
+            runnable.run();
+        } else {
+            context.runOnContext(event -> runnable.run());
+        }
+    }
+
+    private void drainThen(final Runnable onDrain) {
+        if (!this.response.writeQueueFull()) {
+            onDrain.run();
+            return;
+        }
+        final AtomicBoolean drained = new AtomicBoolean();
+        this.response.drainHandler(event -> {
+            if (drained.compareAndSet(false, true)) {
+                this.response.drainHandler(null);
+                onDrain.run();
+            }
+        });
+    }
+
+    private void responseEnded() {
+        if (onResponseEnd != null) {
+            onResponseEnd.run();
+        }
+    }
+
+    private void responseClosed() {
+        if (onResponseClosed != null) {
+            onResponseClosed.run();
+        }
+    }
+
+    private void releaseRequestBody() {
+        if (requestBody != null) {
+            requestBody.release();
+        }
     }
 
     private static Buffer createBuffer(Object body, HttpServerResponse response) {
@@ -26,14 +26,19 @@ import io.advantageous.qbit.http.request.HttpResponseDecorator;
 import io.advantageous.qbit.http.request.HttpRequest;
 import io.advantageous.qbit.http.request.HttpRequestBuilder;
 import io.advantageous.qbit.http.request.HttpResponseReceiver;
+import io.advantageous.qbit.http.request.SpooledBody;
 import io.advantageous.qbit.http.websocket.WebSocket;
 import io.advantageous.qbit.http.websocket.WebSocketSender;
+import io.advantageous.qbit.service.Protocol;
+import io.advantageous.qbit.util.FrameCompressor;
 import io.advantageous.qbit.util.MultiMap;
-import io.advantageous.qbit.util.MultiMapImpl;
+import io.advantageous.qbit.util.SmallMultiMap;
 import io.advantageous.qbit.util.Timer;
+import io.advantageous.qbit.vertx.FormAndQueryMultiMapWrapper;
 import io.advantageous.qbit.vertx.MultiMapWrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.vertx.java.core.Vertx;
 import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.http.HttpServerRequest;
 import org.vertx.java.core.http.HttpServerResponse;
@@ -41,6 +46,7 @@ import org.vertx.java.core.http.ServerWebSocket;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -54,6 +60,40 @@ public class VertxServerUtils {
     private AtomicLong requestId = new AtomicLong();
     private volatile long time;
 
+    /**
+     * Frames at least this big are deflated for WebSocket clients that ask for it, -1 never compresses.
+     */
+    private final int webSocketCompressionThreshold;
+
+    /**
+     * Most bytes a compressed frame may inflate to.
+     */
+    private final int maxWebSocketFrameSize;
+
+    /**
+     * Gives responses the event loop of their request, null if not known.
+     */
+    private final Vertx vertx;
+
+    public VertxServerUtils() {
+        this(-1);
+    }
+
+    public VertxServerUtils(final int webSocketCompressionThreshold) {
+        this(null, webSocketCompressionThreshold);
+    }
+
+    public VertxServerUtils(final Vertx vertx, final int webSocketCompressionThreshold) {
+        this(vertx, webSocketCompressionThreshold, Integer.MAX_VALUE);
+    }
+
+    public VertxServerUtils(final Vertx vertx, final int webSocketCompressionThreshold,
+                            final int maxWebSocketFrameSize) {
+        this.vertx = vertx;
+        this.webSocketCompressionThreshold = webSocketCompressionThreshold;
+        this.maxWebSocketFrameSize = maxWebSocketFrameSize;
+    }
+
 
     public void setTime(long time) {
         this.time = time;
@@ -62,18 +102,64 @@ public class VertxServerUtils {
     public HttpRequest createRequest(final HttpServerRequest request, final Buffer buffer,
                                      final CopyOnWriteArrayList<HttpResponseDecorator> decorators,
                                      final HttpResponseCreator httpResponseCreator) {
+        return createRequest(request, buffer, decorators, httpResponseCreator, null, null);
+    }
 
-        final MultiMap<String, String> headers = request.headers().size() == 0 ? MultiMap.empty() :
-                new MultiMapWrapper(request.headers());
+    /**
+     * @param onResponseEnd    run when the response is written, may be null
+     * @param onResponseClosed run when the connection closes before the response was written, may be null
+     */
+    public HttpRequest createRequest(final HttpServerRequest request, final Buffer buffer,
+                                     final CopyOnWriteArrayList<HttpResponseDecorator> decorators,
+                                     final HttpResponseCreator httpResponseCreator,
+                                     final Runnable onResponseEnd,
+                                     final Runnable onResponseClosed) {
 
         final String contentType = request.headers().get("Content-Type");
 
-
-
         final byte[] body = HttpContentTypes.isFormContentType(contentType) ||
                 buffer == null ?
                 new byte[0] : buffer.getBytes();
 
+        return createRequest(request, body, null, decorators, httpResponseCreator, onResponseEnd,
+                onResponseClosed);
+    }
+
+    /**
+     * Creates a request whose body was streamed in. The body is released once the response is written.
+     */
+    public HttpRequest createStreamedRequest(final HttpServerRequest request, final SpooledBody body,
+                                             final CopyOnWriteArrayList<HttpResponseDecorator> decorators,
+                                             final HttpResponseCreator httpResponseCreator) {
+
+        return createStreamedRequest(request, body, decorators, httpResponseCreator, null, null);
+    }
+
+    /**
+     * @param onResponseEnd    run when the response is written, may be null
+     * @param onResponseClosed run when the connection closes before the response was written, may be null
+     */
+    public HttpRequest createStreamedRequest(final HttpServerRequest request, final SpooledBody body,
+                                             final CopyOnWriteArrayList<HttpResponseDecorator> decorators,
+                                             final HttpResponseCreator httpResponseCreator,
+                                             final Runnable onResponseEnd,
+                                             final Runnable onResponseClosed) {
+
+        return createRequest(request, null, body, decorators, httpResponseCreator, onResponseEnd,
+                onResponseClosed);
+    }
+
+    private HttpRequest createRequest(final HttpServerRequest request, final byte[] body, final SpooledBody spooledBody,
+                                      final CopyOnWriteArrayList<HttpResponseDecorator> decorators,
+                                      final HttpResponseCreator httpResponseCreator,
+                                      final Runnable onResponseEnd,
+                                      final Runnable onResponseClosed) {
+
+        final MultiMap<String, String> headers = request.headers().size() == 0 ? MultiMap.empty() :
+                new MultiMapWrapper(request.headers());
+
+        final String contentType = request.headers().get("Content-Type");
+
         final MultiMap<String, String> params = buildParams(request, contentType);
 
         final HttpRequestBuilder httpRequestBuilder = HttpRequestBuilder.httpRequestBuilder();
@@ -82,9 +168,10 @@ public class VertxServerUtils {
 
         httpRequestBuilder.setId(requestId.incrementAndGet())
                 .setUri(requestPath).setMethod(request.method())
-                .setParams(params).setBodyBytes(body)
+                .setParams(params).setBodyBytes(body).setSpooledBody(spooledBody)
                 .setRemoteAddress(request.remoteAddress().toString())
-                .setResponse(createResponse(requestPath, headers, params, request.response(), decorators, httpResponseCreator))
+                .setResponse(createResponse(requestPath, headers, params, request.response(), decorators,
+                        httpResponseCreator, spooledBody, onResponseEnd, onResponseClosed))
                 .setTimestamp(time == 0L ? Timer.timer().now() : time)
                 .setHeaders(headers);
 
@@ -100,15 +187,7 @@ public class VertxServerUtils {
             if (request.params().size()==0) {
                 return new MultiMapWrapper(request.formAttributes());
             } else {
-                MultiMap<String, String> newParams = new MultiMapImpl<>();
-
-                request.formAttributes().forEach(entry ->
-                        newParams.add(entry.getKey(), entry.getValue()));
-
-                request.params().forEach(entry ->
-                        newParams.add(entry.getKey(), entry.getValue()));
-                return newParams;
-
+                return new FormAndQueryMultiMapWrapper(request.formAttributes(), request.params());
             }
         } else {
             return request.params().size() == 0 ? MultiMap.empty()
@@ -122,9 +201,13 @@ public class VertxServerUtils {
             final String requestPath,
             MultiMap<String, String> headers, MultiMap<String, String> params, final HttpServerResponse response,
             final CopyOnWriteArrayList<HttpResponseDecorator> decorators,
-            final HttpResponseCreator httpResponseCreator) {
+            final HttpResponseCreator httpResponseCreator,
+            final SpooledBody requestBody,
+            final Runnable onResponseEnd,
+            final Runnable onResponseClosed) {
 
-        return new VertxHttpResponseReceiver(requestPath, headers, params, response, decorators, httpResponseCreator);
+        return new VertxHttpResponseReceiver(requestPath, headers, params, response, decorators, httpResponseCreator,
+                requestBody, vertx == null ? null : vertx.currentContext(), onResponseEnd, onResponseClosed);
 
     }
 
@@ -138,18 +221,30 @@ public class VertxServerUtils {
                         vertxServerWebSocket.headers());
 
 
+        /* Compressed frames are only sent to and read from clients that asked for them. */
+        final boolean compress = webSocketCompressionThreshold >= 0 &&
+                FrameCompressor.DEFLATE.equals(vertxServerWebSocket.headers().get(FrameCompressor.HEADER));
+        final FrameCompressor compressor = compress ?
+                new FrameCompressor(webSocketCompressionThreshold, maxWebSocketFrameSize) : null;
+
         /* Create a websocket that uses vertxServerWebSocket to forwardEvent messages. */
         final WebSocket webSocket = webSocketBuilder().setUri(vertxServerWebSocket.uri())
                 .setRemoteAddress(vertxServerWebSocket.remoteAddress().toString())
                 .setWebSocketSender(new WebSocketSender() {
                     @Override
                     public void sendText(String message) {
-                        vertxServerWebSocket.writeTextFrame(message);
+                        final byte[] compressed = compress ? compressor.compress(message) : null;
+                        if (compressed != null) {
+                            vertxServerWebSocket.writeBinaryFrame(new Buffer(compressed));
+                        } else {
+                            vertxServerWebSocket.writeTextFrame(message);
+                        }
                     }
 
                     @Override
                     public void sendBytes(byte[] message) {
-                        vertxServerWebSocket.writeBinaryFrame(new Buffer(message));
+                        final byte[] compressed = compress ? compressor.compress(message) : null;
+                        vertxServerWebSocket.writeBinaryFrame(new Buffer(compressed != null ? compressed : message));
                     }
 
                     @Override
@@ -165,13 +260,38 @@ public class VertxServerUtils {
         webSocket.onOpen();
 
         /* Handle close. */
-        vertxServerWebSocket.closeHandler(event -> webSocket.onClose());
+        vertxServerWebSocket.closeHandler(event -> {
+            if (compressor != null) {
+                compressor.close();
+            }
+            webSocket.onClose();
+        });
 
 
         /* Handle message. */
         vertxServerWebSocket.dataHandler(buffer -> {
-            final String message = buffer.toString("UTF-8");
-            webSocket.onTextMessage(message);
+            /* Vert.x does not tell us the frame type here, binary and compressed frames start with their own marker. */
+            final int marker = buffer.length() > 0 ? buffer.getByte(0) : -1;
+            if (marker == Protocol.PROTOCOL_COMPRESSED_MARKER) {
+                final byte[] frame;
+                try {
+                    if (compressor == null) {
+                        throw new IllegalStateException("Compression was not negotiated");
+                    }
+                    frame = compressor.decompress(buffer.getBytes());
+                } catch (IllegalStateException ex) {
+                    logger.warn("Closing WebSocket " + vertxServerWebSocket.remoteAddress(), ex);
+                    webSocket.onError(ex);
+                    vertxServerWebSocket.close();
+                    return;
+                }
+                onFrame(webSocket, frame);
+            } else if (marker == Protocol.PROTOCOL_BINARY_MARKER) {
+                webSocket.onBinaryMessage(buffer.getBytes());
+            } else {
+                final String message = buffer.toString("UTF-8");
+                webSocket.onTextMessage(message);
+            }
         });
 
         /* Handle error. */
@@ -186,6 +306,14 @@ public class VertxServerUtils {
         return webSocket;
     }
 
+    private static void onFrame(final WebSocket webSocket, final byte[] frame) {
+        if (frame.length > 0 && frame[0] == Protocol.PROTOCOL_BINARY_MARKER) {
+            webSocket.onBinaryMessage(frame);
+        } else {
+            webSocket.onTextMessage(new String(frame, StandardCharsets.UTF_8));
+        }
+    }
+
     private MultiMap<String, String> paramMap(ServerWebSocket vertxServerWebSocket) {
         String query = vertxServerWebSocket.query();
         MultiMap<String, String> paramMap = MultiMap.empty();
@@ -194,7 +322,7 @@ public class VertxServerUtils {
             final String[] params = StringScanner.split(query, '&');
 
             if (params.length > 0) {
-                paramMap = new MultiMapImpl<>();
+                paramMap = new SmallMultiMap<>();
 
                 for (String param : params) {
                     final String[] keyValue = StringScanner.split(param, '=');
@@ -0,0 +1,55 @@
+package io.advantageous.qbit.vertx;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.vertx.java.core.http.CaseInsensitiveMultiMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FormAndQueryMultiMapWrapperTest {
+
+    private org.vertx.java.core.MultiMap formAttributes;
+    private org.vertx.java.core.MultiMap queryParams;
+    private FormAndQueryMultiMapWrapper params;
+
+    @Before
+    public void setUp() {
+        formAttributes = new CaseInsensitiveMultiMap();
+        queryParams = new CaseInsensitiveMultiMap();
+        formAttributes.add("name", "rick").add("tag", "a");
+        queryParams.add("tag", "b").add("tag", "c").add("page", "2");
+        params = new FormAndQueryMultiMapWrapper(formAttributes, queryParams);
+    }
+
+    @Test
+    public void testValues() {
+        assertEquals(Arrays.asList("rick", "a", "b", "c", "2"), new ArrayList<>(params.values()));
+
+        final List<String> values = new ArrayList<>();
+        params.valueMulti().forEach(values::add);
+        assertEquals(Arrays.asList("rick", "a", "b", "c", "2"), values);
+    }
+
+    @Test
+    public void testContainsValue() {
+        assertTrue(params.containsValue("rick"));
+        assertTrue(params.containsValue("c"));
+        assertFalse(params.containsValue("bob"));
+    }
+
+    @Test
+    public void testRemoveValueFrom() {
+        assertTrue(params.removeValueFrom("tag", "a"));
+        assertTrue(params.removeValueFrom("tag", "c"));
+        assertFalse(params.removeValueFrom("tag", "d"));
+        assertEquals(Arrays.asList("b"), params.getAll("tag"));
+
+        assertTrue(params.removeValueFrom("page", "2"));
+        assertFalse(params.containsKey("page"));
+        assertEquals(Arrays.asList("rick", "b"), new ArrayList<>(params.values()));
+    }
+}
@@ -0,0 +1,124 @@
+package io.advantageous.qbit.vertx.http;
+
+import io.advantageous.boon.core.Sys;
+import io.advantageous.qbit.http.AsyncHTTP;
+import io.advantageous.qbit.http.client.HttpClientPoolBuilder;
+import io.advantageous.qbit.http.request.HttpRequest;
+import io.advantageous.qbit.http.request.HttpTextResponse;
+import io.advantageous.qbit.http.server.AdmissionController;
+import io.advantageous.qbit.http.server.HttpServer;
+import io.advantageous.qbit.http.server.HttpServerBuilder;
+import io.advantageous.qbit.util.PortUtils;
+import io.advantageous.qbit.vertx.http.server.HttpServerVertx;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class AdmissionControlTest {
+
+    HttpServer server;
+    AsyncHTTP asyncHTTP;
+    AsyncHTTP heldHTTP;
+    int port;
+    final CopyOnWriteArrayList<HttpRequest> heldRequests = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() {
+
+        asyncHTTP = new AsyncHTTP(HttpClientPoolBuilder.httpClientPoolBuilder().build(),
+                HttpClientPoolBuilder.httpClientPoolBuilder().build(), 5_000);
+
+        /* Its own connection, so the other requests are not pipelined behind the held one. */
+        heldHTTP = new AsyncHTTP(HttpClientPoolBuilder.httpClientPoolBuilder().build(),
+                HttpClientPoolBuilder.httpClientPoolBuilder().build(), 5_000);
+    }
+
+    @After
+    public void tearDown() {
+        asyncHTTP.stop();
+        heldHTTP.stop();
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    private void startServer(final int maxConcurrentRequests) {
+
+        port = PortUtils.findOpenPortStartAt(6500);
+        final HttpServerBuilder httpServerBuilder = new HttpServerBuilder().setPort(port);
+        httpServerBuilder.getConfig().setMaxConcurrentRequests(maxConcurrentRequests);
+        server = httpServerBuilder.build();
+        server.setHttpRequestConsumer(request -> {
+            if (request.address().startsWith("/hold")) {
+                heldRequests.add(request);
+                return;
+            }
+            request.getReceiver().response(200, "application/json", "\"ok\"");
+        });
+        server.startServer();
+        Sys.sleep(500);
+    }
+
+    private void waitForHeldRequest() {
+        for (int index = 0; index < 100 && heldRequests.isEmpty(); index++) {
+            Sys.sleep(10);
+        }
+        assertEquals(1, heldRequests.size());
+    }
+
+    @Test
+    public void testRejectedBeforeBodyIsRead() throws Exception {
+
+        startServer(1);
+
+        final CompletableFuture<HttpTextResponse> held = heldHTTP.get("http://localhost:" + port + "/hold");
+        waitForHeldRequest();
+
+        final HttpTextResponse rejected = asyncHTTP.postJSON("http://localhost:" + port + "/echo", "{}")
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(429, rejected.code());
+
+        heldRequests.get(0).getReceiver().response(200, "application/json", "\"held\"");
+        assertEquals("\"held\"", held.get(5, TimeUnit.SECONDS).body());
+
+        final HttpTextResponse admitted = asyncHTTP.postJSON("http://localhost:" + port + "/echo", "{}")
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(200, admitted.code());
+    }
+
+    @Test
+    public void testDisconnectDoesNotFeedTheLimit() throws Exception {
+
+        startServer(20);
+        final AdmissionController admissionController = ((HttpServerVertx) server).getAdmissionController();
+
+        /* A fast response first, so a slow one would look like congestion. */
+        assertEquals(200, asyncHTTP.get("http://localhost:" + port + "/echo").get(5, TimeUnit.SECONDS).code());
+        assertEquals(20, admissionController.getLimit());
+
+        try (Socket socket = new Socket("localhost", port)) {
+            final OutputStream outputStream = socket.getOutputStream();
+            outputStream.write("GET /hold HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.UTF_8));
+            outputStream.flush();
+            waitForHeldRequest();
+            Sys.sleep(100);
+        }
+
+        for (int index = 0; index < 100 && admissionController.getInFlight() > 0; index++) {
+            Sys.sleep(10);
+        }
+        assertEquals(0, admissionController.getInFlight());
+
+        /* The client went away, that is not a slow response. */
+        assertEquals(20, admissionController.getLimit());
+    }
+}
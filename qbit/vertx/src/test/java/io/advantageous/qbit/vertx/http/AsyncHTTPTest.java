@@ -0,0 +1,182 @@
+package io.advantageous.qbit.vertx.http;
+
+import io.advantageous.boon.core.Sys;
+import io.advantageous.qbit.http.AsyncHTTP;
+import io.advantageous.qbit.http.client.HttpClient;
+import io.advantageous.qbit.http.client.HttpClientBuilder;
+import io.advantageous.qbit.http.client.HttpClientClosedConnectionException;
+import io.advantageous.qbit.http.client.HttpClientPoolBuilder;
+import io.advantageous.qbit.http.client.HttpClientTimeoutException;
+import io.advantageous.qbit.http.request.HttpRequestBuilder;
+import io.advantageous.qbit.http.request.HttpTextResponse;
+import io.advantageous.qbit.http.server.HttpServer;
+import io.advantageous.qbit.http.server.HttpServerBuilder;
+import io.advantageous.qbit.util.PortUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncHTTPTest {
+
+    HttpServer server;
+    AsyncHTTP asyncHTTP;
+    int port;
+
+    @Before
+    public void setUp() {
+
+        port = PortUtils.findOpenPortStartAt(6400);
+        server = new HttpServerBuilder().setPort(port).build();
+        server.setHttpRequestConsumer(request -> {
+            if (request.address().startsWith("/slow")) {
+                return;
+            }
+            request.getReceiver().response(200, "application/json",
+                    "\"" + request.getMethod() + " " + request.address() + " " + request.params().get("n") + " "
+                            + request.getBodyAsString() + "\"");
+        });
+        server.startServer();
+        Sys.sleep(500);
+
+        asyncHTTP = new AsyncHTTP(
+                HttpClientPoolBuilder.httpClientPoolBuilder().setMaxConnectionsPerHost(2).build(),
+                HttpClientPoolBuilder.httpClientPoolBuilder()
+                        .setHttpClientBuilder(HttpClientBuilder.httpClientBuilder().setSsl(true)).build(),
+                1_000);
+    }
+
+    @After
+    public void tearDown() {
+        asyncHTTP.stop();
+        server.stop();
+    }
+
+    @Test
+    public void testRequestsShareThePool() throws Exception {
+
+        final List<CompletableFuture<HttpTextResponse>> futures = new ArrayList<>();
+        for (int index = 0; index < 20; index++) {
+            futures.add(asyncHTTP.get("http://localhost:" + port + "/echo?n=" + index));
+        }
+        futures.add(asyncHTTP.postJSON("http://localhost:" + port + "/echo", "{}"));
+
+        for (int index = 0; index < 20; index++) {
+            final HttpTextResponse response = futures.get(index).get(5, TimeUnit.SECONDS);
+            assertEquals(200, response.code());
+            assertEquals("\"GET /echo " + index + " \"", response.body());
+        }
+        assertEquals("\"POST /echo null {}\"", futures.get(20).get(5, TimeUnit.SECONDS).body());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+
+        final CompletableFuture<HttpTextResponse> future = asyncHTTP.get("http://localhost:" + port + "/slow");
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof HttpClientTimeoutException);
+            return;
+        }
+        throw new AssertionError("expected a timeout");
+    }
+
+    @Test
+    public void testTimeoutsGiveBackTheirSlots() throws Exception {
+
+        /* Two connections, so two slots. */
+        final List<CompletableFuture<HttpTextResponse>> slow = new ArrayList<>();
+        for (int index = 0; index < 5; index++) {
+            slow.add(asyncHTTP.get("http://localhost:" + port + "/slow"));
+        }
+        for (CompletableFuture<HttpTextResponse> future : slow) {
+            try {
+                future.get(10, TimeUnit.SECONDS);
+                throw new AssertionError("expected a timeout");
+            } catch (ExecutionException ex) {
+                /* Or failed because another one timing out closed its connection. */
+                assertTrue(ex.getCause() instanceof HttpClientTimeoutException
+                        || ex.getCause() instanceof HttpClientClosedConnectionException);
+            }
+        }
+
+        final HttpTextResponse response = asyncHTTP.get("http://localhost:" + port + "/echo?n=1")
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(200, response.code());
+    }
+
+    @Test
+    public void testTimeoutFailsOnlyItsRequest() throws Exception {
+
+        final List<LogRecord> severe = new CopyOnWriteArrayList<>();
+        final Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                if (record.getLevel() == Level.SEVERE) {
+                    severe.add(record);
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        java.util.logging.Logger.getLogger("").addHandler(handler);
+
+        final HttpClient client = HttpClientBuilder.httpClientBuilder().setPort(port).setPoolSize(2)
+                .setAutoFlush(false).buildAndStart();
+        try {
+            final CompletableFuture<String> waiting = send(client, "/slow/waiting", -1);
+            final CompletableFuture<String> timedOut = send(client, "/slow/timedOut", 200);
+
+            assertTrue(cause(timedOut) instanceof HttpClientTimeoutException);
+
+            /* Its connections were closed under it, so it fails instead of waiting forever. */
+            assertTrue(cause(waiting) instanceof HttpClientClosedConnectionException);
+
+            assertFalse(client.isClosed());
+            assertEquals("\"GET /echo 2 \"", send(client, "/echo?n=2", 1_000).get(5, TimeUnit.SECONDS));
+
+            Sys.sleep(500);
+            assertTrue(severe.toString(), severe.isEmpty());
+        } finally {
+            java.util.logging.Logger.getLogger("").removeHandler(handler);
+            client.stop();
+        }
+    }
+
+    private static CompletableFuture<String> send(final HttpClient client, final String uri, final long timeout) {
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        client.sendHttpRequest(HttpRequestBuilder.httpRequestBuilder().setUri(uri)
+                .setTextReceiver((code, contentType, body) -> future.complete(body))
+                .setErrorHandler(future::completeExceptionally).build(), timeout);
+        return future;
+    }
+
+    private static Throwable cause(final CompletableFuture<?> future) throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException ex) {
+            return ex.getCause();
+        }
+        throw new AssertionError("expected an error");
+    }
+}
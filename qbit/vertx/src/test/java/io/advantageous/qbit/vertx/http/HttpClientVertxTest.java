@@ -161,6 +161,111 @@ public class HttpClientVertxTest extends TimedTesting {
     }
 
 
+    @Test
+    public void testCompressedWebSocketFrames() {
+
+        port = PortUtils.findOpenPortStartAt(port);
+
+        server = new HttpServerBuilder().setPort(port).withConfig(config -> {
+            config.setCompressionSupport(true);
+            config.setWebSocketCompressionThreshold(100);
+        }).build();
+        client = new HttpClientBuilder().setPort(port).setTryUseCompression(true).build();
+
+        requestReceived = new AtomicBoolean();
+        responseReceived = new AtomicBoolean();
+        port++;
+
+        final StringBuilder builder = new StringBuilder();
+        for (int index = 0; index < 500; index++) {
+            builder.append("bacon, cheese, pickles, ");
+        }
+        final String toppings = builder.toString();
+
+        server.setWebSocketMessageConsumer(webSocketMessage -> {
+            if (webSocketMessage.getMessage().equals("What do you want on your cheeseburger?")) {
+                webSocketMessage.getSender().sendText(toppings);
+            } else if (webSocketMessage.getMessage().equals(toppings + "!")) {
+                requestReceived.set(true);
+            }
+        });
+
+        run();
+
+        final WebSocket webSocket = client.createWebSocket("/services/cheeseburger");
+
+        webSocket.setTextMessageConsumer(message -> {
+            if (message.equals(toppings)) {
+                responseReceived.set(true);
+                /* The server sent a deflated frame so this one goes out deflated too. */
+                webSocket.sendText(toppings + "!");
+            }
+        });
+
+        webSocket.openAndWait();
+
+        webSocket.sendText("What do you want on your cheeseburger?");
+
+        validate();
+        stop();
+    }
+
+    @Test
+    public void testCompressedWebSocketFramesAfterReconnect() {
+
+        port = PortUtils.findOpenPortStartAt(port);
+
+        server = new HttpServerBuilder().setPort(port).withConfig(config -> {
+            config.setCompressionSupport(true);
+            config.setWebSocketCompressionThreshold(100);
+        }).build();
+        client = new HttpClientBuilder().setPort(port).setTryUseCompression(true).build();
+        port++;
+
+        final StringBuilder builder = new StringBuilder();
+        for (int index = 0; index < 500; index++) {
+            builder.append("bacon, cheese, pickles, ");
+        }
+        final String toppings = builder.toString();
+
+        final AtomicReference<WebSocket> serverSide = new AtomicReference<>();
+        server.setWebSocketOnOpenConsumer(serverWebSocket -> {
+            serverSide.set(serverWebSocket);
+            serverWebSocket.setTextMessageConsumer(message -> {
+                if (message.equals("What do you want on your cheeseburger?")) {
+                    serverWebSocket.sendText(toppings);
+                }
+            });
+        });
+
+        run();
+
+        final AtomicInteger toppingsReceived = new AtomicInteger();
+        final WebSocket webSocket = client.createWebSocket("/services/cheeseburger");
+        webSocket.setTextMessageConsumer(message -> {
+            if (message.equals(toppings)) {
+                toppingsReceived.incrementAndGet();
+            }
+        });
+
+        webSocket.openAndWait();
+        webSocket.sendText("What do you want on your cheeseburger?");
+        waitForTrigger(10, o -> toppingsReceived.get() == 1);
+        assertEquals(1, toppingsReceived.get());
+
+        serverSide.get().close();
+        waitForTrigger(10, o -> !webSocket.isOpen());
+        assertEquals(false, webSocket.isOpen());
+
+        /* Same socket, new connection, the old compressor was closed with the old connection. */
+        webSocket.openAndWait();
+        webSocket.sendText("What do you want on your cheeseburger?");
+        waitForTrigger(10, o -> toppingsReceived.get() == 2);
+        assertEquals(2, toppingsReceived.get());
+
+        stop();
+    }
+
     @Test
     public void testFormSend() throws Exception {
 
@@ -3,13 +3,20 @@ package io.advantageous.qbit.vertx.http.rest;
 import io.advantageous.boon.core.Sys;
 import io.advantageous.qbit.annotation.RequestMapping;
 import io.advantageous.qbit.annotation.RequestMethod;
+import io.advantageous.qbit.annotation.RequestParam;
 import io.advantageous.qbit.http.HTTP;
 import io.advantageous.qbit.server.EndpointServerBuilder;
 import io.advantageous.qbit.server.ServiceEndpointServer;
 import io.advantageous.qbit.util.PortUtils;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static junit.framework.Assert.assertEquals;
@@ -48,6 +55,11 @@ public class RestTests {
         public void addAll(List<DomainClass> domains) {
             ref.set(domains);
         }
+
+        @RequestMapping("/echo")
+        public String echo(@RequestParam("value") String value) {
+            return value;
+        }
     }
 
 
@@ -78,4 +90,31 @@ public class RestTests {
 
 
     }
+
+    @Test
+    public void testSeveralServerLoops() throws Exception {
+
+        int openPort = PortUtils.findOpenPort();
+        EndpointServerBuilder endpointServerBuilder = EndpointServerBuilder.endpointServerBuilder().setPort(openPort);
+        endpointServerBuilder.getHttpServerBuilder().setWorkers(4);
+        ServiceEndpointServer serviceEndpointServer = endpointServerBuilder.build();
+        serviceEndpointServer.initServices(new TestService());
+        serviceEndpointServer.start();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Future<String>> futures = new ArrayList<>();
+
+        for (int index = 0; index < 40; index++) {
+            final int value = index;
+            futures.add(executorService.submit(() -> HTTP.getJSON("http://localhost:" + openPort +
+                    "/services/testservice/echo?value=" + value, Collections.emptyMap())));
+        }
+
+        for (int index = 0; index < 40; index++) {
+            assertEquals("\"" + index + "\"", futures.get(index).get(10, TimeUnit.SECONDS));
+        }
+
+        executorService.shutdown();
+        serviceEndpointServer.stop();
+    }
 }
@@ -0,0 +1,160 @@
+package io.advantageous.qbit.vertx.http.rest;
+
+import io.advantageous.boon.core.Sys;
+import io.advantageous.qbit.annotation.RequestMapping;
+import io.advantageous.qbit.annotation.RequestMethod;
+import io.advantageous.qbit.http.HTTP;
+import io.advantageous.qbit.http.request.SpooledBody;
+import io.advantageous.qbit.server.EndpointServerBuilder;
+import io.advantageous.qbit.server.ServiceEndpointServer;
+import io.advantageous.qbit.util.PortUtils;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StreamedBodyTest {
+
+    static AtomicBoolean spilled = new AtomicBoolean();
+    static AtomicReference<List<Item>> added = new AtomicReference<>();
+
+    public static class Item {
+        int i;
+    }
+
+    @RequestMapping("/upload")
+    public static class UploadService {
+
+        @RequestMapping(value = "/sum", method = RequestMethod.POST)
+        public long sum(SpooledBody body) throws IOException {
+            try (SpooledBody spooledBody = body; InputStream inputStream = spooledBody.inputStream()) {
+                spilled.set(!spooledBody.isInMemory());
+                long sum = 0;
+                int read;
+                while ((read = inputStream.read()) != -1) {
+                    sum += read;
+                }
+                return sum;
+            }
+        }
+
+        @RequestMapping(value = "/add", method = RequestMethod.POST)
+        public void add(List<Item> items) {
+            added.set(items);
+        }
+    }
+
+    @Test
+    public void test() {
+
+        int openPort = PortUtils.findOpenPort();
+        EndpointServerBuilder endpointServerBuilder = EndpointServerBuilder.endpointServerBuilder().setPort(openPort);
+        endpointServerBuilder.getHttpServerBuilder().getConfig().setMaxInMemoryBodySize(1024);
+        ServiceEndpointServer serviceEndpointServer = endpointServerBuilder.build();
+        serviceEndpointServer.initServices(new UploadService());
+        serviceEndpointServer.start();
+        Sys.sleep(200);
+
+        StringBuilder builder = new StringBuilder();
+        long sum = 0;
+        for (int index = 0; index < 100_000; index++) {
+            char c = (char) ('a' + index % 26);
+            builder.append(c);
+            sum += c;
+        }
+
+        HTTP.Response response = HTTP.postBodyTextWithContentTypeReturnResponse("http://localhost:" + openPort +
+                "/services/upload/sum", "application/octet-stream", builder.toString());
+        assertEquals(200, response.status());
+        assertEquals(String.valueOf(sum), response.body());
+        assertTrue(spilled.get());
+
+        /* Methods that take the body as an object still get it read for them. */
+        response = HTTP.jsonRestCallViaPOST("http://localhost:" + openPort +
+                "/services/upload/add", "[{\"i\": 1}, {\"i\": 2}]");
+        assertEquals(202, response.status());
+
+        while (added.get() == null) {
+            Sys.sleep(10);
+        }
+        assertEquals(2, added.get().get(1).i);
+
+        serviceEndpointServer.stop();
+    }
+
+    @Test
+    public void testBodyLimits() throws Exception {
+
+        int openPort = PortUtils.findOpenPort();
+        EndpointServerBuilder endpointServerBuilder = EndpointServerBuilder.endpointServerBuilder().setPort(openPort);
+        endpointServerBuilder.getHttpServerBuilder().getConfig().setMaxInMemoryBodySize(1024);
+        endpointServerBuilder.getHttpServerBuilder().getConfig().setMaxBodySize(10_000);
+        ServiceEndpointServer serviceEndpointServer = endpointServerBuilder.build();
+        serviceEndpointServer.initServices(new UploadService());
+        serviceEndpointServer.start();
+        Sys.sleep(200);
+
+        try {
+            /* Spilled to disk and under the limit. */
+            spilled.set(false);
+            HTTP.Response response = HTTP.postBodyTextWithContentTypeReturnResponse("http://localhost:" + openPort +
+                    "/services/upload/sum", "application/octet-stream", body(5_000));
+            assertEquals(200, response.status());
+            assertEquals(String.valueOf(5_000 * (int) 'a'), response.body());
+            assertTrue(spilled.get());
+
+            /* Turned away from its Content-Length. */
+            assertEquals("HTTP/1.1 413", statusLine(openPort, "Content-Length: 20000\r\n", body(20_000)));
+
+            /* No Content-Length, turned away once too much came in. */
+            final StringBuilder chunked = new StringBuilder();
+            for (int index = 0; index < 20; index++) {
+                chunked.append(Integer.toHexString(1_000)).append("\r\n").append(body(1_000)).append("\r\n");
+            }
+            chunked.append("0\r\n\r\n");
+            assertEquals("HTTP/1.1 413", statusLine(openPort, "Transfer-Encoding: chunked\r\n", chunked.toString()));
+
+            assertEquals("HTTP/1.1 400", statusLine(openPort, "Content-Length: lots\r\n", ""));
+            assertEquals("HTTP/1.1 400", statusLine(openPort, "Content-Length: -5\r\n", ""));
+
+            /* The server still takes bodies after all that. */
+            response = HTTP.postBodyTextWithContentTypeReturnResponse("http://localhost:" + openPort +
+                    "/services/upload/sum", "application/octet-stream", body(2_000));
+            assertEquals(200, response.status());
+        } finally {
+            serviceEndpointServer.stop();
+        }
+    }
+
+    private static String body(final int length) {
+        final char[] chars = new char[length];
+        Arrays.fill(chars, 'a');
+        return new String(chars);
+    }
+
+    private static String statusLine(final int port, final String headers, final String body) throws IOException {
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setSoTimeout(5_000);
+            final OutputStream outputStream = socket.getOutputStream();
+            outputStream.write(("POST /services/upload/sum HTTP/1.1\r\nHost: localhost\r\n" +
+                    "Content-Type: application/octet-stream\r\n" + headers + "\r\n" + body)
+                    .getBytes(StandardCharsets.UTF_8));
+            outputStream.flush();
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.UTF_8));
+            return reader.readLine().substring(0, "HTTP/1.1 ".length() + 3);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package io.advantageous.qbit.vertx.http.rest;
+
+import io.advantageous.boon.core.Sys;
+import io.advantageous.boon.json.JsonFactory;
+import io.advantageous.qbit.annotation.RequestMapping;
+import io.advantageous.qbit.http.HTTP;
+import io.advantageous.qbit.http.request.HttpStreamingResponse;
+import io.advantageous.qbit.server.EndpointServerBuilder;
+import io.advantageous.qbit.server.ServiceEndpointServer;
+import io.advantageous.qbit.util.PortUtils;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class StreamingResponseTest {
+
+    public static class Row {
+        int id;
+        String name;
+
+        Row(int id) {
+            this.id = id;
+            this.name = "row " + id;
+        }
+    }
+
+    @RequestMapping("/export")
+    public static class ExportService {
+
+        @RequestMapping("/rows")
+        public HttpStreamingResponse rows() {
+            return HttpStreamingResponse.jsonArray(IntStream.range(0, 50_000).mapToObj(Row::new).iterator());
+        }
+
+        @RequestMapping("/lines")
+        public HttpStreamingResponse lines() {
+            return HttpStreamingResponse.ndjson(IntStream.range(0, 1_000).mapToObj(Row::new).iterator());
+        }
+    }
+
+    @Test
+    public void test() {
+
+        int openPort = PortUtils.findOpenPortStartAt(6200);
+        ServiceEndpointServer serviceEndpointServer = EndpointServerBuilder.endpointServerBuilder()
+                .setPort(openPort).build();
+        serviceEndpointServer.initServices(new ExportService());
+        serviceEndpointServer.start();
+        Sys.sleep(200);
+
+        String json = HTTP.getJSON("http://localhost:" + openPort + "/services/export/rows", Collections.emptyMap());
+        List<Row> rows = JsonFactory.fromJsonArray(json, Row.class);
+        assertEquals(50_000, rows.size());
+        assertEquals("row 49999", rows.get(49_999).name);
+
+        String lines = HTTP.getJSON("http://localhost:" + openPort + "/services/export/lines", Collections.emptyMap());
+        String[] split = lines.split("\n");
+        assertEquals(1_000, split.length);
+        assertEquals(999, JsonFactory.fromJson(split[999], Row.class).id);
+
+        serviceEndpointServer.stop();
+    }
+}